@@ -1,13 +1,31 @@
 package com.iyzico.challenge.integrator;
 
+import com.iyzico.challenge.integrator.properties.BarcodeIndexProperties;
 import com.iyzico.challenge.integrator.properties.IyzicoProperties;
+import com.iyzico.challenge.integrator.properties.LockProperties;
+import com.iyzico.challenge.integrator.properties.LoginProperties;
+import com.iyzico.challenge.integrator.properties.RateLimitProperties;
+import com.iyzico.challenge.integrator.properties.RedisClientProperties;
+import com.iyzico.challenge.integrator.properties.SessionCacheProperties;
+import com.iyzico.challenge.integrator.properties.SessionTokenProperties;
+import com.iyzico.challenge.integrator.properties.SessionTouchProperties;
+import com.iyzico.challenge.integrator.properties.StockStreamProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.gson.GsonAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @EnableConfigurationProperties({
-        IyzicoProperties.class
+        IyzicoProperties.class,
+        LockProperties.class,
+        BarcodeIndexProperties.class,
+        StockStreamProperties.class,
+        SessionCacheProperties.class,
+        SessionTouchProperties.class,
+        SessionTokenProperties.class,
+        LoginProperties.class,
+        RedisClientProperties.class,
+        RateLimitProperties.class
 })
 @SpringBootApplication(exclude = {
         GsonAutoConfiguration.class
@@ -1,5 +1,6 @@
 package com.iyzico.challenge.integrator.config;
 
+import com.iyzico.challenge.integrator.service.ratelimit.RateLimiter;
 import com.iyzico.challenge.integrator.session.SecurityInterceptor;
 import com.iyzico.challenge.integrator.session.annotation.UserArgumentResolver;
 import org.springframework.context.annotation.Configuration;
@@ -14,9 +15,15 @@ import java.util.List;
 @EnableTransactionManagement
 @Configuration
 public class MainConfig implements WebMvcConfigurer {
+    private final RateLimiter rateLimiter;
+
+    public MainConfig(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(new SecurityInterceptor());
+        registry.addInterceptor(new SecurityInterceptor(rateLimiter));
     }
 
     @Override
@@ -0,0 +1,43 @@
+package com.iyzico.challenge.integrator.config;
+
+import com.iyzico.challenge.integrator.properties.RedisClientProperties;
+import com.iyzico.challenge.integrator.service.SessionCache;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+@Configuration
+public class RedisConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       SessionCache sessionCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(sessionCache, new ChannelTopic(SessionCache.CHANNEL));
+        return container;
+    }
+
+    // the shared lettuce connection multiplexes every request thread, so it is tuned instead of pooled
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer redisClientCustomizer(RedisClientProperties properties) {
+        return builder -> builder.clientOptions(ClientOptions.builder()
+                .requestQueueSize(properties.getRequestQueueSize())
+                .disconnectedBehavior(properties.isRejectWhenDisconnected()
+                        ? ClientOptions.DisconnectedBehavior.REJECT_COMMANDS
+                        : ClientOptions.DisconnectedBehavior.DEFAULT)
+                .socketOptions(SocketOptions.builder()
+                        .tcpNoDelay(properties.isTcpNoDelay())
+                        .keepAlive(properties.isKeepAlive())
+                        .connectTimeout(Duration.ofMillis(properties.getConnectTimeoutMillis()))
+                        .build())
+                .build());
+    }
+}
@@ -10,8 +10,6 @@ import com.iyzico.challenge.integrator.session.annotation.IntegratorSession;
 import com.iyzico.challenge.integrator.session.model.ApiSession;
 import com.iyzico.challenge.integrator.session.wrapper.ApiSessionRequestWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -33,13 +31,13 @@ public class AuthController {
         this.userMapper = userMapper;
     }
 
+    // no transaction, the user is read in a short one and neither the password check nor the session write holds
+    // a connection. the login columns are written in batches by the UserLoginWriter
     @RequestMapping(path = "/login", method = RequestMethod.POST)
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public UserDto login(@RequestBody @Valid LoginRequest request,
                          @ApiIgnore ApiSessionRequestWrapper sessionRequest) {
         User user = authService.getUser(request.getUsername(), request.getPassword());
         sessionRequest.createSession(user);
-        authService.markAsLoggedIn(user, sessionRequest.getRequestedSessionId());
         return userMapper.map(user);
     }
 
@@ -36,7 +36,6 @@ public class BasketController {
             notes = "Adds given item to the basket"
     )
     @RequestMapping(method = RequestMethod.PUT)
-    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Throwable.class)
     public void add(@RequestBody @Validated AddProductToTheBasketRequest request,
                     @ApiIgnore @IntegratorSession ApiSession session) {
 
@@ -48,7 +47,6 @@ public class BasketController {
             notes = "Deletes given item from the basket"
     )
     @RequestMapping(value = "/{basketProductId}", method = RequestMethod.DELETE)
-    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Throwable.class)
     public void delete(@PathVariable long basketProductId,
                        @ApiIgnore @IntegratorSession ApiSession session) {
 
@@ -1,29 +1,56 @@
 package com.iyzico.challenge.integrator.controller;
 
-import com.iyzico.challenge.integrator.data.service.ProductService;
 import com.iyzico.challenge.integrator.dto.ListResponse;
+import com.iyzico.challenge.integrator.dto.PageResponse;
 import com.iyzico.challenge.integrator.dto.product.ProductDto;
-import com.iyzico.challenge.integrator.mapper.ProductMapper;
+import com.iyzico.challenge.integrator.dto.product.ProductSort;
+import com.iyzico.challenge.integrator.service.ProductCatalogService;
+import com.iyzico.challenge.integrator.service.barcode.BarcodeLookupService;
+import com.iyzico.challenge.integrator.service.snapshot.CatalogSnapshot;
+import com.iyzico.challenge.integrator.service.snapshot.CatalogSnapshotService;
+import com.iyzico.challenge.integrator.service.search.ProductSearchService;
+import com.iyzico.challenge.integrator.service.stock.StockStreamService;
 import com.iyzico.challenge.integrator.session.SecuredEndpoint;
+import com.iyzico.challenge.integrator.util.HttpUtils;
 import io.swagger.annotations.ApiOperation;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import springfox.documentation.annotations.ApiIgnore;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
 
 @RestController
 @SecuredEndpoint
 @RequestMapping("product")
 public class ProductController {
-    private final ProductMapper mapper;
-    private final ProductService service;
+    private final ProductCatalogService catalogService;
+    private final ProductSearchService searchService;
+    private final BarcodeLookupService barcodeLookupService;
+    private final CatalogSnapshotService snapshotService;
+    private final StockStreamService stockStreamService;
 
-    public ProductController(ProductMapper mapper,
-                             ProductService service) {
-        this.mapper = mapper;
-        this.service = service;
+    public ProductController(ProductCatalogService catalogService,
+                             ProductSearchService searchService,
+                             BarcodeLookupService barcodeLookupService,
+                             CatalogSnapshotService snapshotService,
+                             StockStreamService stockStreamService) {
+        this.catalogService = catalogService;
+        this.searchService = searchService;
+        this.barcodeLookupService = barcodeLookupService;
+        this.snapshotService = snapshotService;
+        this.stockStreamService = stockStreamService;
     }
 
     @ApiOperation(
@@ -31,19 +58,100 @@ public class ProductController {
             notes = "Gets an existing product"
     )
     @RequestMapping(value = "/{id}", method = RequestMethod.GET)
-    @Transactional(propagation = Propagation.REQUIRES_NEW, noRollbackFor = Throwable.class, readOnly = true)
-    public ProductDto get(@PathVariable("id") long id) {
-        return mapper.mapWithDescription(service.getPublishedItem(id));
+    public ProductDto get(@PathVariable("id") long id,
+                          @ApiIgnore WebRequest request) {
+        // the stamp is read before the item, a change in between is sent with the older tag and fetched again
+        Long stamp = catalogService.getItemStamp(id);
+        if (stamp != null && request.checkNotModified(ProductCatalogService.etag(id, stamp))) {
+            return null;
+        }
+
+        ProductDto product = catalogService.getPublishedItem(id);
+        if (stamp == null) {
+            stamp = catalogService.createItemStamp(id);
+            if (stamp != null && request.checkNotModified(ProductCatalogService.etag(id, stamp))) {
+                return null;
+            }
+        }
+
+        return product;
+    }
+
+    @ApiOperation(
+            value = "Get Product By Barcode",
+            notes = "Gets an existing product by its barcode"
+    )
+    @RequestMapping(value = "/barcode/{barcode:.+}", method = RequestMethod.GET)
+    public ProductDto getByBarcode(@PathVariable("barcode") String barcode) {
+        return barcodeLookupService.getPublishedItem(barcode);
     }
 
     @ApiOperation(
             value = "Get All Product",
-            notes = "Gets all of the existing products"
+            notes = "Gets all of the existing products",
+            response = ListResponse.class
     )
-    @RequestMapping(value = "/all", method = RequestMethod.GET)
-    public ListResponse<ProductDto> getAll() {
-        return new ListResponse<>(
-                mapper.map(service.getAllPublishedItems())
-        );
+    @RequestMapping(value = "/all", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public void getAll(@ApiIgnore HttpServletRequest request,
+                       @ApiIgnore HttpServletResponse response) throws IOException {
+        CatalogSnapshot snapshot = snapshotService.getSnapshot();
+        boolean gzipped = HttpUtils.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (new ServletWebRequest(request, response).checkNotModified(snapshot.getEtag(gzipped), snapshot.getCreatedAt())) {
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        if (gzipped) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        response.setContentLength(snapshot.getLength(gzipped));
+        snapshot.writeTo(response.getOutputStream(), gzipped);
+    }
+
+    @ApiOperation(
+            value = "Get Product Page",
+            notes = "Gets a page of the existing products, the next page is requested with the returned cursor"
+    )
+    @RequestMapping(value = "/page", method = RequestMethod.GET)
+    public PageResponse<ProductDto> getPage(@RequestParam(value = "after", required = false) String after,
+                                            @RequestParam(value = "size", defaultValue = "50") int size,
+                                            @RequestParam(value = "sort", defaultValue = "ID") ProductSort sort,
+                                            @RequestParam(value = "status", required = false) ProductDto.Status status,
+                                            @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+                                            @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+                                            @ApiIgnore WebRequest request) {
+        if (isCatalogNotModified(request)) {
+            return null;
+        }
+
+        return catalogService.getPublishedPage(sort, after, size, status, minPrice, maxPrice);
+    }
+
+    @ApiOperation(
+            value = "Search Product",
+            notes = "Searches the published products by name, barcode and description. Every word of the query is matched as a prefix"
+    )
+    @RequestMapping(value = "/search", method = RequestMethod.GET)
+    public ListResponse<ProductDto> search(@RequestParam("q") String query,
+                                           @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return new ListResponse<>(searchService.search(query, limit));
+    }
+
+    @ApiOperation(
+            value = "Watch Stock Levels",
+            notes = "Streams the stock levels of the given products as server sent events, the current levels are sent first"
+    )
+    @RequestMapping(value = "/stock", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter watchStock(@RequestParam("ids") List<Long> ids) {
+        return stockStreamService.subscribe(ids);
+    }
+
+    // the version is read before the body, a change in between is sent with the older tag and fetched again on the next poll
+    private boolean isCatalogNotModified(WebRequest request) {
+        long catalogVersion = catalogService.getCatalogVersion();
+        return request.checkNotModified(ProductCatalogService.catalogEtag(catalogVersion), catalogVersion);
     }
 }
@@ -6,9 +6,13 @@ import com.iyzico.challenge.integrator.dto.BadRequestResponse;
 import com.iyzico.challenge.integrator.dto.ErrorCode;
 import com.iyzico.challenge.integrator.exception.BaseIntegratorException;
 import com.iyzico.challenge.integrator.exception.ResourceNotFoundException;
+import com.iyzico.challenge.integrator.exception.TooManyRequestsException;
 import com.iyzico.challenge.integrator.exception.auth.AuthorizationException;
+import com.iyzico.challenge.integrator.exception.auth.LoginUnavailableException;
+import com.iyzico.challenge.integrator.service.ratelimit.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
@@ -18,6 +22,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import javax.servlet.http.HttpServletResponse;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
@@ -88,6 +93,21 @@ public class ErrorAdvice {
         return new BadRequestResponse(e.getErrorCode(), e.getMessage());
     }
 
+    @ResponseBody
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(LoginUnavailableException.class)
+    public BadRequestResponse handle(LoginUnavailableException e) {
+        return new BadRequestResponse(e.getErrorCode(), e.getMessage());
+    }
+
+    @ResponseBody
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    @ExceptionHandler(TooManyRequestsException.class)
+    public BadRequestResponse handle(TooManyRequestsException e, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, RateLimiter.RETRY_AFTER_SECONDS);
+        return new BadRequestResponse(e.getErrorCode(), e.getMessage());
+    }
+
     private String getFieldPath(InvalidFormatException e) {
         StringBuilder path = new StringBuilder();
         for (JsonMappingException.Reference reference : e.getPath()) {
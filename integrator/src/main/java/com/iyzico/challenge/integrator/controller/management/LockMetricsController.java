@@ -0,0 +1,36 @@
+package com.iyzico.challenge.integrator.controller.management;
+
+import com.iyzico.challenge.integrator.dto.lock.LockMetricsDto;
+import com.iyzico.challenge.integrator.service.hazelcast.metrics.LockMetrics;
+import com.iyzico.challenge.integrator.session.SecuredEndpoint;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@SecuredEndpoint(requireAdminPermission = true)
+@RequestMapping("management/lock")
+public class LockMetricsController {
+    private static final int MAX_TOP = 100;
+
+    private final LockMetrics metrics;
+
+    public LockMetricsController(LockMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @ApiOperation(
+            value = "Get Lock Metrics",
+            notes = "Gets wait/hold time histograms per lock prefix and the most contended keys of the last window"
+    )
+    @RequestMapping(value = "/metrics", method = RequestMethod.GET)
+    public LockMetricsDto get(@RequestParam(value = "top", defaultValue = "10") int top) {
+        LockMetricsDto dto = new LockMetricsDto();
+        dto.setWindowSeconds(metrics.getWindowSeconds());
+        dto.setPrefixes(metrics.getPrefixes());
+        dto.setMostContendedKeys(metrics.getMostContendedKeys(Math.max(0, Math.min(top, MAX_TOP))));
+        return dto;
+    }
+}
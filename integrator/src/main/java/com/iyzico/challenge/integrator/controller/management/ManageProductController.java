@@ -1,15 +1,25 @@
 package com.iyzico.challenge.integrator.controller.management;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.iyzico.challenge.integrator.data.entity.Product;
 import com.iyzico.challenge.integrator.data.service.ProductService;
-import com.iyzico.challenge.integrator.dto.ListResponse;
 import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.dto.product.ProductImportResult;
 import com.iyzico.challenge.integrator.dto.product.request.CreateProductRequest;
 import com.iyzico.challenge.integrator.dto.product.request.UpdateProductRequest;
 import com.iyzico.challenge.integrator.mapper.ProductMapper;
+import com.iyzico.challenge.integrator.service.importer.CsvProductRowReader;
+import com.iyzico.challenge.integrator.service.importer.NdjsonProductRowReader;
+import com.iyzico.challenge.integrator.service.importer.ProductImportService;
+import com.iyzico.challenge.integrator.service.importer.ProductRowReader;
 import com.iyzico.challenge.integrator.session.SecuredEndpoint;
 import com.iyzico.challenge.integrator.session.annotation.IntegratorSession;
 import com.iyzico.challenge.integrator.session.model.ApiSession;
 import io.swagger.annotations.ApiOperation;
+import org.springframework.http.MediaType;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
@@ -17,21 +27,46 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import springfox.documentation.annotations.ApiIgnore;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 @RestController
 @SecuredEndpoint(requireAdminPermission = true)
 @RequestMapping("management/product")
 public class ManageProductController {
+    static final String TEXT_CSV_VALUE = "text/csv";
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
 
     private final ProductMapper mapper;
     private final ProductService service;
+    private final ProductImportService importService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
 
     public ManageProductController(ProductMapper mapper,
-                                   ProductService service) {
+                                   ProductService service,
+                                   ProductImportService importService,
+                                   ObjectMapper objectMapper) {
         this.mapper = mapper;
         this.service = service;
+        this.importService = importService;
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @ApiOperation(
@@ -50,11 +85,24 @@ public class ManageProductController {
             notes = "Updates an existing product"
     )
     @RequestMapping(method = RequestMethod.POST)
-    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Throwable.class)
     public ProductDto update(@RequestBody @Validated UpdateProductRequest request) {
         return mapper.mapWithDescription(service.update(request.getId(), request.getBarcode(), request.getName(), request.getStockCount(), request.getPrice(), request.getDescription()));
     }
 
+    @ApiOperation(
+            value = "Import Products",
+            notes = "Creates or updates the products of a csv or newline delimited json body by their barcodes"
+    )
+    @RequestMapping(value = "/import", method = RequestMethod.POST, consumes = {TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE})
+    public ProductImportResult importProducts(@ApiIgnore HttpServletRequest request,
+                                              @ApiIgnore @IntegratorSession ApiSession session) throws IOException {
+        Reader body = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8);
+        boolean csv = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(TEXT_CSV);
+        try (ProductRowReader reader = csv ? new CsvProductRowReader(body) : new NdjsonProductRowReader(body, objectMapper)) {
+            return importService.importProducts(session.getUser(), reader);
+        }
+    }
+
     @ApiOperation(
             value = "Publish Product",
             notes = "Publishes an existing product for sale"
@@ -87,25 +135,63 @@ public class ManageProductController {
 
     @ApiOperation(
             value = "Get All Product",
-            notes = "Gets all of the existing products"
+            notes = "Gets all of the existing products",
+            response = ProductDto.class,
+            responseContainer = "List"
     )
-    @RequestMapping(value = "/all", method = RequestMethod.GET)
+    @RequestMapping(value = "/all", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Throwable.class, readOnly = true)
-    public ListResponse<ProductDto> getAll() {
-        return new ListResponse<>(
-                mapper.map(service.getAllItems())
-        );
+    public void getAll(@RequestParam(value = "withDescription", defaultValue = "false") boolean withDescription,
+                       @ApiIgnore HttpServletResponse response) throws IOException {
+        try (Stream<Product> products = service.streamAllItems()) {
+            writeItems(products, withDescription, response);
+        }
     }
 
     @ApiOperation(
             value = "Get Unpublised Product",
-            notes = "Gets all of the unpublished products"
+            notes = "Gets all of the unpublished products",
+            response = ProductDto.class,
+            responseContainer = "List"
     )
-    @RequestMapping(value = "/all/unpublised", method = RequestMethod.GET)
+    @RequestMapping(value = "/all/unpublised", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Throwable.class, readOnly = true)
-    public ListResponse<ProductDto> getUnpublishedProducts() {
-        return new ListResponse<>(mapper.map(service.getAllUnpublishedItems())
-        );
+    public void getUnpublishedProducts(@RequestParam(value = "withDescription", defaultValue = "false") boolean withDescription,
+                                       @ApiIgnore HttpServletResponse response) throws IOException {
+        try (Stream<Product> products = service.streamAllUnpublishedItems()) {
+            writeItems(products, withDescription, response);
+        }
     }
 
+    // writes the same body as ListResponse, one row at a time. descriptions are loaded with one query per batch
+    private void writeItems(Stream<Product> products, boolean withDescription, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        try (JsonGenerator generator = writer.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("items");
+
+            Iterator<Product> iterator = products.iterator();
+            List<Product> batch = new ArrayList<>(ProductService.DESCRIPTION_BATCH_SIZE);
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                if (!withDescription) {
+                    writer.writeValue(generator, mapper.map(product));
+                    continue;
+                }
+
+                batch.add(product);
+                if (batch.size() == ProductService.DESCRIPTION_BATCH_SIZE || !iterator.hasNext()) {
+                    Map<Long, String> descriptions = service.getDescriptions(batch.stream().map(Product::getId).collect(Collectors.toList()));
+                    for (ProductDto dto : mapper.map(batch, descriptions)) {
+                        writer.writeValue(generator, dto);
+                    }
+
+                    batch.clear();
+                }
+            }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
 }
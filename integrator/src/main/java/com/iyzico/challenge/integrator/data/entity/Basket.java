@@ -16,6 +16,7 @@ import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.persistence.Transient;
+import javax.persistence.Version;
 import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Set;
@@ -29,6 +30,9 @@ public class Basket {
     private long userId;
     private Status status;
     private BigDecimal total = null;
+    private long version;
+
+    private long fencingToken;
 
     private User user;
     private Set<BasketProduct> products = new HashSet<>();
@@ -69,6 +73,26 @@ public class Basket {
         this.status = status;
     }
 
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Basic
+    @Column(name = "fencing_token", updatable = false, columnDefinition = "bigint default 0 not null")
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public void setFencingToken(long fencingToken) {
+        this.fencingToken = fencingToken;
+    }
+
     @ManyToOne(targetEntity = User.class, fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     public User getUser() {
@@ -12,6 +12,7 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 import javax.persistence.Transient;
+import javax.persistence.Version;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -23,6 +24,7 @@ public class BasketProduct implements Comparable<BasketProduct> {
     private long productId;
     private int count;
     private LocalDateTime createTime;
+    private long version;
 
     private Basket basket;
     private Product product;
@@ -78,6 +80,16 @@ public class BasketProduct implements Comparable<BasketProduct> {
         this.createTime = createTime;
     }
 
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @ManyToOne(targetEntity = Basket.class, fetch = FetchType.LAZY)
     @JoinColumn(name = "basket_id", referencedColumnName = "id")
     public Basket getBasket() {
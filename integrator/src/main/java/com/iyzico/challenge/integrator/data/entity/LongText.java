@@ -6,12 +6,15 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.Table;
 import java.io.Serializable;
 
 @Entity
-@Table(name = "long_text")
+@Table(name = "long_text", indexes = {
+        @Index(columnList = "table_name,record_id,column_name", name = "idx_long_text___table_name__record_id__column_name")
+})
 public class LongText implements Serializable {
     private long id;
     private String table;
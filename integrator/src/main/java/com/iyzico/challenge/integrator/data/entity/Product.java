@@ -20,6 +20,7 @@ import javax.persistence.MapKey;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.persistence.Transient;
+import javax.persistence.Version;
 import javax.validation.constraints.Min;
 import java.math.BigDecimal;
 import java.util.HashMap;
@@ -30,11 +31,14 @@ import static com.iyzico.challenge.integrator.util.Constant.DB_SCALE;
 
 @Entity
 @Table(name = Product.TABLE_NAME, indexes = {
-        @Index(columnList = "status", name = "idx_product___status")
+        @Index(columnList = "status", name = "idx_product___status"),
+        @Index(columnList = "name,id", name = "idx_product___name__id"),
+        @Index(columnList = "barcode", name = Product.BARCODE_INDEX_NAME, unique = true)
 })
 public class Product {
     public static final String TABLE_NAME = "product";
     public static final String DESCRIPTION_COLUMN_NAME = "description";
+    public static final String BARCODE_INDEX_NAME = "uk_product___barcode";
     private long id;
     private String name;
     private long userId;
@@ -49,6 +53,9 @@ public class Product {
     @Where(clause = "table_name = '" + TABLE_NAME + "'")
     private Map<String, LongText> longTexts = new HashMap<>();
 
+    private long version;
+    private long fencingToken;
+
     private User user;
 
     public enum Status {
@@ -120,14 +127,34 @@ public class Product {
 
     @Basic
     @Column(name = "barcode", length = 32, nullable = false)
+    public String getBarcode() {
+        return barcode;
+    }
+
     public void setBarcode(String barcode) {
         this.barcode = barcode;
     }
 
-    public String getBarcode() {
-        return barcode;
+
+    @Version
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
     }
 
+    @Basic
+    @Column(name = "fencing_token", updatable = false, columnDefinition = "bigint default 0 not null")
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public void setFencingToken(long fencingToken) {
+        this.fencingToken = fencingToken;
+    }
 
     @ManyToOne(targetEntity = User.class, fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
@@ -0,0 +1,20 @@
+package com.iyzico.challenge.integrator.data.event;
+
+import java.util.Collection;
+import java.util.Collections;
+
+public class ProductChangedEvent {
+    private final Collection<Long> productIds;
+
+    public ProductChangedEvent(long productId) {
+        this(Collections.singleton(productId));
+    }
+
+    public ProductChangedEvent(Collection<Long> productIds) {
+        this.productIds = Collections.unmodifiableCollection(productIds);
+    }
+
+    public Collection<Long> getProductIds() {
+        return productIds;
+    }
+}
@@ -0,0 +1,15 @@
+package com.iyzico.challenge.integrator.data.event;
+
+import com.iyzico.challenge.integrator.data.entity.User;
+
+public class UserChangedEvent {
+    private final User user;
+
+    public UserChangedEvent(User user) {
+        this.user = user;
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
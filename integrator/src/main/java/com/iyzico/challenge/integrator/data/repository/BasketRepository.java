@@ -1,6 +1,7 @@
 package com.iyzico.challenge.integrator.data.repository;
 
 import com.iyzico.challenge.integrator.data.entity.Basket;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
@@ -20,4 +21,13 @@ public interface BasketRepository extends CrudRepository<Basket, Long> {
             "   and b.status in :status ")
     Basket findFirstByUserIdAndStatusWithBasketContent(@Param("userId") long userId,
                                                        @Param("status") List<Basket.Status> statuses);
+
+    @Modifying
+    @Query("" +
+            " update Basket b " +
+            "    set b.fencingToken = :token " +
+            "  where b.id = :id " +
+            "    and b.fencingToken < :token ")
+    int fence(@Param("id") long id,
+              @Param("token") long token);
 }
@@ -0,0 +1,22 @@
+package com.iyzico.challenge.integrator.data.repository;
+
+import com.iyzico.challenge.integrator.data.entity.LongText;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LongTextRepository extends CrudRepository<LongText, Long> {
+    @Query("" +
+            " from LongText t " +
+            " where t.table = :table " +
+            "   and t.columnName = :columnName " +
+            "   and t.recordId in :recordIds ")
+    List<LongText> findAllByRecordIds(@Param("table") String table,
+                                      @Param("columnName") String columnName,
+                                      @Param("recordIds") Collection<String> recordIds);
+}
@@ -0,0 +1,7 @@
+package com.iyzico.challenge.integrator.data.repository;
+
+public interface ProductBarcode {
+    long getId();
+
+    String getBarcode();
+}
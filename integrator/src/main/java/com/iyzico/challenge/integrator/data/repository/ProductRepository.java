@@ -1,13 +1,78 @@
 package com.iyzico.challenge.integrator.data.repository;
 
 import com.iyzico.challenge.integrator.data.entity.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    String STREAM_FETCH_SIZE = "500";
+
     Iterable<Product> findAllByStatusNot(Product.Status status);
 
-    Iterable<Product> findAllByStatus(Product.Status status);
+    Optional<Product> findByBarcode(String barcode);
+
+    boolean existsByBarcode(String barcode);
+
+    boolean existsByBarcodeAndIdNot(String barcode, long id);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(" select p.id as id, p.barcode as barcode from Product p ")
+    Stream<ProductBarcode> streamAllBarcodes();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(" from Product p order by p.id ")
+    Stream<Product> streamAll();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(" from Product p where p.status = :status order by p.id ")
+    Stream<Product> streamAllByStatus(@Param("status") Product.Status status);
+
+    @Query("" +
+            " from Product p " +
+            " where p.status in :statuses " +
+            "   and p.price between :minPrice and :maxPrice " +
+            "   and p.id > :afterId " +
+            " order by p.id ")
+    List<Product> findPageOrderById(@Param("afterId") long afterId,
+                                    @Param("statuses") Collection<Product.Status> statuses,
+                                    @Param("minPrice") BigDecimal minPrice,
+                                    @Param("maxPrice") BigDecimal maxPrice,
+                                    Pageable pageable);
+
+    @Query("" +
+            " from Product p " +
+            " where p.status in :statuses " +
+            "   and p.price between :minPrice and :maxPrice " +
+            "   and (p.name > :afterName or (p.name = :afterName and p.id > :afterId)) " +
+            " order by p.name, p.id ")
+    List<Product> findPageOrderByName(@Param("afterName") String afterName,
+                                      @Param("afterId") long afterId,
+                                      @Param("statuses") Collection<Product.Status> statuses,
+                                      @Param("minPrice") BigDecimal minPrice,
+                                      @Param("maxPrice") BigDecimal maxPrice,
+                                      Pageable pageable);
 
+    @Modifying
+    @Query("" +
+            " update Product p " +
+            "    set p.fencingToken = :token " +
+            "  where p.id in :ids " +
+            "    and p.fencingToken < :token ")
+    int fence(@Param("ids") Collection<Long> ids,
+              @Param("token") long token);
 }
@@ -4,15 +4,18 @@ import com.iyzico.challenge.integrator.data.entity.Basket;
 import com.iyzico.challenge.integrator.data.entity.BasketProduct;
 import com.iyzico.challenge.integrator.data.entity.Product;
 import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.event.ProductChangedEvent;
 import com.iyzico.challenge.integrator.data.repository.BasketRepository;
+import com.iyzico.challenge.integrator.exception.BasketChangedException;
 import com.iyzico.challenge.integrator.exception.EmptyBasketException;
 import com.iyzico.challenge.integrator.exception.InvalidBasketStatusException;
 import com.iyzico.challenge.integrator.exception.StockNotEnoughException;
-import com.iyzico.challenge.integrator.service.hazelcast.BLock;
 import com.iyzico.challenge.integrator.service.hazelcast.LockService;
-import com.iyzico.challenge.integrator.service.hazelcast.exception.CannotHoldTheLockException;
+import com.iyzico.challenge.integrator.service.hazelcast.MultiLock;
+import com.iyzico.challenge.integrator.service.hazelcast.exception.StaleLockTokenException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
@@ -21,12 +24,12 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
 
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,22 +40,31 @@ public class BasketService {
     private final ProductService productService;
     private final TransactionTemplate requireNewTransactionTemplate;
     private final LockService lockService;
+    private final OptimisticRetryService retryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
     public BasketService(BasketRepository repository,
                          ProductService productService,
                          PlatformTransactionManager transactionManager,
-                         LockService lockService) {
+                         LockService lockService,
+                         OptimisticRetryService retryService,
+                         ApplicationEventPublisher eventPublisher,
+                         EntityManager entityManager) {
         this.repository = repository;
         this.productService = productService;
         this.lockService = lockService;
+        this.retryService = retryService;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
 
         requireNewTransactionTemplate = new TransactionTemplate(transactionManager);
         requireNewTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
-    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Throwable.class)
+    @Transactional(propagation = Propagation.NEVER)
     public void addItem(User user, long productId, int count) {
-        lockService.executeInBasketLock(user, () -> {
+        retryService.execute(x -> {
             Product product = productService.getPublishedItem(productId);
             if (!Product.Status.IN_STOCK.equals(product.getStatus())) {
                 throw new StockNotEnoughException("No product left to sell");
@@ -62,7 +74,7 @@ public class BasketService {
                 throw new StockNotEnoughException("Stock count is not enough");
             }
 
-            Basket basket = getUserBasket(user);
+            Basket basket = getActiveBasket(user);
             for (BasketProduct basketProduct : basket.getProducts()) {
                 if (basketProduct.getProductId() == productId) {
                     basketProduct.setCount(basketProduct.getCount() + count);
@@ -81,10 +93,10 @@ public class BasketService {
         });
     }
 
-    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Throwable.class)
+    @Transactional(propagation = Propagation.NEVER)
     public void deleteItem(User user, long basketProductId) {
-        lockService.executeInBasketLock(user, () -> {
-            Basket basket = getUserBasket(user);
+        retryService.execute(x -> {
+            Basket basket = getActiveBasket(user);
             Iterator<BasketProduct> iterator = basket.getProducts().iterator();
             while (iterator.hasNext()) {
                 BasketProduct next = iterator.next();
@@ -99,13 +111,13 @@ public class BasketService {
     }
 
     @Transactional(propagation = Propagation.NEVER)
-    public Basket decreaseStocks(User user, Basket basket) {
-        return updateStock(user, basket, Basket.Status.STOCK_APPLIED);
+    public Basket decreaseStocks(User user, Basket basket, long token) {
+        return updateStock(user, basket, token, Basket.Status.STOCK_APPLIED);
     }
 
     @Transactional(propagation = Propagation.NEVER)
-    public Basket rollbackStocks(User user, Basket basket) {
-        return updateStock(user, basket, Basket.Status.ACTIVE);
+    public Basket rollbackStocks(User user, Basket basket, long token) {
+        return updateStock(user, basket, token, Basket.Status.ACTIVE);
     }
 
     @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Throwable.class)
@@ -138,21 +150,41 @@ public class BasketService {
         });
     }
 
-    private Basket updateStock(User user, Basket basket, Basket.Status status) {
-        List<BLock> locks = new ArrayList<>();
+    private Basket getActiveBasket(User user) {
+        Basket basket = getUserBasket(user);
+        if (!Basket.Status.ACTIVE.equals(basket.getStatus())) {
+            throw new InvalidBasketStatusException(String.format("Basket cannot be changed in status %s", basket.getStatus()));
+        }
+
+        // a changed line does not make the basket itself dirty. its version is bumped on commit, so a checkout which
+        // read the basket before sees the change and a change racing a freeze fails on the version
+        Basket managed = entityManager.contains(basket) ? basket : entityManager.merge(basket);
+        entityManager.lock(managed, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+        return managed;
+    }
 
+    private Basket updateStock(User user, Basket basket, long token, Basket.Status status) {
         int multiplier = validateBasketAndGetMultiplier(basket, status);
 
-        try {
-            lockBasketProducts(basket, locks);
-        } catch (CannotHoldTheLockException e) {
-            unlockAll(locks);
-            throw e;
-        }
+        List<Long> productIds = basket.getProducts()
+                .stream()
+                .map(BasketProduct::getProductId)
+                .collect(Collectors.toList());
+
+        MultiLock locks = lockService.lockProducts(productIds);
+        log.trace("All product locks held for basket {}", basket.getId());
 
         try {
             return requireNewTransactionTemplate.execute(x -> {
+                productService.fence(productIds, locks.getFencingToken());
                 Basket innerBasket = getUserBasket(user);
+                if (innerBasket.getId() != basket.getId() ||
+                        innerBasket.getVersion() != basket.getVersion() ||
+                        !basket.getStatus().equals(innerBasket.getStatus())) {
+                    throw new BasketChangedException(String.format("Basket %s changed during the checkout", basket.getId()));
+                }
+
+                fence(innerBasket, token);
                 for (BasketProduct basketProduct : innerBasket.getProducts()) {
                     Product product = basketProduct.getProduct();
                     long count = product.getStockCount() + (multiplier * basketProduct.getCount());
@@ -164,11 +196,20 @@ public class BasketService {
                 }
 
                 innerBasket.setStatus(status);
+                eventPublisher.publishEvent(new ProductChangedEvent(productIds));
                 return repository.save(innerBasket);
             });
         } finally {
-            unlockAll(locks);
+            locks.unlock();
+        }
+    }
+
+    private void fence(Basket basket, long token) {
+        if (repository.fence(basket.getId(), token) != 1) {
+            throw new StaleLockTokenException(String.format("Lock token %s of basket %s is stale", token, basket.getId()));
         }
+
+        basket.setFencingToken(token);
     }
 
     private int validateBasketAndGetMultiplier(Basket basket, Basket.Status status) {
@@ -197,50 +238,4 @@ public class BasketService {
 
 
     }
-
-    private void lockBasketProducts(Basket basket, List<BLock> locks) throws CannotHoldTheLockException {
-        List<Long> productIds = basket.getProducts()
-                .stream()
-                .map(BasketProduct::getProductId)
-                .sorted()
-                .collect(Collectors.toList());
-
-        for (Long productId : productIds) {
-            log.trace("Trying to get lock for productId {}", productId);
-            BLock lock = lockService.getProductLock(productId);
-            try {
-                if (!lock.tryLock(30, TimeUnit.SECONDS)) {
-                    log.trace("Lock could not hold for productId {}", productId);
-                    throw new CannotHoldTheLockException(String.format("Lock for product %s cannot hold in time interval", productId));
-                }
-            } catch (InterruptedException e) {
-                log.trace("Unexpected exception while trying to get lock for productId {}", productId, e);
-                throw new CannotHoldTheLockException(e);
-            }
-
-            log.trace("Lock held successfully for productId {}", productId);
-            locks.add(lock);
-        }
-
-        log.trace("All product locks held for basket {}", basket.getId());
-    }
-
-    private void unlockAll(List<BLock> locks) {
-        for (BLock lock : locks) {
-            for (int i = 0; i < 10; i++) {
-                try {
-                    lock.unlock();
-                    log.trace("Lock {} successfully released", lock.getName());
-                    break;
-                } catch (Throwable e) {
-
-                    if (i == 9) {
-                        log.warn("Cannot release the lock after 10 retries. lockKey: " + lock.getName(), e);
-                    } else {
-                        log.trace("Unexpected exception during unlock of key " + lock.getName(), e);
-                    }
-                }
-            }
-        }
-    }
 }
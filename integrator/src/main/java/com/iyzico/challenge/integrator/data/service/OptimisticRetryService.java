@@ -0,0 +1,40 @@
+package com.iyzico.challenge.integrator.data.service;
+
+import com.iyzico.challenge.integrator.exception.ConcurrentUpdateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class OptimisticRetryService {
+    private final Logger log = LoggerFactory.getLogger(OptimisticRetryService.class);
+
+    static final int MAX_ATTEMPTS = 5;
+
+    private final TransactionTemplate requireNewTransactionTemplate;
+
+    public OptimisticRetryService(PlatformTransactionManager transactionManager) {
+        requireNewTransactionTemplate = new TransactionTemplate(transactionManager);
+        requireNewTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // every attempt runs in its own transaction, so a retry reads the rows committed by the winner of the conflict
+    public <T> T execute(TransactionCallback<T> action) throws ConcurrentUpdateException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return requireNewTransactionTemplate.execute(action);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw new ConcurrentUpdateException(String.format("%s %s was updated concurrently", e.getPersistentClassName(), e.getIdentifier()), e);
+                }
+
+                log.debug("Optimistic lock conflict on {} {}, attempt {}", e.getPersistentClassName(), e.getIdentifier(), attempt);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.iyzico.challenge.integrator.data.service;
+
+import com.iyzico.challenge.integrator.data.entity.Product;
+import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.event.ProductChangedEvent;
+import com.iyzico.challenge.integrator.dto.product.request.CreateProductRequest;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// writes imported rows with plain jdbc batches, going through jpa would keep every row in the persistence context
+@Service
+public class ProductImportWriter {
+    private static final String SELECT_IDS = "select id, barcode from product where barcode in (:barcodes)";
+    private static final String INSERT_PRODUCT = "insert into product (name, barcode, user_id, stock_count, status, price, version, fencing_token) " +
+            "values (:name, :barcode, :userId, :stockCount, '" + Product.Status.UNPUBLISHED.name() + "', :price, 0, 0)";
+    private static final String UPDATE_PRODUCT = "update product set name = :name, stock_count = :stockCount, price = :price, version = version + 1, " +
+            "status = case when status = '" + Product.Status.UNPUBLISHED.name() + "' then status " +
+            "when cast(:stockCount as bigint) > 0 then '" + Product.Status.IN_STOCK.name() + "' " +
+            "else '" + Product.Status.OUT_OF_STOCK.name() + "' end " +
+            "where id = :id";
+    private static final String DELETE_DESCRIPTIONS = "delete from long_text where table_name = '" + Product.TABLE_NAME + "' " +
+            "and column_name = '" + Product.DESCRIPTION_COLUMN_NAME + "' and record_id in (:recordIds)";
+    private static final String INSERT_DESCRIPTION = "insert into long_text (table_name, column_name, record_id, content) " +
+            "values ('" + Product.TABLE_NAME + "', '" + Product.DESCRIPTION_COLUMN_NAME + "', :recordId, :content)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductImportWriter(NamedParameterJdbcTemplate jdbcTemplate,
+                               ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // the barcodes of the rows must be distinct
+    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Throwable.class)
+    public Result write(User user, List<CreateProductRequest> rows) {
+        List<String> barcodes = rows.stream()
+                .map(CreateProductRequest::getBarcode)
+                .collect(Collectors.toList());
+        Map<String, Long> existing = findIds(barcodes);
+
+        List<SqlParameterSource> inserts = new ArrayList<>();
+        List<SqlParameterSource> updates = new ArrayList<>();
+        for (CreateProductRequest row : rows) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("name", row.getName())
+                    .addValue("barcode", row.getBarcode())
+                    .addValue("stockCount", row.getStockCount())
+                    .addValue("price", row.getPrice());
+
+            Long id = existing.get(row.getBarcode());
+            if (id == null) {
+                inserts.add(parameters.addValue("userId", user.getId()));
+            } else {
+                updates.add(parameters.addValue("id", id));
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_PRODUCT, inserts.toArray(new SqlParameterSource[0]));
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_PRODUCT, updates.toArray(new SqlParameterSource[0]));
+        }
+
+        Map<String, Long> ids = inserts.isEmpty() ? existing : findIds(barcodes);
+        writeDescriptions(rows, ids);
+
+        eventPublisher.publishEvent(new ProductChangedEvent(new ArrayList<>(ids.values())));
+        return new Result(inserts.size(), updates.size());
+    }
+
+    private void writeDescriptions(List<CreateProductRequest> rows, Map<String, Long> ids) {
+        List<String> recordIds = new ArrayList<>();
+        List<SqlParameterSource> inserts = new ArrayList<>();
+        for (CreateProductRequest row : rows) {
+            if (StringUtils.isEmpty(row.getDescription())) {
+                continue;
+            }
+
+            String recordId = String.valueOf(ids.get(row.getBarcode()));
+            recordIds.add(recordId);
+            inserts.add(new MapSqlParameterSource()
+                    .addValue("recordId", recordId)
+                    .addValue("content", row.getDescription()));
+        }
+
+        if (inserts.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.update(DELETE_DESCRIPTIONS, new MapSqlParameterSource("recordIds", recordIds));
+        jdbcTemplate.batchUpdate(INSERT_DESCRIPTION, inserts.toArray(new SqlParameterSource[0]));
+    }
+
+    private Map<String, Long> findIds(Collection<String> barcodes) {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(SELECT_IDS, new MapSqlParameterSource("barcodes", barcodes),
+                (RowCallbackHandler) rs -> ids.put(rs.getString("barcode"), rs.getLong("id")));
+        return ids;
+    }
+
+    public static class Result {
+        private final int created;
+        private final int updated;
+
+        public Result(int created, int updated) {
+            this.created = created;
+            this.updated = updated;
+        }
+
+        public int getCreated() {
+            return created;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+    }
+}
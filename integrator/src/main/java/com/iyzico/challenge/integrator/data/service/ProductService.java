@@ -1,28 +1,68 @@
 package com.iyzico.challenge.integrator.data.service;
 
 import com.iyzico.challenge.integrator.data.entity.LongText;
+import com.iyzico.challenge.integrator.data.event.ProductChangedEvent;
 import com.iyzico.challenge.integrator.data.entity.Product;
 import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.repository.LongTextRepository;
+import com.iyzico.challenge.integrator.data.repository.ProductBarcode;
 import com.iyzico.challenge.integrator.data.repository.ProductRepository;
+import com.iyzico.challenge.integrator.dto.product.ProductSort;
+import com.iyzico.challenge.integrator.exception.BarcodeTakenByAnotherProductException;
 import com.iyzico.challenge.integrator.exception.ProductNotFoundException;
 import com.iyzico.challenge.integrator.service.hazelcast.LockService;
+import com.iyzico.challenge.integrator.service.hazelcast.exception.StaleLockTokenException;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.iyzico.challenge.integrator.util.Constant.DB_PRECISION;
+import static com.iyzico.challenge.integrator.util.Constant.DB_SCALE;
 
 @Service
 public class ProductService {
+    public static final int DESCRIPTION_BATCH_SIZE = 500;
+
+    private static final List<Product.Status> PUBLISHED_STATUSES = Arrays.asList(Product.Status.IN_STOCK, Product.Status.OUT_OF_STOCK);
+    private static final BigDecimal MAX_PRICE = BigDecimal.TEN.pow(DB_PRECISION - DB_SCALE);
+
     private final ProductRepository repository;
+    private final LongTextRepository longTextRepository;
     private final LockService lockService;
+    private final OptimisticRetryService retryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
     public ProductService(ProductRepository repository,
-                          LockService lockService) {
+                          LongTextRepository longTextRepository,
+                          LockService lockService,
+                          OptimisticRetryService retryService,
+                          ApplicationEventPublisher eventPublisher,
+                          EntityManager entityManager) {
         this.repository = repository;
+        this.longTextRepository = longTextRepository;
         this.lockService = lockService;
+        this.retryService = retryService;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
     }
 
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS, noRollbackFor = {
@@ -37,14 +77,54 @@ public class ProductService {
         return result.get();
     }
 
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS, noRollbackFor = {
+            ProductNotFoundException.class
+    })
+    public Product getByBarcode(String barcode) {
+        Optional<Product> result = repository.findByBarcode(barcode);
+        if (!result.isPresent()) {
+            throw new ProductNotFoundException(String.format("Product with barcode %s not found", barcode));
+        }
+
+        return result.get();
+    }
+
+    @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+    public Stream<ProductBarcode> streamAllBarcodes() {
+        return repository.streamAllBarcodes();
+    }
+
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
-    public Iterable<Product> getAllItems() {
-        return repository.findAll();
+    public List<Product> getByIds(Collection<Long> productIds) {
+        return repository.findAllById(productIds);
+    }
+
+    @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+    public Stream<Product> streamAllItems() {
+        return detached(repository.streamAll());
+    }
+
+    @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+    public Stream<Product> streamAllUnpublishedItems() {
+        return detached(repository.streamAllByStatus(Product.Status.UNPUBLISHED));
     }
 
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
-    public Iterable<Product> getAllUnpublishedItems() {
-        return repository.findAllByStatus(Product.Status.UNPUBLISHED);
+    public Map<Long, String> getDescriptions(Collection<Long> productIds) {
+        List<String> recordIds = productIds.stream()
+                .distinct()
+                .map(String::valueOf)
+                .collect(Collectors.toList());
+
+        Map<Long, String> descriptions = new HashMap<>();
+        for (int i = 0; i < recordIds.size(); i += DESCRIPTION_BATCH_SIZE) {
+            List<String> batch = recordIds.subList(i, Math.min(recordIds.size(), i + DESCRIPTION_BATCH_SIZE));
+            for (LongText text : longTextRepository.findAllByRecordIds(Product.TABLE_NAME, Product.DESCRIPTION_COLUMN_NAME, batch)) {
+                descriptions.put(Long.valueOf(text.getRecordId()), text.getContent());
+            }
+        }
+
+        return descriptions;
     }
 
     @Transactional(propagation = Propagation.SUPPORTS, noRollbackFor = Throwable.class, readOnly = true)
@@ -62,8 +142,27 @@ public class ProductService {
         return repository.findAllByStatusNot(Product.Status.UNPUBLISHED);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, noRollbackFor = Throwable.class, readOnly = true)
+    public List<Product> getPublishedItems(ProductSort sort, long afterId, String afterName, Product.Status status,
+                                           BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        Collection<Product.Status> statuses = status == null ? PUBLISHED_STATUSES : Collections.singleton(status);
+        BigDecimal min = minPrice == null ? BigDecimal.ZERO : minPrice;
+        BigDecimal max = maxPrice == null ? MAX_PRICE : maxPrice;
+        Pageable pageable = PageRequest.of(0, limit);
+
+        if (ProductSort.NAME.equals(sort)) {
+            return repository.findPageOrderByName(afterName, afterId, statuses, min, max, pageable);
+        }
+
+        return repository.findPageOrderById(afterId, statuses, min, max, pageable);
+    }
+
     @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Throwable.class)
     public Product create(User user, String barcode, String name, long stockCount, BigDecimal price, String description) {
+        if (repository.existsByBarcode(barcode)) {
+            throw new BarcodeTakenByAnotherProductException(String.format("Barcode '%s' is taken by another product", barcode));
+        }
+
         Product product = new Product();
         product.setName(name);
         product.setBarcode(barcode);
@@ -72,7 +171,12 @@ public class ProductService {
         product.setUser(user);
         product.setPrice(price);
 
-        product = repository.saveAndFlush(product);
+        try {
+            product = repository.saveAndFlush(product);
+        } catch (DataIntegrityViolationException e) {
+            throw translateBarcodeTaken(barcode, e);
+        }
+
         if (StringUtils.isNotEmpty(description)) {
             LongText desc = new LongText();
             desc.setTable(Product.TABLE_NAME);
@@ -86,9 +190,13 @@ public class ProductService {
         return product;
     }
 
-    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Throwable.class)
+    @Transactional(propagation = Propagation.NEVER)
     public Product update(long id, String barcode, String name, long stockCount, BigDecimal price, String description) {
-        return lockService.executeInProductLock(id, () -> {
+        return retryService.execute(x -> {
+            if (repository.existsByBarcodeAndIdNot(barcode, id)) {
+                throw new BarcodeTakenByAnotherProductException(String.format("Barcode '%s' is taken by another product", barcode));
+            }
+
             Product product = getById(id);
             product.setName(name);
             product.setBarcode(barcode);
@@ -110,29 +218,62 @@ public class ProductService {
                 product.setDescription(desc);
             }
 
-            repository.save(product);
+            try {
+                repository.saveAndFlush(product);
+            } catch (DataIntegrityViolationException e) {
+                throw translateBarcodeTaken(barcode, e);
+            }
+
+            eventPublisher.publishEvent(new ProductChangedEvent(id));
             return product;
         });
     }
 
+    // the exists check is only the common case, two concurrent writes of one barcode meet at the unique index
+    private static RuntimeException translateBarcodeTaken(String barcode, DataIntegrityViolationException e) {
+        if (StringUtils.containsIgnoreCase(e.getMostSpecificCause().getMessage(), Product.BARCODE_INDEX_NAME)) {
+            return new BarcodeTakenByAnotherProductException(String.format("Barcode '%s' is taken by another product", barcode), e);
+        }
+
+        return e;
+    }
+
     @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Throwable.class)
     public void publish(long id) {
-        lockService.executeInProductLock(id, () -> {
+        lockService.executeInProductLock(id, token -> {
+            fence(id, token);
             Product product = getById(id);
             updatePublishedProductStatus(product);
+            eventPublisher.publishEvent(new ProductChangedEvent(id));
             return repository.save(product);
         });
     }
 
     @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Throwable.class)
     public void unpublish(long id) {
-        lockService.executeInProductLock(id, () -> {
+        lockService.executeInProductLock(id, token -> {
+            fence(id, token);
             Product product = getById(id);
             product.setStatus(Product.Status.UNPUBLISHED);
+            eventPublisher.publishEvent(new ProductChangedEvent(id));
             return repository.save(product);
         });
     }
 
+    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Throwable.class)
+    public void fence(Collection<Long> ids, long token) throws StaleLockTokenException {
+        Collection<Long> distinctIds = new HashSet<>(ids);
+        if (repository.fence(distinctIds, token) != distinctIds.size()) {
+            throw new StaleLockTokenException(String.format("Lock token %s of products %s is stale", token, distinctIds));
+        }
+    }
+
+    private void fence(long id, long token) {
+        if (repository.fence(Collections.singleton(id), token) != 1) {
+            throw new StaleLockTokenException(String.format("Lock token %s of product %s is stale", token, id));
+        }
+    }
+
     private void updatePublishedProductStatus(Product product) {
         if (Product.Status.IN_STOCK.equals(product.getStatus()) ||
                 Product.Status.OUT_OF_STOCK.equals(product.getStatus())) {
@@ -143,4 +284,9 @@ public class ProductService {
             }
         }
     }
+
+    // the rows are read once, keeping them in the persistence context would grow it with the whole table
+    private Stream<Product> detached(Stream<Product> products) {
+        return products.peek(entityManager::detach);
+    }
 }
@@ -0,0 +1,154 @@
+package com.iyzico.challenge.integrator.data.service;
+
+import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.properties.LoginProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// the columns a login writes are collected per user and written in one batch per flush, only the last login of a user is kept
+@Service
+public class UserLoginWriter {
+    private static final String UPDATE_LOGIN = "update users set last_login_date = :lastLoginDate, last_session_key = :lastSessionKey where id = :id";
+    // a password changed in the meantime is not overwritten by the rehash of the old one
+    private static final String UPDATE_PASSWORD = "update users set password = :password where id = :id and password = :previousPassword";
+
+    private static final Logger log = LoggerFactory.getLogger(UserLoginWriter.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final LoginProperties properties;
+    private final TransactionTemplate requireNewTransactionTemplate;
+    private final ConcurrentHashMap<Long, Login> logins = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, PasswordChange> passwords = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    public UserLoginWriter(NamedParameterJdbcTemplate jdbcTemplate,
+                           LoginProperties properties,
+                           PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+
+        requireNewTransactionTemplate = new TransactionTemplate(transactionManager);
+        requireNewTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-login-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, properties.getWriteFlushMillis(), properties.getWriteFlushMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        flush();
+    }
+
+    public void loggedIn(long userId, LocalDateTime lastLoginDate, String lastSessionKey) {
+        logins.put(userId, new Login(lastLoginDate, lastSessionKey));
+    }
+
+    public void passwordRehashed(long userId, String previousPassword, String password) {
+        passwords.put(userId, new PasswordChange(previousPassword, password));
+    }
+
+    // a user read from the database before its last login was flushed gets the pending values
+    public void apply(User user) {
+        Login login = logins.get(user.getId());
+        if (login != null) {
+            user.setLastLoginDate(login.lastLoginDate);
+            user.setLastSessionKey(login.lastSessionKey);
+        }
+    }
+
+    int getPendingCount() {
+        return logins.size() + passwords.size();
+    }
+
+    void flush() {
+        Map<Long, Login> loginBatch = drain(logins);
+        Map<Long, PasswordChange> passwordBatch = drain(passwords);
+        if (loginBatch.isEmpty() && passwordBatch.isEmpty()) {
+            return;
+        }
+
+        try {
+            requireNewTransactionTemplate.execute(status -> {
+                if (!loginBatch.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_LOGIN, loginBatch.entrySet().stream()
+                            .map(x -> new MapSqlParameterSource("id", x.getKey())
+                                    .addValue("lastLoginDate", x.getValue().lastLoginDate)
+                                    .addValue("lastSessionKey", x.getValue().lastSessionKey))
+                            .toArray(SqlParameterSource[]::new));
+                }
+
+                if (!passwordBatch.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_PASSWORD, passwordBatch.entrySet().stream()
+                            .map(x -> new MapSqlParameterSource("id", x.getKey())
+                                    .addValue("password", x.getValue().password)
+                                    .addValue("previousPassword", x.getValue().previousPassword))
+                            .toArray(SqlParameterSource[]::new));
+                }
+
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("{} logins and {} password rehashes could not be written, retrying on the next flush",
+                    loginBatch.size(), passwordBatch.size(), e);
+            loginBatch.forEach(logins::putIfAbsent);
+            passwordBatch.forEach(passwords::putIfAbsent);
+        }
+    }
+
+    private static <T> Map<Long, T> drain(ConcurrentHashMap<Long, T> pending) {
+        Map<Long, T> batch = new HashMap<>();
+        for (Long userId : pending.keySet()) {
+            T value = pending.remove(userId);
+            if (value != null) {
+                batch.put(userId, value);
+            }
+        }
+
+        return batch;
+    }
+
+    private static class Login {
+        private final LocalDateTime lastLoginDate;
+        private final String lastSessionKey;
+
+        private Login(LocalDateTime lastLoginDate, String lastSessionKey) {
+            this.lastLoginDate = lastLoginDate;
+            this.lastSessionKey = lastSessionKey;
+        }
+    }
+
+    private static class PasswordChange {
+        private final String previousPassword;
+        private final String password;
+
+        private PasswordChange(String previousPassword, String password) {
+            this.previousPassword = previousPassword;
+            this.password = password;
+        }
+    }
+}
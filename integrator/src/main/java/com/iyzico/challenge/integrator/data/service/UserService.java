@@ -2,13 +2,16 @@ package com.iyzico.challenge.integrator.data.service;
 
 import com.iyzico.challenge.integrator.data.entity.User;
 import com.iyzico.challenge.integrator.data.entity.UserProfile;
+import com.iyzico.challenge.integrator.data.event.UserChangedEvent;
 import com.iyzico.challenge.integrator.data.repository.UserProfileRepository;
 import com.iyzico.challenge.integrator.data.repository.UserRepository;
 import com.iyzico.challenge.integrator.dto.user.request.CreateUserRequest;
 import com.iyzico.challenge.integrator.exception.UserNotFoundException;
 import com.iyzico.challenge.integrator.exception.UserProfileNotFoundException;
 import com.iyzico.challenge.integrator.exception.UsernameTakenByAnotherUserException;
+import com.iyzico.challenge.integrator.service.PasswordHasher;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,11 +23,20 @@ import java.util.Optional;
 public class UserService {
     private final UserRepository repository;
     private final UserProfileRepository profileRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordHasher passwordHasher;
+    private final UserLoginWriter loginWriter;
 
     public UserService(UserRepository repository,
-                       UserProfileRepository profileRepository) {
+                       UserProfileRepository profileRepository,
+                       ApplicationEventPublisher eventPublisher,
+                       PasswordHasher passwordHasher,
+                       UserLoginWriter loginWriter) {
         this.repository = repository;
         this.profileRepository = profileRepository;
+        this.eventPublisher = eventPublisher;
+        this.passwordHasher = passwordHasher;
+        this.loginWriter = loginWriter;
     }
 
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS, noRollbackFor = {
@@ -73,7 +85,7 @@ public class UserService {
 
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(request.getPassword());
+        user.setPassword(passwordHasher.hash(request.getPassword()));
         user.setAdmin(request.isAdmin());
 
         UserProfile profile = new UserProfile();
@@ -91,7 +103,9 @@ public class UserService {
 
         user.setProfile(profile);
 
-        return repository.save(user);
+        user = repository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user));
+        return user;
     }
 
     @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Throwable.class)
@@ -100,10 +114,12 @@ public class UserService {
         user.setAdmin(admin);
 
         if (!StringUtils.isEmpty(password)) {
-            user.setPassword(password);
+            user.setPassword(passwordHasher.hash(password));
         }
 
-        return repository.save(user);
+        user = repository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user));
+        return user;
     }
 
     @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Throwable.class)
@@ -111,13 +127,14 @@ public class UserService {
         User user = getById(id);
         user.setActive(false);
         repository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user));
     }
 
-    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Throwable.class)
-    public void markAsLoggedIn(User user, String sessionKey) {
-        user.setLastLoginDate(LocalDateTime.now());
+    // the row is written by the login writer, the user of a session may be a partial copy which must not be saved
+    public void markAsLoggedIn(User user, String sessionKey, LocalDateTime loginDate) {
+        user.setLastLoginDate(loginDate);
         user.setLastSessionKey(sessionKey);
-        repository.save(user);
+        loginWriter.loggedIn(user.getId(), loginDate, sessionKey);
     }
 }
 
@@ -4,9 +4,13 @@ public enum ErrorCode {
     NOT_AUTHORIZED,
     API_NOT_FOUND,
     INVALID_CREDENTIALS,
+    LOGIN_UNAVAILABLE,
+    TOO_MANY_REQUESTS,
     INVALID_REQUEST,
     INVALID_INSTALLMENT_COUNT,
     INVALID_BASKET_STATUS,
+    BASKET_CHANGED,
+    CONCURRENT_UPDATE,
     EMPTY_BASKET,
     STOCK_NOT_ENOUGH,
     PAYMENT_EXCEPTION,
@@ -15,6 +19,7 @@ public enum ErrorCode {
     USER_PROFILE_NOT_FOUND,
     PRODUCT_NOT_FOUND,
     USERNAME_TAKEN_BY_ANOTHER_USER,
+    BARCODE_TAKEN_BY_ANOTHER_PRODUCT,
 
     UNEXPECTED_ERROR
 }
@@ -1,8 +1,9 @@
 package com.iyzico.challenge.integrator.dto;
 
+import java.io.Serializable;
 import java.util.List;
 
-public class ListResponse<T> {
+public class ListResponse<T> implements Serializable {
     private List<T> items;
 
     public ListResponse() {
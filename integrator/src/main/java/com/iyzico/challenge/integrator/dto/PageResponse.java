@@ -0,0 +1,30 @@
+package com.iyzico.challenge.integrator.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+public class PageResponse<T> extends ListResponse<T> {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next;
+
+    public PageResponse() {
+    }
+
+    public PageResponse(List<T> items, String next) {
+        super(items);
+        this.next = next;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+
+    public boolean isHasNext() {
+        return next != null;
+    }
+}
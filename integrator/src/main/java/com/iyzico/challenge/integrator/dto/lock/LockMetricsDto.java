@@ -0,0 +1,35 @@
+package com.iyzico.challenge.integrator.dto.lock;
+
+import com.iyzico.challenge.integrator.service.hazelcast.metrics.LockMetrics;
+
+import java.util.List;
+
+public class LockMetricsDto {
+    private long windowSeconds;
+    private List<LockMetrics.PrefixSnapshot> prefixes;
+    private List<LockMetrics.ContendedKey> mostContendedKeys;
+
+    public long getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public void setWindowSeconds(long windowSeconds) {
+        this.windowSeconds = windowSeconds;
+    }
+
+    public List<LockMetrics.PrefixSnapshot> getPrefixes() {
+        return prefixes;
+    }
+
+    public void setPrefixes(List<LockMetrics.PrefixSnapshot> prefixes) {
+        this.prefixes = prefixes;
+    }
+
+    public List<LockMetrics.ContendedKey> getMostContendedKeys() {
+        return mostContendedKeys;
+    }
+
+    public void setMostContendedKeys(List<LockMetrics.ContendedKey> mostContendedKeys) {
+        this.mostContendedKeys = mostContendedKeys;
+    }
+}
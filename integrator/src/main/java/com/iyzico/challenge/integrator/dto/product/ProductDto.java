@@ -2,9 +2,10 @@ package com.iyzico.challenge.integrator.dto.product;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 
-public class ProductDto {
+public class ProductDto implements Serializable {
     private long id;
     private String barcode;
     private String name;
@@ -0,0 +1,40 @@
+package com.iyzico.challenge.integrator.dto.product;
+
+public class ProductImportError {
+    private long line;
+    private String barcode;
+    private String message;
+
+    public ProductImportError() {
+    }
+
+    public ProductImportError(long line, String barcode, String message) {
+        this.line = line;
+        this.barcode = barcode;
+        this.message = message;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getBarcode() {
+        return barcode;
+    }
+
+    public void setBarcode(String barcode) {
+        this.barcode = barcode;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
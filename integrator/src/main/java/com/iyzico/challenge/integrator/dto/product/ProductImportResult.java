@@ -0,0 +1,52 @@
+package com.iyzico.challenge.integrator.dto.product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductImportResult {
+    private long total;
+    private long created;
+    private long updated;
+    private long failed;
+    private List<ProductImportError> errors = new ArrayList<>();
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(long created) {
+        this.created = created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<ProductImportError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ProductImportError> errors) {
+        this.errors = errors;
+    }
+}
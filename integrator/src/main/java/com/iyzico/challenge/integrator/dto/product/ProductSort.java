@@ -0,0 +1,5 @@
+package com.iyzico.challenge.integrator.dto.product;
+
+public enum ProductSort {
+    ID, NAME
+}
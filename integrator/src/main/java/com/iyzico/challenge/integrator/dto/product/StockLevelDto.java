@@ -0,0 +1,33 @@
+package com.iyzico.challenge.integrator.dto.product;
+
+import java.io.Serializable;
+
+public class StockLevelDto implements Serializable {
+    private long id;
+    private long stockCount;
+    private ProductDto.Status status;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getStockCount() {
+        return stockCount;
+    }
+
+    public void setStockCount(long stockCount) {
+        this.stockCount = stockCount;
+    }
+
+    public ProductDto.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(ProductDto.Status status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,18 @@
+package com.iyzico.challenge.integrator.exception;
+
+import com.iyzico.challenge.integrator.dto.ErrorCode;
+
+public class BarcodeTakenByAnotherProductException extends BaseIntegratorException {
+    public BarcodeTakenByAnotherProductException(String message) {
+        super(message);
+    }
+
+    public BarcodeTakenByAnotherProductException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public ErrorCode getErrorCode() {
+        return ErrorCode.BARCODE_TAKEN_BY_ANOTHER_PRODUCT;
+    }
+}
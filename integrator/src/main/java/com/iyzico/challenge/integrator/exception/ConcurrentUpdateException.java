@@ -0,0 +1,14 @@
+package com.iyzico.challenge.integrator.exception;
+
+import com.iyzico.challenge.integrator.dto.ErrorCode;
+
+public class ConcurrentUpdateException extends BaseIntegratorException {
+    public ConcurrentUpdateException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public ErrorCode getErrorCode() {
+        return ErrorCode.CONCURRENT_UPDATE;
+    }
+}
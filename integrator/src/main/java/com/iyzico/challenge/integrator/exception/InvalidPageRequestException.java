@@ -0,0 +1,14 @@
+package com.iyzico.challenge.integrator.exception;
+
+import com.iyzico.challenge.integrator.dto.ErrorCode;
+
+public class InvalidPageRequestException extends BaseIntegratorException {
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+
+    @Override
+    public ErrorCode getErrorCode() {
+        return ErrorCode.INVALID_REQUEST;
+    }
+}
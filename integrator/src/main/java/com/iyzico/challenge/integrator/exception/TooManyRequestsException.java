@@ -0,0 +1,14 @@
+package com.iyzico.challenge.integrator.exception;
+
+import com.iyzico.challenge.integrator.dto.ErrorCode;
+
+public class TooManyRequestsException extends BaseIntegratorException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+
+    @Override
+    public ErrorCode getErrorCode() {
+        return ErrorCode.TOO_MANY_REQUESTS;
+    }
+}
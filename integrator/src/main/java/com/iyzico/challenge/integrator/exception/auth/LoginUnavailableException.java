@@ -0,0 +1,15 @@
+package com.iyzico.challenge.integrator.exception.auth;
+
+import com.iyzico.challenge.integrator.dto.ErrorCode;
+import com.iyzico.challenge.integrator.exception.BaseIntegratorException;
+
+public class LoginUnavailableException extends BaseIntegratorException {
+    public LoginUnavailableException(String message) {
+        super(message);
+    }
+
+    @Override
+    public ErrorCode getErrorCode() {
+        return ErrorCode.LOGIN_UNAVAILABLE;
+    }
+}
@@ -3,10 +3,12 @@ package com.iyzico.challenge.integrator.mapper;
 import com.iyzico.challenge.integrator.data.entity.LongText;
 import com.iyzico.challenge.integrator.data.entity.Product;
 import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.dto.product.StockLevelDto;
 import org.springframework.stereotype.Component;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class ProductMapper {
@@ -20,6 +22,17 @@ public class ProductMapper {
         return dtos;
     }
 
+    public List<ProductDto> map(Iterable<Product> products, Map<Long, String> descriptions) {
+        List<ProductDto> dtos = new LinkedList<>();
+        for (Product product : products) {
+            ProductDto dto = map(product, false);
+            dto.setDescription(descriptions.get(product.getId()));
+            dtos.add(dto);
+        }
+
+        return dtos;
+    }
+
     public ProductDto map(Product product) {
         return map(product, false);
     }
@@ -28,6 +41,16 @@ public class ProductMapper {
         return map(product, true);
     }
 
+    public StockLevelDto mapStockLevel(Product product) {
+        StockLevelDto dto = new StockLevelDto();
+
+        dto.setId(product.getId());
+        dto.setStatus(ProductDto.Status.valueOf(product.getStatus().name()));
+        dto.setStockCount(product.getStockCount());
+
+        return dto;
+    }
+
     private ProductDto map(Product product, boolean withDescription) {
         ProductDto dto = new ProductDto();
 
@@ -0,0 +1,25 @@
+package com.iyzico.challenge.integrator.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+@ConfigurationProperties(
+        prefix = "integrator.barcode-index"
+)
+@Validated
+public class BarcodeIndexProperties {
+    @Min(16)
+    @Max(1 << 25)
+    private int initialCapacity = 1 << 16;
+
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    public void setInitialCapacity(int initialCapacity) {
+        this.initialCapacity = initialCapacity;
+    }
+}
@@ -0,0 +1,34 @@
+package com.iyzico.challenge.integrator.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+@ConfigurationProperties(
+        prefix = "integrator.lock"
+)
+@Validated
+public class LockProperties {
+    @Min(0)
+    private long waitSeconds = 30;
+
+    @Min(1)
+    private long leaseSeconds = 60;
+
+    public long getWaitSeconds() {
+        return waitSeconds;
+    }
+
+    public void setWaitSeconds(long waitSeconds) {
+        this.waitSeconds = waitSeconds;
+    }
+
+    public long getLeaseSeconds() {
+        return leaseSeconds;
+    }
+
+    public void setLeaseSeconds(long leaseSeconds) {
+        this.leaseSeconds = leaseSeconds;
+    }
+}
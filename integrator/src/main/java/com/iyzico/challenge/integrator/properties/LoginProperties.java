@@ -0,0 +1,89 @@
+package com.iyzico.challenge.integrator.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+@ConfigurationProperties(
+        prefix = "integrator.login"
+)
+@Validated
+public class LoginProperties {
+    @Min(1)
+    private int hashThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    @Min(1)
+    private int hashQueueSize = 100;
+
+    @Min(1)
+    private long hashTimeoutMillis = 5000;
+
+    @Min(10_000)
+    private int hashIterations = 100_000;
+
+    @Min(0)
+    private long negativeCacheSeconds = 30;
+
+    @Min(1)
+    private int negativeCacheMaxSize = 100_000;
+
+    @Min(10)
+    private long writeFlushMillis = 500;
+
+    public int getHashThreads() {
+        return hashThreads;
+    }
+
+    public void setHashThreads(int hashThreads) {
+        this.hashThreads = hashThreads;
+    }
+
+    public int getHashQueueSize() {
+        return hashQueueSize;
+    }
+
+    public void setHashQueueSize(int hashQueueSize) {
+        this.hashQueueSize = hashQueueSize;
+    }
+
+    public long getHashTimeoutMillis() {
+        return hashTimeoutMillis;
+    }
+
+    public void setHashTimeoutMillis(long hashTimeoutMillis) {
+        this.hashTimeoutMillis = hashTimeoutMillis;
+    }
+
+    public int getHashIterations() {
+        return hashIterations;
+    }
+
+    public void setHashIterations(int hashIterations) {
+        this.hashIterations = hashIterations;
+    }
+
+    public long getNegativeCacheSeconds() {
+        return negativeCacheSeconds;
+    }
+
+    public void setNegativeCacheSeconds(long negativeCacheSeconds) {
+        this.negativeCacheSeconds = negativeCacheSeconds;
+    }
+
+    public int getNegativeCacheMaxSize() {
+        return negativeCacheMaxSize;
+    }
+
+    public void setNegativeCacheMaxSize(int negativeCacheMaxSize) {
+        this.negativeCacheMaxSize = negativeCacheMaxSize;
+    }
+
+    public long getWriteFlushMillis() {
+        return writeFlushMillis;
+    }
+
+    public void setWriteFlushMillis(long writeFlushMillis) {
+        this.writeFlushMillis = writeFlushMillis;
+    }
+}
@@ -0,0 +1,112 @@
+package com.iyzico.challenge.integrator.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import java.util.HashSet;
+import java.util.Set;
+
+@ConfigurationProperties(
+        prefix = "integrator.rate-limit"
+)
+@Validated
+public class RateLimitProperties {
+    private boolean enabled = true;
+
+    @Min(1)
+    private long ipPerSecond = 50;
+
+    @Min(1)
+    private long ipBurst = 100;
+
+    @Min(1)
+    private long userPerSecond = 20;
+
+    @Min(1)
+    private long userBurst = 40;
+
+    @Min(1)
+    private int maxKeys = 100_000;
+
+    // the nodes share what they let through, the limits then hold for the whole cluster
+    private boolean clusterWide = false;
+
+    @Min(10)
+    private long syncMillis = 500;
+
+    // X-Forwarded-For is believed only when the connection comes from one of these addresses
+    private Set<String> trustedProxies = new HashSet<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getIpPerSecond() {
+        return ipPerSecond;
+    }
+
+    public void setIpPerSecond(long ipPerSecond) {
+        this.ipPerSecond = ipPerSecond;
+    }
+
+    public long getIpBurst() {
+        return ipBurst;
+    }
+
+    public void setIpBurst(long ipBurst) {
+        this.ipBurst = ipBurst;
+    }
+
+    public long getUserPerSecond() {
+        return userPerSecond;
+    }
+
+    public void setUserPerSecond(long userPerSecond) {
+        this.userPerSecond = userPerSecond;
+    }
+
+    public long getUserBurst() {
+        return userBurst;
+    }
+
+    public void setUserBurst(long userBurst) {
+        this.userBurst = userBurst;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public boolean isClusterWide() {
+        return clusterWide;
+    }
+
+    public void setClusterWide(boolean clusterWide) {
+        this.clusterWide = clusterWide;
+    }
+
+    public long getSyncMillis() {
+        return syncMillis;
+    }
+
+    public void setSyncMillis(long syncMillis) {
+        this.syncMillis = syncMillis;
+    }
+
+    public Set<String> getTrustedProxies() {
+        return trustedProxies;
+    }
+
+    public void setTrustedProxies(Set<String> trustedProxies) {
+        this.trustedProxies = trustedProxies;
+    }
+}
@@ -0,0 +1,67 @@
+package com.iyzico.challenge.integrator.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+// lettuce options the spring.redis properties do not cover
+@ConfigurationProperties(
+        prefix = "integrator.redis-client"
+)
+@Validated
+public class RedisClientProperties {
+    // commands waiting for a connection, a full queue fails the command instead of growing without a bound
+    @Min(1)
+    private int requestQueueSize = 100_000;
+
+    // commands fail at once while the connection is down instead of piling up until it comes back
+    private boolean rejectWhenDisconnected = true;
+
+    private boolean tcpNoDelay = true;
+
+    private boolean keepAlive = true;
+
+    @Min(100)
+    private long connectTimeoutMillis = 10_000;
+
+    public int getRequestQueueSize() {
+        return requestQueueSize;
+    }
+
+    public void setRequestQueueSize(int requestQueueSize) {
+        this.requestQueueSize = requestQueueSize;
+    }
+
+    public boolean isRejectWhenDisconnected() {
+        return rejectWhenDisconnected;
+    }
+
+    public void setRejectWhenDisconnected(boolean rejectWhenDisconnected) {
+        this.rejectWhenDisconnected = rejectWhenDisconnected;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public long getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public void setConnectTimeoutMillis(long connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+}
@@ -0,0 +1,79 @@
+package com.iyzico.challenge.integrator.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+@ConfigurationProperties(
+        prefix = "integrator.session-token"
+)
+@Validated
+public class SessionTokenProperties {
+    private boolean enabled = false;
+
+    // hmac key shared by all nodes, at least 32 bytes when the tokens are enabled
+    private String secret;
+
+    @Min(60)
+    private long ttlSeconds = 24 * 60 * 60;
+
+    @Min(1024)
+    private int bloomBits = 1 << 20;
+
+    @Min(1)
+    @Max(16)
+    private int bloomHashes = 4;
+
+    @Min(1)
+    private long bloomRebuildMinutes = 60;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getSecret() {
+        return secret;
+    }
+
+    public void setSecret(String secret) {
+        this.secret = secret;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public int getBloomBits() {
+        return bloomBits;
+    }
+
+    public void setBloomBits(int bloomBits) {
+        this.bloomBits = bloomBits;
+    }
+
+    public int getBloomHashes() {
+        return bloomHashes;
+    }
+
+    public void setBloomHashes(int bloomHashes) {
+        this.bloomHashes = bloomHashes;
+    }
+
+    public long getBloomRebuildMinutes() {
+        return bloomRebuildMinutes;
+    }
+
+    public void setBloomRebuildMinutes(long bloomRebuildMinutes) {
+        this.bloomRebuildMinutes = bloomRebuildMinutes;
+    }
+}
@@ -0,0 +1,34 @@
+package com.iyzico.challenge.integrator.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+@ConfigurationProperties(
+        prefix = "integrator.session-touch"
+)
+@Validated
+public class SessionTouchProperties {
+    @Min(0)
+    private long granularitySeconds = 60;
+
+    @Min(10)
+    private long flushMillis = 1000;
+
+    public long getGranularitySeconds() {
+        return granularitySeconds;
+    }
+
+    public void setGranularitySeconds(long granularitySeconds) {
+        this.granularitySeconds = granularitySeconds;
+    }
+
+    public long getFlushMillis() {
+        return flushMillis;
+    }
+
+    public void setFlushMillis(long flushMillis) {
+        this.flushMillis = flushMillis;
+    }
+}
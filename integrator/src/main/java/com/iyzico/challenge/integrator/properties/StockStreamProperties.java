@@ -0,0 +1,47 @@
+package com.iyzico.challenge.integrator.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+@ConfigurationProperties(
+        prefix = "integrator.stock-stream"
+)
+@Validated
+public class StockStreamProperties {
+    @Min(10)
+    private long tickMillis = 250;
+
+    @Min(1000)
+    private long timeoutMillis = 30 * 60 * 1000;
+
+    @Min(1)
+    @Max(1000)
+    private int maxProductsPerSubscription = 100;
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    public void setTickMillis(long tickMillis) {
+        this.tickMillis = tickMillis;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public int getMaxProductsPerSubscription() {
+        return maxProductsPerSubscription;
+    }
+
+    public void setMaxProductsPerSubscription(int maxProductsPerSubscription) {
+        this.maxProductsPerSubscription = maxProductsPerSubscription;
+    }
+}
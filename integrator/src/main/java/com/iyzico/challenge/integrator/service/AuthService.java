@@ -1,40 +1,144 @@
 package com.iyzico.challenge.integrator.service;
 
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import com.hazelcast.core.MessageListener;
 import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.event.UserChangedEvent;
+import com.iyzico.challenge.integrator.data.service.UserLoginWriter;
 import com.iyzico.challenge.integrator.data.service.UserService;
 import com.iyzico.challenge.integrator.exception.BaseIntegratorException;
 import com.iyzico.challenge.integrator.exception.auth.InvalidCredentialsException;
+import com.iyzico.challenge.integrator.properties.LoginProperties;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDateTime;
-import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 @Service
-public class AuthService {
+public class AuthService implements MessageListener<String> {
     private final UserService userService;
+    private final PasswordHasher passwordHasher;
+    private final UserLoginWriter loginWriter;
+    private final LoginProperties properties;
+    private final LongSupplier clock;
+    private final TransactionTemplate readTransactionTemplate;
+    private final ITopic<String> userChangedTopic;
+    // usernames without a user, every node evicts a username once a user with it is saved
+    private final ConcurrentHashMap<String, Long> unknownUsernames = new ConcurrentHashMap<>();
 
     @Autowired
-    public AuthService(UserService userService) {
+    public AuthService(UserService userService,
+                       PasswordHasher passwordHasher,
+                       UserLoginWriter loginWriter,
+                       LoginProperties properties,
+                       PlatformTransactionManager transactionManager,
+                       HazelcastInstance hazelcast) {
+        this(userService, passwordHasher, loginWriter, properties, transactionManager, hazelcast.getTopic("integrator.user.changed"), System::nanoTime);
+    }
+
+    AuthService(UserService userService, PasswordHasher passwordHasher, UserLoginWriter loginWriter, LoginProperties properties,
+                PlatformTransactionManager transactionManager, ITopic<String> userChangedTopic, LongSupplier clock) {
         this.userService = userService;
+        this.passwordHasher = passwordHasher;
+        this.loginWriter = loginWriter;
+        this.properties = properties;
+        this.clock = clock;
+
+        readTransactionTemplate = new TransactionTemplate(transactionManager);
+        readTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransactionTemplate.setReadOnly(true);
+
+        this.userChangedTopic = userChangedTopic;
+        userChangedTopic.addMessageListener(this);
     }
 
-    @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+    // the connection is only held while the user is read, the password check waits for the hashing pool without one
+    @Transactional(propagation = Propagation.NEVER)
     public User getUser(String username, String password) throws InvalidCredentialsException {
+        if (isUnknown(username)) {
+            throw new InvalidCredentialsException("Invalid credentials");
+        }
+
+        User user = null;
         try {
-            User user = userService.getUserByUsername(username);
-            if (user != null && Objects.equals(user.getPassword(), password) && user.isActive()) {
-                return user;
-            }
+            user = readTransactionTemplate.execute(x -> load(username));
         } catch (BaseIntegratorException ignored) {
         }
 
-        throw new InvalidCredentialsException("Invalid credentials");
+        if (user == null) {
+            unknown(username);
+            throw new InvalidCredentialsException("Invalid credentials");
+        }
+
+        if (!user.isActive() || !passwordHasher.matches(password, user.getPassword())) {
+            throw new InvalidCredentialsException("Invalid credentials");
+        }
+
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            loginWriter.passwordRehashed(user.getId(), user.getPassword(), passwordHasher.hash(password));
+        }
+
+        loginWriter.apply(user);
+        return user;
     }
 
-    public void markAsLoggedIn(User user, String sessionKey) {
-        userService.markAsLoggedIn(user, sessionKey);
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        String username = event.getUser().getUsername();
+        if (username != null) {
+            userChangedTopic.publish(username);
+        }
+    }
+
+    @Override
+    public void onMessage(Message<String> message) {
+        unknownUsernames.remove(message.getMessageObject());
+    }
+
+    // the profile is mapped into the login response after the transaction
+    private User load(String username) {
+        User user = userService.getUserByUsername(username);
+        if (user != null) {
+            Hibernate.initialize(user.getProfile());
+        }
+
+        return user;
+    }
+
+    private boolean isUnknown(String username) {
+        Long expiresAt = unknownUsernames.get(username);
+        if (expiresAt == null) {
+            return false;
+        }
+
+        if (clock.getAsLong() - expiresAt >= 0) {
+            unknownUsernames.remove(username, expiresAt);
+            return false;
+        }
+
+        return true;
+    }
+
+    private void unknown(String username) {
+        if (properties.getNegativeCacheSeconds() == 0 || username == null) {
+            return;
+        }
+
+        if (unknownUsernames.size() >= properties.getNegativeCacheMaxSize()) {
+            unknownUsernames.clear();
+        }
+
+        unknownUsernames.put(username, clock.getAsLong() + TimeUnit.SECONDS.toNanos(properties.getNegativeCacheSeconds()));
     }
 }
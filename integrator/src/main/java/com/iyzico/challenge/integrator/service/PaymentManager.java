@@ -71,21 +71,18 @@ public class PaymentManager {
 
     public InstallmentDetail getInstallments(User user, String digits) {
         Basket basket = basketService.getUserBasket(user);
-        return getInstallments(user, basket, digits);
+        return getInstallments(basket, digits);
     }
 
-    private InstallmentDetail getInstallments(User user, Basket basket, String digits) {
-        InstallmentInfo result = lockService.executeInBasketLock(user, () -> {
-            RetrieveInstallmentInfoRequest request = new RetrieveInstallmentInfoRequest();
-            request.setLocale(COUNTRY);
-            request.setBinNumber(digits);
-            request.setPrice(basket.getTotal());
-            request.setCurrency(Currency.TRY.name());
-            request.setConversationId(String.valueOf(basket.getId()));
-
-            return InstallmentInfo.retrieve(request, options);
-        });
+    private InstallmentDetail getInstallments(Basket basket, String digits) {
+        RetrieveInstallmentInfoRequest request = new RetrieveInstallmentInfoRequest();
+        request.setLocale(COUNTRY);
+        request.setBinNumber(digits);
+        request.setPrice(basket.getTotal());
+        request.setCurrency(Currency.TRY.name());
+        request.setConversationId(String.valueOf(basket.getId()));
 
+        InstallmentInfo result = InstallmentInfo.retrieve(request, options);
         validate(result);
         if (result.getInstallmentDetails().isEmpty()) {
             throw new PaymentException(String.format("No installment info found for digits %s", digits));
@@ -93,46 +90,30 @@ public class PaymentManager {
         return result.getInstallmentDetails().get(0);
     }
 
+    // the basket lock is only held while the basket is frozen (ACTIVE -> STOCK_APPLIED) or unfrozen, the gateway
+    // calls run outside of it. A frozen basket rejects modifications by its status and a basket changed after it
+    // was read is rejected by its version when the stock is applied.
     public Payment pay(User user, String holderName, String cardNumber, YearMonth expire, String cvc, String ip,
-                       int installment) {
-        return lockService.executeInBasketLock(user, () -> doPay(user, holderName, cardNumber, expire, cvc, ip, installment));
-    }
-
-    private Payment doPay(User user, String holderName, String cardNumber, YearMonth expire, String cvc, String ip, int installmentCount) {
+                       int installmentCount) {
         log.info("Payment started for user {}. ip: {}, installmentCount: {}", user.getId(), ip, installmentCount);
 
-        Basket basket = null;
+        log.info("Getting profile with id {}", user.getUserProfileId());
+        // due to lazy loading exception
+        UserProfile profile = userService.getProfileById(user.getUserProfileId());
 
-        UserProfile profile;
-        InstallmentPrice installment;
-        UserPayment payment;
-        boolean decreased = false;
-        try {
-            log.info("Getting profile with id {}", user.getUserProfileId());
-            // due to lazy loading exception
-            profile = userService.getProfileById(user.getUserProfileId());
-
-            basket = basketService.getUserBasket(user);
+        Basket basket = basketService.getUserBasket(user);
 
-            installment = validateAndGetInstallment(user, basket, cardNumber, installmentCount);
+        InstallmentPrice installment = validateAndGetInstallment(basket, cardNumber, installmentCount);
 
-            log.info("Starting to decrease stocks for user {}", user.getId());
-            basket = basketService.decreaseStocks(user, basket);
-            decreased = true;
+        log.info("Starting to decrease stocks for user {}", user.getId());
+        basket = freeze(user, basket);
 
+        UserPayment payment;
+        try {
             payment = paymentService.startPayment(user, basket);
         } catch (Throwable t) {
             log.warn("Unexpected exception during the initialization of the payment", t);
-            if (decreased) {
-                try {
-                    basketService.rollbackStocks(user, basket);
-                } catch (Throwable t2) {
-                    // send a notification to manually solve the problem
-                    log.warn("Unexpected exception during the rollback of user basket", t2);
-                    throw t2;
-                }
-            }
-
+            unfreeze(user, basket);
             throw t;
         }
 
@@ -149,6 +130,11 @@ public class PaymentManager {
                 throw t2;
             }
 
+            // the gateway rejected the payment, any other failure may still be charged so the basket stays frozen
+            if (t instanceof PaymentException) {
+                unfreeze(user, basket);
+            }
+
             throw t;
         }
 
@@ -162,6 +148,20 @@ public class PaymentManager {
         return response;
     }
 
+    private Basket freeze(User user, Basket basket) {
+        return lockService.executeInBasketLock(user, token -> basketService.decreaseStocks(user, basket, token));
+    }
+
+    private void unfreeze(User user, Basket basket) {
+        try {
+            lockService.executeInBasketLock(user, token -> basketService.rollbackStocks(user, basket, token));
+        } catch (Throwable t) {
+            // send a notification to manually solve the problem
+            log.warn("Unexpected exception during the rollback of user basket", t);
+            throw t;
+        }
+    }
+
     private Payment sendPaymentRequest(User user, Basket basket, UserProfile profile, InstallmentPrice installment, String holderName, String cardNumber, YearMonth expire, String cvc, String ip) {
         CreatePaymentRequest request = new CreatePaymentRequest();
         request.setLocale(COUNTRY);
@@ -227,8 +227,8 @@ public class PaymentManager {
         return validate(Payment.create(request, options));
     }
 
-    private InstallmentPrice validateAndGetInstallment(User user, Basket basket, String cardNumber, int installmentCount) {
-        InstallmentDetail installmentInfo = getInstallments(user, basket, cardNumber.substring(0, 6));
+    private InstallmentPrice validateAndGetInstallment(Basket basket, String cardNumber, int installmentCount) {
+        InstallmentDetail installmentInfo = getInstallments(basket, cardNumber.substring(0, 6));
         Optional<InstallmentPrice> installmentResult = installmentInfo.getInstallmentPrices()
                 .stream()
                 .filter(x -> x.getInstallmentNumber() == installmentCount)
@@ -0,0 +1,213 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IAtomicLong;
+import com.hazelcast.core.IFunction;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.AbstractEntryProcessor;
+import com.iyzico.challenge.integrator.data.entity.Product;
+import com.iyzico.challenge.integrator.data.event.ProductChangedEvent;
+import com.iyzico.challenge.integrator.data.service.ProductService;
+import com.iyzico.challenge.integrator.dto.PageResponse;
+import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.dto.product.ProductSort;
+import com.iyzico.challenge.integrator.exception.InvalidPageRequestException;
+import com.iyzico.challenge.integrator.mapper.ProductMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Service
+public class ProductCatalogService {
+    private final Logger log = LoggerFactory.getLogger(ProductCatalogService.class);
+
+    static final int MAX_PAGE_SIZE = 200;
+
+    private static final Base64.Encoder CURSOR_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder CURSOR_DECODER = Base64.getUrlDecoder();
+
+    private final ProductService productService;
+    private final ProductMapper mapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final IMap<Long, ProductDto> products;
+    // bumped on every change of a product before it is evicted and used as its etag, the entries are never removed
+    private final IMap<Long, Long> stamps;
+    private final IMap<String, PageResponse<ProductDto>> pages;
+    private final IAtomicLong catalogVersion;
+
+    public ProductCatalogService(ProductService productService,
+                                 ProductMapper mapper,
+                                 PlatformTransactionManager transactionManager,
+                                 HazelcastInstance hazelcast) {
+        this.productService = productService;
+        this.mapper = mapper;
+
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+
+        products = hazelcast.getMap("integrator.product.cache");
+        stamps = hazelcast.getMap("integrator.product.stamp");
+        pages = hazelcast.getMap("integrator.product.page");
+        catalogVersion = hazelcast.getAtomicLong("integrator.product.catalog.version");
+    }
+
+    // the version is the time of the last change in millis, so it is also the Last-Modified of the catalog
+    public long getCatalogVersion() {
+        long version = catalogVersion.get();
+        if (version == 0) {
+            catalogVersion.compareAndSet(0, System.currentTimeMillis());
+            version = catalogVersion.get();
+        }
+
+        return version;
+    }
+
+    public static String etag(long id, long stamp) {
+        return "\"" + id + "-" + stamp + "\"";
+    }
+
+    public static String catalogEtag(long catalogVersion) {
+        return "\"catalog-" + catalogVersion + "\"";
+    }
+
+    // null when the item has neither changed nor been stamped since the cluster started
+    public Long getItemStamp(long id) {
+        return stamps.get(id);
+    }
+
+    // stamps an item read after the call to getItemStamp returned null. returns null if another reader or a change
+    // stamped it in the meantime, the item that was read may then be older than that stamp
+    public Long createItemStamp(long id) {
+        long stamp = System.currentTimeMillis();
+        return stamps.putIfAbsent(id, stamp) == null ? stamp : null;
+    }
+
+    public ProductDto getPublishedItem(long id) {
+        ProductDto cached = products.get(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        // a change committed after the read bumps the stamp, the stale item is then taken back out
+        Long stamp = stamps.get(id);
+        ProductDto dto = readOnlyTransactionTemplate.execute(x -> mapper.mapWithDescription(productService.getPublishedItem(id)));
+        products.set(id, dto);
+        if (!Objects.equals(stamp, stamps.get(id))) {
+            products.remove(id, dto);
+        }
+
+        return dto;
+    }
+
+    public PageResponse<ProductDto> getPublishedPage(ProductSort sort, String after, int size, ProductDto.Status status,
+                                                     BigDecimal minPrice, BigDecimal maxPrice) {
+        if (ProductDto.Status.UNPUBLISHED.equals(status)) {
+            throw new InvalidPageRequestException("Unpublished products cannot be listed.");
+        }
+
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new InvalidPageRequestException("Minimum price cannot be greater than the maximum price.");
+        }
+
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // the version is read before the rows, a page read before a change is kept under the version it was read at
+        // and is not served once the change moved the version
+        String key = catalogVersion.get() + "|" + sort + "|" + after + "|" + limit + "|" + status + "|" + minPrice + "|" + maxPrice;
+
+        PageResponse<ProductDto> cached = pages.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long afterId = 0;
+        String afterName = "";
+        if (after != null) {
+            String cursor = decodeCursor(after);
+            int separator = cursor.indexOf(':');
+            try {
+                afterId = Long.parseLong(separator < 0 ? cursor : cursor.substring(0, separator));
+            } catch (NumberFormatException e) {
+                throw new InvalidPageRequestException("Invalid page cursor.");
+            }
+
+            if (ProductSort.NAME.equals(sort)) {
+                if (separator < 0) {
+                    throw new InvalidPageRequestException("Invalid page cursor.");
+                }
+
+                afterName = cursor.substring(separator + 1);
+            }
+        }
+
+        Product.Status productStatus = status == null ? null : Product.Status.valueOf(status.name());
+        long fromId = afterId;
+        String fromName = afterName;
+        List<Product> items = readOnlyTransactionTemplate.execute(x -> productService
+                .getPublishedItems(sort, fromId, fromName, productStatus, minPrice, maxPrice, limit + 1));
+
+        String next = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            Product last = items.get(limit - 1);
+            next = encodeCursor(ProductSort.NAME.equals(sort) ? last.getId() + ":" + last.getName() : String.valueOf(last.getId()));
+        }
+
+        PageResponse<ProductDto> page = new PageResponse<>(new ArrayList<>(mapper.map(items)), next);
+        pages.set(key, page);
+        return page;
+    }
+
+    private static String encodeCursor(String cursor) {
+        return CURSOR_ENCODER.encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(CURSOR_DECODER.decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException("Invalid page cursor.");
+        }
+    }
+
+    // runs after the commit. a reader that loaded an item before it either sees the new stamp after its put, or its
+    // put lands before the delete below. the pages of older versions are only cleared to free the memory
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        log.trace("Evicting products {} from the catalog cache", event.getProductIds());
+        stamps.executeOnKeys(new HashSet<>(event.getProductIds()), new NextStamp());
+        for (Long productId : event.getProductIds()) {
+            products.delete(productId);
+        }
+
+        catalogVersion.alter(new NextCatalogVersion());
+        pages.clear();
+    }
+
+    static class NextCatalogVersion implements IFunction<Long, Long> {
+        @Override
+        public Long apply(Long version) {
+            return Math.max(version + 1, System.currentTimeMillis());
+        }
+    }
+
+    static class NextStamp extends AbstractEntryProcessor<Long, Long> {
+        @Override
+        public Object process(Map.Entry<Long, Long> entry) {
+            long stamp = entry.getValue() == null ? 0 : entry.getValue();
+            entry.setValue(Math.max(stamp + 1, System.currentTimeMillis()));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.iyzico.challenge.integrator.service;
+
+import java.util.Collection;
+
+public interface ProductChangeListener {
+    void onProductsChanged(Collection<Long> productIds);
+}
@@ -0,0 +1,48 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import com.hazelcast.core.MessageListener;
+import com.iyzico.challenge.integrator.data.event.ProductChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// ProductChangedEvent is local to the node that committed the change, the topic delivers it to every node
+@Component
+public class ProductEventRelay implements MessageListener<ArrayList<Long>> {
+    private final Logger log = LoggerFactory.getLogger(ProductEventRelay.class);
+
+    private final ITopic<ArrayList<Long>> topic;
+    private final List<ProductChangeListener> listeners;
+
+    public ProductEventRelay(HazelcastInstance hazelcast,
+                             List<ProductChangeListener> listeners) {
+        this.listeners = listeners;
+
+        topic = hazelcast.getTopic("integrator.product.changed");
+        topic.addMessageListener(this);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        topic.publish(new ArrayList<>(event.getProductIds()));
+    }
+
+    @Override
+    public void onMessage(Message<ArrayList<Long>> message) {
+        ArrayList<Long> productIds = message.getMessageObject();
+        for (ProductChangeListener listener : listeners) {
+            try {
+                listener.onProductsChanged(productIds);
+            } catch (RuntimeException e) {
+                log.error("Product change listener {} failed for products {}", listener.getClass().getSimpleName(), productIds, e);
+            }
+        }
+    }
+}
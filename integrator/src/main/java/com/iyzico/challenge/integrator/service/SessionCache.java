@@ -0,0 +1,145 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.iyzico.challenge.integrator.properties.SessionCacheProperties;
+import com.iyzico.challenge.integrator.session.model.UserSession;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// node local copy of the sessions read from redis. invalidations are broadcast over redis pub/sub,
+// a missed message is covered by the ttl
+@Service
+public class SessionCache implements MessageListener {
+    public static final String CHANNEL = "integrator.session.invalidated";
+    private static final String SESSION_PREFIX = "S:";
+    private static final String USER_PREFIX = "U:";
+
+    private final RedisTemplate<String, String> redis;
+    private final SessionCacheProperties properties;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Entry> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public SessionCache(RedisTemplate<String, String> redis,
+                        SessionCacheProperties properties) {
+        this(redis, properties, System::nanoTime);
+    }
+
+    SessionCache(RedisTemplate<String, String> redis, SessionCacheProperties properties, LongSupplier clock) {
+        this.redis = redis;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    public UserSession get(String sessionKey) {
+        Entry entry = sessions.get(sessionKey);
+        if (entry == null) {
+            return null;
+        }
+
+        if (clock.getAsLong() - entry.expiresAt >= 0) {
+            sessions.remove(sessionKey, entry);
+            return null;
+        }
+
+        return entry.session;
+    }
+
+    // taken before reading a session from redis and passed to put
+    public long getStamp() {
+        return invalidations.get();
+    }
+
+    // a session read before an invalidation is not cached, it may already be deleted from redis
+    public void put(UserSession session, long stamp) {
+        if (properties.getTtlSeconds() == 0) {
+            return;
+        }
+
+        if (sessions.size() >= properties.getMaxSize()) {
+            evict();
+        }
+
+        String sessionKey = session.getSessionKey();
+        Entry entry = new Entry(session, clock.getAsLong() + TimeUnit.SECONDS.toNanos(properties.getTtlSeconds()));
+        sessions.put(sessionKey, entry);
+        if (invalidations.get() != stamp) {
+            sessions.remove(sessionKey, entry);
+        }
+    }
+
+    public void invalidateSession(String sessionKey) {
+        removeSession(sessionKey);
+        redis.convertAndSend(CHANNEL, SESSION_PREFIX + sessionKey);
+    }
+
+    public void invalidateUser(long userId) {
+        removeUser(userId);
+        redis.convertAndSend(CHANNEL, USER_PREFIX + userId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (payload.startsWith(SESSION_PREFIX)) {
+            removeSession(payload.substring(SESSION_PREFIX.length()));
+        } else if (payload.startsWith(USER_PREFIX)) {
+            removeUser(Long.parseLong(payload.substring(USER_PREFIX.length())));
+        }
+    }
+
+    int size() {
+        return sessions.size();
+    }
+
+    private void removeSession(String sessionKey) {
+        invalidations.incrementAndGet();
+        sessions.remove(sessionKey);
+    }
+
+    private void removeUser(long userId) {
+        invalidations.incrementAndGet();
+        sessions.values().removeIf(x -> x.session.getUser().getId() == userId);
+    }
+
+    // expired entries go first, if the cache is still full an arbitrary tenth of it is dropped
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            long now = clock.getAsLong();
+            sessions.values().removeIf(x -> now - x.expiresAt >= 0);
+
+            int excess = sessions.size() - properties.getMaxSize() / 10 * 9;
+            Iterator<Entry> iterator = sessions.values().iterator();
+            while (excess-- > 0 && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static class Entry {
+        private final UserSession session;
+        private final long expiresAt;
+
+        private Entry(UserSession session, long expiresAt) {
+            this.session = session;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,20 +1,21 @@
 package com.iyzico.challenge.integrator.service;
 
 import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.event.UserChangedEvent;
 import com.iyzico.challenge.integrator.data.service.UserService;
 import com.iyzico.challenge.integrator.exception.CannotCreateSessionException;
 import com.iyzico.challenge.integrator.exception.UserNotFoundException;
+import com.iyzico.challenge.integrator.service.token.SessionToken;
+import com.iyzico.challenge.integrator.service.token.SessionTokenService;
 import com.iyzico.challenge.integrator.session.model.UserSession;
 import com.iyzico.challenge.integrator.util.IntegrationStringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisCallback;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.util.StringUtils;
 
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.Period;
 import java.time.format.DateTimeParseException;
@@ -24,50 +25,53 @@ import java.util.List;
 @Service
 public class SessionService {
     private static final Logger log = LoggerFactory.getLogger(SessionService.class);
-    protected static final byte[] USER_ID_KEY = "__userId".getBytes(StandardCharsets.UTF_8);
-    protected static final byte[] CREATED_KEY = "__created".getBytes(StandardCharsets.UTF_8);
-    protected static final byte[] LAST_LOGIN_KEY = "__last".getBytes(StandardCharsets.UTF_8);
+    private static final int CREATE_RETRY_COUNT = 3;
 
     protected static final Period sessionPeriod = Period.parse("P1D");
-    private final RedisTemplate<String, String> redis;
+    private final SessionStore store;
     private final UserService userService;
+    private final SessionCache sessionCache;
+    private final SessionTouchService touchService;
+    private final SessionTokenService tokenService;
 
     @Autowired
-    public SessionService(RedisTemplate<String, String> redis,
-                          UserService userService) {
-        this.redis = redis;
+    public SessionService(SessionStore store,
+                          UserService userService,
+                          SessionCache sessionCache,
+                          SessionTouchService touchService,
+                          SessionTokenService tokenService) {
+        this.store = store;
         this.userService = userService;
+        this.sessionCache = sessionCache;
+        this.touchService = touchService;
+        this.tokenService = tokenService;
     }
 
-    private static long getTtlSeconds() {
+    static long getTtlSeconds() {
         LocalDateTime now = LocalDateTime.now();
         return now.until(sessionPeriod.addTo(now), ChronoUnit.SECONDS);
     }
 
     public UserSession getSession(String sessionKey) {
-        final String redisSessionKey = key(sessionKey);
-        log.trace("Getting session from redis with key : {}", redisSessionKey);
-
-        final byte[] rskBuf = redisSessionKey.getBytes(StandardCharsets.UTF_8);
+        if (SessionTokenService.isToken(sessionKey)) {
+            return getTokenSession(sessionKey);
+        }
 
-        long ttlSeconds = getTtlSeconds();
-        byte[] lastLoginBytes = LocalDateTime.now().toString().getBytes(StandardCharsets.UTF_8);
-        List<Object> redisResult = redis.executePipelined((RedisCallback<Object>) connection -> {
-            connection.hGet(rskBuf, USER_ID_KEY);
-            connection.hGet(rskBuf, CREATED_KEY);
-            connection.hGet(rskBuf, LAST_LOGIN_KEY);
-            connection.hSet(rskBuf, LAST_LOGIN_KEY, lastLoginBytes);
-            connection.expire(rskBuf, ttlSeconds);
-            return null;
-        });
+        UserSession cached = sessionCache.get(sessionKey);
+        if (cached != null) {
+            touchService.touch(sessionKey);
+            return cached;
+        }
 
-        if (redisResult.get(0) == null) {
-            log.trace("Session with key '{}' not found", redisSessionKey);
+        long stamp = sessionCache.getStamp();
+        log.trace("Getting session from redis with key : {}", sessionKey);
+        List<byte[]> fields = store.read(sessionKey);
+        if (fields.get(0) == null) {
+            log.trace("Session with key '{}' not found", sessionKey);
             return null;
         }
 
-        log.trace("Redis result for key : {}, {}", redisSessionKey, redisResult);
-        String userIdAsString = (String) redisResult.get(0);
+        String userIdAsString = SessionStore.decode(fields.get(0));
         int userId;
 
         try {
@@ -77,67 +81,128 @@ public class SessionService {
             return null;
         }
 
+        String createdAtAsString = SessionStore.decode(fields.get(1));
         LocalDateTime createdAt;
         try {
-            createdAt = LocalDateTime.parse((String) redisResult.get(1));
+            createdAt = LocalDateTime.parse(createdAtAsString);
         } catch (DateTimeParseException | NullPointerException ex) {
-            log.warn("Invalid date format for createdAt {}", redisResult.get(1), ex);
+            log.warn("Invalid date format for createdAt {}", createdAtAsString, ex);
             return null;
         }
 
+        String lastLoginAsString = SessionStore.decode(fields.get(2));
         LocalDateTime lastLogin;
         try {
-            lastLogin = LocalDateTime.parse((String) redisResult.get(2));
+            lastLogin = LocalDateTime.parse(lastLoginAsString);
         } catch (DateTimeParseException | NullPointerException ex) {
-            log.warn("Invalid date format for lastLogin {}", redisResult.get(2), ex);
+            log.warn("Invalid date format for lastLogin {}", lastLoginAsString, ex);
             return null;
         }
 
-        return createUserSession(sessionKey, userId, createdAt, lastLogin);
+        UserSession session;
+        User user = UserSnapshot.decode(SessionStore.decode(fields.get(3)));
+        if (user != null && user.getId() == userId) {
+            user.setLastSessionKey(sessionKey);
+            session = createUserSession(sessionKey, user, createdAt, lastLogin);
+        } else {
+            // sessions created before the snapshot was introduced get one on their first read
+            session = createUserSession(sessionKey, userId, createdAt, lastLogin);
+            if (session != null) {
+                store.setUserIfAbsent(sessionKey, UserSnapshot.encode(session.getUser()));
+            }
+        }
+
+        if (session != null) {
+            touchService.touch(sessionKey);
+            sessionCache.put(session, stamp);
+        }
+
+        return session;
     }
 
     public UserSession createNewSession(User user) {
-        String redisSessionKey;
-        String sessionKey;
-        int counter = 0;
-        int retryCounter = 100;
+        if (tokenService.isEnabled()) {
+            return createTokenSession(user);
+        }
+
+        long ttlSeconds = getTtlSeconds();
+        String previousSessionKey = user.getLastSessionKey();
+        LocalDateTime createdAt = LocalDateTime.now();
+        // the snapshot carries this login already, the row is written once a key is claimed
+        user.setLastLoginDate(createdAt);
+        String snapshot = UserSnapshot.encode(user);
 
-        do {
+        // a collision of 32 random bytes is not expected, the script refuses an existing key instead of checking it up front
+        String sessionKey = null;
+        String lastSessionKey = null;
+        for (int i = 0; i < CREATE_RETRY_COUNT && lastSessionKey == null; i++) {
             sessionKey = IntegrationStringUtils.generate(32);
-            redisSessionKey = key(sessionKey);
-        } while (redis.hasKey(redisSessionKey) && ++counter < retryCounter);
+            lastSessionKey = store.create(sessionKey, previousSessionKey, user.getId(), createdAt, snapshot, ttlSeconds);
+        }
 
-        if (counter == retryCounter) {
-            log.warn("Cannot create a session after {} retries", retryCounter);
+        if (lastSessionKey == null) {
+            log.warn("Cannot create a session after {} retries", CREATE_RETRY_COUNT);
             throw new CannotCreateSessionException("Cannot create a session after retries");
         }
 
-        log.debug("redisSessionKey created as {} ", redisSessionKey);
+        userService.markAsLoggedIn(user, sessionKey, createdAt);
 
-        long userId = user.getId();
-        LocalDateTime createdAt = LocalDateTime.now();
+        log.debug("Session created with key {}", sessionKey);
         UserSession session = createUserSession(sessionKey, user, createdAt, createdAt);
-        String lastSessionKey = user.getLastSessionKey();
-        userService.markAsLoggedIn(user, sessionKey);
+        touchService.touched(sessionKey);
+        if (SessionTokenService.isToken(lastSessionKey)) {
+            tokenService.revoke(lastSessionKey);
+        } else if (!StringUtils.isEmpty(lastSessionKey)) {
+            touchService.forget(lastSessionKey);
+            sessionCache.invalidateSession(lastSessionKey);
+        }
+
+        return session;
+    }
 
-        byte[] keyAsBytes = redisSessionKey.getBytes(StandardCharsets.UTF_8);
-        byte[] createdAtBytes = createdAt.toString().getBytes(StandardCharsets.UTF_8);
-        byte[] userIdBytes = Long.toString(userId).getBytes(StandardCharsets.UTF_8);
-        byte[] delAsBytes = !StringUtils.isEmpty(lastSessionKey) ? key(lastSessionKey).getBytes(StandardCharsets.UTF_8) : null;
+    // the snapshot in the current session of the user is rewritten, the other nodes drop their cached copies.
+    // a token cannot be rewritten, it is revoked and the user logs in again
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        User user = event.getUser();
+        // the user row learns the session key behind, redis knows the last login of every node. the row is only
+        // asked for sessions created before the current key was kept
+        String sessionKey = store.getCurrent(user.getId());
+        if (sessionKey == null) {
+            sessionKey = user.getLastSessionKey();
+        }
 
-        long ttlSeconds = getTtlSeconds();
-        redis.executePipelined((RedisCallback<Object>) connection -> {
-            connection.hSet(keyAsBytes, USER_ID_KEY, userIdBytes);
-            connection.hSet(keyAsBytes, CREATED_KEY, createdAtBytes);
-            connection.hSet(keyAsBytes, LAST_LOGIN_KEY, createdAtBytes);
-            connection.expire(keyAsBytes, ttlSeconds);
-            if (delAsBytes != null) {
-                connection.del(delAsBytes);
-            }
+        if (SessionTokenService.isToken(sessionKey)) {
+            tokenService.revoke(sessionKey);
+        } else if (!StringUtils.isEmpty(sessionKey)) {
+            store.setUser(sessionKey, UserSnapshot.encode(user));
+        }
+
+        sessionCache.invalidateUser(user.getId());
+    }
 
+    private UserSession getTokenSession(String sessionKey) {
+        SessionToken token = tokenService.verify(sessionKey);
+        if (token == null) {
+            log.trace("Session token '{}' is not valid", sessionKey);
             return null;
-        });
+        }
 
+        User user = new User();
+        user.setId(token.getUserId());
+        user.setUserProfileId(token.getUserProfileId());
+        user.setAdmin(token.isAdmin());
+        user.setLastLoginDate(token.getIssuedAt());
+        user.setLastSessionKey(sessionKey);
+        return createUserSession(sessionKey, user, token.getIssuedAt(), token.getIssuedAt());
+    }
+
+    private UserSession createTokenSession(User user) {
+        LocalDateTime createdAt = LocalDateTime.now().withNano(0);
+        String sessionKey = tokenService.issue(user, createdAt);
+        UserSession session = createUserSession(sessionKey, user, createdAt, createdAt);
+        userService.markAsLoggedIn(user, sessionKey, createdAt);
+        deleteSession(store.setCurrent(user.getId(), sessionKey, tokenService.getTtlSeconds()));
         return session;
     }
 
@@ -154,26 +219,41 @@ public class SessionService {
         }
     }
 
+    // a token has no hash in redis, a value written under it would never expire
     public void setSessionValue(String sessionKey, String key, String value) {
-        redis.opsForHash().put(key(sessionKey), key, value);
+        if (SessionTokenService.isToken(sessionKey)) {
+            log.trace("Session token {} does not keep values, {} is dropped", sessionKey, key);
+            return;
+        }
+
+        store.setValue(sessionKey, key, value);
     }
 
     public String getSessionValue(String sessionKey, String key) {
-        return (String) redis.opsForHash().get(key(sessionKey), key);
+        if (SessionTokenService.isToken(sessionKey)) {
+            return null;
+        }
+
+        return store.getValue(sessionKey, key);
     }
 
     public void deleteSession(String sessionKey) {
-        if (!StringUtils.isEmpty(sessionKey)) {
+        if (SessionTokenService.isToken(sessionKey)) {
+            log.trace("Revoking session token {}", sessionKey);
+            tokenService.revoke(sessionKey);
+        } else if (!StringUtils.isEmpty(sessionKey)) {
             log.trace("Deleting session from redis. Key : {}", sessionKey);
-            redis.delete(key(sessionKey));
+            store.delete(sessionKey);
+            touchService.forget(sessionKey);
+            sessionCache.invalidateSession(sessionKey);
         }
     }
 
     public void deleteSessionValue(String sessionKey, String key) {
-        redis.opsForHash().delete(key(sessionKey), key);
-    }
+        if (SessionTokenService.isToken(sessionKey)) {
+            return;
+        }
 
-    private String key(String key) {
-        return String.format("S:%s", key);
+        store.deleteValue(sessionKey, key);
     }
 }
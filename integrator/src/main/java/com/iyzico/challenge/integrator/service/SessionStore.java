@@ -0,0 +1,224 @@
+package com.iyzico.challenge.integrator.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DigestUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// the session hashes in redis. keys, fields and values are written as raw bytes without going through the template
+// serializers, the scripts are sent by their sha1 and in full only when redis does not know them yet
+@Service
+public class SessionStore {
+    static final byte[] USER_ID_KEY = bytes("__userId");
+    static final byte[] CREATED_KEY = bytes("__created");
+    static final byte[] LAST_LOGIN_KEY = bytes("__last");
+    static final byte[] USER_KEY = bytes("__user");
+    private static final byte[] KEY_PREFIX = bytes("S:");
+    private static final byte[] USER_KEY_PREFIX = bytes("U:");
+
+    // the session is written and the current key of the user swapped in one round trip, only if the new key is not
+    // taken. the previous session is deleted, the key in the user row is only used when redis knows no current key.
+    // session keys are derived from the current key inside the script, the store runs against a single redis
+    static final Script CREATE_SCRIPT = new Script("if redis.call('hsetnx', KEYS[1], ARGV[1], ARGV[2]) == 0 then " +
+            "return false " +
+            "end " +
+            "redis.call('hmset', KEYS[1], ARGV[3], ARGV[4], ARGV[5], ARGV[6], ARGV[7], ARGV[8]) " +
+            "redis.call('expire', KEYS[1], ARGV[9]) " +
+            "local last = redis.call('getset', KEYS[2], ARGV[10]) " +
+            "redis.call('expire', KEYS[2], ARGV[9]) " +
+            "if last then " +
+            "redis.call('del', 'S:' .. last) " +
+            "return last " +
+            "end " +
+            "if #KEYS == 3 then " +
+            "redis.call('del', KEYS[3]) " +
+            "end " +
+            "return ''");
+
+    // the current key of a token session, the previous one is returned to be revoked
+    static final Script SET_CURRENT_SCRIPT = new Script("local last = redis.call('getset', KEYS[1], ARGV[1]) " +
+            "redis.call('expire', KEYS[1], ARGV[2]) " +
+            "return last");
+
+    // an expired or deleted session must not be brought back with only the __user field
+    static final Script SET_USER_SCRIPT = new Script("if redis.call('exists', KEYS[1]) == 1 then " +
+            "return redis.call('hset', KEYS[1], ARGV[1], ARGV[2]) " +
+            "end " +
+            "return 0");
+
+    // a session deleted in the meantime must not be brought back with only the __last field. the current key of the
+    // user lives as long as its session
+    static final Script TOUCH_SCRIPT = new Script("if redis.call('exists', KEYS[1]) == 1 then " +
+            "redis.call('hset', KEYS[1], ARGV[1], ARGV[2]) " +
+            "local userId = redis.call('hget', KEYS[1], ARGV[4]) " +
+            "if userId and redis.call('get', 'U:' .. userId) == ARGV[5] then " +
+            "redis.call('expire', 'U:' .. userId, ARGV[3]) " +
+            "end " +
+            "return redis.call('expire', KEYS[1], ARGV[3]) " +
+            "end " +
+            "return 0");
+
+    private static final Logger log = LoggerFactory.getLogger(SessionStore.class);
+
+    private final RedisTemplate<String, String> redis;
+
+    public SessionStore(RedisTemplate<String, String> redis) {
+        this.redis = redis;
+    }
+
+    // __userId, __created, __last and __user in one command, the fields of a missing session are null
+    public List<byte[]> read(String sessionKey) {
+        byte[] key = key(sessionKey);
+        return redis.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.hMGet(key, USER_ID_KEY, CREATED_KEY, LAST_LOGIN_KEY, USER_KEY));
+    }
+
+    // the previous session key of the user, empty if there was none. null if the new key is already taken
+    public String create(String sessionKey, String lastSessionKey, long userId, LocalDateTime createdAt, String snapshot, long ttlSeconds) {
+        List<byte[]> keysAndArgs = new ArrayList<>(13);
+        keysAndArgs.add(key(sessionKey));
+        keysAndArgs.add(userKey(userId));
+        if (!StringUtils.isEmpty(lastSessionKey)) {
+            keysAndArgs.add(key(lastSessionKey));
+        }
+
+        int numKeys = keysAndArgs.size();
+        byte[] createdAtBytes = bytes(createdAt.toString());
+        Collections.addAll(keysAndArgs,
+                USER_ID_KEY, bytes(Long.toString(userId)),
+                CREATED_KEY, createdAtBytes,
+                LAST_LOGIN_KEY, createdAtBytes,
+                USER_KEY, bytes(snapshot),
+                bytes(Long.toString(ttlSeconds)),
+                bytes(sessionKey));
+        byte[] result = redis.execute((RedisCallback<byte[]>) connection ->
+                eval(connection, CREATE_SCRIPT, ReturnType.VALUE, numKeys, keysAndArgs.toArray(new byte[0][])));
+        return decode(result);
+    }
+
+    // the key of the last session created for the user on any node, null if it expired
+    public String getCurrent(long userId) {
+        byte[] key = userKey(userId);
+        return decode(redis.execute((RedisCallback<byte[]>) connection -> connection.get(key)));
+    }
+
+    // the previous key, null if there was none
+    public String setCurrent(long userId, String sessionKey, long ttlSeconds) {
+        byte[] key = userKey(userId);
+        byte[] sessionKeyBytes = bytes(sessionKey);
+        byte[] ttlBytes = bytes(Long.toString(ttlSeconds));
+        return decode(redis.execute((RedisCallback<byte[]>) connection ->
+                eval(connection, SET_CURRENT_SCRIPT, ReturnType.VALUE, 1, key, sessionKeyBytes, ttlBytes)));
+    }
+
+    public void setUser(String sessionKey, String snapshot) {
+        byte[] key = key(sessionKey);
+        byte[] snapshotBytes = bytes(snapshot);
+        redis.execute((RedisCallback<Long>) connection -> eval(connection, SET_USER_SCRIPT, ReturnType.INTEGER, 1, key, USER_KEY, snapshotBytes));
+    }
+
+    public void setUserIfAbsent(String sessionKey, String snapshot) {
+        byte[] key = key(sessionKey);
+        byte[] snapshotBytes = bytes(snapshot);
+        redis.execute((RedisCallback<Boolean>) connection -> connection.hSetNX(key, USER_KEY, snapshotBytes));
+    }
+
+    // one pipeline for all the sessions, the script is loaded first on the same connection so every touch is an evalsha
+    public void touch(Map<String, LocalDateTime> touches, long ttlSeconds) {
+        byte[] ttlBytes = bytes(Long.toString(ttlSeconds));
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            connection.scriptLoad(TOUCH_SCRIPT.body);
+            touches.forEach((sessionKey, touchedAt) -> connection.evalSha(TOUCH_SCRIPT.sha, ReturnType.INTEGER, 1,
+                    key(sessionKey), LAST_LOGIN_KEY, bytes(touchedAt.toString()), ttlBytes, USER_ID_KEY, bytes(sessionKey)));
+            return null;
+        });
+    }
+
+    public void delete(String sessionKey) {
+        byte[] key = key(sessionKey);
+        redis.execute((RedisCallback<Long>) connection -> connection.del(key));
+    }
+
+    public void setValue(String sessionKey, String field, String value) {
+        byte[] key = key(sessionKey);
+        redis.execute((RedisCallback<Boolean>) connection -> connection.hSet(key, bytes(field), bytes(value)));
+    }
+
+    public String getValue(String sessionKey, String field) {
+        byte[] key = key(sessionKey);
+        return decode(redis.execute((RedisCallback<byte[]>) connection -> connection.hGet(key, bytes(field))));
+    }
+
+    public void deleteValue(String sessionKey, String field) {
+        byte[] key = key(sessionKey);
+        redis.execute((RedisCallback<Long>) connection -> connection.hDel(key, bytes(field)));
+    }
+
+    static byte[] key(String sessionKey) {
+        byte[] suffix = bytes(sessionKey);
+        byte[] key = Arrays.copyOf(KEY_PREFIX, KEY_PREFIX.length + suffix.length);
+        System.arraycopy(suffix, 0, key, KEY_PREFIX.length, suffix.length);
+        return key;
+    }
+
+    static byte[] userKey(long userId) {
+        byte[] suffix = bytes(Long.toString(userId));
+        byte[] key = Arrays.copyOf(USER_KEY_PREFIX, USER_KEY_PREFIX.length + suffix.length);
+        System.arraycopy(suffix, 0, key, USER_KEY_PREFIX.length, suffix.length);
+        return key;
+    }
+
+    static String decode(byte[] value) {
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static <T> T eval(RedisConnection connection, Script script, ReturnType returnType, int numKeys, byte[]... keysAndArgs) {
+        try {
+            return connection.evalSha(script.sha, returnType, numKeys, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+
+            log.debug("Script {} is not loaded, sending it in full", script.sha);
+            return connection.eval(script.body, returnType, numKeys, keysAndArgs);
+        }
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    static final class Script {
+        final String sha;
+        final byte[] body;
+
+        private Script(String source) {
+            this.sha = DigestUtils.sha1DigestAsHex(source);
+            this.body = bytes(source);
+        }
+    }
+}
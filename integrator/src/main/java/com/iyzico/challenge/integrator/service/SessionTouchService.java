@@ -0,0 +1,109 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.iyzico.challenge.integrator.properties.SessionTouchProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// a session is written at most once per granularity, the writes of all sessions are sent in one pipeline per flush
+@Service
+public class SessionTouchService {
+    private static final Logger log = LoggerFactory.getLogger(SessionTouchService.class);
+
+    private final SessionStore store;
+    private final SessionTouchProperties properties;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Long> lastTouched = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    public SessionTouchService(SessionStore store,
+                               SessionTouchProperties properties) {
+        this(store, properties, System::nanoTime);
+    }
+
+    SessionTouchService(SessionStore store, SessionTouchProperties properties, LongSupplier clock) {
+        this.store = store;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-touch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, properties.getFlushMillis(), properties.getFlushMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        flush();
+    }
+
+    public void touch(String sessionKey) {
+        long now = clock.getAsLong();
+        Long last = lastTouched.get(sessionKey);
+        if (last != null && now - last < granularityNanos()) {
+            return;
+        }
+
+        lastTouched.put(sessionKey, now);
+        pending.put(sessionKey, LocalDateTime.now());
+    }
+
+    // the session was just written with its expiry
+    public void touched(String sessionKey) {
+        lastTouched.put(sessionKey, clock.getAsLong());
+    }
+
+    public void forget(String sessionKey) {
+        pending.remove(sessionKey);
+        lastTouched.remove(sessionKey);
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    void flush() {
+        Map<String, LocalDateTime> batch = new HashMap<>();
+        for (String sessionKey : pending.keySet()) {
+            LocalDateTime touchedAt = pending.remove(sessionKey);
+            if (touchedAt != null) {
+                batch.put(sessionKey, touchedAt);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                store.touch(batch, SessionService.getTtlSeconds());
+            } catch (RuntimeException e) {
+                log.warn("{} session touches could not be written, they are retried on the next requests", batch.size(), e);
+                batch.keySet().forEach(lastTouched::remove);
+            }
+        }
+
+        long now = clock.getAsLong();
+        long granularity = granularityNanos();
+        lastTouched.values().removeIf(x -> now - x >= granularity);
+    }
+
+    private long granularityNanos() {
+        return TimeUnit.SECONDS.toNanos(properties.getGranularitySeconds());
+    }
+}
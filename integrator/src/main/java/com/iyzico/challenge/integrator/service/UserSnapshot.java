@@ -0,0 +1,72 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.iyzico.challenge.integrator.data.entity.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+// the fields of a user the request path reads, kept in the session hash so a request does not go to the database.
+// the template writes strings, so the binary form is stored base64 encoded
+final class UserSnapshot {
+    static final byte VERSION = 1;
+    private static final byte ADMIN = 1;
+    private static final byte ACTIVE = 2;
+    private static final byte HAS_LAST_LOGIN = 4;
+
+    private UserSnapshot() {
+    }
+
+    static String encode(User user) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            LocalDateTime lastLoginDate = user.getLastLoginDate();
+            out.writeByte(VERSION);
+            out.writeLong(user.getId());
+            out.writeLong(user.getUserProfileId());
+            out.writeByte((user.isAdmin() ? ADMIN : 0) | (user.isActive() ? ACTIVE : 0) | (lastLoginDate != null ? HAS_LAST_LOGIN : 0));
+            if (lastLoginDate != null) {
+                out.writeLong(lastLoginDate.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(lastLoginDate.getNano());
+            }
+            out.writeUTF(user.getUsername() == null ? "" : user.getUsername());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.toByteArray());
+    }
+
+    // a snapshot written by another version or not readable is treated as missing, the user is then read from the database
+    static User decode(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(value)))) {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+
+            User user = new User();
+            user.setId(in.readLong());
+            user.setUserProfileId(in.readLong());
+            byte flags = in.readByte();
+            user.setAdmin((flags & ADMIN) != 0);
+            user.setActive((flags & ACTIVE) != 0);
+            if ((flags & HAS_LAST_LOGIN) != 0) {
+                user.setLastLoginDate(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC));
+            }
+            user.setUsername(in.readUTF());
+            return user;
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.iyzico.challenge.integrator.service.barcode;
+
+import com.iyzico.challenge.integrator.data.entity.Product;
+import com.iyzico.challenge.integrator.data.repository.ProductBarcode;
+import com.iyzico.challenge.integrator.data.service.ProductService;
+import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.properties.BarcodeIndexProperties;
+import com.iyzico.challenge.integrator.service.ProductCatalogService;
+import com.iyzico.challenge.integrator.service.ProductChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+@Service
+public class BarcodeLookupService implements ProductChangeListener {
+    private final Logger log = LoggerFactory.getLogger(BarcodeLookupService.class);
+
+    private final ProductService productService;
+    private final ProductCatalogService catalogService;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final OffHeapBarcodeMap barcodes;
+
+    public BarcodeLookupService(ProductService productService,
+                                ProductCatalogService catalogService,
+                                PlatformTransactionManager transactionManager,
+                                BarcodeIndexProperties properties) {
+        this.productService = productService;
+        this.catalogService = catalogService;
+
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+
+        barcodes = new OffHeapBarcodeMap(properties.getInitialCapacity());
+    }
+
+    // the map may still point to the previous owner of a barcode until its change event arrives,
+    // so the cached product is checked before it is returned
+    public ProductDto getPublishedItem(String barcode) {
+        long id = barcodes.get(barcode);
+        if (id != OffHeapBarcodeMap.NOT_FOUND) {
+            ProductDto product = catalogService.getPublishedItem(id);
+            if (barcode.equals(product.getBarcode())) {
+                return product;
+            }
+
+            barcodes.remove(barcode);
+        }
+
+        Product product = readOnlyTransactionTemplate.execute(x -> productService.getByBarcode(barcode));
+        barcodes.put(barcode, product.getId());
+        return catalogService.getPublishedItem(product.getId());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long startedAt = System.currentTimeMillis();
+        readOnlyTransactionTemplate.execute(x -> {
+            try (Stream<ProductBarcode> products = productService.streamAllBarcodes()) {
+                products.forEach(product -> barcodes.put(product.getBarcode(), product.getId()));
+            }
+
+            return null;
+        });
+
+        log.info("Loaded {} barcodes in {} ms", barcodes.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    @Override
+    public void onProductsChanged(Collection<Long> productIds) {
+        readOnlyTransactionTemplate.execute(x -> {
+            for (Product product : productService.getByIds(productIds)) {
+                barcodes.put(product.getBarcode(), product.getId());
+            }
+
+            return null;
+        });
+    }
+}
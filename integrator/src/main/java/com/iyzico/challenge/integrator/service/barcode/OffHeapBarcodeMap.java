@@ -0,0 +1,243 @@
+package com.iyzico.challenge.integrator.service.barcode;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.StampedLock;
+
+// an open addressing (linear probing) barcode -> product id table kept in a direct buffer, so the entries
+// are neither scanned by the gc nor boxed. every slot is [key length][key bytes][padding][id]
+public class OffHeapBarcodeMap {
+    public static final long NOT_FOUND = -1;
+    static final int MAX_KEY_BYTES = 32;
+    static final int MAX_CAPACITY = 1 << 25;
+
+    private static final int SLOT_BYTES = 48;
+    private static final int KEY_OFFSET = 1;
+    private static final int ID_OFFSET = 40;
+    private static final byte EMPTY = 0;
+    private static final byte REMOVED = -1;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table;
+
+    public OffHeapBarcodeMap(int initialCapacity) {
+        table = new Table(Integer.highestOneBit(Math.max(15, Math.min(MAX_CAPACITY, initialCapacity) - 1) << 1));
+    }
+
+    public long get(String barcode) {
+        byte[] key = encode(barcode);
+        if (key == null) {
+            return NOT_FOUND;
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        long id = table.get(key);
+        if (lock.validate(stamp)) {
+            return id;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return table.get(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // barcodes that do not fit into a slot, or that come after the table is full, are not stored.
+    // the lookups of them fall back to the database
+    public boolean put(String barcode, long id) {
+        byte[] key = encode(barcode);
+        if (key == null) {
+            return false;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            if (table.capacity == MAX_CAPACITY && table.size * 4L >= table.capacity * 3L && table.get(key) == NOT_FOUND) {
+                return false;
+            }
+
+            if (!table.put(key, id)) {
+                return true;
+            }
+
+            if (table.used * 4L > table.capacity * 3L) {
+                boolean grow = table.size * 2L > table.capacity && table.capacity < MAX_CAPACITY;
+                Table resized = new Table(grow ? table.capacity * 2 : table.capacity);
+                table.copyTo(resized);
+                table = resized;
+            }
+
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(String barcode) {
+        byte[] key = encode(barcode);
+        if (key == null) {
+            return;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            table.remove(key);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            table = new Table(table.capacity);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    int capacity() {
+        return table.capacity;
+    }
+
+    private static byte[] encode(String barcode) {
+        if (barcode == null || barcode.isEmpty()) {
+            return null;
+        }
+
+        byte[] key = barcode.getBytes(StandardCharsets.UTF_8);
+        return key.length > MAX_KEY_BYTES ? null : key;
+    }
+
+    private static int hash(byte[] key) {
+        int hash = 0x811c9dc5;
+        for (byte b : key) {
+            hash = (hash ^ (b & 0xff)) * 0x01000193;
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private static class Table {
+        private final ByteBuffer slots;
+        private final int capacity;
+        private int size;
+        private int used;
+
+        private Table(int capacity) {
+            this.capacity = capacity;
+            this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        }
+
+        private long get(byte[] key) {
+            int mask = capacity - 1;
+            int index = hash(key) & mask;
+            for (int probe = 0; probe < capacity; probe++) {
+                int offset = index * SLOT_BYTES;
+                byte length = slots.get(offset);
+                if (length == EMPTY) {
+                    return NOT_FOUND;
+                }
+
+                if (length == key.length && keyEquals(offset, key)) {
+                    return slots.getLong(offset + ID_OFFSET);
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            return NOT_FOUND;
+        }
+
+        // returns true when a new slot is taken
+        private boolean put(byte[] key, long id) {
+            int mask = capacity - 1;
+            int index = hash(key) & mask;
+            int free = -1;
+            for (int probe = 0; probe < capacity; probe++) {
+                int offset = index * SLOT_BYTES;
+                byte length = slots.get(offset);
+                if (length == EMPTY) {
+                    if (free < 0) {
+                        free = offset;
+                        used++;
+                    }
+
+                    break;
+                }
+
+                if (length == REMOVED) {
+                    if (free < 0) {
+                        free = offset;
+                    }
+                } else if (length == key.length && keyEquals(offset, key)) {
+                    slots.putLong(offset + ID_OFFSET, id);
+                    return false;
+                }
+
+                index = (index + 1) & mask;
+            }
+
+            for (int i = 0; i < key.length; i++) {
+                slots.put(free + KEY_OFFSET + i, key[i]);
+            }
+
+            slots.putLong(free + ID_OFFSET, id);
+            slots.put(free, (byte) key.length);
+            size++;
+            return true;
+        }
+
+        private void remove(byte[] key) {
+            int mask = capacity - 1;
+            int index = hash(key) & mask;
+            for (int probe = 0; probe < capacity; probe++) {
+                int offset = index * SLOT_BYTES;
+                byte length = slots.get(offset);
+                if (length == EMPTY) {
+                    return;
+                }
+
+                if (length == key.length && keyEquals(offset, key)) {
+                    slots.put(offset, REMOVED);
+                    size--;
+                    return;
+                }
+
+                index = (index + 1) & mask;
+            }
+        }
+
+        private void copyTo(Table target) {
+            for (int offset = 0; offset < capacity * SLOT_BYTES; offset += SLOT_BYTES) {
+                byte length = slots.get(offset);
+                if (length == EMPTY || length == REMOVED) {
+                    continue;
+                }
+
+                byte[] key = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    key[i] = slots.get(offset + KEY_OFFSET + i);
+                }
+
+                target.put(key, slots.getLong(offset + ID_OFFSET));
+            }
+        }
+
+        private boolean keyEquals(int offset, byte[] key) {
+            for (int i = 0; i < key.length; i++) {
+                if (slots.get(offset + KEY_OFFSET + i) != key[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.iyzico.challenge.integrator.service.hazelcast;
+
+@FunctionalInterface
+public interface FencedCallable<T> {
+    T call(long fencingToken) throws Exception;
+}
@@ -1,76 +1,226 @@
 package com.iyzico.challenge.integrator.service.hazelcast;
 
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IAtomicLong;
 import com.hazelcast.core.IMap;
+import com.hazelcast.core.PartitionService;
 import com.iyzico.challenge.integrator.data.entity.User;
 import com.iyzico.challenge.integrator.exception.BaseIntegratorException;
+import com.iyzico.challenge.integrator.properties.LockProperties;
 import com.iyzico.challenge.integrator.service.hazelcast.exception.CannotHoldTheLockException;
+import com.iyzico.challenge.integrator.service.hazelcast.metrics.LockMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Service
 public class LockService {
     private final Logger logger = LoggerFactory.getLogger(LockService.class);
 
+    private static final int UNLOCK_RETRY_COUNT = 10;
+
+    private final HazelcastInstance hazelcast;
     private final IMap<String, Object> lockMap;
+    private final IAtomicLong fence;
+    private final LockMetrics metrics;
+    private final long waitSeconds;
+    private final long leaseSeconds;
 
-    public LockService(HazelcastInstance hazelcast) {
+    public LockService(HazelcastInstance hazelcast,
+                       LockMetrics metrics,
+                       LockProperties properties) {
+        this.hazelcast = hazelcast;
+        this.metrics = metrics;
+        this.waitSeconds = properties.getWaitSeconds();
+        this.leaseSeconds = properties.getLeaseSeconds();
         lockMap = hazelcast.getMap("integrator.lock.map");
+        fence = hazelcast.getAtomicLong("integrator.lock.fence");
     }
 
     public <T> T executeInProductLock(long productId, Callable<T> callable) {
         return executeInLock("product-" + productId, callable);
     }
 
+    public <T> T executeInProductLock(long productId, FencedCallable<T> callable) {
+        return executeInLock("product-" + productId, callable);
+    }
+
     public BLock getProductLock(Long productId) {
         return getLock("product-" + productId);
     }
 
+    public MultiLock lockProducts(Collection<Long> productIds) throws CannotHoldTheLockException {
+        return lockAll(productIds.stream()
+                .map(productId -> "product-" + productId)
+                .collect(Collectors.toList()), waitSeconds, TimeUnit.SECONDS);
+    }
+
+    public <T> T executeInProductLocks(Collection<Long> productIds, FencedCallable<T> callable) {
+        MultiLock locks = lockProducts(productIds);
+        try {
+            return call(callable, locks.getFencingToken());
+        } finally {
+            locks.unlock();
+        }
+    }
+
     public <T> T executeInBasketLock(User user, Callable<T> callable) {
         return executeInLock("basket-" + user.getId(), callable);
     }
 
+    public <T> T executeInBasketLock(User user, FencedCallable<T> callable) {
+        return executeInLock("basket-" + user.getId(), callable);
+    }
+
     public <T> T executeInLock(String key, Callable<T> task) {
+        return executeInLock(key, token -> task.call(), false);
+    }
+
+    public <T> T executeInLock(String key, FencedCallable<T> task) {
+        return executeInLock(key, task, true);
+    }
+
+    private <T> T executeInLock(String key, FencedCallable<T> task, boolean fenced) {
         boolean locked = false;
         BLock lock = null;
         try {
             lock = getLock(key);
             logger.trace("Trying to get lock for key '{}'", key);
-            if (lock.tryLock(30, TimeUnit.SECONDS)) {
+            if (lock.tryLock(waitSeconds, TimeUnit.SECONDS)) {
                 logger.trace("Lock hold for key '{}'", key);
                 locked = true;
-                return task.call();
+                return task.call(fenced ? nextFencingToken() : 0);
             }
         } catch (InterruptedException e) {
-            throw new CannotHoldTheLockException(e);
+            throw new CannotHoldTheLockException(e, key);
         } catch (BaseIntegratorException e) {
             throw e;
         } catch (Throwable e) {
-            if (e.getCause() instanceof BaseIntegratorException) {
-                throw (BaseIntegratorException) e.getCause();
+            throw unwrap(e);
+        } finally {
+            if (locked) {
+                try {
+                    lock.unlock();
+                } catch (IllegalMonitorStateException e) {
+                    logger.warn("Lease of the lock {} expired before it was released", key);
+                }
             }
+        }
+
+        logger.trace("Cannot hold the lock for key '{}'", key);
+        throw new CannotHoldTheLockException(String.format("Unable to acquire lock with key %s in the maximum wait time.", key), key);
+    }
 
-            if (e instanceof RuntimeException) {
-                throw (RuntimeException) e;
+    // keys are taken in one global (partition, key) order so overlapping key sets cannot deadlock,
+    // and all of them share a single deadline. Map locks are thread owned, so they are taken on the caller thread.
+    public MultiLock lockAll(Collection<String> keys, long time, TimeUnit unit) throws CannotHoldTheLockException {
+        List<String> orderedKeys = orderByPartition(keys);
+        List<BLock> locks = new ArrayList<>(orderedKeys.size());
+        long deadline = System.nanoTime() + unit.toNanos(time);
+
+        for (String key : orderedKeys) {
+            BLock lock = getLock(key);
+            boolean locked;
+            try {
+                logger.trace("Trying to get lock for key '{}'", key);
+                locked = lock.tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                unlockAll(locks);
+                Thread.currentThread().interrupt();
+                throw new CannotHoldTheLockException(e, key);
+            } catch (RuntimeException e) {
+                unlockAll(locks);
+                throw e;
             }
 
-            throw new RuntimeException(e);
-        } finally {
-            if (locked) {
-                lock.unlock();
+            if (!locked) {
+                logger.trace("Cannot hold the lock for key '{}'", key);
+                unlockAll(locks);
+                throw new CannotHoldTheLockException(String.format("Unable to acquire lock with key %s in the maximum wait time.", key), key);
             }
+
+            locks.add(lock);
         }
 
-        logger.trace("Cannot hold the lock for key '{}'", key);
-        throw new CannotHoldTheLockException(String.format("Unable to acquire lock with key %s in the maximum wait time.", key));
+        logger.trace("All locks held for keys {}", orderedKeys);
+        try {
+            return new MultiLock(this, locks, nextFencingToken());
+        } catch (RuntimeException e) {
+            unlockAll(locks);
+            throw e;
+        }
+    }
+
+    void unlockAll(List<BLock> locks) {
+        for (int index = locks.size() - 1; index >= 0; index--) {
+            BLock lock = locks.get(index);
+            for (int i = 0; i < UNLOCK_RETRY_COUNT; i++) {
+                try {
+                    lock.unlock();
+                    logger.trace("Lock {} successfully released", lock.getName());
+                    break;
+                } catch (IllegalMonitorStateException e) {
+                    logger.warn("Lease of the lock {} expired before it was released", lock.getName());
+                    break;
+                } catch (Throwable e) {
+                    if (i == UNLOCK_RETRY_COUNT - 1) {
+                        logger.warn("Cannot release the lock after " + UNLOCK_RETRY_COUNT + " retries. lockKey: " + lock.getName(), e);
+                    } else {
+                        logger.trace("Unexpected exception during unlock of key " + lock.getName(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<String> orderByPartition(Collection<String> keys) {
+        PartitionService partitionService = hazelcast.getPartitionService();
+        return new LinkedHashSet<>(keys).stream()
+                .sorted(Comparator.<String>comparingInt(key -> partitionService.getPartition(key).getPartitionId())
+                        .thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toList());
+    }
+
+    private long nextFencingToken() {
+        return fence.incrementAndGet();
+    }
+
+    private <T> T call(FencedCallable<T> callable, long fencingToken) {
+        try {
+            return callable.call(fencingToken);
+        } catch (BaseIntegratorException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw unwrap(e);
+        }
+    }
+
+    private RuntimeException unwrap(Throwable e) {
+        if (e.getCause() instanceof BaseIntegratorException) {
+            return (BaseIntegratorException) e.getCause();
+        }
+
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+
+        return new RuntimeException(e);
     }
 
     private BLock getLock(String lockName) {
         return new BLock() {
+            private long acquiredAt;
+            private boolean held = false;
+
             @Override
             public boolean isLocked() {
                 return lockMap.isLocked(lockName);
@@ -88,17 +238,49 @@ public class LockService {
 
             @Override
             public void lock() {
-                lockMap.lock(lockName);
+                long startedAt = metrics.startWaiting(lockName);
+                boolean locked = false;
+                try {
+                    lockMap.lock(lockName, leaseSeconds, TimeUnit.SECONDS);
+                    locked = true;
+                } finally {
+                    held(locked, startedAt);
+                }
             }
 
             @Override
             public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
-                return lockMap.tryLock(lockName, time, unit);
+                long startedAt = metrics.startWaiting(lockName);
+                boolean locked = false;
+                try {
+                    locked = lockMap.tryLock(lockName, time, unit, leaseSeconds, TimeUnit.SECONDS);
+                } finally {
+                    held(locked, startedAt);
+                }
+
+                return locked;
             }
 
             @Override
             public void unlock() {
-                lockMap.unlock(lockName);
+                // an expired lease fails the unlock, the lock is released all the same
+                try {
+                    lockMap.unlock(lockName);
+                } finally {
+                    if (held) {
+                        held = false;
+                        metrics.released(lockName, acquiredAt);
+                    }
+                }
+            }
+
+            private void held(boolean locked, long startedAt) {
+                if (locked) {
+                    acquiredAt = metrics.acquired(lockName, startedAt);
+                    held = true;
+                } else {
+                    metrics.timedOut(lockName, startedAt);
+                }
             }
         };
     }
@@ -0,0 +1,50 @@
+package com.iyzico.challenge.integrator.service.hazelcast;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class MultiLock implements AutoCloseable {
+    private final LockService lockService;
+    private final List<BLock> locks;
+    private final long fencingToken;
+    private boolean released = false;
+
+    MultiLock(LockService lockService, List<BLock> locks, long fencingToken) {
+        this.lockService = lockService;
+        this.locks = Collections.unmodifiableList(locks);
+        this.fencingToken = fencingToken;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public List<BLock> getLocks() {
+        return locks;
+    }
+
+    public List<String> getNames() {
+        return locks.stream()
+                .map(BLock::getName)
+                .collect(Collectors.toList());
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    public void unlock() {
+        if (released) {
+            return;
+        }
+
+        released = true;
+        lockService.unlockAll(locks);
+    }
+
+    @Override
+    public void close() {
+        unlock();
+    }
+}
@@ -1,11 +1,27 @@
 package com.iyzico.challenge.integrator.service.hazelcast.exception;
 
 public class CannotHoldTheLockException extends RuntimeException {
+    private String key;
+
     public CannotHoldTheLockException(String message) {
         super(message);
     }
 
+    public CannotHoldTheLockException(String message, String key) {
+        super(message);
+        this.key = key;
+    }
+
     public CannotHoldTheLockException(Throwable cause) {
         super(cause);
     }
+
+    public CannotHoldTheLockException(Throwable cause, String key) {
+        super(cause);
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
 }
@@ -0,0 +1,7 @@
+package com.iyzico.challenge.integrator.service.hazelcast.exception;
+
+public class StaleLockTokenException extends RuntimeException {
+    public StaleLockTokenException(String message) {
+        super(message);
+    }
+}
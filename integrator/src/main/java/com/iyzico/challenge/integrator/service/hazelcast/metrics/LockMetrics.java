@@ -0,0 +1,256 @@
+package com.iyzico.challenge.integrator.service.hazelcast.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+@Component
+public class LockMetrics {
+    static final long CONTENDED_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    static final int WINDOW_SLOT_COUNT = 6;
+    static final long WINDOW_SLOT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int MAX_KEYS_PER_SLOT = 10_000;
+
+    private final ConcurrentHashMap<String, PrefixMetrics> prefixes = new ConcurrentHashMap<>();
+    private final WindowSlot[] window = new WindowSlot[WINDOW_SLOT_COUNT];
+    private final LongSupplier clock;
+
+    public LockMetrics() {
+        this(System::nanoTime);
+    }
+
+    LockMetrics(LongSupplier clock) {
+        this.clock = clock;
+        for (int i = 0; i < WINDOW_SLOT_COUNT; i++) {
+            window[i] = new WindowSlot();
+        }
+    }
+
+    public long startWaiting(String key) {
+        prefix(key).waiting();
+        return clock.getAsLong();
+    }
+
+    public long acquired(String key, long waitStartedAt) {
+        long now = clock.getAsLong();
+        long waited = now - waitStartedAt;
+
+        PrefixMetrics metrics = prefix(key);
+        metrics.waiting.decrementAndGet();
+        metrics.acquired.increment();
+        metrics.waitTime.record(waited);
+
+        if (waited >= CONTENDED_WAIT_NANOS) {
+            contended(key, waited, now);
+        }
+
+        return now;
+    }
+
+    public void timedOut(String key, long waitStartedAt) {
+        long now = clock.getAsLong();
+        long waited = now - waitStartedAt;
+
+        PrefixMetrics metrics = prefix(key);
+        metrics.waiting.decrementAndGet();
+        metrics.timeouts.increment();
+        metrics.waitTime.record(waited);
+
+        contended(key, waited, now);
+    }
+
+    public void released(String key, long acquiredAt) {
+        prefix(key).holdTime.record(clock.getAsLong() - acquiredAt);
+    }
+
+    public List<PrefixSnapshot> getPrefixes() {
+        return prefixes.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(x -> x.getValue().snapshot(x.getKey()))
+                .collect(Collectors.toList());
+    }
+
+    public List<ContendedKey> getMostContendedKeys(int limit) {
+        long now = clock.getAsLong();
+        long currentSlot = now / WINDOW_SLOT_NANOS;
+
+        Map<String, ContendedKey> merged = new HashMap<>();
+        for (WindowSlot slot : window) {
+            if (currentSlot - slot.index.get() >= WINDOW_SLOT_COUNT) {
+                continue;
+            }
+
+            slot.keys.forEach((key, stats) -> merged
+                    .computeIfAbsent(key, ContendedKey::new)
+                    .add(stats.count.sum(), stats.waitNanos.sum()));
+        }
+
+        List<ContendedKey> result = new ArrayList<>(merged.values());
+        result.sort(Comparator.comparingLong(ContendedKey::getTotalWaitMicros).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    public long getWindowSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(WINDOW_SLOT_NANOS * WINDOW_SLOT_COUNT);
+    }
+
+    private void contended(String key, long waited, long now) {
+        long slotIndex = now / WINDOW_SLOT_NANOS;
+        WindowSlot slot = window[(int) (slotIndex % WINDOW_SLOT_COUNT)];
+
+        long current = slot.index.get();
+        if (current != slotIndex) {
+            if (current > slotIndex) {
+                return;
+            }
+
+            if (slot.index.compareAndSet(current, slotIndex)) {
+                slot.keys.clear();
+            } else if (slot.index.get() != slotIndex) {
+                return;
+            }
+        }
+
+        KeyStats stats = slot.keys.get(key);
+        if (stats == null) {
+            if (slot.keys.size() >= MAX_KEYS_PER_SLOT) {
+                return;
+            }
+
+            stats = slot.keys.computeIfAbsent(key, x -> new KeyStats());
+        }
+
+        stats.count.increment();
+        stats.waitNanos.add(waited);
+    }
+
+    private PrefixMetrics prefix(String key) {
+        int index = key.indexOf('-');
+        String prefix = index > 0 ? key.substring(0, index) : key;
+
+        PrefixMetrics metrics = prefixes.get(prefix);
+        if (metrics == null) {
+            metrics = prefixes.computeIfAbsent(prefix, x -> new PrefixMetrics());
+        }
+
+        return metrics;
+    }
+
+    private static class PrefixMetrics {
+        private final LatencyHistogram waitTime = new LatencyHistogram();
+        private final LatencyHistogram holdTime = new LatencyHistogram();
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAccumulator maxWaiting = new LongAccumulator(Math::max, 0);
+
+        private void waiting() {
+            maxWaiting.accumulate(waiting.incrementAndGet());
+        }
+
+        private PrefixSnapshot snapshot(String prefix) {
+            return new PrefixSnapshot(prefix, acquired.sum(), timeouts.sum(), waiting.get(), maxWaiting.get(),
+                    waitTime.snapshot(), holdTime.snapshot());
+        }
+    }
+
+    private static class WindowSlot {
+        private final AtomicLong index = new AtomicLong(-1);
+        private final ConcurrentHashMap<String, KeyStats> keys = new ConcurrentHashMap<>();
+    }
+
+    private static class KeyStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+    }
+
+    public static class PrefixSnapshot {
+        private final String prefix;
+        private final long acquired;
+        private final long timeouts;
+        private final int waiting;
+        private final long maxWaiting;
+        private final LatencyHistogram.Snapshot waitTime;
+        private final LatencyHistogram.Snapshot holdTime;
+
+        PrefixSnapshot(String prefix, long acquired, long timeouts, int waiting, long maxWaiting,
+                       LatencyHistogram.Snapshot waitTime, LatencyHistogram.Snapshot holdTime) {
+            this.prefix = prefix;
+            this.acquired = acquired;
+            this.timeouts = timeouts;
+            this.waiting = waiting;
+            this.maxWaiting = maxWaiting;
+            this.waitTime = waitTime;
+            this.holdTime = holdTime;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public long getAcquired() {
+            return acquired;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public int getWaiting() {
+            return waiting;
+        }
+
+        public long getMaxWaiting() {
+            return maxWaiting;
+        }
+
+        public LatencyHistogram.Snapshot getWaitTime() {
+            return waitTime;
+        }
+
+        public LatencyHistogram.Snapshot getHoldTime() {
+            return holdTime;
+        }
+    }
+
+    public static class ContendedKey {
+        private final String key;
+        private long contentions;
+        private long totalWaitNanos;
+
+        ContendedKey(String key) {
+            this.key = key;
+        }
+
+        private ContendedKey add(long contentions, long waitNanos) {
+            this.contentions += contentions;
+            this.totalWaitNanos += waitNanos;
+            return this;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getContentions() {
+            return contentions;
+        }
+
+        public long getTotalWaitMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(totalWaitNanos);
+        }
+    }
+}
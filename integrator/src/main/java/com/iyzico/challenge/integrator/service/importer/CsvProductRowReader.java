@@ -0,0 +1,175 @@
+package com.iyzico.challenge.integrator.service.importer;
+
+import com.iyzico.challenge.integrator.dto.product.request.CreateProductRequest;
+import com.iyzico.challenge.integrator.exception.InvalidImportRequestException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// reads one record at a time, quoted fields may contain commas, escaped quotes and line breaks
+public class CsvProductRowReader implements ProductRowReader {
+    static final String NAME = "name";
+    static final String BARCODE = "barcode";
+    static final String STOCK_COUNT = "stockcount";
+    static final String PRICE = "price";
+    static final String DESCRIPTION = "description";
+    private static final List<String> REQUIRED_COLUMNS = Arrays.asList(NAME, BARCODE, STOCK_COUNT, PRICE);
+
+    private final BufferedReader reader;
+    private Map<String, Integer> columns;
+    private long line = 1;
+
+    public CsvProductRowReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+    }
+
+    @Override
+    public ProductRow next() throws IOException {
+        if (columns == null) {
+            columns = readHeader();
+        }
+
+        while (true) {
+            long recordLine = line;
+            List<String> fields;
+            try {
+                fields = readRecord();
+            } catch (UnterminatedQuoteException e) {
+                return ProductRow.failed(recordLine, "unterminated quoted field");
+            }
+
+            if (fields == null) {
+                return null;
+            }
+
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                continue;
+            }
+
+            return toRow(recordLine, fields);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Map<String, Integer> readHeader() throws IOException {
+        List<String> header;
+        try {
+            header = readRecord();
+        } catch (UnterminatedQuoteException e) {
+            header = null;
+        }
+
+        if (header == null) {
+            throw new InvalidImportRequestException("Csv header is missing");
+        }
+
+        Map<String, Integer> result = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            result.put(header.get(i).trim().replace("_", "").toLowerCase(Locale.ENGLISH), i);
+        }
+
+        for (String column : REQUIRED_COLUMNS) {
+            if (!result.containsKey(column)) {
+                throw new InvalidImportRequestException(String.format("Csv header must contain the %s column", column));
+            }
+        }
+
+        return result;
+    }
+
+    private ProductRow toRow(long recordLine, List<String> fields) {
+        if (fields.size() < columns.size()) {
+            return ProductRow.failed(recordLine, String.format("expected %s columns but found %s", columns.size(), fields.size()));
+        }
+
+        CreateProductRequest request = new CreateProductRequest();
+        request.setName(field(fields, NAME));
+        request.setBarcode(field(fields, BARCODE));
+        request.setDescription(field(fields, DESCRIPTION));
+
+        try {
+            request.setStockCount(Long.parseLong(field(fields, STOCK_COUNT).trim()));
+        } catch (NumberFormatException e) {
+            return ProductRow.failed(recordLine, "stockCount: must be a number");
+        }
+
+        try {
+            request.setPrice(new BigDecimal(field(fields, PRICE).trim()));
+        } catch (NumberFormatException e) {
+            return ProductRow.failed(recordLine, "price: must be a number");
+        }
+
+        return ProductRow.of(recordLine, request);
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        return index == null ? null : fields.get(index);
+    }
+
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            empty = false;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+
+        if (quoted) {
+            throw new UnterminatedQuoteException();
+        }
+
+        if (empty) {
+            return null;
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static class UnterminatedQuoteException extends RuntimeException {
+    }
+}
@@ -0,0 +1,45 @@
+package com.iyzico.challenge.integrator.service.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.iyzico.challenge.integrator.dto.product.request.CreateProductRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+public class NdjsonProductRowReader implements ProductRowReader {
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private long line = 0;
+
+    public NdjsonProductRowReader(Reader reader, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(reader);
+        this.objectReader = objectMapper.readerFor(CreateProductRequest.class);
+    }
+
+    @Override
+    public ProductRow next() throws IOException {
+        String value;
+        while ((value = reader.readLine()) != null) {
+            line++;
+            if (value.trim().isEmpty()) {
+                continue;
+            }
+
+            try {
+                return ProductRow.of(line, objectReader.readValue(value));
+            } catch (JsonProcessingException e) {
+                return ProductRow.failed(line, e.getOriginalMessage());
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
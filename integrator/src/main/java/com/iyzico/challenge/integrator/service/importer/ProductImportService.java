@@ -0,0 +1,127 @@
+package com.iyzico.challenge.integrator.service.importer;
+
+import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.service.ProductImportWriter;
+import com.iyzico.challenge.integrator.dto.product.ProductImportError;
+import com.iyzico.challenge.integrator.dto.product.ProductImportResult;
+import com.iyzico.challenge.integrator.dto.product.request.CreateProductRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class ProductImportService {
+    public static final int CHUNK_SIZE = 500;
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private final ProductImportWriter writer;
+    private final Validator validator;
+    private final TransactionTemplate requireNewTransactionTemplate;
+
+    public ProductImportService(ProductImportWriter writer,
+                                Validator validator,
+                                PlatformTransactionManager transactionManager) {
+        this.writer = writer;
+        this.validator = validator;
+
+        requireNewTransactionTemplate = new TransactionTemplate(transactionManager);
+        requireNewTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // every chunk is committed on its own, a failing row is reported and does not stop the rest of the import
+    public ProductImportResult importProducts(User user, ProductRowReader reader) throws IOException {
+        ProductImportResult result = new ProductImportResult();
+        List<ProductRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        Set<String> barcodes = new HashSet<>();
+
+        ProductRow row;
+        while ((row = reader.next()) != null) {
+            result.setTotal(result.getTotal() + 1);
+
+            String error = row.getError() != null ? row.getError() : validate(row.getRequest());
+            if (error != null) {
+                failed(result, row, error);
+                continue;
+            }
+
+            // the same barcode twice in one chunk would be inserted twice, the second one has to see the first
+            if (!barcodes.add(row.getRequest().getBarcode())) {
+                write(user, chunk, result);
+                chunk.clear();
+                barcodes.clear();
+                barcodes.add(row.getRequest().getBarcode());
+            }
+
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                write(user, chunk, result);
+                chunk.clear();
+                barcodes.clear();
+            }
+        }
+
+        write(user, chunk, result);
+        return result;
+    }
+
+    private void write(User user, List<ProductRow> rows, ProductImportResult result) {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        List<CreateProductRequest> requests = rows.stream()
+                .map(ProductRow::getRequest)
+                .collect(Collectors.toList());
+        try {
+            ProductImportWriter.Result written = requireNewTransactionTemplate.execute(x -> writer.write(user, requests));
+            result.setCreated(result.getCreated() + written.getCreated());
+            result.setUpdated(result.getUpdated() + written.getUpdated());
+        } catch (DataAccessException e) {
+            if (rows.size() == 1) {
+                failed(result, rows.get(0), e.getMostSpecificCause().getMessage());
+                return;
+            }
+
+            log.warn("Import chunk of {} rows failed, retrying the rows one by one", rows.size(), e);
+            for (ProductRow row : rows) {
+                write(user, Collections.singletonList(row), result);
+            }
+        }
+    }
+
+    private String validate(CreateProductRequest request) {
+        Set<ConstraintViolation<CreateProductRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        return violations.stream()
+                .map(x -> x.getPropertyPath() + ": " + x.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private void failed(ProductImportResult result, ProductRow row, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            String barcode = row.getRequest() == null ? null : row.getRequest().getBarcode();
+            result.getErrors().add(new ProductImportError(row.getLine(), barcode, message));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.iyzico.challenge.integrator.service.importer;
+
+import com.iyzico.challenge.integrator.dto.product.request.CreateProductRequest;
+
+public class ProductRow {
+    private final long line;
+    private final CreateProductRequest request;
+    private final String error;
+
+    private ProductRow(long line, CreateProductRequest request, String error) {
+        this.line = line;
+        this.request = request;
+        this.error = error;
+    }
+
+    public static ProductRow of(long line, CreateProductRequest request) {
+        return new ProductRow(line, request, null);
+    }
+
+    public static ProductRow failed(long line, String error) {
+        return new ProductRow(line, null, error);
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public CreateProductRequest getRequest() {
+        return request;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,9 @@
+package com.iyzico.challenge.integrator.service.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface ProductRowReader extends Closeable {
+    // returns null at the end of the input, rows that cannot be parsed are returned with an error
+    ProductRow next() throws IOException;
+}
@@ -0,0 +1,181 @@
+package com.iyzico.challenge.integrator.service.ratelimit;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.AbstractEntryProcessor;
+import com.iyzico.challenge.integrator.properties.RateLimitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+// token buckets per client ip and per user, a request is decided on the local buckets only. with cluster wide limits
+// the nodes add up what they let through on every sync and take the share of the others out of their own buckets
+@Service
+public class RateLimiter {
+    public static final String RETRY_AFTER_SECONDS = "1";
+    static final String USAGE_MAP = "integrator.rate-limit.usage";
+    private static final String IP_PREFIX = "ip:";
+    private static final String USER_PREFIX = "user:";
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    private final HazelcastInstance hazelcast;
+    private final RateLimitProperties properties;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    // cluster totals seen on the last sync, only touched by the sync thread
+    private final Map<String, Long> totals = new HashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private IMap<String, Long> usage;
+    private ScheduledExecutorService executor;
+
+    public RateLimiter(HazelcastInstance hazelcast,
+                       RateLimitProperties properties) {
+        this(hazelcast, properties, System::nanoTime);
+    }
+
+    RateLimiter(HazelcastInstance hazelcast, RateLimitProperties properties, LongSupplier clock) {
+        this.hazelcast = hazelcast;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        if (properties.isClusterWide()) {
+            usage = hazelcast.getMap(USAGE_MAP);
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::sync, properties.getSyncMillis(), properties.getSyncMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean tryAcquireIp(String ip) {
+        return tryAcquire(IP_PREFIX + ip, properties.getIpPerSecond(), properties.getIpBurst());
+    }
+
+    public boolean tryAcquireUser(long userId) {
+        return tryAcquire(USER_PREFIX + userId, properties.getUserPerSecond(), properties.getUserBurst());
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    void sync() {
+        long now = clock.getAsLong();
+        HashMap<String, Long> deltas = new HashMap<>();
+        for (Map.Entry<String, TokenBucket> entry : buckets.entrySet()) {
+            TokenBucket bucket = entry.getValue();
+            if (bucket.isIdle(now)) {
+                buckets.remove(entry.getKey(), bucket);
+            } else {
+                deltas.put(entry.getKey(), bucket.takeConsumed());
+            }
+        }
+
+        totals.keySet().retainAll(buckets.keySet());
+        if (usage == null || deltas.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> result;
+        try {
+            result = usage.executeOnKeys(deltas.keySet(), new UsageProcessor(deltas));
+        } catch (RuntimeException e) {
+            log.warn("Rate limit usage of {} keys could not be shared with the cluster", deltas.size(), e);
+            return;
+        }
+
+        for (Map.Entry<String, Object> entry : result.entrySet()) {
+            long total = (Long) entry.getValue();
+            Long last = totals.put(entry.getKey(), total);
+            // the first total of a key also holds what the others used before this node saw it, that is history
+            long others = last == null ? 0 : total - last - deltas.getOrDefault(entry.getKey(), 0L);
+            TokenBucket bucket = buckets.get(entry.getKey());
+            if (others > 0 && bucket != null) {
+                bucket.drain(others, now);
+            }
+        }
+    }
+
+    private boolean tryAcquire(String key, long perSecond, long burst) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+
+        long now = clock.getAsLong();
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= properties.getMaxKeys()) {
+                evict(now);
+            }
+            bucket = buckets.computeIfAbsent(key, x -> new TokenBucket(perSecond, burst, now));
+        }
+
+        return bucket.tryAcquire(now);
+    }
+
+    // idle buckets go first, if the map is still full an arbitrary tenth of it is dropped and starts over full
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            buckets.values().removeIf(x -> x.isIdle(now));
+
+            int excess = buckets.size() - properties.getMaxKeys() / 10 * 9;
+            Iterator<TokenBucket> iterator = buckets.values().iterator();
+            while (excess-- > 0 && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    // adds the requests one node let through since its last sync and returns the new total
+    static class UsageProcessor extends AbstractEntryProcessor<String, Long> {
+        private final HashMap<String, Long> deltas;
+
+        UsageProcessor(HashMap<String, Long> deltas) {
+            this.deltas = deltas;
+        }
+
+        @Override
+        public Object process(Map.Entry<String, Long> entry) {
+            long total = (entry.getValue() == null ? 0 : entry.getValue()) + deltas.getOrDefault(entry.getKey(), 0L);
+            entry.setValue(total);
+            return total;
+        }
+    }
+}
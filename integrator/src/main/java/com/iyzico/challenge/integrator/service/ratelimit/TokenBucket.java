@@ -0,0 +1,55 @@
+package com.iyzico.challenge.integrator.service.ratelimit;
+
+// refills continuously up to the burst, a request takes one token
+final class TokenBucket {
+    private final double tokensPerNano;
+    private final long burst;
+    private double tokens;
+    private long refilledAt;
+    private long consumed;
+
+    TokenBucket(long perSecond, long burst, long now) {
+        this.tokensPerNano = perSecond / 1_000_000_000d;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    synchronized boolean tryAcquire(long now) {
+        refill(now);
+        if (tokens < 1) {
+            return false;
+        }
+
+        tokens--;
+        consumed++;
+        return true;
+    }
+
+    // takes out the requests the other nodes let through
+    synchronized void drain(long count, long now) {
+        refill(now);
+        tokens = Math.max(0, tokens - count);
+    }
+
+    // the requests let through since the last call
+    synchronized long takeConsumed() {
+        long result = consumed;
+        consumed = 0;
+        return result;
+    }
+
+    // a full bucket is no different from a new one
+    synchronized boolean isIdle(long now) {
+        refill(now);
+        return consumed == 0 && tokens >= burst;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - refilledAt;
+        if (elapsed > 0) {
+            tokens = Math.min(burst, tokens + elapsed * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.iyzico.challenge.integrator.service.search;
+
+import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+@Component
+public class ProductSearchIndex {
+    static final int NAME_WEIGHT = 4;
+    static final int BARCODE_WEIGHT = 2;
+    static final int DESCRIPTION_WEIGHT = 1;
+    // a query term that matches a token exactly scores this many times more than a prefix match
+    static final int EXACT_MATCH_FACTOR = 2;
+
+    private final ConcurrentHashMap<Long, Document> documents = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, ConcurrentHashMap<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+
+    public synchronized void index(ProductDto product, String description) {
+        Map<String, Integer> tokens = new HashMap<>();
+        addTokens(tokens, product.getName(), NAME_WEIGHT);
+        addTokens(tokens, product.getBarcode(), BARCODE_WEIGHT);
+        addTokens(tokens, description, DESCRIPTION_WEIGHT);
+
+        removePostings(documents.put(product.getId(), new Document(product, tokens)), product.getId());
+        tokens.forEach((token, weight) -> postings
+                .computeIfAbsent(token, x -> new ConcurrentHashMap<>())
+                .put(product.getId(), weight));
+    }
+
+    public synchronized void remove(long productId) {
+        removePostings(documents.remove(productId), productId);
+    }
+
+    public synchronized void clear() {
+        documents.clear();
+        postings.clear();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    // every term has to match a token of the product, the last term of a query is usually still being typed
+    // so all of the terms are matched as prefixes
+    public List<ProductDto> search(String query, int limit) {
+        List<String> terms = ProductTokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Integer> scores = null;
+        for (String term : terms.stream().distinct().collect(Collectors.toList())) {
+            Map<Long, Integer> termScores = score(term);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                Map<Long, Integer> current = scores;
+                scores = termScores.entrySet()
+                        .stream()
+                        .filter(x -> current.containsKey(x.getKey()))
+                        .collect(Collectors.toMap(Map.Entry::getKey, x -> x.getValue() + current.get(x.getKey())));
+            }
+
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> {
+            Document document = documents.get(id);
+            if (document != null) {
+                hits.add(new Hit(document.product, score));
+            }
+        });
+
+        return hits.stream()
+                .sorted(Comparator.comparingInt((Hit x) -> x.score).reversed()
+                        .thenComparing(x -> x.product.getName(), Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparingLong(x -> x.product.getId()))
+                .limit(limit)
+                .map(x -> x.product)
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, Integer> score(String term) {
+        Map<Long, Integer> scores = new HashMap<>();
+        ConcurrentNavigableMap<String, ConcurrentHashMap<Long, Integer>> matches =
+                postings.subMap(term, true, term + Character.MAX_VALUE, true);
+
+        matches.forEach((token, products) -> {
+            int factor = token.equals(term) ? EXACT_MATCH_FACTOR : 1;
+            products.forEach((id, weight) -> scores.merge(id, weight * factor, Math::max));
+        });
+
+        return scores;
+    }
+
+    private void removePostings(Document document, long productId) {
+        if (document == null) {
+            return;
+        }
+
+        for (String token : document.tokens.keySet()) {
+            postings.computeIfPresent(token, (key, products) -> {
+                products.remove(productId);
+                return products.isEmpty() ? null : products;
+            });
+        }
+    }
+
+    private static void addTokens(Map<String, Integer> tokens, String text, int weight) {
+        for (String token : ProductTokenizer.tokenize(text)) {
+            tokens.merge(token, weight, Math::max);
+        }
+    }
+
+    private static class Document {
+        private final ProductDto product;
+        private final Map<String, Integer> tokens;
+
+        private Document(ProductDto product, Map<String, Integer> tokens) {
+            this.product = product;
+            this.tokens = tokens;
+        }
+    }
+
+    private static class Hit {
+        private final ProductDto product;
+        private final int score;
+
+        private Hit(ProductDto product, int score) {
+            this.product = product;
+            this.score = score;
+        }
+    }
+}
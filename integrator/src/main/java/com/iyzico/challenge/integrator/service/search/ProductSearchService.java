@@ -0,0 +1,137 @@
+package com.iyzico.challenge.integrator.service.search;
+
+import com.iyzico.challenge.integrator.data.entity.Product;
+import com.iyzico.challenge.integrator.data.service.ProductService;
+import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.mapper.ProductMapper;
+import com.iyzico.challenge.integrator.service.ProductChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class ProductSearchService implements ProductChangeListener {
+    private final Logger log = LoggerFactory.getLogger(ProductSearchService.class);
+
+    public static final int MAX_RESULTS = 100;
+
+    private final ProductService productService;
+    private final ProductMapper mapper;
+    private final ProductSearchIndex index;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    // ids changed while a rebuild is running, null when none is running
+    private Set<Long> changedDuringRebuild;
+
+    public ProductSearchService(ProductService productService,
+                                ProductMapper mapper,
+                                ProductSearchIndex index,
+                                PlatformTransactionManager transactionManager) {
+        this.productService = productService;
+        this.mapper = mapper;
+        this.index = index;
+
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    public List<ProductDto> search(String query, int limit) {
+        return index.search(query, Math.max(1, Math.min(limit, MAX_RESULTS)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        synchronized (this) {
+            changedDuringRebuild = new HashSet<>();
+        }
+
+        try {
+            readAll();
+        } finally {
+            // a batch read before a change may have been indexed after it, those products are read again
+            Set<Long> changed;
+            synchronized (this) {
+                changed = changedDuringRebuild;
+                changedDuringRebuild = null;
+            }
+
+            if (!changed.isEmpty()) {
+                onProductsChanged(changed);
+            }
+        }
+
+        log.info("Indexed {} products for search in {} ms", index.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    private void readAll() {
+        readOnlyTransactionTemplate.execute(x -> {
+            try (Stream<Product> products = productService.streamAllItems()) {
+                List<Product> batch = new ArrayList<>(ProductService.DESCRIPTION_BATCH_SIZE);
+                Iterator<Product> iterator = products.iterator();
+                while (iterator.hasNext()) {
+                    Product product = iterator.next();
+                    if (!Product.Status.UNPUBLISHED.equals(product.getStatus())) {
+                        batch.add(product);
+                    }
+
+                    if (batch.size() == ProductService.DESCRIPTION_BATCH_SIZE || (!iterator.hasNext() && !batch.isEmpty())) {
+                        index(batch);
+                        batch.clear();
+                    }
+                }
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public void onProductsChanged(Collection<Long> productIds) {
+        synchronized (this) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.addAll(productIds);
+            }
+        }
+
+        Set<Long> removed = new HashSet<>(productIds);
+        readOnlyTransactionTemplate.execute(x -> {
+            List<Product> published = productService.getByIds(productIds)
+                    .stream()
+                    .filter(product -> !Product.Status.UNPUBLISHED.equals(product.getStatus()))
+                    .collect(Collectors.toList());
+
+            if (!published.isEmpty()) {
+                index(published);
+            }
+
+            published.forEach(product -> removed.remove(product.getId()));
+            return null;
+        });
+
+        removed.forEach(index::remove);
+    }
+
+    private void index(List<Product> products) {
+        Map<Long, String> descriptions = productService.getDescriptions(products.stream()
+                .map(Product::getId)
+                .collect(Collectors.toList()));
+
+        for (Product product : products) {
+            index.index(mapper.map(product), descriptions.get(product.getId()));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.iyzico.challenge.integrator.service.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public final class ProductTokenizer {
+    private static final Locale TURKISH = new Locale("tr", "TR");
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private ProductTokenizer() {
+    }
+
+    // lowercases with the Turkish rules (I -> ı, İ -> i) and then folds the Turkish letters to ascii,
+    // so "IŞIK", "ışık" and "isik" are the same token
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        for (String token : SEPARATOR.split(fold(text.toLowerCase(TURKISH)))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+
+        return tokens;
+    }
+
+    private static String fold(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\u0131':
+                    builder.append('i');
+                    break;
+                case '\u011f':
+                    builder.append('g');
+                    break;
+                case '\u00fc':
+                    builder.append('u');
+                    break;
+                case '\u015f':
+                    builder.append('s');
+                    break;
+                case '\u00f6':
+                    builder.append('o');
+                    break;
+                case '\u00e7':
+                    builder.append('c');
+                    break;
+                case '\u0307':
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+}
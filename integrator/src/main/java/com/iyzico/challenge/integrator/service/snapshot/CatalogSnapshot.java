@@ -0,0 +1,44 @@
+package com.iyzico.challenge.integrator.service.snapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// immutable, the arrays are never handed out so they can be written to every response without a copy
+public class CatalogSnapshot {
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String jsonEtag;
+    private final String gzipEtag;
+    private final long createdAt;
+    private final int size;
+
+    CatalogSnapshot(byte[] json, byte[] gzip, String etag, long createdAt, int size) {
+        this.json = json;
+        this.gzip = gzip;
+        // a strong tag has to differ between the encodings of the same content
+        this.jsonEtag = "\"" + etag + "\"";
+        this.gzipEtag = "\"" + etag + "-gzip\"";
+        this.createdAt = createdAt;
+        this.size = size;
+    }
+
+    public void writeTo(OutputStream out, boolean gzipped) throws IOException {
+        out.write(gzipped ? gzip : json);
+    }
+
+    public int getLength(boolean gzipped) {
+        return gzipped ? gzip.length : json.length;
+    }
+
+    public String getEtag(boolean gzipped) {
+        return gzipped ? gzipEtag : jsonEtag;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,136 @@
+package com.iyzico.challenge.integrator.service.snapshot;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iyzico.challenge.integrator.data.service.ProductService;
+import com.iyzico.challenge.integrator.dto.ListResponse;
+import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.mapper.ProductMapper;
+import com.iyzico.challenge.integrator.service.ProductChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+public class CatalogSnapshotService implements ProductChangeListener {
+    private final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private final ProductService productService;
+    private final ProductMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private volatile CatalogSnapshot snapshot;
+    private ExecutorService executor;
+
+    public CatalogSnapshotService(ProductService productService,
+                                  ProductMapper mapper,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager) {
+        this.productService = productService;
+        this.mapper = mapper;
+        this.objectMapper = objectMapper;
+
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (snapshot == null) {
+                rebuild();
+            }
+
+            return snapshot;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        List<ProductDto> products = readOnlyTransactionTemplate.execute(x -> mapper.map(productService.getAllPublishedItems()));
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(new ListResponse<>(products));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        snapshot = new CatalogSnapshot(json, gzip(json), digest(json), startedAt, products.size());
+        log.debug("Built the catalog snapshot of {} products ({} bytes) in {} ms", products.size(), json.length, System.currentTimeMillis() - startedAt);
+    }
+
+    // changes that arrive while a rebuild is running schedule one more rebuild, changes that arrive while one is
+    // waiting are folded into it
+    @Override
+    public void onProductsChanged(Collection<Long> productIds) {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Catalog snapshot could not be rebuilt", e);
+                }
+            });
+        }
+    }
+
+    static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static String digest(byte[] content) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.iyzico.challenge.integrator.service.stock;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iyzico.challenge.integrator.data.entity.Product;
+import com.iyzico.challenge.integrator.data.service.ProductService;
+import com.iyzico.challenge.integrator.exception.InvalidStockSubscriptionException;
+import com.iyzico.challenge.integrator.mapper.ProductMapper;
+import com.iyzico.challenge.integrator.properties.StockStreamProperties;
+import com.iyzico.challenge.integrator.service.ProductChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// changes are collected per product and pushed once per tick, a product is read once no matter how many clients watch it
+@Service
+public class StockStreamService implements ProductChangeListener {
+    static final String EVENT_NAME = "stock";
+
+    private final Logger log = LoggerFactory.getLogger(StockStreamService.class);
+
+    private final ProductService productService;
+    private final ProductMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final StockStreamProperties properties;
+    private final ConcurrentHashMap<Long, Set<Subscription>> watchers = new ConcurrentHashMap<>();
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService executor;
+
+    public StockStreamService(ProductService productService,
+                              ProductMapper mapper,
+                              ObjectMapper objectMapper,
+                              StockStreamProperties properties) {
+        this.productService = productService;
+        this.mapper = mapper;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, properties.getTickMillis(), properties.getTickMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // the current levels are sent on the next tick, sending them from here could overtake a newer push
+    public SseEmitter subscribe(Collection<Long> productIds) {
+        Set<Long> ids = new LinkedHashSet<>(productIds);
+        if (ids.isEmpty() || ids.size() > properties.getMaxProductsPerSubscription()) {
+            throw new InvalidStockSubscriptionException(String.format("Between 1 and %s products can be watched at once",
+                    properties.getMaxProductsPerSubscription()));
+        }
+
+        Subscription subscription = new Subscription(new SseEmitter(properties.getTimeoutMillis()), ids);
+        subscription.emitter.onCompletion(() -> unsubscribe(subscription));
+        subscription.emitter.onTimeout(() -> unsubscribe(subscription));
+
+        for (Long id : ids) {
+            watchers.compute(id, (key, subscriptions) -> {
+                Set<Subscription> result = subscriptions == null ? ConcurrentHashMap.newKeySet() : subscriptions;
+                result.add(subscription);
+                return result;
+            });
+        }
+
+        pending.addAll(ids);
+        return subscription.emitter;
+    }
+
+    @Override
+    public void onProductsChanged(Collection<Long> productIds) {
+        for (Long id : productIds) {
+            if (watchers.containsKey(id)) {
+                pending.add(id);
+            }
+        }
+    }
+
+    int getWatcherCount(long productId) {
+        Set<Subscription> subscriptions = watchers.get(productId);
+        return subscriptions == null ? 0 : subscriptions.size();
+    }
+
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(pending);
+        pending.removeAll(ids);
+
+        try {
+            for (Product product : productService.getByIds(ids)) {
+                Set<Subscription> subscriptions = watchers.get(product.getId());
+                // an unpublished product is not pushed, the watchers see it like an unknown id
+                if (subscriptions == null || Product.Status.UNPUBLISHED.equals(product.getStatus())) {
+                    continue;
+                }
+
+                String data = objectMapper.writeValueAsString(mapper.mapStockLevel(product));
+                for (Subscription subscription : subscriptions) {
+                    send(subscription, product.getId(), data);
+                }
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Stock levels of products {} could not be pushed", ids, e);
+        }
+    }
+
+    private void send(Subscription subscription, long productId, String data) {
+        try {
+            subscription.emitter.send(SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .id(String.valueOf(productId))
+                    .data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            log.debug("Stock stream of products {} is closed", subscription.productIds, e);
+            unsubscribe(subscription);
+            subscription.emitter.completeWithError(e);
+        } catch (IllegalStateException e) {
+            unsubscribe(subscription);
+        }
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        for (Long id : subscription.productIds) {
+            watchers.computeIfPresent(id, (key, subscriptions) -> {
+                subscriptions.remove(subscription);
+                return subscriptions.isEmpty() ? null : subscriptions;
+            });
+        }
+    }
+
+    private static class Subscription {
+        private final SseEmitter emitter;
+        private final Set<Long> productIds;
+
+        private Subscription(SseEmitter emitter, Set<Long> productIds) {
+            this.emitter = emitter;
+            this.productIds = productIds;
+        }
+    }
+}
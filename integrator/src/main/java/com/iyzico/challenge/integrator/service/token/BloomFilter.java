@@ -0,0 +1,57 @@
+package com.iyzico.challenge.integrator.service.token;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// no false negatives, a positive answer has to be confirmed against the revocation map
+final class BloomFilter {
+    private final AtomicLongArray words;
+    private final int bits;
+    private final int hashes;
+
+    BloomFilter(int bits, int hashes) {
+        this.words = new AtomicLongArray((bits + 63) >>> 6);
+        this.bits = words.length() << 6;
+        this.hashes = hashes;
+    }
+
+    void put(String value) {
+        long hash = hash(value);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int index = Math.floorMod(first + i * second, bits);
+            int word = index >>> 6;
+            long mask = 1L << index;
+
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int index = Math.floorMod(first + i * second, bits);
+            if ((words.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // 64 bit fnv-1a, the two halves are the base hashes of the double hashing
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+}
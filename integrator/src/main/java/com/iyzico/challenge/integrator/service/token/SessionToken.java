@@ -0,0 +1,46 @@
+package com.iyzico.challenge.integrator.service.token;
+
+import java.time.LocalDateTime;
+
+// claims of a verified token, id identifies the token in the revocation map
+public class SessionToken {
+    private final String id;
+    private final long userId;
+    private final long userProfileId;
+    private final boolean admin;
+    private final LocalDateTime issuedAt;
+    private final LocalDateTime expiresAt;
+
+    public SessionToken(String id, long userId, long userProfileId, boolean admin, LocalDateTime issuedAt, LocalDateTime expiresAt) {
+        this.id = id;
+        this.userId = userId;
+        this.userProfileId = userProfileId;
+        this.admin = admin;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public long getUserProfileId() {
+        return userProfileId;
+    }
+
+    public boolean isAdmin() {
+        return admin;
+    }
+
+    public LocalDateTime getIssuedAt() {
+        return issuedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
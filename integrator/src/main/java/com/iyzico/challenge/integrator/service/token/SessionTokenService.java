@@ -0,0 +1,232 @@
+package com.iyzico.challenge.integrator.service.token;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.properties.SessionTokenProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// signed session tokens verified on the node itself. a logout puts the token into a hazelcast map until it expires,
+// the local bloom filter keeps the map off the path of tokens which were never revoked
+@Service
+public class SessionTokenService {
+    static final byte VERSION = 1;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int PAYLOAD_LENGTH = 1 + 8 + 8 + 1 + 8 + 8 + 8;
+    private static final byte ADMIN = 1;
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTokenService.class);
+
+    private final HazelcastInstance hazelcast;
+    private final SessionTokenProperties properties;
+    private final LongSupplier clock;
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Mac> mac;
+    private IMap<String, Long> revocations;
+    private volatile BloomFilter bloom;
+    private volatile BloomFilter next;
+    private ScheduledExecutorService executor;
+
+    public SessionTokenService(HazelcastInstance hazelcast,
+                               SessionTokenProperties properties) {
+        this(hazelcast, properties, System::currentTimeMillis);
+    }
+
+    SessionTokenService(HazelcastInstance hazelcast, SessionTokenProperties properties, LongSupplier clock) {
+        this.hazelcast = hazelcast;
+        this.properties = properties;
+        this.clock = clock;
+
+        if (!properties.isEnabled()) {
+            mac = null;
+            return;
+        }
+
+        if (properties.getSecret() == null || properties.getSecret().getBytes(StandardCharsets.UTF_8).length < 32) {
+            throw new IllegalStateException("integrator.session-token.secret must be at least 32 bytes when the session tokens are enabled");
+        }
+
+        SecretKeySpec key = new SecretKeySpec(properties.getSecret().getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac result = Mac.getInstance(ALGORITHM);
+                result.init(key);
+                return result;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        revocations = hazelcast.getMap("integrator.session.revoked");
+        bloom = new BloomFilter(properties.getBloomBits(), properties.getBloomHashes());
+        revocations.addEntryListener((EntryAddedListener<String, Long>) event -> revoked(event.getKey()), false);
+        rebuild();
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-token");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::rebuild, properties.getBloomRebuildMinutes(), properties.getBloomRebuildMinutes(), TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public long getTtlSeconds() {
+        return properties.getTtlSeconds();
+    }
+
+    // random session keys are url safe base64 which has no dot, only a token has one
+    public static boolean isToken(String sessionKey) {
+        return sessionKey != null && sessionKey.indexOf('.') > 0;
+    }
+
+    public String issue(User user, LocalDateTime issuedAt) {
+        long issuedAtSeconds = issuedAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+        byte[] nonce = new byte[8];
+        random.nextBytes(nonce);
+
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+                .put(VERSION)
+                .putLong(user.getId())
+                .putLong(user.getUserProfileId())
+                .put(user.isAdmin() ? ADMIN : 0)
+                .putLong(issuedAtSeconds)
+                .putLong(issuedAtSeconds + properties.getTtlSeconds())
+                .put(nonce)
+                .array();
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(sign(payload));
+    }
+
+    // null for a token which is malformed, forged, expired or revoked
+    public SessionToken verify(String token) {
+        SessionToken parsed = parse(token);
+        if (parsed == null) {
+            return null;
+        }
+
+        if (bloom.mightContain(parsed.getId()) && revocations.containsKey(parsed.getId())) {
+            log.trace("Session token {} is revoked", parsed.getId());
+            return null;
+        }
+
+        return parsed;
+    }
+
+    public void revoke(String token) {
+        SessionToken parsed = parse(token);
+        if (parsed == null) {
+            return;
+        }
+
+        long expiresAt = parsed.getExpiresAt().atZone(ZoneId.systemDefault()).toEpochSecond();
+        long ttlSeconds = expiresAt - TimeUnit.MILLISECONDS.toSeconds(clock.getAsLong());
+        revocations.put(parsed.getId(), expiresAt, Math.max(ttlSeconds, 1), TimeUnit.SECONDS);
+        revoked(parsed.getId());
+    }
+
+    // revoked tokens leave the map when they expire, a bloom filter cannot forget them so it is rebuilt from the map
+    void rebuild() {
+        try {
+            next = new BloomFilter(properties.getBloomBits(), properties.getBloomHashes());
+            revocations.keySet().forEach(next::put);
+            bloom = next;
+        } catch (RuntimeException e) {
+            log.warn("Session token revocation filter could not be rebuilt", e);
+        } finally {
+            next = null;
+        }
+    }
+
+    private void revoked(String id) {
+        bloom.put(id);
+        BloomFilter building = next;
+        if (building != null) {
+            building.put(id);
+        }
+    }
+
+    private SessionToken parse(String token) {
+        if (!properties.isEnabled() || !isToken(token)) {
+            return null;
+        }
+
+        int dot = token.indexOf('.');
+        String id = token.substring(dot + 1);
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+            signature = Base64.getUrlDecoder().decode(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if (payload.length != PAYLOAD_LENGTH || !MessageDigest.isEqual(sign(payload), signature)) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        if (buffer.get() != VERSION) {
+            return null;
+        }
+
+        long userId = buffer.getLong();
+        long userProfileId = buffer.getLong();
+        boolean admin = (buffer.get() & ADMIN) != 0;
+        long issuedAt = buffer.getLong();
+        long expiresAt = buffer.getLong();
+        if (TimeUnit.MILLISECONDS.toSeconds(clock.getAsLong()) >= expiresAt) {
+            return null;
+        }
+
+        return new SessionToken(id, userId, userProfileId, admin, toLocalDateTime(issuedAt), toLocalDateTime(expiresAt));
+    }
+
+    private byte[] sign(byte[] payload) {
+        return mac.get().doFinal(payload);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+}
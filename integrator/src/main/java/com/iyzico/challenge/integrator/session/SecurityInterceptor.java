@@ -1,6 +1,8 @@
 package com.iyzico.challenge.integrator.session;
 
+import com.iyzico.challenge.integrator.exception.TooManyRequestsException;
 import com.iyzico.challenge.integrator.exception.auth.AuthorizationException;
+import com.iyzico.challenge.integrator.service.ratelimit.RateLimiter;
 import com.iyzico.challenge.integrator.session.model.ApiSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,11 +11,19 @@ import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SecurityInterceptor extends HandlerInterceptorAdapter {
     public final static String SESSION = "INTEGRATION_SESSION";
     private final static Logger log = LoggerFactory.getLogger(SecurityInterceptor.class);
 
+    private final ConcurrentHashMap<HandlerMethod, SecurityConfig> configs = new ConcurrentHashMap<>();
+    private final RateLimiter rateLimiter;
+
+    public SecurityInterceptor(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
         SecurityConfig security = getSecurityConfigWrapper(handler);
@@ -37,46 +47,56 @@ public class SecurityInterceptor extends HandlerInterceptorAdapter {
                 }
             }
 
+            // the session is resolved here anyway, unsecured endpoints only count against the ip
+            if (!rateLimiter.tryAcquireUser(session.getUser().getId())) {
+                log.debug("Too many requests of user {}", session.getUser().getId());
+                throw new TooManyRequestsException("Too many requests, try again later");
+            }
+
             request.setAttribute(SecurityInterceptor.SESSION, session);
         }
 
         return true;
     }
 
+    // resolved once per handler, unsecured handlers are kept as NOT_SECURED
     private SecurityConfig getSecurityConfigWrapper(Object handler) {
-        if (isHandlerMethod(handler)) {
-            try {
-                return getSecurityConfig((HandlerMethod) handler);
-            } catch (Exception e) {
-                // ignored
-            }
+        if (!isHandlerMethod(handler)) {
+            return null;
+        }
+
+        HandlerMethod method = (HandlerMethod) handler;
+        SecurityConfig config = configs.get(method);
+        if (config == null) {
+            config = configs.computeIfAbsent(method, SecurityConfig::of);
         }
 
-        return null;
+        return config == SecurityConfig.NOT_SECURED ? null : config;
     }
 
     private boolean isHandlerMethod(Object handler) {
         return handler instanceof HandlerMethod;
     }
 
-    private SecurityConfig getSecurityConfig(HandlerMethod handler) {
-        return new SecurityConfig(handler);
-    }
-
     protected static class SecurityConfig {
+        private static final SecurityConfig NOT_SECURED = new SecurityConfig(null);
+
         private final SecuredEndpoint secured;
 
-        SecurityConfig(HandlerMethod method) {
+        private SecurityConfig(SecuredEndpoint secured) {
+            this.secured = secured;
+        }
+
+        private static SecurityConfig of(HandlerMethod method) {
             SecuredEndpoint secured = method.getMethodAnnotation(SecuredEndpoint.class);
             if (secured == null) {
                 secured = method.getBeanType().getAnnotation(SecuredEndpoint.class);
                 if (secured == null) {
-                    throw new NullPointerException();
+                    return NOT_SECURED;
                 }
             }
 
-            this.secured = secured;
-
+            return new SecurityConfig(secured);
         }
 
         private boolean isAllowAnonymous() {
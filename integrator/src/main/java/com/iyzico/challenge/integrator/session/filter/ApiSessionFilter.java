@@ -5,6 +5,8 @@ import com.iyzico.challenge.integrator.session.wrapper.ApiSessionRequestWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.GenericFilterBean;
 
@@ -17,7 +19,10 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 @Component
+@Order(ApiSessionFilter.ORDER)
 public class ApiSessionFilter extends GenericFilterBean {
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 100;
+
     private final static Logger log = LoggerFactory.getLogger(ApiSessionFilter.class);
 
     private final SessionService sessionService;
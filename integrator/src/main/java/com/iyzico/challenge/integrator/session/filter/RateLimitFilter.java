@@ -0,0 +1,99 @@
+package com.iyzico.challenge.integrator.session.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iyzico.challenge.integrator.dto.BadRequestResponse;
+import com.iyzico.challenge.integrator.dto.ErrorCode;
+import com.iyzico.challenge.integrator.properties.RateLimitProperties;
+import com.iyzico.challenge.integrator.service.ratelimit.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.GenericFilterBean;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+
+// the client ip is checked before anything else and a rejected request never reaches the controllers.
+// the user limit needs the session, it is checked by the SecurityInterceptor once the session is resolved
+@Component
+@Order(ApiSessionFilter.ORDER + 1)
+public class RateLimitFilter extends GenericFilterBean {
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final static Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        String ip = getClientIp((HttpServletRequest) request);
+        if (!rateLimiter.tryAcquireIp(ip)) {
+            log.debug("Too many requests from {}", ip);
+            reject((HttpServletResponse) response);
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    // the headers are written by the client unless the connection comes from a trusted proxy. each proxy appends
+    // the address it was called from, so the hops are walked from the right and the first untrusted one is the client
+    String getClientIp(HttpServletRequest request) {
+        Set<String> trusted = properties.getTrustedProxies();
+        String ip = request.getRemoteAddr();
+        if (!trusted.contains(ip)) {
+            return ip;
+        }
+
+        List<String> hops = new ArrayList<>();
+        Enumeration<String> headers = request.getHeaders(FORWARDED_FOR);
+        for (String header : headers == null ? Collections.<String>emptyList() : Collections.list(headers)) {
+            for (String hop : header.split(",")) {
+                if (!hop.trim().isEmpty()) {
+                    hops.add(hop.trim());
+                }
+            }
+        }
+
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            ip = hops.get(i);
+            if (!trusted.contains(ip)) {
+                return ip;
+            }
+        }
+
+        return ip;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RateLimiter.RETRY_AFTER_SECONDS);
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new BadRequestResponse(ErrorCode.TOO_MANY_REQUESTS, "Too many requests, try again later"));
+    }
+}
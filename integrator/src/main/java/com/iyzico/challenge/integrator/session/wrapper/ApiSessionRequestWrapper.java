@@ -24,6 +24,7 @@ public final class ApiSessionRequestWrapper extends HttpServletRequestWrapper {
     private final String sessionKey;
 
     private ApiSession session;
+    private boolean resolved;
 
     public ApiSessionRequestWrapper(SessionService sessionService, HttpServletRequest request, HttpServletResponse response) {
         super(request);
@@ -32,13 +33,6 @@ public final class ApiSessionRequestWrapper extends HttpServletRequestWrapper {
         this.response = response;
         this.sessionService = sessionService;
         this.sessionKey = getSessionKey();
-
-        if (sessionKey != null) {
-            UserSession userSession = sessionService.getSession(sessionKey);
-            if (userSession != null) {
-                session = new ApiSession(userSession, response, request.getServletContext(), false);
-            }
-        }
     }
 
     @Override
@@ -53,21 +47,22 @@ public final class ApiSessionRequestWrapper extends HttpServletRequestWrapper {
             log.warn("Creating a new session with calling getSession function with parameter true is deprecated and no longer supported");
         }
 
-        return session;
+        return resolveSession();
     }
 
     @Override
     public HttpSession getSession() {
-        return session;
+        return resolveSession();
     }
 
     public void createSession(User user) {
         session = new ApiSession(sessionService.createNewSession(user), response, request.getServletContext(), true);
+        resolved = true;
     }
 
     @Override
     public String changeSessionId() {
-        if (session == null) {
+        if (resolveSession() == null) {
             throw new IllegalStateException("No session associated with the request");
         }
 
@@ -78,7 +73,7 @@ public final class ApiSessionRequestWrapper extends HttpServletRequestWrapper {
 
     @Override
     public boolean isRequestedSessionIdValid() {
-        return sessionKey != null && session != null && session.getId().equals(sessionKey);
+        return sessionKey != null && resolveSession() != null && session.getId().equals(sessionKey);
     }
 
     @Override
@@ -91,6 +86,21 @@ public final class ApiSessionRequestWrapper extends HttpServletRequestWrapper {
         return false;
     }
 
+    // the session is read on the first access, requests to endpoints which do not use it never go to redis
+    private ApiSession resolveSession() {
+        if (!resolved) {
+            resolved = true;
+            if (sessionKey != null) {
+                UserSession userSession = sessionService.getSession(sessionKey);
+                if (userSession != null) {
+                    session = new ApiSession(userSession, response, request.getServletContext(), false);
+                }
+            }
+        }
+
+        return session;
+    }
+
     private String getSessionKey() {
         String sessionKey = null;
 
@@ -28,4 +28,41 @@ public class HttpUtils {
 
         return request.getRemoteAddr();
     }
+
+    // an explicit gzip entry wins over the wildcard, q=0 means the coding is not acceptable
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Boolean wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim();
+            if ("gzip".equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+                return getQuality(parts) > 0;
+            }
+
+            if ("*".equals(coding)) {
+                wildcard = getQuality(parts) > 0;
+            }
+        }
+
+        return wildcard != null && wildcard;
+    }
+
+    private static double getQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
 }
@@ -1,38 +1,21 @@
 package com.iyzico.challenge.integrator.util;
 
-import java.nio.ByteBuffer;
 import java.security.SecureRandom;
-import java.util.Objects;
+import java.util.Base64;
 
 public class IntegrationStringUtils {
-    private final static SecureRandom tokenRandom = new SecureRandom();
-    private final static char[] HAX_CHARS = "0123456789abcdef".toCharArray();
+    // a generator per thread, logins on different threads do not contend on one SecureRandom
+    private final static ThreadLocal<SecureRandom> tokenRandom = ThreadLocal.withInitial(SecureRandom::new);
+    private final static Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
 
     private IntegrationStringUtils() {
     }
 
+    // url safe base64 of length random bytes, without padding
     public static String generate(int length) {
         byte[] random = new byte[length];
+        tokenRandom.get().nextBytes(random);
 
-        tokenRandom.nextBytes(random);
-        ByteBuffer keyBuf = ByteBuffer.allocate(length + 8);
-        keyBuf.put(random);
-        keyBuf.putLong(System.currentTimeMillis());
-
-        return encode(keyBuf.array());
-    }
-
-    private static String encode(final byte[] bytes) {
-        Objects.requireNonNull(bytes, "bytes cannot be null");
-
-        char[] hexChars = new char[bytes.length * 2];
-        for (int j = 0; j < bytes.length; j++) {
-            int val = bytes[j] & 0xFF;
-
-            hexChars[j * 2] = HAX_CHARS[val >>> 4];
-            hexChars[j * 2 + 1] = HAX_CHARS[val & 0x0F];
-        }
-
-        return new String(hexChars);
+        return ENCODER.encodeToString(random);
     }
 }
@@ -51,7 +51,6 @@ public class AuthControllerTest {
                       @Mocked User user,
                       @Mocked UserDto dto) {
 
-        String sessionKey = "sessionKey";
         String username = "username";
         String password = "password";
 
@@ -64,11 +63,6 @@ public class AuthControllerTest {
 
             session.createSession(user);
 
-            session.getRequestedSessionId();
-            result = sessionKey;
-
-            service.markAsLoggedIn(user, sessionKey);
-
             mapper.map(user);
             result = dto;
         }};
@@ -1,64 +1,253 @@
 package com.iyzico.challenge.integrator.controller;
 
-import com.iyzico.challenge.integrator.data.entity.Product;
-import com.iyzico.challenge.integrator.data.service.ProductService;
 import com.iyzico.challenge.integrator.dto.ListResponse;
+import com.iyzico.challenge.integrator.dto.PageResponse;
 import com.iyzico.challenge.integrator.dto.product.ProductDto;
-import com.iyzico.challenge.integrator.mapper.ProductMapper;
-import mockit.StrictExpectations;
+import com.iyzico.challenge.integrator.dto.product.ProductSort;
+import com.iyzico.challenge.integrator.service.ProductCatalogService;
+import com.iyzico.challenge.integrator.service.barcode.BarcodeLookupService;
+import com.iyzico.challenge.integrator.service.snapshot.CatalogSnapshot;
+import com.iyzico.challenge.integrator.service.snapshot.CatalogSnapshotService;
+import com.iyzico.challenge.integrator.service.search.ProductSearchService;
+import com.iyzico.challenge.integrator.service.stock.StockStreamService;
 import mockit.Injectable;
 import mockit.Mocked;
 import mockit.StrictExpectations;
 import mockit.Tested;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 public class ProductControllerTest {
     @Tested
     private ProductController tested;
 
     @Injectable
-    private ProductMapper mapper;
+    private ProductCatalogService catalogService;
+
+    @Injectable
+    private ProductSearchService searchService;
 
     @Injectable
-    private ProductService service;
+    private BarcodeLookupService barcodeLookupService;
+
+    @Injectable
+    private CatalogSnapshotService snapshotService;
+
+    @Injectable
+    private StockStreamService stockStreamService;
+
+    @Mocked
+    private WebRequest request;
 
     @Test
-    public void get(@Mocked Product entity,
-                    @Mocked ProductDto dto) {
+    public void get() {
         long id = 1L;
+        ProductDto dto = new ProductDto();
         new StrictExpectations() {{
-            service.getPublishedItem(id);
-            result = entity;
+            catalogService.getItemStamp(id);
+            result = 3L;
+
+            request.checkNotModified("\"1-3\"");
+            result = false;
 
-            mapper.mapWithDescription(entity);
+            catalogService.getPublishedItem(id);
             result = dto;
         }};
 
-        ProductDto result = tested.get(id);
+        ProductDto result = tested.get(id, request);
         Assert.assertEquals(dto, result);
+    }
+
+    @Test
+    public void get_NotModified() {
+        long id = 1L;
+        new StrictExpectations() {{
+            catalogService.getItemStamp(id);
+            result = 3L;
+
+            request.checkNotModified("\"1-3\"");
+            result = true;
+        }};
+
+        Assert.assertNull(tested.get(id, request));
+    }
+
+    @Test
+    public void get_FirstRead() {
+        long id = 1L;
+        ProductDto dto = new ProductDto();
+        new StrictExpectations() {{
+            catalogService.getItemStamp(id);
+            result = null;
+
+            catalogService.getPublishedItem(id);
+            result = dto;
+
+            catalogService.createItemStamp(id);
+            result = 4L;
+
+            request.checkNotModified("\"1-4\"");
+            result = false;
+        }};
+
+        Assert.assertEquals(dto, tested.get(id, request));
+    }
+
+    @Test
+    public void get_FirstReadStampedInTheMeantime() {
+        long id = 1L;
+        ProductDto dto = new ProductDto();
+        new StrictExpectations() {{
+            catalogService.getItemStamp(id);
+            result = null;
+
+            catalogService.getPublishedItem(id);
+            result = dto;
+
+            catalogService.createItemStamp(id);
+            result = null;
+        }};
+
+        Assert.assertEquals(dto, tested.get(id, request));
+    }
+
+    @Test
+    public void getByBarcode(@Mocked ProductDto dto) {
+        new StrictExpectations() {{
+            barcodeLookupService.getPublishedItem("8690000000001");
+            result = dto;
+        }};
 
+        Assert.assertEquals(dto, tested.getByBarcode("8690000000001"));
     }
 
     @Test
-    public void getAll(@Mocked Product entity,
-                       @Mocked ProductDto dto) {
+    public void getAll(@Mocked HttpServletRequest servletRequest,
+                       @Mocked HttpServletResponse servletResponse,
+                       @Mocked ServletWebRequest webRequest,
+                       @Mocked CatalogSnapshot snapshot,
+                       @Mocked ServletOutputStream out) throws IOException {
+        new StrictExpectations() {{
+            snapshotService.getSnapshot();
+            result = snapshot;
+
+            servletRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            result = "gzip, deflate";
+
+            servletResponse.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            new ServletWebRequest(servletRequest, servletResponse);
+
+            snapshot.getEtag(true);
+            result = "\"etag-gzip\"";
+
+            snapshot.getCreatedAt();
+            result = 1000L;
+
+            webRequest.checkNotModified("\"etag-gzip\"", 1000L);
+            result = false;
+
+            servletResponse.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            servletResponse.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+            snapshot.getLength(true);
+            result = 10;
+
+            servletResponse.setContentLength(10);
 
-        Iterable<Product> products = Collections.singletonList(entity);
-        Iterable<ProductDto> dtos = Collections.singletonList(dto);
+            servletResponse.getOutputStream();
+            result = out;
+
+            snapshot.writeTo(out, true);
+        }};
+
+        tested.getAll(servletRequest, servletResponse);
+    }
+
+    @Test
+    public void getAll_NotModified(@Mocked HttpServletRequest servletRequest,
+                                   @Mocked HttpServletResponse servletResponse,
+                                   @Mocked ServletWebRequest webRequest,
+                                   @Mocked CatalogSnapshot snapshot) throws IOException {
         new StrictExpectations() {{
-            service.getAllPublishedItems();
-            result = products;
+            snapshotService.getSnapshot();
+            result = snapshot;
+
+            servletRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            result = null;
+
+            servletResponse.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            new ServletWebRequest(servletRequest, servletResponse);
+
+            snapshot.getEtag(false);
+            result = "\"etag\"";
+
+            snapshot.getCreatedAt();
+            result = 1000L;
 
-            mapper.map(products);
+            webRequest.checkNotModified("\"etag\"", 1000L);
+            result = true;
+
+            snapshot.writeTo((OutputStream) any, anyBoolean);
+            times = 0;
+        }};
+
+        tested.getAll(servletRequest, servletResponse);
+    }
+
+    @Test
+    public void getPage(@Mocked PageResponse<ProductDto> page) {
+        BigDecimal minPrice = BigDecimal.ONE;
+        new StrictExpectations() {{
+            catalogService.getCatalogVersion();
+            result = 1000L;
+
+            request.checkNotModified("\"catalog-1000\"", 1000L);
+            result = false;
+
+            catalogService.getPublishedPage(ProductSort.NAME, "Mw", 20, ProductDto.Status.IN_STOCK, minPrice, null);
+            result = page;
+        }};
+
+        Assert.assertEquals(page, tested.getPage("Mw", 20, ProductSort.NAME, ProductDto.Status.IN_STOCK, minPrice, null, request));
+    }
+
+    @Test
+    public void search(@Mocked ProductDto dto) {
+        List<ProductDto> dtos = Collections.singletonList(dto);
+        new StrictExpectations() {{
+            searchService.search("kazak", 20);
             result = dtos;
         }};
 
-        ListResponse<ProductDto> result = tested.getAll();
-        Assert.assertNotNull(result);
-        Assert.assertNotNull(result.getItems());
+        ListResponse<ProductDto> result = tested.search("kazak", 20);
         Assert.assertEquals(dtos, result.getItems());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void watchStock(@Mocked SseEmitter emitter) {
+        List<Long> ids = Arrays.asList(1L, 2L);
+        new StrictExpectations() {{
+            stockStreamService.subscribe(ids);
+            result = emitter;
+        }};
+
+        Assert.assertEquals(emitter, tested.watchStock(ids));
+    }
+}
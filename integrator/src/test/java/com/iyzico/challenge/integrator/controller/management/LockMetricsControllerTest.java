@@ -0,0 +1,45 @@
+package com.iyzico.challenge.integrator.controller.management;
+
+import com.iyzico.challenge.integrator.dto.lock.LockMetricsDto;
+import com.iyzico.challenge.integrator.service.hazelcast.metrics.LockMetrics;
+import mockit.Injectable;
+import mockit.StrictExpectations;
+import mockit.Tested;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(JMockit.class)
+public class LockMetricsControllerTest {
+    @Tested
+    private LockMetricsController tested;
+
+    @Injectable
+    private LockMetrics metrics;
+
+    @Test
+    public void get() {
+        List<LockMetrics.PrefixSnapshot> prefixes = Collections.emptyList();
+        List<LockMetrics.ContendedKey> keys = Collections.emptyList();
+
+        new StrictExpectations() {{
+            metrics.getWindowSeconds();
+            result = 60L;
+
+            metrics.getPrefixes();
+            result = prefixes;
+
+            metrics.getMostContendedKeys(100);
+            result = keys;
+        }};
+
+        LockMetricsDto result = tested.get(1000);
+        Assert.assertEquals(60L, result.getWindowSeconds());
+        Assert.assertEquals(prefixes, result.getPrefixes());
+        Assert.assertEquals(keys, result.getMostContendedKeys());
+    }
+}
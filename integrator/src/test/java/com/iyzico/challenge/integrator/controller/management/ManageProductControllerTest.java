@@ -1,29 +1,48 @@
 package com.iyzico.challenge.integrator.controller.management;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.iyzico.challenge.integrator.data.entity.Product;
 import com.iyzico.challenge.integrator.data.entity.User;
 import com.iyzico.challenge.integrator.data.service.ProductService;
 import com.iyzico.challenge.integrator.dto.ListResponse;
 import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.dto.product.ProductImportResult;
 import com.iyzico.challenge.integrator.dto.product.request.CreateProductRequest;
 import com.iyzico.challenge.integrator.dto.product.request.UpdateProductRequest;
 import com.iyzico.challenge.integrator.mapper.ProductMapper;
+import com.iyzico.challenge.integrator.service.importer.CsvProductRowReader;
+import com.iyzico.challenge.integrator.service.importer.NdjsonProductRowReader;
+import com.iyzico.challenge.integrator.service.importer.ProductImportService;
 import com.iyzico.challenge.integrator.session.model.ApiSession;
 import mockit.StrictExpectations;
 import mockit.Injectable;
 import mockit.Mocked;
-import mockit.Tested;
 import mockit.integration.junit4.JMockit;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.http.MediaType;
 
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @RunWith(JMockit.class)
 public class ManageProductControllerTest {
-    @Tested
     private ManageProductController tested;
 
     @Injectable
@@ -32,6 +51,14 @@ public class ManageProductControllerTest {
     @Injectable
     private ProductMapper mapper;
 
+    @Injectable
+    private ProductImportService importService;
+
+    @Before
+    public void setup() {
+        tested = new ManageProductController(mapper, service, importService, new ObjectMapper());
+    }
+
     @Test
     public void create(@Mocked ApiSession session,
                        @Mocked User user) {
@@ -132,38 +159,162 @@ public class ManageProductControllerTest {
     }
 
     @Test
-    public void getAll(@Mocked Product product,
-                       @Mocked ProductDto dto) {
-        Iterable<Product> products = Collections.singletonList(product);
-        Iterable<ProductDto> dtos = Collections.singletonList(dto);
+    public void getAll(@Mocked HttpServletResponse response) throws IOException {
+        Product product = new Product();
+        ProductDto dto = new ProductDto();
+        dto.setId(1);
+        dto.setName("name");
+        dto.setPrice(BigDecimal.TEN);
+        dto.setStatus(ProductDto.Status.IN_STOCK);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
         new StrictExpectations() {{
-            service.getAllItems();
-            result = products;
+            service.streamAllItems();
+            result = Stream.of(product);
+
+            response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            response.getOutputStream();
+            result = outputStream(body);
 
-            mapper.map(products);
-            result = dtos;
+            mapper.map(product);
+            result = dto;
         }};
 
-        ListResponse<ProductDto> result = tested.getAll();
-        Assert.assertNotNull(result);
-        Assert.assertNotNull(result.getItems());
-        Assert.assertEquals(dtos, result.getItems());
+        tested.getAll(false, response);
+        Assert.assertEquals(new ObjectMapper().writeValueAsString(new ListResponse<>(Collections.singletonList(dto))),
+                body.toString("UTF-8"));
     }
 
     @Test
-    public void getUnpublishedProducts(@Mocked Product product,
-                                       @Mocked ProductDto dto) {
-        Iterable<Product> products = Collections.singletonList(product);
-        Iterable<ProductDto> dtos = Collections.singletonList(dto);
+    public void getUnpublishedProducts(@Mocked HttpServletResponse response) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
         new StrictExpectations() {{
-            service.getAllUnpublishedItems();
-            result = products;
+            service.streamAllUnpublishedItems();
+            result = Stream.empty();
 
-            mapper.map(products);
-            result = dtos;
+            response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            response.getOutputStream();
+            result = outputStream(body);
         }};
 
-        ListResponse<ProductDto> result = tested.getUnpublishedProducts();
-        Assert.assertEquals(dtos, result.getItems());
+        tested.getUnpublishedProducts(false, response);
+        Assert.assertEquals("{\"items\":[]}", body.toString("UTF-8"));
+    }
+
+    @Test
+    public void getAll_WithDescription(@Mocked HttpServletResponse response) throws IOException {
+        Product first = new Product();
+        first.setId(1);
+        Product second = new Product();
+        second.setId(2);
+        List<Product> products = Arrays.asList(first, second);
+        Map<Long, String> descriptions = Collections.singletonMap(1L, "description");
+        ProductDto dto = new ProductDto();
+        dto.setDescription("description");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        new StrictExpectations() {{
+            service.streamAllItems();
+            result = products.stream();
+
+            response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            response.getOutputStream();
+            result = outputStream(body);
+
+            service.getDescriptions(Arrays.asList(1L, 2L));
+            result = descriptions;
+            times = 1;
+
+            mapper.map(products, descriptions);
+            result = Arrays.asList(dto, new ProductDto());
+        }};
+
+        tested.getAll(true, response);
+        Assert.assertEquals(new ObjectMapper().writeValueAsString(new ListResponse<>(Arrays.asList(dto, new ProductDto()))),
+                body.toString("UTF-8"));
+    }
+
+    @Test
+    public void importProducts_Csv(@Mocked HttpServletRequest request,
+                                   @Mocked ApiSession session,
+                                   @Mocked User user) throws IOException {
+        ProductImportResult importResult = new ProductImportResult();
+        new StrictExpectations() {{
+            request.getInputStream();
+            result = inputStream("name,barcode,stockCount,price\n");
+
+            request.getContentType();
+            result = "text/csv; charset=UTF-8";
+
+            session.getUser();
+            result = user;
+
+            importService.importProducts(user, withInstanceOf(CsvProductRowReader.class));
+            result = importResult;
+        }};
+
+        Assert.assertEquals(importResult, tested.importProducts(request, session));
+    }
+
+    @Test
+    public void importProducts_Ndjson(@Mocked HttpServletRequest request,
+                                      @Mocked ApiSession session,
+                                      @Mocked User user) throws IOException {
+        ProductImportResult importResult = new ProductImportResult();
+        new StrictExpectations() {{
+            request.getInputStream();
+            result = inputStream("{}\n");
+
+            request.getContentType();
+            result = "application/x-ndjson";
+
+            session.getUser();
+            result = user;
+
+            importService.importProducts(user, withInstanceOf(NdjsonProductRowReader.class));
+            result = importResult;
+        }};
+
+        Assert.assertEquals(importResult, tested.importProducts(request, session));
+    }
+
+    private static ServletInputStream inputStream(String body) {
+        ByteArrayInputStream input = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return input.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+            }
+
+            @Override
+            public int read() {
+                return input.read();
+            }
+        };
+    }
+
+    private static ServletOutputStream outputStream(ByteArrayOutputStream body) {
+        return new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -20,6 +20,7 @@ public class BasketProductTest {
         long basketId = 2;
         long productId = 3;
         int count = 4;
+        long version = 5;
         LocalDateTime createTime = LocalDateTime.now();
         Basket basket = new Basket();
         Product product = new Product();
@@ -34,12 +35,14 @@ public class BasketProductTest {
         tested.setBasketId(basketId);
         tested.setProductId(productId);
         tested.setCreateTime(createTime);
+        tested.setVersion(version);
 
         Assert.assertEquals(id, tested.getId());
         Assert.assertEquals(basketId, tested.getBasketId());
         Assert.assertEquals(productId, tested.getProductId());
         Assert.assertEquals(count, tested.getCount());
         Assert.assertEquals(createTime, tested.getCreateTime());
+        Assert.assertEquals(version, tested.getVersion());
         Assert.assertEquals(basket, tested.getBasket());
         Assert.assertEquals(product, tested.getProduct());
     }
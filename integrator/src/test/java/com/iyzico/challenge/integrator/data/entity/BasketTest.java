@@ -20,6 +20,8 @@ public class BasketTest {
     public void mapping_test(@Mocked User user) {
         long id = 1;
         long userId = 1;
+        long version = 2;
+        long fencingToken = 3;
         Basket.Status status = Basket.Status.STOCK_APPLIED;
         Set<BasketProduct> products = Collections.unmodifiableSet(Collections.emptySet());
         new StrictExpectations() {{
@@ -30,10 +32,14 @@ public class BasketTest {
         tested.setProducts(products);
         tested.setUser(user);
         tested.setUserId(userId);
+        tested.setVersion(version);
+        tested.setFencingToken(fencingToken);
 
         Assert.assertEquals(id, tested.getId());
         Assert.assertEquals(userId, tested.getUserId());
         Assert.assertEquals(status, tested.getStatus());
+        Assert.assertEquals(version, tested.getVersion());
+        Assert.assertEquals(fencingToken, tested.getFencingToken());
         Assert.assertEquals(user, tested.getUser());
         Assert.assertEquals(products, tested.getProducts());
     }
@@ -25,6 +25,8 @@ public class ProductTest {
         Product.Status status = Product.Status.IN_STOCK;
         BigDecimal price = BigDecimal.ONE;
         String barcode = "barcode";
+        long version = 4;
+        long fencingToken = 5;
         User user = new User();
         LongText description = new LongText();
 
@@ -40,6 +42,8 @@ public class ProductTest {
         tested.setPrice(price);
         tested.setUser(user);
         tested.setUserId(userId);
+        tested.setVersion(version);
+        tested.setFencingToken(fencingToken);
 
         Assert.assertEquals(id, tested.getId());
         Assert.assertEquals(name, tested.getName());
@@ -48,6 +52,8 @@ public class ProductTest {
         Assert.assertEquals(status, tested.getStatus());
         Assert.assertEquals(price, tested.getPrice());
         Assert.assertEquals(barcode, tested.getBarcode());
+        Assert.assertEquals(version, tested.getVersion());
+        Assert.assertEquals(fencingToken, tested.getFencingToken());
         Assert.assertEquals(userId, tested.getUserId());
         Assert.assertEquals(description, tested.getDescription());
     }
@@ -4,13 +4,15 @@ import com.iyzico.challenge.integrator.data.entity.Basket;
 import com.iyzico.challenge.integrator.data.entity.BasketProduct;
 import com.iyzico.challenge.integrator.data.entity.Product;
 import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.event.ProductChangedEvent;
 import com.iyzico.challenge.integrator.data.repository.BasketRepository;
+import com.iyzico.challenge.integrator.exception.BasketChangedException;
 import com.iyzico.challenge.integrator.exception.EmptyBasketException;
 import com.iyzico.challenge.integrator.exception.InvalidBasketStatusException;
 import com.iyzico.challenge.integrator.exception.ProductNotFoundException;
 import com.iyzico.challenge.integrator.exception.StockNotEnoughException;
-import com.iyzico.challenge.integrator.service.hazelcast.BLock;
 import com.iyzico.challenge.integrator.service.hazelcast.LockService;
+import com.iyzico.challenge.integrator.service.hazelcast.MultiLock;
 import com.iyzico.challenge.integrator.service.hazelcast.exception.CannotHoldTheLockException;
 import mockit.Deencapsulation;
 import mockit.Delegate;
@@ -25,20 +27,23 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 
 @RunWith(JMockit.class)
@@ -54,16 +59,30 @@ public class BasketServiceTest {
     @Injectable
     private PlatformTransactionManager manager;
 
+    @Injectable
+    private ApplicationEventPublisher eventPublisher;
+
+    @Injectable
+    private EntityManager entityManager;
+
     private TransactionTemplate requireNewTransactionTemplate;
 
     private LockService lockService;
 
+    private OptimisticRetryService retryService;
+
     private ThreadLocal<Lock> threadLocal = new ThreadLocal<>();
 
     @Before
     public void setup() {
         lockService = createMockLockService();
-        tested = new BasketService(repository, productService, manager, lockService);
+        retryService = new MockUp<OptimisticRetryService>() {
+            @Mock
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        }.getMockInstance();
+        tested = new BasketService(repository, productService, manager, lockService, retryService, eventPublisher, entityManager);
         requireNewTransactionTemplate = new MockUp<TransactionTemplate>() {
 
             @Mock
@@ -77,30 +96,25 @@ public class BasketServiceTest {
 
     @Test
     public void translation_template(@Mocked PlatformTransactionManager manager) {
-        BasketService tested = new BasketService(repository, productService, manager, lockService);
+        BasketService tested = new BasketService(repository, productService, manager, lockService, retryService, eventPublisher, entityManager);
         Assert.assertEquals(repository, Deencapsulation.getField(tested, "repository"));
         Assert.assertEquals(productService, Deencapsulation.getField(tested, "productService"));
         Assert.assertEquals(lockService, Deencapsulation.getField(tested, "lockService"));
+        Assert.assertEquals(retryService, Deencapsulation.getField(tested, "retryService"));
+        Assert.assertEquals(eventPublisher, Deencapsulation.getField(tested, "eventPublisher"));
+        Assert.assertEquals(entityManager, Deencapsulation.getField(tested, "entityManager"));
         TransactionTemplate requireNewTransactionTemplate = Deencapsulation.getField(tested, "requireNewTransactionTemplate");
         Assert.assertEquals(requireNewTransactionTemplate.getPropagationBehavior(), TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     @Test(expected = ProductNotFoundException.class)
-    public void addItem_ProductNotFoundException(@Mocked User user,
-                                                 @Mocked Lock lock) {
+    public void addItem_ProductNotFoundException(@Mocked User user) {
         long productId = 1;
         int count = 2;
 
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
-
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             productService.getPublishedItem(productId);
             result = new ProductNotFoundException("test");
-
-            lock.unlock();
         }};
 
         tested.addItem(user, productId, count);
@@ -108,24 +122,16 @@ public class BasketServiceTest {
 
     @Test(expected = StockNotEnoughException.class)
     public void addItem_StatusIsOutOfStock(@Mocked User user,
-                                           @Mocked Product product,
-                                           @Mocked Lock lock) {
+                                           @Mocked Product product) {
         long productId = 1;
         int count = 2;
 
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
-
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             productService.getPublishedItem(productId);
             result = product;
 
             product.getStatus();
             result = Product.Status.OUT_OF_STOCK;
-
-            lock.unlock();
         }};
 
         tested.addItem(user, productId, count);
@@ -133,17 +139,11 @@ public class BasketServiceTest {
 
     @Test(expected = StockNotEnoughException.class)
     public void addItem_StockCountNotEnough(@Mocked User user,
-                                            @Mocked Product product,
-                                            @Mocked Lock lock) {
+                                            @Mocked Product product) {
         long productId = 1;
         int count = 2;
 
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
-
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             productService.getPublishedItem(productId);
             result = product;
 
@@ -152,8 +152,6 @@ public class BasketServiceTest {
 
             product.getStockCount();
             result = count - 1;
-
-            lock.unlock();
         }};
 
         tested.addItem(user, productId, count);
@@ -162,8 +160,7 @@ public class BasketServiceTest {
     @Test
     public void addItem_ProductAlreadyExistsInBasket(@Mocked User user,
                                                      @Mocked Product product,
-                                                     @Mocked Basket basket,
-                                                     @Mocked Lock lock) {
+                                                     @Mocked Basket basket) {
         long productId = 1;
         int count = 2;
         BasketProduct basketProduct = new BasketProduct();
@@ -172,13 +169,8 @@ public class BasketServiceTest {
         basketProduct.setProductId(productId);
         basketProduct.setBasket(basket);
 
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
-
         Set<BasketProduct> products = Collections.singleton(basketProduct);
         new StrictExpectations(tested) {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             productService.getPublishedItem(productId);
             result = product;
 
@@ -191,10 +183,16 @@ public class BasketServiceTest {
             tested.getUserBasket(user);
             result = basket;
 
+            basket.getStatus();
+            result = Basket.Status.ACTIVE;
+
+            entityManager.contains(basket);
+            result = true;
+
+            entityManager.lock(basket, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+
             basket.getProducts();
             result = products;
-
-            lock.unlock();
         }};
 
         tested.addItem(user, productId, count);
@@ -203,22 +201,18 @@ public class BasketServiceTest {
 
     @Test
     public void addItem(@Mocked User user,
-                        @Mocked Product product,
-                        @Mocked Lock lock) {
+                        @Mocked Product product) {
         long productId = 1;
         int count = 2;
 
         Set<BasketProduct> products = new HashSet<>();
         Basket basket = new Basket();
+        basket.setStatus(Basket.Status.ACTIVE);
         basket.setProducts(products);
 
         LocalDateTime now = LocalDateTime.now();
 
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
         new StrictExpectations(tested, LocalDateTime.now()) {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             productService.getPublishedItem(productId);
             result = product;
 
@@ -231,13 +225,16 @@ public class BasketServiceTest {
             tested.getUserBasket(user);
             result = basket;
 
+            entityManager.contains(basket);
+            result = true;
+
+            entityManager.lock(basket, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+
             LocalDateTime.now();
             result = now;
 
             repository.save(basket);
             result = basket;
-
-            lock.unlock();
         }};
 
         tested.addItem(user, productId, count);
@@ -251,7 +248,6 @@ public class BasketServiceTest {
 
     @Test
     public void deleteItem_UnableToFindItemInBasket(@Mocked User user,
-                                                    @Mocked Lock lock,
                                                     @Mocked Basket basket) {
         long basketProductId = 1;
         Set<BasketProduct> products = new HashSet<>();
@@ -259,10 +255,17 @@ public class BasketServiceTest {
         product.setId(basketProductId + 1);
         products.add(product);
 
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
+            repository.findFirstByUserIdAndStatusWithBasketContent(anyLong, (List<Basket.Status>) any);
+            result = basket;
+
+            basket.getStatus();
+            result = Basket.Status.ACTIVE;
+
+            entityManager.contains(basket);
+            result = true;
+
+            entityManager.lock(basket, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
 
             basket.getProducts();
             result = products;
@@ -274,7 +277,6 @@ public class BasketServiceTest {
 
     @Test
     public void deleteItem(@Mocked User user,
-                           @Mocked Lock lock,
                            @Mocked Basket basket) {
         long basketProductId = 1;
         Set<BasketProduct> products = new HashSet<>();
@@ -282,10 +284,17 @@ public class BasketServiceTest {
         product.setId(basketProductId);
         products.add(product);
 
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
+            repository.findFirstByUserIdAndStatusWithBasketContent(anyLong, (List<Basket.Status>) any);
+            result = basket;
+
+            basket.getStatus();
+            result = Basket.Status.ACTIVE;
+
+            entityManager.contains(basket);
+            result = true;
+
+            entityManager.lock(basket, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
 
             basket.getProducts();
             result = products;
@@ -295,6 +304,20 @@ public class BasketServiceTest {
         Assert.assertTrue(products.isEmpty());
     }
 
+    @Test(expected = InvalidBasketStatusException.class)
+    public void deleteItem_BasketFrozen(@Mocked User user,
+                                        @Mocked Basket basket) {
+        new StrictExpectations() {{
+            repository.findFirstByUserIdAndStatusWithBasketContent(anyLong, (List<Basket.Status>) any);
+            result = basket;
+
+            basket.getStatus();
+            result = Basket.Status.STOCK_APPLIED;
+        }};
+
+        tested.deleteItem(user, 1);
+    }
+
     @Test(expected = EmptyBasketException.class)
     public void decreaseStocks_NullProducts(@Mocked User user,
                                             @Mocked Basket basket) {
@@ -304,7 +327,7 @@ public class BasketServiceTest {
             result = null;
         }};
 
-        tested.decreaseStocks(user, basket);
+        tested.decreaseStocks(user, basket, 1L);
     }
 
     @Test(expected = InvalidBasketStatusException.class)
@@ -317,7 +340,7 @@ public class BasketServiceTest {
         Basket basket = new Basket();
         basket.setStatus(Basket.Status.STOCK_APPLIED);
         basket.setProducts(products);
-        tested.decreaseStocks(user, basket);
+        tested.decreaseStocks(user, basket, 1L);
     }
 
     @Test(expected = InvalidBasketStatusException.class)
@@ -330,13 +353,11 @@ public class BasketServiceTest {
         Basket basket = new Basket();
         basket.setStatus(Basket.Status.COMPLETED);
         basket.setProducts(products);
-        tested.decreaseStocks(user, basket);
+        tested.decreaseStocks(user, basket, 1L);
     }
 
     @Test(expected = CannotHoldTheLockException.class)
-    public void decreaseStocks_CannotHoldTheLock(@Mocked User user,
-                                                 @Mocked BLock lock1,
-                                                 @Mocked BLock lock2) throws InterruptedException {
+    public void decreaseStocks_CannotHoldTheLock(@Mocked User user) {
 
         long productId1 = 10L;
         long productId2 = 5L;
@@ -357,37 +378,23 @@ public class BasketServiceTest {
         basket.setStatus(Basket.Status.ACTIVE);
         basket.setProducts(products);
 
-        new NonStrictExpectations() {{
-            lock1.getName();
-            result = "lock1";
-
-            lock2.getName();
-            result = "lock2";
-        }};
-
         new StrictExpectations(lockService) {{
-            lockService.getProductLock(productId2);
-            result = lock1;
-
-            lock1.tryLock(30, TimeUnit.SECONDS);
-            result = true;
-
-            lockService.getProductLock(productId1);
-            result = lock2;
-
-            lock2.tryLock(30, TimeUnit.SECONDS);
-            result = false;
-
-            lock1.unlock();
+            lockService.lockProducts(with(new Delegate<Collection<Long>>() {
+                public boolean matches(Collection<Long> productIds) {
+                    return productIds.size() == 2 &&
+                            productIds.contains(productId1) &&
+                            productIds.contains(productId2);
+                }
+            }));
+            result = new CannotHoldTheLockException("test", "product-" + productId1);
         }};
 
-        tested.decreaseStocks(user, basket);
+        tested.decreaseStocks(user, basket, 1L);
     }
 
     @Test(expected = StockNotEnoughException.class)
     public void decreaseStocks_StockNotEnoughException(@Mocked User user,
-                                                       @Mocked BLock lock1,
-                                                       @Mocked BLock lock2) throws InterruptedException {
+                                                       @Mocked MultiLock locks) {
 
         long productId1 = 10L;
         long productId2 = 5L;
@@ -408,42 +415,47 @@ public class BasketServiceTest {
         basket.setStatus(Basket.Status.ACTIVE);
         basket.setProducts(products);
 
+        TransactionCallback<Basket> transactionCallback = status -> null;
         new NonStrictExpectations() {{
-            lock1.getName();
-            result = "lock1";
+            repository.findFirstByUserIdAndStatusWithBasketContent(anyLong, (List<Basket.Status>) any);
+            result = basket;
 
-            lock2.getName();
-            result = "lock2";
+            repository.fence(anyLong, 1L);
+            result = 1;
         }};
 
-        TransactionCallback<Basket> transactionCallback = status -> null;
         new StrictExpectations(lockService, tested, basket) {{
-            lockService.getProductLock(productId2);
-            result = lock1;
-
-            lock1.tryLock(30, TimeUnit.SECONDS);
-            result = true;
-
-            lockService.getProductLock(productId1);
-            result = lock2;
-
-            lock2.tryLock(30, TimeUnit.SECONDS);
-            result = true;
+            lockService.lockProducts(with(new Delegate<Collection<Long>>() {
+                public boolean matches(Collection<Long> productIds) {
+                    return productIds.size() == 2 &&
+                            productIds.contains(productId1) &&
+                            productIds.contains(productId2);
+                }
+            }));
+            result = locks;
 
             requireNewTransactionTemplate.execute(withInstanceLike(transactionCallback));
 
-            lock1.unlock();
+            locks.getFencingToken();
+            result = 9L;
 
-            lock2.unlock();
+            productService.fence(with(new Delegate<Collection<Long>>() {
+                public boolean matches(Collection<Long> productIds) {
+                    return productIds.size() == 2 &&
+                            productIds.contains(productId1) &&
+                            productIds.contains(productId2);
+                }
+            }), 9L);
+
+            locks.unlock();
         }};
 
-        tested.decreaseStocks(user, basket);
+        tested.decreaseStocks(user, basket, 1L);
     }
 
     @Test
     public void decreaseStocks(@Mocked User user,
-                               @Mocked BLock lock1,
-                               @Mocked BLock lock2) throws InterruptedException {
+                               @Mocked MultiLock locks) {
 
         long userId = Long.MAX_VALUE;
 
@@ -474,39 +486,182 @@ public class BasketServiceTest {
             basket.getProducts();
             result = products;
 
-            lock1.getName();
-            result = "lock1";
+            repository.findFirstByUserIdAndStatusWithBasketContent(userId, (List<Basket.Status>) any);
+            result = basket;
 
-            lock2.getName();
-            result = "lock2";
-        }};
+            repository.fence(anyLong, 1L);
+            result = 1;
 
-        new StrictExpectations(lockService, basket) {{
-            lockService.getProductLock(productId2);
-            result = lock1;
-
-            lock1.tryLock(30, TimeUnit.SECONDS);
-            result = true;
+            repository.save(basket);
+            result = basket;
 
-            lockService.getProductLock(productId1);
-            result = lock2;
+            eventPublisher.publishEvent(withInstanceOf(ProductChangedEvent.class));
+            times = 1;
+        }};
 
-            lock2.tryLock(30, TimeUnit.SECONDS);
-            result = true;
+        new StrictExpectations(lockService, basket) {{
+            lockService.lockProducts(with(new Delegate<Collection<Long>>() {
+                public boolean matches(Collection<Long> productIds) {
+                    return productIds.size() == 2 &&
+                            productIds.contains(productId1) &&
+                            productIds.contains(productId2);
+                }
+            }));
+            result = locks;
 
             requireNewTransactionTemplate.execute(withInstanceLike(transactionCallback));
 
-            lock1.unlock();
+            locks.getFencingToken();
+            result = 9L;
 
-            lock2.unlock();
+            productService.fence(with(new Delegate<Collection<Long>>() {
+                public boolean matches(Collection<Long> productIds) {
+                    return productIds.size() == 2 &&
+                            productIds.contains(productId1) &&
+                            productIds.contains(productId2);
+                }
+            }), 9L);
+
+            locks.unlock();
         }};
 
-        Basket result = tested.decreaseStocks(user, basket);
+        Basket result = tested.decreaseStocks(user, basket, 1L);
+        Assert.assertEquals(1L, result.getFencingToken());
         Assert.assertEquals(Basket.Status.STOCK_APPLIED, result.getStatus());
         Assert.assertEquals(0, basketProduct1.getProduct().getStockCount());
         Assert.assertEquals(5, basketProduct2.getProduct().getStockCount());
     }
 
+    @Test(expected = BasketChangedException.class)
+    public void decreaseStocks_BasketChanged(@Mocked User user,
+                                             @Mocked MultiLock locks) {
+
+        long productId = 10L;
+        Set<BasketProduct> products = new TreeSet<>();
+        BasketProduct basketProduct = new BasketProduct();
+        basketProduct.setCount(5);
+        basketProduct.setProductId(productId);
+        basketProduct.setProduct(createProduct(productId, 10, BigDecimal.TEN));
+        products.add(basketProduct);
+
+        Basket basket = new Basket();
+        basket.setId(3);
+        basket.setStatus(Basket.Status.ACTIVE);
+        basket.setVersion(4);
+        basket.setProducts(products);
+
+        Basket changed = new Basket();
+        changed.setId(3);
+        changed.setStatus(Basket.Status.ACTIVE);
+        changed.setVersion(5);
+        changed.setProducts(products);
+
+        new NonStrictExpectations(lockService) {{
+            lockService.lockProducts((Collection<Long>) any);
+            result = locks;
+
+            repository.findFirstByUserIdAndStatusWithBasketContent(anyLong, (List<Basket.Status>) any);
+            result = changed;
+        }};
+
+        tested.decreaseStocks(user, basket, 6L);
+    }
+
+
+    @Test
+    public void rollbackStocks_CountChangedAfterFreeze(@Mocked User user,
+                                                       @Mocked MultiLock locks) {
+        long productId = 10L;
+        Product product = createProduct(productId, 5, BigDecimal.TEN);
+
+        Set<BasketProduct> frozenProducts = new TreeSet<>();
+        BasketProduct frozenProduct = new BasketProduct();
+        frozenProduct.setCount(5);
+        frozenProduct.setProductId(productId);
+        frozenProduct.setProduct(product);
+        frozenProducts.add(frozenProduct);
+
+        Basket frozen = new Basket();
+        frozen.setId(3);
+        frozen.setStatus(Basket.Status.STOCK_APPLIED);
+        frozen.setVersion(6);
+        frozen.setProducts(frozenProducts);
+
+        // a line change committed after the freeze bumped the basket version
+        Set<BasketProduct> changedProducts = new TreeSet<>();
+        BasketProduct changedProduct = new BasketProduct();
+        changedProduct.setCount(8);
+        changedProduct.setProductId(productId);
+        changedProduct.setProduct(product);
+        changedProducts.add(changedProduct);
+
+        Basket changed = new Basket();
+        changed.setId(3);
+        changed.setStatus(Basket.Status.STOCK_APPLIED);
+        changed.setVersion(7);
+        changed.setProducts(changedProducts);
+
+        new NonStrictExpectations(lockService) {{
+            lockService.lockProducts((Collection<Long>) any);
+            result = locks;
+
+            repository.findFirstByUserIdAndStatusWithBasketContent(anyLong, (List<Basket.Status>) any);
+            result = changed;
+        }};
+
+        try {
+            tested.rollbackStocks(user, frozen, 6L);
+            Assert.fail();
+        } catch (BasketChangedException e) {
+            Assert.assertEquals(5, product.getStockCount());
+        }
+    }
+
+    @Test
+    public void addItem_NewBasket(@Mocked User user,
+                                  @Mocked Product product,
+                                  @Mocked Basket managed) {
+        long productId = 1;
+        int count = 2;
+
+        Basket created = new Basket();
+        created.setStatus(Basket.Status.ACTIVE);
+
+        Set<BasketProduct> products = new HashSet<>();
+        new StrictExpectations(tested) {{
+            productService.getPublishedItem(productId);
+            result = product;
+
+            product.getStatus();
+            result = Product.Status.IN_STOCK;
+
+            product.getStockCount();
+            result = count;
+
+            tested.getUserBasket(user);
+            result = created;
+
+            entityManager.contains(created);
+            result = false;
+
+            entityManager.merge(created);
+            result = managed;
+
+            entityManager.lock(managed, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+
+            managed.getProducts();
+            result = products;
+
+            managed.getProducts();
+            result = products;
+
+            repository.save(managed);
+            result = managed;
+        }};
+
+        tested.addItem(user, productId, count);
+        Assert.assertEquals(1, products.size());
+    }
 
     @Test(expected = EmptyBasketException.class)
     public void rollbackStocks_NullProducts(@Mocked User user,
@@ -517,7 +672,7 @@ public class BasketServiceTest {
             result = null;
         }};
 
-        tested.rollbackStocks(user, basket);
+        tested.rollbackStocks(user, basket, 1L);
     }
 
     @Test(expected = InvalidBasketStatusException.class)
@@ -530,7 +685,7 @@ public class BasketServiceTest {
         Basket basket = new Basket();
         basket.setStatus(Basket.Status.ACTIVE);
         basket.setProducts(products);
-        tested.rollbackStocks(user, basket);
+        tested.rollbackStocks(user, basket, 1L);
     }
 
     @Test(expected = InvalidBasketStatusException.class)
@@ -543,13 +698,11 @@ public class BasketServiceTest {
         Basket basket = new Basket();
         basket.setStatus(Basket.Status.COMPLETED);
         basket.setProducts(products);
-        tested.rollbackStocks(user, basket);
+        tested.rollbackStocks(user, basket, 1L);
     }
 
     @Test(expected = CannotHoldTheLockException.class)
-    public void rollbackStocks_CannotHoldTheLock(@Mocked User user,
-                                                 @Mocked BLock lock1,
-                                                 @Mocked BLock lock2) throws InterruptedException {
+    public void rollbackStocks_CannotHoldTheLock(@Mocked User user) {
 
         long productId1 = 10L;
         long productId2 = 5L;
@@ -570,37 +723,23 @@ public class BasketServiceTest {
         basket.setStatus(Basket.Status.ACTIVE);
         basket.setProducts(products);
 
-        new NonStrictExpectations() {{
-            lock1.getName();
-            result = "lock1";
-
-            lock2.getName();
-            result = "lock2";
-        }};
-
         new StrictExpectations(lockService) {{
-            lockService.getProductLock(productId2);
-            result = lock1;
-
-            lock1.tryLock(30, TimeUnit.SECONDS);
-            result = true;
-
-            lockService.getProductLock(productId1);
-            result = lock2;
-
-            lock2.tryLock(30, TimeUnit.SECONDS);
-            result = false;
-
-            lock1.unlock();
+            lockService.lockProducts(with(new Delegate<Collection<Long>>() {
+                public boolean matches(Collection<Long> productIds) {
+                    return productIds.size() == 2 &&
+                            productIds.contains(productId1) &&
+                            productIds.contains(productId2);
+                }
+            }));
+            result = new CannotHoldTheLockException("test", "product-" + productId1);
         }};
 
-        tested.decreaseStocks(user, basket);
+        tested.decreaseStocks(user, basket, 1L);
     }
 
     @Test
     public void rollbackStocks(@Mocked User user,
-                               @Mocked BLock lock1,
-                               @Mocked BLock lock2) throws InterruptedException {
+                               @Mocked MultiLock locks) {
 
         long userId = Long.MAX_VALUE;
 
@@ -631,34 +770,46 @@ public class BasketServiceTest {
             basket.getProducts();
             result = products;
 
-            lock1.getName();
-            result = "lock1";
-
-            lock2.getName();
-            result = "lock2";
-        }};
+            repository.findFirstByUserIdAndStatusWithBasketContent(userId, (List<Basket.Status>) any);
+            result = basket;
 
-        new StrictExpectations(lockService, basket) {{
-            lockService.getProductLock(productId2);
-            result = lock1;
+            repository.fence(anyLong, 1L);
+            result = 1;
 
-            lock1.tryLock(30, TimeUnit.SECONDS);
-            result = true;
+            repository.save(basket);
+            result = basket;
 
-            lockService.getProductLock(productId1);
-            result = lock2;
+            eventPublisher.publishEvent(withInstanceOf(ProductChangedEvent.class));
+            times = 1;
+        }};
 
-            lock2.tryLock(30, TimeUnit.SECONDS);
-            result = true;
+        new StrictExpectations(lockService, basket) {{
+            lockService.lockProducts(with(new Delegate<Collection<Long>>() {
+                public boolean matches(Collection<Long> productIds) {
+                    return productIds.size() == 2 &&
+                            productIds.contains(productId1) &&
+                            productIds.contains(productId2);
+                }
+            }));
+            result = locks;
 
             requireNewTransactionTemplate.execute(withInstanceLike(transactionCallback));
 
-            lock1.unlock();
+            locks.getFencingToken();
+            result = 9L;
+
+            productService.fence(with(new Delegate<Collection<Long>>() {
+                public boolean matches(Collection<Long> productIds) {
+                    return productIds.size() == 2 &&
+                            productIds.contains(productId1) &&
+                            productIds.contains(productId2);
+                }
+            }), 9L);
 
-            lock2.unlock();
+            locks.unlock();
         }};
 
-        Basket result = tested.rollbackStocks(user, basket);
+        Basket result = tested.rollbackStocks(user, basket, 1L);
         Assert.assertEquals(Basket.Status.ACTIVE, result.getStatus());
         Assert.assertEquals(20, basketProduct1.getProduct().getStockCount());
         Assert.assertEquals(15, basketProduct2.getProduct().getStockCount());
@@ -800,11 +951,6 @@ public class BasketServiceTest {
 
     private LockService createMockLockService() {
         return new MockUp<LockService>() {
-            @Mock
-            public BLock getProductLock(Long productId) {
-                return null;
-            }
-
             @Mock
             public <T> T executeInBasketLock(User user, Callable<T> callable) {
                 try {
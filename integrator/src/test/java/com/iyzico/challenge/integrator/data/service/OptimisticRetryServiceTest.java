@@ -0,0 +1,96 @@
+package com.iyzico.challenge.integrator.data.service;
+
+import com.iyzico.challenge.integrator.data.entity.Basket;
+import com.iyzico.challenge.integrator.exception.ConcurrentUpdateException;
+import mockit.Deencapsulation;
+import mockit.Injectable;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(JMockit.class)
+public class OptimisticRetryServiceTest {
+    private OptimisticRetryService tested;
+
+    @Injectable
+    private PlatformTransactionManager manager;
+
+    private AtomicInteger attempts = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        tested = new OptimisticRetryService(manager);
+        TransactionTemplate requireNewTransactionTemplate = new MockUp<TransactionTemplate>() {
+            @Mock
+            public <T> T execute(TransactionCallback<T> action) {
+                attempts.incrementAndGet();
+                return action.doInTransaction(null);
+            }
+        }.getMockInstance();
+
+        Deencapsulation.setField(tested, requireNewTransactionTemplate);
+    }
+
+    @Test
+    public void transaction_template() {
+        OptimisticRetryService tested = new OptimisticRetryService(manager);
+        TransactionTemplate requireNewTransactionTemplate = Deencapsulation.getField(tested, "requireNewTransactionTemplate");
+        Assert.assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, requireNewTransactionTemplate.getPropagationBehavior());
+    }
+
+    @Test
+    public void execute() {
+        Object object = new Object();
+        Assert.assertEquals(object, tested.execute(status -> object));
+        Assert.assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void execute_RetriesOnConflict() {
+        Object object = new Object();
+        Object result = tested.execute(status -> {
+            if (attempts.get() < 3) {
+                throw new ObjectOptimisticLockingFailureException(Basket.class, 1L);
+            }
+
+            return object;
+        });
+
+        Assert.assertEquals(object, result);
+        Assert.assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void execute_GivesUp() {
+        try {
+            tested.execute(status -> {
+                throw new ObjectOptimisticLockingFailureException(Basket.class, 1L);
+            });
+            Assert.fail("Expected ConcurrentUpdateException");
+        } catch (ConcurrentUpdateException e) {
+            Assert.assertEquals(OptimisticRetryService.MAX_ATTEMPTS, attempts.get());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void execute_OtherExceptionsAreNotRetried() {
+        try {
+            tested.execute(status -> {
+                throw new IllegalStateException("test");
+            });
+        } finally {
+            Assert.assertEquals(1, attempts.get());
+        }
+    }
+}
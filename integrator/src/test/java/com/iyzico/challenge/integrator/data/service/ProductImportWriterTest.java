@@ -0,0 +1,110 @@
+package com.iyzico.challenge.integrator.data.service;
+
+import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.event.ProductChangedEvent;
+import com.iyzico.challenge.integrator.dto.product.request.CreateProductRequest;
+import mockit.Delegate;
+import mockit.Injectable;
+import mockit.StrictExpectations;
+import mockit.Tested;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+@RunWith(JMockit.class)
+public class ProductImportWriterTest {
+    @Tested
+    private ProductImportWriter tested;
+
+    @Injectable
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Injectable
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    public void write() {
+        User user = new User();
+        user.setId(3L);
+        CreateProductRequest created = request("100", null);
+        CreateProductRequest updated = request("200", "description of the product");
+        new StrictExpectations() {{
+            jdbcTemplate.query(withPrefix("select id, barcode from product"), (SqlParameterSource) any, (RowCallbackHandler) any);
+            result = rows(row("200", 7L));
+
+            jdbcTemplate.batchUpdate(withPrefix("insert into product"), with(new Delegate<SqlParameterSource[]>() {
+                public boolean matches(SqlParameterSource[] parameters) {
+                    return parameters.length == 1 &&
+                            "100".equals(parameters[0].getValue("barcode")) &&
+                            Long.valueOf(3L).equals(parameters[0].getValue("userId"));
+                }
+            }));
+
+            jdbcTemplate.batchUpdate(withPrefix("update product"), with(new Delegate<SqlParameterSource[]>() {
+                public boolean matches(SqlParameterSource[] parameters) {
+                    return parameters.length == 1 &&
+                            Long.valueOf(7L).equals(parameters[0].getValue("id"));
+                }
+            }));
+
+            jdbcTemplate.query(withPrefix("select id, barcode from product"), (SqlParameterSource) any, (RowCallbackHandler) any);
+            result = rows(row("100", 8L), row("200", 7L));
+
+            jdbcTemplate.update(withPrefix("delete from long_text"), (SqlParameterSource) with(new Delegate<SqlParameterSource>() {
+                public boolean matches(SqlParameterSource parameters) {
+                    return Arrays.asList("7").equals(parameters.getValue("recordIds"));
+                }
+            }));
+
+            jdbcTemplate.batchUpdate(withPrefix("insert into long_text"), with(new Delegate<SqlParameterSource[]>() {
+                public boolean matches(SqlParameterSource[] parameters) {
+                    return parameters.length == 1 &&
+                            "7".equals(parameters[0].getValue("recordId")) &&
+                            "description of the product".equals(parameters[0].getValue("content"));
+                }
+            }));
+
+            eventPublisher.publishEvent(withInstanceOf(ProductChangedEvent.class));
+        }};
+
+        ProductImportWriter.Result result = tested.write(user, Arrays.asList(created, updated));
+        Assert.assertEquals(1, result.getCreated());
+        Assert.assertEquals(1, result.getUpdated());
+    }
+
+    private static CreateProductRequest request(String barcode, String description) {
+        CreateProductRequest request = new CreateProductRequest();
+        request.setBarcode(barcode);
+        request.setName("product " + barcode);
+        request.setStockCount(1);
+        request.setPrice(BigDecimal.ONE);
+        request.setDescription(description);
+        return request;
+    }
+
+    private static Delegate<Void> rows(ResultSet... rows) {
+        return new Delegate<Void>() {
+            public void query(String sql, SqlParameterSource parameters, RowCallbackHandler handler) throws SQLException {
+                for (ResultSet row : rows) {
+                    handler.processRow(row);
+                }
+            }
+        };
+    }
+
+    private static ResultSet row(String barcode, long id) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class[]{ResultSet.class},
+                (proxy, method, args) -> "getString".equals(method.getName()) ? barcode : id);
+    }
+}
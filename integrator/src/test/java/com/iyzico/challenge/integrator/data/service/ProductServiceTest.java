@@ -1,11 +1,18 @@
 package com.iyzico.challenge.integrator.data.service;
 
-import com.iyzico.challenge.integrator.data.entity.Basket;
+import com.iyzico.challenge.integrator.data.entity.LongText;
 import com.iyzico.challenge.integrator.data.entity.Product;
 import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.event.ProductChangedEvent;
+import com.iyzico.challenge.integrator.data.repository.LongTextRepository;
+import com.iyzico.challenge.integrator.data.repository.ProductBarcode;
 import com.iyzico.challenge.integrator.data.repository.ProductRepository;
+import com.iyzico.challenge.integrator.dto.product.ProductSort;
+import com.iyzico.challenge.integrator.exception.BarcodeTakenByAnotherProductException;
 import com.iyzico.challenge.integrator.exception.ProductNotFoundException;
+import com.iyzico.challenge.integrator.service.hazelcast.FencedCallable;
 import com.iyzico.challenge.integrator.service.hazelcast.LockService;
+import com.iyzico.challenge.integrator.service.hazelcast.exception.StaleLockTokenException;
 import mockit.Deencapsulation;
 import mockit.Injectable;
 import mockit.Mock;
@@ -19,12 +26,24 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
 
+import javax.persistence.EntityManager;
 import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.Callable;
 import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 @RunWith(JMockit.class)
 public class ProductServiceTest {
@@ -35,14 +54,31 @@ public class ProductServiceTest {
     @Injectable
     private ProductRepository repository;
 
+    @Injectable
+    private LongTextRepository longTextRepository;
+
+    @Injectable
+    private ApplicationEventPublisher eventPublisher;
+
+    @Injectable
+    private EntityManager entityManager;
+
     private LockService lockService;
 
+    private OptimisticRetryService retryService;
+
     private ThreadLocal<Lock> threadLocal = new ThreadLocal<>();
 
     @Before
     public void setup() {
         lockService = createMockLockService();
-        tested = new ProductService(repository, lockService);
+        retryService = new MockUp<OptimisticRetryService>() {
+            @Mock
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        }.getMockInstance();
+        tested = new ProductService(repository, longTextRepository, lockService, retryService, eventPublisher, entityManager);
     }
 
     @Test(expected = ProductNotFoundException.class)
@@ -73,32 +109,6 @@ public class ProductServiceTest {
         Assert.assertEquals(product, result);
     }
 
-    @Test
-    public void getAllItems() {
-        Iterable<Product> products = Collections.unmodifiableList(Collections.emptyList());
-        new StrictExpectations() {{
-            repository.findAll();
-            result = products;
-        }};
-
-        Iterable<Product> result = tested.getAllItems();
-        Assert.assertNotNull(result);
-        Assert.assertEquals(products, result);
-    }
-
-    @Test
-    public void getAllUnpublishedItems() {
-        Iterable<Product> products = Collections.unmodifiableList(Collections.emptyList());
-        new StrictExpectations() {{
-            repository.findAllByStatus(Product.Status.UNPUBLISHED);
-            result = products;
-        }};
-
-        Iterable<Product> result = tested.getAllUnpublishedItems();
-        Assert.assertNotNull(result);
-        Assert.assertEquals(products, result);
-    }
-
     @Test(expected = ProductNotFoundException.class)
     public void getPublishedItem_ProductNotFoundException() {
         long productId = 1;
@@ -160,6 +170,144 @@ public class ProductServiceTest {
         Assert.assertEquals(products, result);
     }
 
+    @Test
+    public void getByBarcode() {
+        Product product = new Product();
+        new StrictExpectations() {{
+            repository.findByBarcode("barcode");
+            result = Optional.of(product);
+        }};
+
+        Assert.assertEquals(product, tested.getByBarcode("barcode"));
+    }
+
+    @Test(expected = ProductNotFoundException.class)
+    public void getByBarcode_ProductNotFoundException() {
+        new StrictExpectations() {{
+            repository.findByBarcode("barcode");
+            result = Optional.empty();
+        }};
+
+        tested.getByBarcode("barcode");
+    }
+
+    @Test
+    public void streamAllBarcodes() {
+        Stream<ProductBarcode> barcodes = Stream.empty();
+        new StrictExpectations() {{
+            repository.streamAllBarcodes();
+            result = barcodes;
+        }};
+
+        Assert.assertEquals(barcodes, tested.streamAllBarcodes());
+    }
+
+    @Test
+    public void getByIds() {
+        List<Long> productIds = Arrays.asList(1L, 2L);
+        List<Product> products = Collections.emptyList();
+        new StrictExpectations() {{
+            repository.findAllById(productIds);
+            result = products;
+        }};
+
+        Assert.assertEquals(products, tested.getByIds(productIds));
+    }
+
+    @Test
+    public void streamAllItems(@Mocked Product product) {
+        new StrictExpectations() {{
+            repository.streamAll();
+            result = Stream.of(product);
+
+            entityManager.detach(product);
+        }};
+
+        try (Stream<Product> products = tested.streamAllItems()) {
+            Assert.assertEquals(Collections.singletonList(product), products.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void streamAllUnpublishedItems(@Mocked Product product) {
+        new StrictExpectations() {{
+            repository.streamAllByStatus(Product.Status.UNPUBLISHED);
+            result = Stream.of(product);
+
+            entityManager.detach(product);
+        }};
+
+        try (Stream<Product> products = tested.streamAllUnpublishedItems()) {
+            Assert.assertEquals(Collections.singletonList(product), products.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void getDescriptions() {
+        LongText first = new LongText();
+        first.setRecordId("1");
+        first.setContent("first");
+        LongText second = new LongText();
+        second.setRecordId("2");
+        second.setContent("second");
+        new StrictExpectations() {{
+            longTextRepository.findAllByRecordIds(Product.TABLE_NAME, Product.DESCRIPTION_COLUMN_NAME, Arrays.asList("1", "2", "3"));
+            result = Arrays.asList(first, second);
+            times = 1;
+        }};
+
+        Map<Long, String> result = tested.getDescriptions(Arrays.asList(1L, 2L, 3L, 1L));
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("first", result.get(1L));
+        Assert.assertEquals("second", result.get(2L));
+        Assert.assertNull(result.get(3L));
+    }
+
+    @Test
+    public void getDescriptions_OneQueryPerBatch() {
+        List<Long> productIds = LongStream.rangeClosed(1, ProductService.DESCRIPTION_BATCH_SIZE + 1)
+                .boxed()
+                .collect(Collectors.toList());
+        List<String> firstBatch = productIds.subList(0, ProductService.DESCRIPTION_BATCH_SIZE)
+                .stream()
+                .map(String::valueOf)
+                .collect(Collectors.toList());
+        new StrictExpectations() {{
+            longTextRepository.findAllByRecordIds(Product.TABLE_NAME, Product.DESCRIPTION_COLUMN_NAME, firstBatch);
+            result = Collections.emptyList();
+
+            longTextRepository.findAllByRecordIds(Product.TABLE_NAME, Product.DESCRIPTION_COLUMN_NAME, Collections.singletonList(String.valueOf(ProductService.DESCRIPTION_BATCH_SIZE + 1)));
+            result = Collections.emptyList();
+        }};
+
+        Assert.assertTrue(tested.getDescriptions(productIds).isEmpty());
+    }
+
+    @Test
+    public void getPublishedItems_ById() {
+        List<Product> products = Collections.emptyList();
+        new StrictExpectations() {{
+            repository.findPageOrderById(5L, Arrays.asList(Product.Status.IN_STOCK, Product.Status.OUT_OF_STOCK),
+                    BigDecimal.ZERO, BigDecimal.TEN.pow(24), PageRequest.of(0, 11));
+            result = products;
+        }};
+
+        Assert.assertEquals(products, tested.getPublishedItems(ProductSort.ID, 5, "", null, null, null, 11));
+    }
+
+    @Test
+    public void getPublishedItems_ByName() {
+        List<Product> products = Collections.emptyList();
+        new StrictExpectations() {{
+            repository.findPageOrderByName("name", 5L, Collections.singleton(Product.Status.IN_STOCK),
+                    BigDecimal.ONE, BigDecimal.TEN, PageRequest.of(0, 11));
+            result = products;
+        }};
+
+        Assert.assertEquals(products, tested.getPublishedItems(ProductSort.NAME, 5, "name", Product.Status.IN_STOCK,
+                BigDecimal.ONE, BigDecimal.TEN, 11));
+    }
+
     @Test
     public void create_WithoutDescription(@Mocked User user) {
         String barcode = "barcode";
@@ -229,8 +377,76 @@ public class ProductServiceTest {
         Assert.assertEquals(description, result.getDescription().getContent());
     }
 
+    @Test(expected = BarcodeTakenByAnotherProductException.class)
+    public void create_BarcodeTaken(@Mocked User user) {
+        new StrictExpectations() {{
+            repository.existsByBarcode("barcode");
+            result = true;
+        }};
+
+        tested.create(user, "barcode", "name", 10, BigDecimal.TEN, null);
+    }
+
+    @Test(expected = BarcodeTakenByAnotherProductException.class)
+    public void create_BarcodeTakenConcurrently(@Mocked User user) {
+        new StrictExpectations() {{
+            repository.existsByBarcode("barcode");
+            result = false;
+
+            repository.saveAndFlush((Product) any);
+            result = new DataIntegrityViolationException("could not execute statement",
+                    new SQLException("Duplicate entry 'barcode' for key 'uk_product___barcode'"));
+        }};
+
+        tested.create(user, "barcode", "name", 10, BigDecimal.TEN, null);
+    }
+
+    @Test(expected = DataIntegrityViolationException.class)
+    public void create_OtherIntegrityViolation(@Mocked User user) {
+        new StrictExpectations() {{
+            repository.existsByBarcode("barcode");
+            result = false;
+
+            repository.saveAndFlush((Product) any);
+            result = new DataIntegrityViolationException("could not execute statement",
+                    new SQLException("Column 'name' cannot be null"));
+        }};
+
+        tested.create(user, "barcode", "name", 10, BigDecimal.TEN, null);
+    }
+
+    @Test(expected = BarcodeTakenByAnotherProductException.class)
+    public void update_BarcodeTakenConcurrently() {
+        Product product = new Product();
+        product.setStatus(Product.Status.IN_STOCK);
+
+        new StrictExpectations(tested) {{
+            repository.existsByBarcodeAndIdNot("barcode", 1L);
+            result = false;
+
+            tested.getById(1L);
+            result = product;
+
+            repository.saveAndFlush(product);
+            result = new DataIntegrityViolationException("could not execute statement",
+                    new SQLException("Unique index or primary key violation: \"UK_PRODUCT___BARCODE_INDEX_1 ON PUBLIC.PRODUCT(BARCODE)\""));
+        }};
+
+        tested.update(1, "barcode", "name", 10, BigDecimal.TEN, null);
+    }
+
+    @Test(expected = BarcodeTakenByAnotherProductException.class)
+    public void update_BarcodeTaken() {
+        new StrictExpectations() {{
+            repository.existsByBarcodeAndIdNot("barcode", 1L);
+            result = true;
+        }};
+
+        tested.update(1, "barcode", "name", 10, BigDecimal.TEN, null);
+    }
+
     @Test
-    public void update(@Mocked Lock lock) {
+    public void update() {
         long id = 1;
 
         String barcode = "barcode";
@@ -242,15 +458,17 @@ public class ProductServiceTest {
         Product product = new Product();
         product.setStatus(Product.Status.IN_STOCK);
 
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
         new StrictExpectations(tested) {{
-            lockService.executeInProductLock(id, withInstanceLike(callable));
+            repository.existsByBarcodeAndIdNot(barcode, id);
+            result = false;
 
             tested.getById(id);
             result = product;
 
-            lock.unlock();
+            repository.saveAndFlush(product);
+            result = product;
+
+            eventPublisher.publishEvent(withInstanceOf(ProductChangedEvent.class));
         }};
 
         Product result = tested.update(id, barcode, name, stockCount, price, description);
@@ -274,16 +492,21 @@ public class ProductServiceTest {
         product.setStatus(Product.Status.IN_STOCK);
         product.setStockCount(10);
 
-        Callable<Basket> callable = () -> null;
+        FencedCallable<Product> callable = token -> null;
         threadLocal.set(lock);
         new StrictExpectations(tested) {{
             lockService.executeInProductLock(id, withInstanceLike(callable));
 
+            repository.fence(Collections.singleton(id), 1L);
+            result = 1;
+
             tested.getById(id);
             result = product;
 
             product.setStatus(Product.Status.IN_STOCK);
 
+            eventPublisher.publishEvent(withInstanceOf(ProductChangedEvent.class));
+
             repository.save(product);
             result = product;
 
@@ -304,16 +527,21 @@ public class ProductServiceTest {
             result = 10;
         }};
 
-        Callable<Basket> callable = () -> null;
+        FencedCallable<Product> callable = token -> null;
         threadLocal.set(lock);
         new StrictExpectations(tested) {{
             lockService.executeInProductLock(id, withInstanceLike(callable));
 
+            repository.fence(Collections.singleton(id), 1L);
+            result = 1;
+
             tested.getById(id);
             result = product;
 
             product.setStatus(Product.Status.UNPUBLISHED);
 
+            eventPublisher.publishEvent(withInstanceOf(ProductChangedEvent.class));
+
             repository.save(product);
             result = product;
 
@@ -323,12 +551,50 @@ public class ProductServiceTest {
         tested.unpublish(id);
     }
 
+    @Test(expected = StaleLockTokenException.class)
+    public void publish_StaleLockToken(@Mocked Lock lock) {
+        long id = 1;
+
+        FencedCallable<Product> callable = token -> null;
+        threadLocal.set(lock);
+        new StrictExpectations(tested) {{
+            lockService.executeInProductLock(id, withInstanceLike(callable));
+
+            repository.fence(Collections.singleton(id), 1L);
+            result = 0;
+
+            lock.unlock();
+        }};
+
+        tested.publish(id);
+    }
+
+    @Test
+    public void fence() {
+        new StrictExpectations() {{
+            repository.fence(new HashSet<>(Arrays.asList(1L, 2L)), 5L);
+            result = 2;
+        }};
+
+        tested.fence(Arrays.asList(1L, 2L, 1L), 5L);
+    }
+
+    @Test(expected = StaleLockTokenException.class)
+    public void fence_StaleLockToken() {
+        new StrictExpectations() {{
+            repository.fence(new HashSet<>(Arrays.asList(1L, 2L)), 5L);
+            result = 1;
+        }};
+
+        tested.fence(Arrays.asList(1L, 2L), 5L);
+    }
+
     private LockService createMockLockService() {
         return new MockUp<LockService>() {
             @Mock
-            public <T> T executeInProductLock(long productId, Callable<T> callable) {
+            public <T> T executeInProductLock(long productId, FencedCallable<T> callable) {
                 try {
-                    return callable.call();
+                    return callable.call(1L);
                 } catch (RuntimeException e) {
                     throw e;
                 } catch (Exception e) {
@@ -0,0 +1,139 @@
+package com.iyzico.challenge.integrator.data.service;
+
+import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.properties.LoginProperties;
+import mockit.Deencapsulation;
+import mockit.Delegate;
+import mockit.Injectable;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+@RunWith(JMockit.class)
+public class UserLoginWriterTest {
+    private UserLoginWriter tested;
+
+    @Injectable
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Injectable
+    private PlatformTransactionManager manager;
+
+    private LoginProperties properties = new LoginProperties();
+
+    @Before
+    public void setup() {
+        tested = new UserLoginWriter(jdbcTemplate, properties, manager);
+        TransactionTemplate requireNewTransactionTemplate = new MockUp<TransactionTemplate>() {
+            @Mock
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        }.getMockInstance();
+
+        Deencapsulation.setField(tested, requireNewTransactionTemplate);
+    }
+
+    @Test
+    public void transaction_template() {
+        UserLoginWriter tested = new UserLoginWriter(jdbcTemplate, properties, manager);
+        TransactionTemplate requireNewTransactionTemplate = Deencapsulation.getField(tested, "requireNewTransactionTemplate");
+        Assert.assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, requireNewTransactionTemplate.getPropagationBehavior());
+    }
+
+    @Test
+    public void flush() {
+        LocalDateTime first = LocalDateTime.now();
+        LocalDateTime second = first.plusSeconds(1);
+        tested.loggedIn(1L, first, "first");
+        tested.loggedIn(1L, second, "second");
+        tested.loggedIn(2L, first, "other");
+        tested.passwordRehashed(1L, "password", "hash");
+        Assert.assertEquals(3, tested.getPendingCount());
+
+        new StrictExpectations() {{
+            jdbcTemplate.batchUpdate(withPrefix("update users set last_login_date"), with(new Delegate<SqlParameterSource[]>() {
+                public boolean matches(SqlParameterSource[] parameters) {
+                    for (SqlParameterSource parameter : parameters) {
+                        if (Long.valueOf(1L).equals(parameter.getValue("id"))) {
+                            return parameters.length == 2 &&
+                                    second.equals(parameter.getValue("lastLoginDate")) &&
+                                    "second".equals(parameter.getValue("lastSessionKey"));
+                        }
+                    }
+                    return false;
+                }
+            }));
+
+            jdbcTemplate.batchUpdate(withPrefix("update users set password"), with(new Delegate<SqlParameterSource[]>() {
+                public boolean matches(SqlParameterSource[] parameters) {
+                    return parameters.length == 1 &&
+                            "hash".equals(parameters[0].getValue("password")) &&
+                            "password".equals(parameters[0].getValue("previousPassword"));
+                }
+            }));
+        }};
+
+        tested.flush();
+        Assert.assertEquals(0, tested.getPendingCount());
+
+        tested.flush();
+    }
+
+    @Test
+    public void flush_Failed() {
+        LocalDateTime first = LocalDateTime.now();
+        LocalDateTime second = first.plusSeconds(1);
+        tested.loggedIn(1L, first, "first");
+
+        new StrictExpectations() {{
+            jdbcTemplate.batchUpdate(withPrefix("update users set last_login_date"), (SqlParameterSource[]) any);
+            result = new QueryTimeoutException("test");
+        }};
+
+        tested.flush();
+        Assert.assertEquals(1, tested.getPendingCount());
+
+        User user = new User();
+        user.setId(1L);
+        tested.apply(user);
+        Assert.assertEquals(first, user.getLastLoginDate());
+
+        tested.loggedIn(1L, second, "second");
+        tested.apply(user);
+        Assert.assertEquals(second, user.getLastLoginDate());
+        Assert.assertEquals(1, tested.getPendingCount());
+    }
+
+    @Test
+    public void apply() {
+        LocalDateTime now = LocalDateTime.now();
+        tested.loggedIn(1L, now, "sessionKey");
+
+        User user = new User();
+        user.setId(1L);
+        tested.apply(user);
+        Assert.assertEquals(now, user.getLastLoginDate());
+        Assert.assertEquals("sessionKey", user.getLastSessionKey());
+
+        User other = new User();
+        other.setId(2L);
+        tested.apply(other);
+        Assert.assertNull(other.getLastLoginDate());
+        Assert.assertNull(other.getLastSessionKey());
+    }
+}
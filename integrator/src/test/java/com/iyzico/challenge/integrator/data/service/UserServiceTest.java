@@ -2,11 +2,13 @@ package com.iyzico.challenge.integrator.data.service;
 
 import com.iyzico.challenge.integrator.data.entity.User;
 import com.iyzico.challenge.integrator.data.entity.UserProfile;
+import com.iyzico.challenge.integrator.data.event.UserChangedEvent;
 import com.iyzico.challenge.integrator.data.repository.UserProfileRepository;
 import com.iyzico.challenge.integrator.data.repository.UserRepository;
 import com.iyzico.challenge.integrator.dto.user.request.CreateUserRequest;
 import com.iyzico.challenge.integrator.exception.UserNotFoundException;
 import com.iyzico.challenge.integrator.exception.UserProfileNotFoundException;
+import com.iyzico.challenge.integrator.service.PasswordHasher;
 import mockit.Deencapsulation;
 import mockit.Injectable;
 import mockit.Mock;
@@ -18,6 +20,7 @@ import mockit.integration.junit4.JMockit;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -34,6 +37,15 @@ public class UserServiceTest {
     @Injectable
     private UserProfileRepository profileRepository;
 
+    @Injectable
+    private ApplicationEventPublisher eventPublisher;
+
+    @Injectable
+    private PasswordHasher passwordHasher;
+
+    @Injectable
+    private UserLoginWriter loginWriter;
+
     @Test(expected = UserNotFoundException.class)
     public void getById_ProductNotFoundException() {
         long id = 1;
@@ -156,10 +168,15 @@ public class UserServiceTest {
 
 
         new StrictExpectations(LocalDateTime.class) {{
+            passwordHasher.hash("password");
+            result = "hashed";
+
             LocalDateTime.now();
             result = now;
 
             repository.save(withInstanceOf(User.class));
+
+            eventPublisher.publishEvent(withInstanceOf(UserChangedEvent.class));
         }};
 
         Deencapsulation.setField(tested, repository);
@@ -167,7 +184,7 @@ public class UserServiceTest {
         User result = tested.createUser(request);
         Assert.assertNotNull(result);
         Assert.assertEquals(request.getUsername(), result.getUsername());
-        Assert.assertEquals(request.getPassword(), result.getPassword());
+        Assert.assertEquals("hashed", result.getPassword());
         Assert.assertTrue(result.isActive());
         Assert.assertTrue(result.isAdmin());
         Assert.assertNull(result.getLastSessionKey());
@@ -207,6 +224,8 @@ public class UserServiceTest {
             user.setAdmin(admin);
 
             repository.save(user);
+
+            eventPublisher.publishEvent(withInstanceOf(UserChangedEvent.class));
         }};
 
         Deencapsulation.setField(tested, repository);
@@ -234,9 +253,15 @@ public class UserServiceTest {
             result = user;
 
             user.setAdmin(admin);
-            user.setPassword(password);
+
+            passwordHasher.hash(password);
+            result = "hashed";
+
+            user.setPassword("hashed");
 
             repository.save(user);
+
+            eventPublisher.publishEvent(withInstanceOf(UserChangedEvent.class));
         }};
 
         Deencapsulation.setField(tested, repository);
@@ -256,6 +281,8 @@ public class UserServiceTest {
             user.setActive(false);
 
             repository.save(user);
+
+            eventPublisher.publishEvent(withInstanceOf(UserChangedEvent.class));
         }};
         tested.inactivate(id);
     }
@@ -265,15 +292,16 @@ public class UserServiceTest {
         String sessionKey = "sessionKey";
 
         LocalDateTime now = LocalDateTime.now();
-        new StrictExpectations(LocalDateTime.class) {{
-            LocalDateTime.now();
-            result = now;
-
+        new StrictExpectations() {{
             user.setLastLoginDate(now);
             user.setLastSessionKey(sessionKey);
-            repository.save(user);
+
+            user.getId();
+            result = 1L;
+
+            loginWriter.loggedIn(1L, now, sessionKey);
         }};
 
-        tested.markAsLoggedIn(user, sessionKey);
+        tested.markAsLoggedIn(user, sessionKey, now);
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.iyzico.challenge.integrator.mapper;
 import com.iyzico.challenge.integrator.data.entity.LongText;
 import com.iyzico.challenge.integrator.data.entity.Product;
 import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.dto.product.StockLevelDto;
 import mockit.Tested;
 import mockit.integration.junit4.JMockit;
 import org.apache.commons.lang3.StringUtils;
@@ -11,6 +12,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -51,6 +53,19 @@ public class ProductMapperTest {
         Assert.assertNull(resultProduct.getDescription());
     }
 
+    @Test
+    public void map_iterableWithDescriptions() {
+        Product first = createProduct(1, "first", "barcode1", 10, BigDecimal.ONE, null);
+        Product second = createProduct(2, "second", "barcode2", 10, BigDecimal.ONE, null);
+
+        List<ProductDto> result = tested.map(Arrays.asList(first, second), Collections.singletonMap(1L, "description"));
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals(1, result.get(0).getId());
+        Assert.assertEquals("description", result.get(0).getDescription());
+        Assert.assertEquals(2, result.get(1).getId());
+        Assert.assertNull(result.get(1).getDescription());
+    }
+
     @Test
     public void mapWithDescription() {
 
@@ -66,6 +81,16 @@ public class ProductMapperTest {
         Assert.assertEquals(product.getDescription().getContent(), result.getDescription());
     }
 
+    @Test
+    public void mapStockLevel() {
+        Product product = createProduct(1, "name", "barcode", 10, BigDecimal.ONE, null);
+
+        StockLevelDto result = tested.mapStockLevel(product);
+        Assert.assertEquals(1, result.getId());
+        Assert.assertEquals(10, result.getStockCount());
+        Assert.assertEquals(ProductDto.Status.IN_STOCK, result.getStatus());
+    }
+
     private Product createProduct(long id, String name, String barcode, long stockCount, BigDecimal price, String description) {
         Product product = new Product();
         product.setId(id);
@@ -1,27 +1,84 @@
 package com.iyzico.challenge.integrator.service;
 
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
 import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.event.UserChangedEvent;
+import com.iyzico.challenge.integrator.data.service.UserLoginWriter;
 import com.iyzico.challenge.integrator.data.service.UserService;
 import com.iyzico.challenge.integrator.exception.UserNotFoundException;
 import com.iyzico.challenge.integrator.exception.auth.InvalidCredentialsException;
+import com.iyzico.challenge.integrator.properties.LoginProperties;
+import mockit.Deencapsulation;
 import mockit.Injectable;
+import mockit.Mock;
+import mockit.MockUp;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
 import mockit.StrictExpectations;
-import mockit.Tested;
 import mockit.integration.junit4.JMockit;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RunWith(JMockit.class)
 public class AuthServiceTest {
-    @Tested
     private AuthService tested;
 
     @Injectable
     private UserService userService;
 
+    @Injectable
+    private PasswordHasher passwordHasher;
+
+    @Injectable
+    private UserLoginWriter loginWriter;
+
+    @Injectable
+    private PlatformTransactionManager transactionManager;
+
+    @Injectable
+    private ITopic<String> userChangedTopic;
+
+    private LoginProperties properties = new LoginProperties();
+
+    private AtomicLong clock = new AtomicLong();
+
+    @Before
+    public void setup() {
+        tested = new AuthService(userService, passwordHasher, loginWriter, properties, transactionManager, userChangedTopic, clock::get);
+        TransactionTemplate readTransactionTemplate = new MockUp<TransactionTemplate>() {
+            @Mock
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        }.getMockInstance();
+
+        Deencapsulation.setField(tested, "readTransactionTemplate", readTransactionTemplate);
+    }
+
+    @Test
+    public void transaction_template(@Mocked PlatformTransactionManager manager, @Mocked HazelcastInstance hazelcast) {
+        new NonStrictExpectations() {{
+            hazelcast.getTopic("integrator.user.changed");
+            result = userChangedTopic;
+        }};
+
+        AuthService tested = new AuthService(userService, passwordHasher, loginWriter, properties, manager, hazelcast);
+        TransactionTemplate readTransactionTemplate = Deencapsulation.getField(tested, "readTransactionTemplate");
+        Assert.assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, readTransactionTemplate.getPropagationBehavior());
+        Assert.assertTrue(readTransactionTemplate.isReadOnly());
+    }
+
     @Test(expected = InvalidCredentialsException.class)
     public void getUser_nullValueFromQuery() {
         String username = "username";
@@ -46,18 +103,97 @@ public class AuthServiceTest {
         tested.getUser(username, password);
     }
 
+    @Test
+    public void getUser_UnknownUsernameCached() {
+        String username = "username";
+        String password = "password";
+        new StrictExpectations() {{
+            userService.getUserByUsername(username);
+            result = new UserNotFoundException("test");
+            times = 1;
+        }};
+
+        assertInvalidCredentials(username, password);
+        assertInvalidCredentials(username, password);
+    }
+
+    @Test
+    public void getUser_UnknownUsernameExpired() {
+        String username = "username";
+        String password = "password";
+        new StrictExpectations() {{
+            userService.getUserByUsername(username);
+            result = new UserNotFoundException("test");
+            times = 2;
+        }};
+
+        assertInvalidCredentials(username, password);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(properties.getNegativeCacheSeconds()));
+        assertInvalidCredentials(username, password);
+    }
+
+    @Test
+    public void onUserChanged() {
+        User user = new User();
+        user.setUsername("username");
+
+        new StrictExpectations() {{
+            userChangedTopic.publish("username");
+        }};
+
+        tested.onUserChanged(new UserChangedEvent(user));
+    }
+
+    @Test
+    public void onMessage(@Mocked Message<String> message) {
+        String username = "username";
+        String password = "password";
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(password);
+
+        new StrictExpectations() {{
+            userService.getUserByUsername(username);
+            result = new UserNotFoundException("test");
+
+            message.getMessageObject();
+            result = username;
+
+            userService.getUserByUsername(username);
+            result = user;
+
+            passwordHasher.matches(password, password);
+            result = true;
+
+            passwordHasher.needsRehash(password);
+            result = false;
+
+            loginWriter.apply(user);
+        }};
+
+        assertInvalidCredentials(username, password);
+        tested.onMessage(message);
+        Assert.assertSame(user, tested.getUser(username, password));
+    }
+
     @Test(expected = InvalidCredentialsException.class)
     public void getUser_InvalidPassword(@Mocked User user) {
         String username = "username";
         String password = "password";
         new NonStrictExpectations() {{
             user.getPassword();
-            result = password + password;
+            result = "hash";
+
+            user.isActive();
+            result = true;
         }};
 
         new StrictExpectations() {{
             userService.getUserByUsername(username);
             result = user;
+
+            passwordHasher.matches(password, "hash");
+            result = false;
         }};
 
         tested.getUser(username, password);
@@ -69,7 +205,7 @@ public class AuthServiceTest {
         String password = "password";
         new NonStrictExpectations() {{
             user.getPassword();
-            result = password;
+            result = "hash";
 
             user.isActive();
             result = false;
@@ -89,7 +225,7 @@ public class AuthServiceTest {
         String password = "password";
         new NonStrictExpectations() {{
             user.getPassword();
-            result = password;
+            result = "hash";
 
             user.isActive();
             result = true;
@@ -98,6 +234,14 @@ public class AuthServiceTest {
         new StrictExpectations() {{
             userService.getUserByUsername(username);
             result = user;
+
+            passwordHasher.matches(password, "hash");
+            result = true;
+
+            passwordHasher.needsRehash("hash");
+            result = false;
+
+            loginWriter.apply(user);
         }};
 
         User result = tested.getUser(username, password);
@@ -106,12 +250,46 @@ public class AuthServiceTest {
     }
 
     @Test
-    public void markAsLoggedIn(@Mocked User user) {
-        String lastSessionKey = "lastSessionKey";
+    public void getUser_Rehash(@Mocked User user) {
+        String username = "username";
+        String password = "password";
+        new NonStrictExpectations() {{
+            user.getId();
+            result = 1L;
+
+            user.getPassword();
+            result = password;
+
+            user.isActive();
+            result = true;
+        }};
+
         new StrictExpectations() {{
-            userService.markAsLoggedIn(user, lastSessionKey);
+            userService.getUserByUsername(username);
+            result = user;
+
+            passwordHasher.matches(password, password);
+            result = true;
+
+            passwordHasher.needsRehash(password);
+            result = true;
+
+            passwordHasher.hash(password);
+            result = "hash";
+
+            loginWriter.passwordRehashed(1L, password, "hash");
+
+            loginWriter.apply(user);
         }};
 
-        tested.markAsLoggedIn(user, lastSessionKey);
+        Assert.assertEquals(user, tested.getUser(username, password));
+    }
+
+    private void assertInvalidCredentials(String username, String password) {
+        try {
+            tested.getUser(username, password);
+            Assert.fail("InvalidCredentialsException expected");
+        } catch (InvalidCredentialsException ignored) {
+        }
     }
-}
\ No newline at end of file
+}
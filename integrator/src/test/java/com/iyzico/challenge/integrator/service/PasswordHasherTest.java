@@ -0,0 +1,89 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.iyzico.challenge.integrator.exception.auth.LoginUnavailableException;
+import com.iyzico.challenge.integrator.properties.LoginProperties;
+import mockit.Deencapsulation;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+public class PasswordHasherTest {
+    private PasswordHasher tested;
+
+    private LoginProperties properties = new LoginProperties();
+
+    @Before
+    public void setup() {
+        properties.setHashThreads(1);
+        properties.setHashQueueSize(1);
+        properties.setHashIterations(1000);
+        tested = new PasswordHasher(properties);
+        tested.start();
+    }
+
+    @After
+    public void tearDown() {
+        tested.stop();
+    }
+
+    @Test
+    public void hash() {
+        String hash = tested.hash("password");
+        Assert.assertTrue(hash, hash.startsWith(PasswordHasher.PREFIX + "1000$"));
+        Assert.assertNotEquals(hash, tested.hash("password"));
+        Assert.assertTrue(tested.matches("password", hash));
+        Assert.assertFalse(tested.matches("Password", hash));
+        Assert.assertFalse(tested.needsRehash(hash));
+    }
+
+    @Test
+    public void matches_Legacy() {
+        Assert.assertTrue(tested.matches("password", "password"));
+        Assert.assertFalse(tested.matches("password", "password2"));
+        Assert.assertFalse(tested.matches(null, "password"));
+        Assert.assertFalse(tested.matches("password", null));
+        Assert.assertTrue(tested.needsRehash("password"));
+    }
+
+    @Test
+    public void matches_Malformed() {
+        Assert.assertFalse(tested.matches("password", PasswordHasher.PREFIX + "1000$salt"));
+        Assert.assertFalse(tested.matches("password", PasswordHasher.PREFIX + "x$c2FsdA$aGFzaA"));
+    }
+
+    @Test
+    public void needsRehash_IterationsChanged() {
+        String hash = tested.hash("password");
+        properties.setHashIterations(2000);
+
+        Assert.assertTrue(tested.needsRehash(hash));
+        Assert.assertTrue(tested.matches("password", hash));
+    }
+
+    @Test(expected = LoginUnavailableException.class)
+    public void hash_PoolFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ThreadPoolExecutor executor = Deencapsulation.getField(tested, "executor");
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        started.await();
+        executor.execute(() -> {
+        });
+
+        try {
+            tested.hash("password");
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -13,6 +13,7 @@ import com.iyzico.challenge.integrator.exception.InvalidInstallmentCountExceptio
 import com.iyzico.challenge.integrator.exception.PaymentException;
 import com.iyzico.challenge.integrator.properties.IyzicoProperties;
 import com.iyzico.challenge.integrator.service.hazelcast.BLock;
+import com.iyzico.challenge.integrator.service.hazelcast.FencedCallable;
 import com.iyzico.challenge.integrator.service.hazelcast.LockService;
 import com.iyzipay.Options;
 import com.iyzipay.model.Address;
@@ -49,7 +50,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -107,14 +107,11 @@ public class PaymentManagerTest {
 
     @Test(expected = PaymentException.class)
     public void getInstallments_ErrorFromServer(@Mocked User user,
-                                                @Mocked Basket basket,
-                                                @Mocked Lock lock) {
+                                                @Mocked Basket basket) {
         long basketId = 1;
         BigDecimal basketTotal = BigDecimal.TEN;
         String digits = "123456";
 
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
         AtomicBoolean called = new AtomicBoolean(false);
 
         AtomicReference<InstallmentInfo> info = new AtomicReference<>();
@@ -145,8 +142,6 @@ public class PaymentManagerTest {
         }};
 
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             basketService.getUserBasket(user);
             result = basket;
 
@@ -154,8 +149,6 @@ public class PaymentManagerTest {
             result = basketTotal;
 
             InstallmentInfo.retrieve(withInstanceOf(RetrieveInstallmentInfoRequest.class), options);
-
-            lock.unlock();
         }};
 
         try {
@@ -168,14 +161,11 @@ public class PaymentManagerTest {
 
     @Test(expected = PaymentException.class)
     public void getInstallments_NoAvailableInstallment(@Mocked User user,
-                                                       @Mocked Basket basket,
-                                                       @Mocked Lock lock) {
+                                                       @Mocked Basket basket) {
         long basketId = 1;
         BigDecimal basketTotal = BigDecimal.TEN;
         String digits = "123456";
 
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
         AtomicBoolean called = new AtomicBoolean(false);
 
         AtomicReference<InstallmentInfo> info = new AtomicReference<>();
@@ -206,8 +196,6 @@ public class PaymentManagerTest {
         }};
 
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             basketService.getUserBasket(user);
             result = basket;
 
@@ -215,8 +203,6 @@ public class PaymentManagerTest {
             result = basketTotal;
 
             InstallmentInfo.retrieve(withInstanceOf(RetrieveInstallmentInfoRequest.class), options);
-
-            lock.unlock();
         }};
 
         try {
@@ -229,14 +215,11 @@ public class PaymentManagerTest {
 
     @Test
     public void getInstallments(@Mocked User user,
-                                @Mocked Basket basket,
-                                @Mocked Lock lock) {
+                                @Mocked Basket basket) {
         long basketId = 1;
         BigDecimal basketTotal = BigDecimal.TEN;
         String digits = "123456";
 
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
         AtomicBoolean called = new AtomicBoolean(false);
 
         InstallmentDetail installmentDetail = new InstallmentDetail();
@@ -268,8 +251,6 @@ public class PaymentManagerTest {
         }};
 
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             basketService.getUserBasket(user);
             result = basket;
 
@@ -277,8 +258,6 @@ public class PaymentManagerTest {
             result = basketTotal;
 
             InstallmentInfo.retrieve(withInstanceOf(RetrieveInstallmentInfoRequest.class), options);
-
-            lock.unlock();
         }};
 
         InstallmentDetail result = tested.getInstallments(user, digits);
@@ -288,8 +267,7 @@ public class PaymentManagerTest {
     }
 
     @Test(expected = Throwable.class)
-    public void pay_UnexpectedExceptionWhileGettingProfile(@Mocked User user,
-                                                           @Mocked Lock lock) {
+    public void pay_UnexpectedExceptionWhileGettingProfile(@Mocked User user) {
         String holderName = "holderName";
         String cardNumber = "cardNumber";
         YearMonth expire = YearMonth.now();
@@ -298,8 +276,6 @@ public class PaymentManagerTest {
         int installment = 1;
 
         long userProfileId = 1;
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
 
         new NonStrictExpectations() {{
             user.getUserProfileId();
@@ -307,23 +283,19 @@ public class PaymentManagerTest {
         }};
 
         new Expectations() {{
-            basketService.decreaseStocks(withInstanceOf(User.class), withInstanceOf(Basket.class));
+            basketService.decreaseStocks(withInstanceOf(User.class), withInstanceOf(Basket.class), anyLong);
             times = 0;
 
             paymentService.startPayment(withInstanceOf(User.class), withInstanceOf(Basket.class));
             times = 0;
 
-            basketService.rollbackStocks(withInstanceOf(User.class), withInstanceOf(Basket.class));
+            basketService.rollbackStocks(withInstanceOf(User.class), withInstanceOf(Basket.class), anyLong);
             times = 0;
         }};
 
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             userService.getProfileById(userProfileId);
             result = new Throwable();
-
-            lock.unlock();
         }};
 
         tested.pay(user, holderName, cardNumber, expire, cvc, ip, installment);
@@ -331,8 +303,7 @@ public class PaymentManagerTest {
 
     @Test(expected = Throwable.class)
     public void pay_UnexpectedExceptionWhileGettingBasket(@Mocked User user,
-                                                          @Mocked UserProfile profile,
-                                                          @Mocked Lock lock) {
+                                                          @Mocked UserProfile profile) {
         String holderName = "holderName";
         String cardNumber = "cardNumber";
         YearMonth expire = YearMonth.now();
@@ -341,8 +312,6 @@ public class PaymentManagerTest {
         int installment = 1;
 
         long userProfileId = 1;
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
 
         new NonStrictExpectations() {{
             user.getUserProfileId();
@@ -350,26 +319,22 @@ public class PaymentManagerTest {
         }};
 
         new Expectations() {{
-            basketService.decreaseStocks(withInstanceOf(User.class), withInstanceOf(Basket.class));
+            basketService.decreaseStocks(withInstanceOf(User.class), withInstanceOf(Basket.class), anyLong);
             times = 0;
 
             paymentService.startPayment(withInstanceOf(User.class), withInstanceOf(Basket.class));
             times = 0;
 
-            basketService.rollbackStocks(withInstanceOf(User.class), withInstanceOf(Basket.class));
+            basketService.rollbackStocks(withInstanceOf(User.class), withInstanceOf(Basket.class), anyLong);
             times = 0;
         }};
 
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             userService.getProfileById(userProfileId);
             result = profile;
 
             basketService.getUserBasket(user);
             result = new Throwable();
-
-            lock.unlock();
         }};
 
         tested.pay(user, holderName, cardNumber, expire, cvc, ip, installment);
@@ -378,8 +343,7 @@ public class PaymentManagerTest {
     @Test(expected = InvalidInstallmentCountException.class)
     public void pay_InvalidInstallmentCount(@Mocked User user,
                                             @Mocked UserProfile profile,
-                                            @Mocked Basket basket,
-                                            @Mocked Lock lock) {
+                                            @Mocked Basket basket) {
 
         String holderName = "holderName";
         String cardNumber = "cardNumber";
@@ -392,8 +356,6 @@ public class PaymentManagerTest {
         long basketId = 2;
         String digits = cardNumber.substring(0, 6);
         BigDecimal basketTotal = BigDecimal.TEN;
-        Callable<Basket> callable = () -> null;
-        threadLocal.set(lock);
 
         InstallmentDetail detail = new InstallmentDetail();
         detail.setInstallmentPrices(Collections.emptyList());
@@ -433,29 +395,22 @@ public class PaymentManagerTest {
         }};
 
         new Expectations() {{
-            basketService.decreaseStocks(withInstanceOf(User.class), withInstanceOf(Basket.class));
+            basketService.decreaseStocks(withInstanceOf(User.class), withInstanceOf(Basket.class), anyLong);
             times = 0;
 
             paymentService.startPayment(withInstanceOf(User.class), withInstanceOf(Basket.class));
             times = 0;
 
-            basketService.rollbackStocks(withInstanceOf(User.class), withInstanceOf(Basket.class));
+            basketService.rollbackStocks(withInstanceOf(User.class), withInstanceOf(Basket.class), anyLong);
             times = 0;
         }};
 
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             userService.getProfileById(userProfileId);
             result = profile;
 
             basketService.getUserBasket(user);
             result = basket;
-
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
-            lock.unlock();
-            times = 2;
         }};
 
         try {
@@ -482,7 +437,7 @@ public class PaymentManagerTest {
         long basketId = 2;
         String digits = cardNumber.substring(0, 6);
         BigDecimal basketTotal = BigDecimal.TEN;
-        Callable<Basket> callable = () -> null;
+        FencedCallable<Basket> callable = token -> null;
         threadLocal.set(lock);
 
         InstallmentDetail detail = new InstallmentDetail();
@@ -525,13 +480,11 @@ public class PaymentManagerTest {
             paymentService.startPayment(withInstanceOf(User.class), withInstanceOf(Basket.class));
             times = 0;
 
-            basketService.rollbackStocks(withInstanceOf(User.class), withInstanceOf(Basket.class));
+            basketService.rollbackStocks(withInstanceOf(User.class), withInstanceOf(Basket.class), anyLong);
             times = 0;
         }};
 
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             userService.getProfileById(userProfileId);
             result = profile;
 
@@ -540,9 +493,7 @@ public class PaymentManagerTest {
 
             lockService.executeInBasketLock(user, withInstanceLike(callable));
 
-            lock.unlock();
-
-            basketService.decreaseStocks(user, basket);
+            basketService.decreaseStocks(user, basket, 1L);
             result = new Throwable();
 
             lock.unlock();
@@ -572,7 +523,7 @@ public class PaymentManagerTest {
         long basketId = 2;
         String digits = cardNumber.substring(0, 6);
         BigDecimal basketTotal = BigDecimal.TEN;
-        Callable<Basket> callable = () -> null;
+        FencedCallable<Basket> callable = token -> null;
         threadLocal.set(lock);
 
         InstallmentDetail detail = new InstallmentDetail();
@@ -612,8 +563,6 @@ public class PaymentManagerTest {
         }};
 
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             userService.getProfileById(userProfileId);
             result = profile;
 
@@ -622,15 +571,17 @@ public class PaymentManagerTest {
 
             lockService.executeInBasketLock(user, withInstanceLike(callable));
 
-            lock.unlock();
-
-            basketService.decreaseStocks(user, basket);
+            basketService.decreaseStocks(user, basket, 1L);
             result = basket;
 
+            lock.unlock();
+
             paymentService.startPayment(user, basket);
             result = new Throwable();
 
-            basketService.rollbackStocks(user, basket);
+            lockService.executeInBasketLock(user, withInstanceLike(callable));
+
+            basketService.rollbackStocks(user, basket, 1L);
 
             lock.unlock();
         }};
@@ -659,7 +610,7 @@ public class PaymentManagerTest {
         long basketId = 2;
         String digits = cardNumber.substring(0, 6);
         BigDecimal basketTotal = BigDecimal.TEN;
-        Callable<Basket> callable = () -> null;
+        FencedCallable<Basket> callable = token -> null;
         threadLocal.set(lock);
 
         InstallmentDetail detail = new InstallmentDetail();
@@ -699,8 +650,6 @@ public class PaymentManagerTest {
         }};
 
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             userService.getProfileById(userProfileId);
             result = profile;
 
@@ -709,15 +658,17 @@ public class PaymentManagerTest {
 
             lockService.executeInBasketLock(user, withInstanceLike(callable));
 
-            lock.unlock();
-
-            basketService.decreaseStocks(user, basket);
+            basketService.decreaseStocks(user, basket, 1L);
             result = basket;
 
+            lock.unlock();
+
             paymentService.startPayment(user, basket);
             result = new Throwable();
 
-            basketService.rollbackStocks(user, basket);
+            lockService.executeInBasketLock(user, withInstanceLike(callable));
+
+            basketService.rollbackStocks(user, basket, 1L);
             result = new RuntimeException();
 
             lock.unlock();
@@ -750,7 +701,7 @@ public class PaymentManagerTest {
         long basketId = 2;
         String digits = cardNumber.substring(0, 6);
         BigDecimal basketTotal = BigDecimal.TEN;
-        Callable<Basket> callable = () -> null;
+        FencedCallable<Basket> callable = token -> null;
         threadLocal.set(lock);
 
         long productId = Long.MAX_VALUE - 3;
@@ -808,8 +759,6 @@ public class PaymentManagerTest {
 
         AtomicBoolean paymentCheckCalled = new AtomicBoolean(false);
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             userService.getProfileById(userProfileId);
             result = profile;
 
@@ -818,11 +767,11 @@ public class PaymentManagerTest {
 
             lockService.executeInBasketLock(user, withInstanceLike(callable));
 
-            lock.unlock();
-
-            basketService.decreaseStocks(user, basket);
+            basketService.decreaseStocks(user, basket, 1L);
             result = basket;
 
+            lock.unlock();
+
             paymentService.startPayment(user, basket);
             result = payment;
 
@@ -891,6 +840,10 @@ public class PaymentManagerTest {
 
             paymentService.markAsFailure(payment, anyString);
 
+            lockService.executeInBasketLock(user, withInstanceLike(callable));
+
+            basketService.rollbackStocks(user, basket, 1L);
+
             lock.unlock();
         }};
 
@@ -920,7 +873,7 @@ public class PaymentManagerTest {
 
         long basketId = 2;
         BigDecimal basketTotal = BigDecimal.TEN;
-        Callable<Basket> callable = () -> null;
+        FencedCallable<Basket> callable = token -> null;
         threadLocal.set(lock);
 
         long productId = Long.MAX_VALUE - 3;
@@ -978,8 +931,6 @@ public class PaymentManagerTest {
 
         AtomicBoolean paymentCheckCalled = new AtomicBoolean(false);
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             userService.getProfileById(userProfileId);
             result = profile;
 
@@ -988,11 +939,11 @@ public class PaymentManagerTest {
 
             lockService.executeInBasketLock(user, withInstanceLike(callable));
 
-            lock.unlock();
-
-            basketService.decreaseStocks(user, basket);
+            basketService.decreaseStocks(user, basket, 1L);
             result = basket;
 
+            lock.unlock();
+
             paymentService.startPayment(user, basket);
             result = payment;
 
@@ -1005,8 +956,6 @@ public class PaymentManagerTest {
             result = new RuntimeException();
 
             paymentService.markAsFailure(payment, anyString);
-
-            lock.unlock();
         }};
 
         try {
@@ -1035,7 +984,7 @@ public class PaymentManagerTest {
 
         long basketId = 2;
         BigDecimal basketTotal = BigDecimal.TEN;
-        Callable<Basket> callable = () -> null;
+        FencedCallable<Basket> callable = token -> null;
         threadLocal.set(lock);
 
         long productId = Long.MAX_VALUE - 3;
@@ -1093,8 +1042,6 @@ public class PaymentManagerTest {
 
         AtomicBoolean paymentCheckCalled = new AtomicBoolean(false);
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             userService.getProfileById(userProfileId);
             result = profile;
 
@@ -1103,11 +1050,11 @@ public class PaymentManagerTest {
 
             lockService.executeInBasketLock(user, withInstanceLike(callable));
 
-            lock.unlock();
-
-            basketService.decreaseStocks(user, basket);
+            basketService.decreaseStocks(user, basket, 1L);
             result = basket;
 
+            lock.unlock();
+
             paymentService.startPayment(user, basket);
             result = payment;
 
@@ -1121,8 +1068,6 @@ public class PaymentManagerTest {
 
             paymentService.markAsFailure(payment, anyString);
             result = new RuntimeException();
-
-            lock.unlock();
         }};
 
         try {
@@ -1151,7 +1096,7 @@ public class PaymentManagerTest {
 
         long basketId = 2;
         BigDecimal basketTotal = BigDecimal.TEN;
-        Callable<Basket> callable = () -> null;
+        FencedCallable<Basket> callable = token -> null;
         threadLocal.set(lock);
 
         long productId = Long.MAX_VALUE - 3;
@@ -1209,8 +1154,6 @@ public class PaymentManagerTest {
 
         AtomicBoolean paymentCheckCalled = new AtomicBoolean(false);
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             userService.getProfileById(userProfileId);
             result = profile;
 
@@ -1219,11 +1162,11 @@ public class PaymentManagerTest {
 
             lockService.executeInBasketLock(user, withInstanceLike(callable));
 
-            lock.unlock();
-
-            basketService.decreaseStocks(user, basket);
+            basketService.decreaseStocks(user, basket, 1L);
             result = basket;
 
+            lock.unlock();
+
             paymentService.startPayment(user, basket);
             result = payment;
 
@@ -1237,8 +1180,6 @@ public class PaymentManagerTest {
 
             paymentService.markAsSuccess(user, payment, basket, paymentResponse);
             result = new RuntimeException();
-
-            lock.unlock();
         }};
 
         try {
@@ -1267,7 +1208,7 @@ public class PaymentManagerTest {
 
         long basketId = 2;
         BigDecimal basketTotal = BigDecimal.TEN;
-        Callable<Basket> callable = () -> null;
+        FencedCallable<Basket> callable = token -> null;
         threadLocal.set(lock);
 
         long productId = Long.MAX_VALUE - 3;
@@ -1325,8 +1266,6 @@ public class PaymentManagerTest {
 
         AtomicBoolean paymentCheckCalled = new AtomicBoolean(false);
         new StrictExpectations() {{
-            lockService.executeInBasketLock(user, withInstanceLike(callable));
-
             userService.getProfileById(userProfileId);
             result = profile;
 
@@ -1335,11 +1274,11 @@ public class PaymentManagerTest {
 
             lockService.executeInBasketLock(user, withInstanceLike(callable));
 
-            lock.unlock();
-
-            basketService.decreaseStocks(user, basket);
+            basketService.decreaseStocks(user, basket, 1L);
             result = basket;
 
+            lock.unlock();
+
             paymentService.startPayment(user, basket);
             result = payment;
 
@@ -1352,8 +1291,6 @@ public class PaymentManagerTest {
             result = paymentResponse;
 
             paymentService.markAsSuccess(user, payment, basket, paymentResponse);
-
-            lock.unlock();
         }};
 
         Payment result = tested.pay(user, holderName, cardNumber, expire, cvc, ip, installment);
@@ -1398,9 +1335,9 @@ public class PaymentManagerTest {
             }
 
             @Mock
-            public <T> T executeInBasketLock(User user, Callable<T> callable) {
+            public <T> T executeInBasketLock(User user, FencedCallable<T> callable) {
                 try {
-                    return callable.call();
+                    return callable.call(1L);
                 } catch (RuntimeException e) {
                     throw e;
                 } catch (Exception e) {
@@ -0,0 +1,508 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IAtomicLong;
+import com.hazelcast.core.IMap;
+import com.iyzico.challenge.integrator.data.entity.Product;
+import com.iyzico.challenge.integrator.data.event.ProductChangedEvent;
+import com.iyzico.challenge.integrator.data.service.ProductService;
+import com.iyzico.challenge.integrator.dto.PageResponse;
+import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.dto.product.ProductSort;
+import com.iyzico.challenge.integrator.exception.InvalidPageRequestException;
+import com.iyzico.challenge.integrator.exception.ProductNotFoundException;
+import com.iyzico.challenge.integrator.mapper.ProductMapper;
+import mockit.Deencapsulation;
+import mockit.Injectable;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.Mocked;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(JMockit.class)
+public class ProductCatalogServiceTest {
+    private ProductCatalogService tested;
+
+    @Injectable
+    private ProductService productService;
+
+    @Injectable
+    private ProductMapper mapper;
+
+    @Injectable
+    private PlatformTransactionManager manager;
+
+    @Injectable
+    private HazelcastInstance hazelcast;
+
+    @Mocked
+    private IMap<Long, ProductDto> products;
+
+    @Mocked
+    private IMap<Long, Long> stamps;
+
+    @Mocked
+    private IMap<String, PageResponse<ProductDto>> pages;
+
+    @Mocked
+    private IAtomicLong catalogVersion;
+
+    @Before
+    public void setup() {
+        tested = new ProductCatalogService(productService, mapper, manager, hazelcast);
+        Deencapsulation.setField(tested, "products", products);
+        Deencapsulation.setField(tested, "stamps", stamps);
+        Deencapsulation.setField(tested, "pages", pages);
+        Deencapsulation.setField(tested, "catalogVersion", catalogVersion);
+
+        TransactionTemplate readOnlyTransactionTemplate = new MockUp<TransactionTemplate>() {
+            @Mock
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        }.getMockInstance();
+        Deencapsulation.setField(tested, readOnlyTransactionTemplate);
+    }
+
+    @Test
+    public void constructor() {
+        new StrictExpectations() {{
+            hazelcast.getMap("integrator.product.cache");
+            result = products;
+
+            hazelcast.getMap("integrator.product.stamp");
+            result = stamps;
+
+            hazelcast.getMap("integrator.product.page");
+            result = pages;
+
+            hazelcast.getAtomicLong("integrator.product.catalog.version");
+            result = catalogVersion;
+        }};
+
+        ProductCatalogService service = new ProductCatalogService(productService, mapper, manager, hazelcast);
+        TransactionTemplate template = Deencapsulation.getField(service, TransactionTemplate.class);
+        Assert.assertTrue(template.isReadOnly());
+    }
+
+    @Test
+    public void getItemStamp() {
+        new StrictExpectations() {{
+            stamps.get(1L);
+            result = 5L;
+        }};
+
+        Assert.assertEquals(5L, (long) tested.getItemStamp(1));
+    }
+
+    @Test
+    public void createItemStamp() {
+        long now = System.currentTimeMillis();
+        new StrictExpectations() {{
+            stamps.putIfAbsent(1L, anyLong);
+            result = null;
+        }};
+
+        Assert.assertTrue(tested.createItemStamp(1) >= now);
+    }
+
+    @Test
+    public void createItemStamp_AlreadyStamped() {
+        new StrictExpectations() {{
+            stamps.putIfAbsent(1L, anyLong);
+            result = 5L;
+        }};
+
+        Assert.assertNull(tested.createItemStamp(1));
+    }
+
+    @Test
+    public void getPublishedItem_Cached() {
+        ProductDto dto = new ProductDto();
+        new StrictExpectations() {{
+            products.get(1L);
+            result = dto;
+        }};
+
+        Assert.assertEquals(dto, tested.getPublishedItem(1));
+    }
+
+    @Test
+    public void getPublishedItem(@Mocked Product product) {
+        ProductDto dto = new ProductDto();
+        new StrictExpectations() {{
+            products.get(1L);
+            result = null;
+
+            stamps.get(1L);
+            result = 5L;
+
+            productService.getPublishedItem(1);
+            result = product;
+
+            mapper.mapWithDescription(product);
+            result = dto;
+
+            products.set(1L, dto);
+
+            stamps.get(1L);
+            result = 5L;
+        }};
+
+        Assert.assertEquals(dto, tested.getPublishedItem(1));
+    }
+
+    @Test
+    public void getPublishedItem_NeverChanged(@Mocked Product product) {
+        ProductDto dto = new ProductDto();
+        new StrictExpectations() {{
+            products.get(1L);
+            result = null;
+
+            stamps.get(1L);
+            result = null;
+
+            productService.getPublishedItem(1);
+            result = product;
+
+            mapper.mapWithDescription(product);
+            result = dto;
+
+            products.set(1L, dto);
+
+            stamps.get(1L);
+            result = null;
+        }};
+
+        Assert.assertEquals(dto, tested.getPublishedItem(1));
+    }
+
+    // the product changed and was evicted while it was being read, the stale item must not stay in the cache
+    @Test
+    public void getPublishedItem_ChangedWhileReading(@Mocked Product product) {
+        ProductDto dto = new ProductDto();
+        new StrictExpectations() {{
+            products.get(1L);
+            result = null;
+
+            stamps.get(1L);
+            result = 5L;
+
+            productService.getPublishedItem(1);
+            result = product;
+
+            mapper.mapWithDescription(product);
+            result = dto;
+
+            products.set(1L, dto);
+
+            stamps.get(1L);
+            result = 6L;
+
+            products.remove(1L, dto);
+        }};
+
+        Assert.assertEquals(dto, tested.getPublishedItem(1));
+    }
+
+    @Test
+    public void getPublishedItem_FirstChangeWhileReading(@Mocked Product product) {
+        ProductDto dto = new ProductDto();
+        new StrictExpectations() {{
+            products.get(1L);
+            result = null;
+
+            stamps.get(1L);
+            result = null;
+
+            productService.getPublishedItem(1);
+            result = product;
+
+            mapper.mapWithDescription(product);
+            result = dto;
+
+            products.set(1L, dto);
+
+            stamps.get(1L);
+            result = 1000L;
+
+            products.remove(1L, dto);
+        }};
+
+        Assert.assertEquals(dto, tested.getPublishedItem(1));
+    }
+
+    @Test(expected = ProductNotFoundException.class)
+    public void getPublishedItem_NotFoundIsNotCached() {
+        new StrictExpectations() {{
+            products.get(1L);
+            result = null;
+
+            stamps.get(1L);
+            result = null;
+
+            productService.getPublishedItem(1);
+            result = new ProductNotFoundException("test");
+
+            products.set(anyLong, (ProductDto) any);
+            times = 0;
+        }};
+
+        tested.getPublishedItem(1);
+    }
+
+    @Test
+    public void getPublishedPage_Cached() {
+        PageResponse<ProductDto> page = new PageResponse<>(Collections.singletonList(new ProductDto()), null);
+        new StrictExpectations() {{
+            catalogVersion.get();
+            result = 7L;
+
+            pages.get("7|ID|null|10|null|null|null");
+            result = page;
+        }};
+
+        Assert.assertEquals(page, tested.getPublishedPage(ProductSort.ID, null, 10, null, null, null));
+    }
+
+    @Test
+    public void getPublishedPage_ById() {
+        List<Product> entities = Arrays.asList(product(3, "c"), product(4, "a"), product(5, "b"));
+        List<ProductDto> dtos = Arrays.asList(new ProductDto(), new ProductDto());
+        BigDecimal minPrice = BigDecimal.ONE;
+        new StrictExpectations() {{
+            catalogVersion.get();
+            result = 7L;
+
+            pages.get(anyString);
+            result = null;
+
+            productService.getPublishedItems(ProductSort.ID, 2, "", Product.Status.IN_STOCK, minPrice, null, 3);
+            result = entities;
+
+            mapper.map(entities.subList(0, 2));
+            result = dtos;
+
+            pages.set(anyString, (PageResponse<ProductDto>) any);
+        }};
+
+        PageResponse<ProductDto> page = tested.getPublishedPage(ProductSort.ID, cursor("2"), 2, ProductDto.Status.IN_STOCK, minPrice, null);
+        Assert.assertEquals(dtos, page.getItems());
+        Assert.assertTrue(page.isHasNext());
+        Assert.assertEquals(cursor("4"), page.getNext());
+    }
+
+    @Test
+    public void getPublishedPage_ByName() {
+        List<Product> entities = Arrays.asList(product(7, "b:c"), product(3, "d"));
+        List<ProductDto> dtos = Arrays.asList(new ProductDto(), new ProductDto());
+        new StrictExpectations() {{
+            catalogVersion.get();
+            result = 7L;
+
+            pages.get(anyString);
+            result = null;
+
+            productService.getPublishedItems(ProductSort.NAME, 5, "a:b", null, null, null, 3);
+            result = entities;
+
+            mapper.map(entities);
+            result = dtos;
+
+            pages.set(anyString, (PageResponse<ProductDto>) any);
+        }};
+
+        PageResponse<ProductDto> page = tested.getPublishedPage(ProductSort.NAME, cursor("5:a:b"), 2, null, null, null);
+        Assert.assertEquals(dtos, page.getItems());
+        Assert.assertFalse(page.isHasNext());
+        Assert.assertNull(page.getNext());
+    }
+
+    @Test
+    public void getPublishedPage_SizeIsClamped() {
+        new StrictExpectations() {{
+            catalogVersion.get();
+            result = 7L;
+
+            pages.get(anyString);
+            result = null;
+
+            productService.getPublishedItems(ProductSort.ID, 0, "", null, null, null, ProductCatalogService.MAX_PAGE_SIZE + 1);
+            result = Collections.emptyList();
+
+            mapper.map(Collections.emptyList());
+            result = Collections.emptyList();
+
+            pages.set(anyString, (PageResponse<ProductDto>) any);
+
+            catalogVersion.get();
+            result = 7L;
+
+            pages.get(anyString);
+            result = null;
+
+            productService.getPublishedItems(ProductSort.ID, 0, "", null, null, null, 2);
+            result = Collections.emptyList();
+
+            mapper.map(Collections.emptyList());
+            result = Collections.emptyList();
+
+            pages.set(anyString, (PageResponse<ProductDto>) any);
+        }};
+
+        tested.getPublishedPage(ProductSort.ID, null, 1000, null, null, null);
+        tested.getPublishedPage(ProductSort.ID, null, 0, null, null, null);
+    }
+
+    @Test
+    public void getPublishedPage_KeyedByCatalogVersion() {
+        new StrictExpectations() {{
+            catalogVersion.get();
+            result = 7L;
+
+            pages.get("7|ID|null|10|null|null|null");
+            result = null;
+
+            productService.getPublishedItems(ProductSort.ID, 0, "", null, null, null, 11);
+            result = Collections.emptyList();
+
+            mapper.map(Collections.emptyList());
+            result = Collections.emptyList();
+
+            pages.set("7|ID|null|10|null|null|null", (PageResponse<ProductDto>) any);
+
+            // a change moved the version, the page read before it is not served
+            catalogVersion.get();
+            result = 8L;
+
+            pages.get("8|ID|null|10|null|null|null");
+            result = null;
+
+            productService.getPublishedItems(ProductSort.ID, 0, "", null, null, null, 11);
+            result = Collections.emptyList();
+
+            mapper.map(Collections.emptyList());
+            result = Collections.emptyList();
+
+            pages.set("8|ID|null|10|null|null|null", (PageResponse<ProductDto>) any);
+        }};
+
+        tested.getPublishedPage(ProductSort.ID, null, 10, null, null, null);
+        tested.getPublishedPage(ProductSort.ID, null, 10, null, null, null);
+    }
+
+    @Test(expected = InvalidPageRequestException.class)
+    public void getPublishedPage_InvalidCursor() {
+        tested.getPublishedPage(ProductSort.ID, "not a cursor", 10, null, null, null);
+    }
+
+    @Test(expected = InvalidPageRequestException.class)
+    public void getPublishedPage_InvalidNameCursor() {
+        tested.getPublishedPage(ProductSort.NAME, cursor("5"), 10, null, null, null);
+    }
+
+    @Test(expected = InvalidPageRequestException.class)
+    public void getPublishedPage_Unpublished() {
+        tested.getPublishedPage(ProductSort.ID, null, 10, ProductDto.Status.UNPUBLISHED, null, null);
+    }
+
+    @Test(expected = InvalidPageRequestException.class)
+    public void getPublishedPage_InvalidPriceRange() {
+        tested.getPublishedPage(ProductSort.ID, null, 10, null, BigDecimal.TEN, BigDecimal.ONE);
+    }
+
+    @Test
+    public void onProductChanged() {
+        new StrictExpectations() {{
+            stamps.executeOnKeys(new HashSet<>(Arrays.asList(1L, 2L)), withInstanceOf(ProductCatalogService.NextStamp.class));
+            products.delete(1L);
+            products.delete(2L);
+            catalogVersion.alter(withInstanceOf(ProductCatalogService.NextCatalogVersion.class));
+            pages.clear();
+        }};
+
+        tested.onProductChanged(new ProductChangedEvent(Arrays.asList(1L, 2L)));
+    }
+
+    @Test
+    public void getCatalogVersion() {
+        new StrictExpectations() {{
+            catalogVersion.get();
+            result = 1000L;
+        }};
+
+        Assert.assertEquals(1000L, tested.getCatalogVersion());
+    }
+
+    @Test
+    public void getCatalogVersion_Initialize() {
+        new StrictExpectations() {{
+            catalogVersion.get();
+            result = 0L;
+
+            catalogVersion.compareAndSet(0L, anyLong);
+
+            catalogVersion.get();
+            result = 1000L;
+        }};
+
+        Assert.assertEquals(1000L, tested.getCatalogVersion());
+    }
+
+    @Test
+    public void nextCatalogVersion() {
+        ProductCatalogService.NextCatalogVersion next = new ProductCatalogService.NextCatalogVersion();
+        long now = System.currentTimeMillis();
+
+        Assert.assertTrue(next.apply(0L) >= now);
+        Assert.assertEquals(Long.MAX_VALUE - 1, (long) next.apply(Long.MAX_VALUE - 2));
+    }
+
+    @Test
+    public void nextStamp() {
+        ProductCatalogService.NextStamp next = new ProductCatalogService.NextStamp();
+        long now = System.currentTimeMillis();
+        Map.Entry<Long, Long> first = new AbstractMap.SimpleEntry<>(1L, null);
+        Map.Entry<Long, Long> stamped = new AbstractMap.SimpleEntry<>(1L, Long.MAX_VALUE - 2);
+
+        next.process(first);
+        next.process(stamped);
+        Assert.assertTrue(first.getValue() >= now);
+        Assert.assertEquals(Long.MAX_VALUE - 1, (long) stamped.getValue());
+    }
+
+    @Test
+    public void etag() {
+        Assert.assertEquals("\"1-2\"", ProductCatalogService.etag(1, 2));
+        Assert.assertEquals("\"catalog-3\"", ProductCatalogService.catalogEtag(3));
+    }
+
+    private static Product product(long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+
+    private static String cursor(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,67 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import com.iyzico.challenge.integrator.data.event.ProductChangedEvent;
+import mockit.Injectable;
+import mockit.Mocked;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+@RunWith(JMockit.class)
+public class ProductEventRelayTest {
+    @Injectable
+    private HazelcastInstance hazelcast;
+
+    @Mocked
+    private ITopic<ArrayList<Long>> topic;
+
+    @Injectable
+    private ProductChangeListener first;
+
+    @Injectable
+    private ProductChangeListener second;
+
+    @Test
+    public void onProductChanged() {
+        new StrictExpectations() {{
+            hazelcast.getTopic("integrator.product.changed");
+            result = topic;
+
+            topic.addMessageListener((ProductEventRelay) any);
+
+            topic.publish(new ArrayList<>(Arrays.asList(1L, 2L)));
+        }};
+
+        ProductEventRelay tested = new ProductEventRelay(hazelcast, Arrays.asList(first, second));
+        tested.onProductChanged(new ProductChangedEvent(Arrays.asList(1L, 2L)));
+    }
+
+    @Test
+    public void onMessage_ListenerFailureDoesNotStopTheOthers(@Mocked Message<ArrayList<Long>> message) {
+        ArrayList<Long> productIds = new ArrayList<>(Arrays.asList(1L, 2L));
+        new StrictExpectations() {{
+            hazelcast.getTopic("integrator.product.changed");
+            result = topic;
+
+            topic.addMessageListener((ProductEventRelay) any);
+
+            message.getMessageObject();
+            result = productIds;
+
+            first.onProductsChanged(productIds);
+            result = new IllegalStateException("test");
+
+            second.onProductsChanged(productIds);
+        }};
+
+        ProductEventRelay tested = new ProductEventRelay(hazelcast, Arrays.asList(first, second));
+        tested.onMessage(message);
+    }
+}
@@ -0,0 +1,134 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.properties.SessionCacheProperties;
+import com.iyzico.challenge.integrator.session.model.UserSession;
+import mockit.Injectable;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(JMockit.class)
+public class SessionCacheTest {
+    private SessionCache tested;
+
+    @Injectable
+    private RedisTemplate<String, String> redis;
+
+    @Injectable
+    private SessionService sessionService;
+
+    private SessionCacheProperties properties = new SessionCacheProperties();
+
+    private AtomicLong clock = new AtomicLong();
+
+    @Before
+    public void setup() {
+        properties.setTtlSeconds(30);
+        properties.setMaxSize(10);
+        tested = new SessionCache(redis, properties, clock::get);
+    }
+
+    @Test
+    public void get() {
+        UserSession session = session("first", 1);
+        tested.put(session, tested.getStamp());
+        Assert.assertSame(session, tested.get("first"));
+        Assert.assertNull(tested.get("second"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        Assert.assertNull(tested.get("first"));
+        Assert.assertEquals(0, tested.size());
+    }
+
+    @Test
+    public void put_InvalidatedWhileLoading() {
+        long stamp = tested.getStamp();
+        new StrictExpectations() {{
+            redis.convertAndSend(SessionCache.CHANNEL, "S:other");
+        }};
+
+        tested.invalidateSession("other");
+        tested.put(session("first", 1), stamp);
+        Assert.assertNull(tested.get("first"));
+    }
+
+    @Test
+    public void put_Disabled() {
+        properties.setTtlSeconds(0);
+        tested.put(session("first", 1), tested.getStamp());
+        Assert.assertNull(tested.get("first"));
+    }
+
+    @Test
+    public void put_Full() {
+        for (int i = 0; i < 10; i++) {
+            tested.put(session("session" + i, i), tested.getStamp());
+        }
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        tested.put(session("last", 10), tested.getStamp());
+        Assert.assertEquals(10, tested.size());
+        Assert.assertNotNull(tested.get("last"));
+    }
+
+    @Test
+    public void invalidateSession() {
+        tested.put(session("first", 1), tested.getStamp());
+        tested.put(session("second", 2), tested.getStamp());
+        new StrictExpectations() {{
+            redis.convertAndSend(SessionCache.CHANNEL, "S:first");
+        }};
+
+        tested.invalidateSession("first");
+        Assert.assertNull(tested.get("first"));
+        Assert.assertNotNull(tested.get("second"));
+    }
+
+    @Test
+    public void invalidateUser() {
+        tested.put(session("first", 1), tested.getStamp());
+        tested.put(session("second", 1), tested.getStamp());
+        tested.put(session("third", 2), tested.getStamp());
+        new StrictExpectations() {{
+            redis.convertAndSend(SessionCache.CHANNEL, "U:1");
+        }};
+
+        tested.invalidateUser(1);
+        Assert.assertNull(tested.get("first"));
+        Assert.assertNull(tested.get("second"));
+        Assert.assertNotNull(tested.get("third"));
+    }
+
+    @Test
+    public void onMessage() {
+        tested.put(session("first", 1), tested.getStamp());
+        tested.put(session("second", 2), tested.getStamp());
+        tested.put(session("third", 3), tested.getStamp());
+
+        tested.onMessage(new DefaultMessage(SessionCache.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "S:first".getBytes(StandardCharsets.UTF_8)), null);
+        tested.onMessage(new DefaultMessage(SessionCache.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "U:2".getBytes(StandardCharsets.UTF_8)), null);
+
+        Assert.assertNull(tested.get("first"));
+        Assert.assertNull(tested.get("second"));
+        Assert.assertNotNull(tested.get("third"));
+    }
+
+    private UserSession session(String key, long userId) {
+        User user = new User();
+        user.setId(userId);
+        return new UserSession(sessionService, key, user, LocalDateTime.now(), LocalDateTime.now());
+    }
+}
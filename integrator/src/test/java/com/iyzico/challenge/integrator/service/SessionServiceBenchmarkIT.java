@@ -0,0 +1,91 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.service.UserService;
+import com.iyzico.challenge.integrator.properties.SessionCacheProperties;
+import com.iyzico.challenge.integrator.properties.SessionTokenProperties;
+import com.iyzico.challenge.integrator.properties.SessionTouchProperties;
+import com.iyzico.challenge.integrator.service.token.SessionTokenService;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// logins per second of the node itself, redis answers instantly and the database is left out.
+// a login costs one redis round trip on top of this. the mock ups take a good part of the time, the number is only
+// logged to compare changes on the same machine
+@RunWith(JMockit.class)
+public class SessionServiceBenchmarkIT {
+    private static final Logger log = LoggerFactory.getLogger(SessionServiceBenchmarkIT.class);
+    private static final int THREADS = 4;
+    private static final int WARMUP = 20_000;
+    private static final int LOGINS_PER_THREAD = 100_000;
+
+    @Test
+    public void createNewSession() throws Exception {
+        RedisTemplate<String, String> redis = new MockUp<RedisTemplate<String, String>>() {
+            @Mock
+            public <T> T execute(RedisCallback<T> action) {
+                // a new session key, the user had no session before
+                return (T) new byte[0];
+            }
+        }.getMockInstance();
+
+        new MockUp<UserService>() {
+            @Mock
+            public void markAsLoggedIn(User user, String sessionKey, LocalDateTime loginDate) {
+                user.setLastSessionKey(null);
+            }
+        };
+
+        SessionStore store = new SessionStore(redis);
+        SessionService tested = new SessionService(store,
+                new UserService(null, null, null, null, null),
+                new SessionCache(redis, new SessionCacheProperties()),
+                new SessionTouchService(store, new SessionTouchProperties()),
+                new SessionTokenService(null, new SessionTokenProperties()));
+
+        login(tested, WARMUP);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> login(tested, LOGINS_PER_THREAD)));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            long loginsPerSecond = THREADS * LOGINS_PER_THREAD * TimeUnit.SECONDS.toNanos(1) / (System.nanoTime() - start);
+            log.info("SessionService.createNewSession: {} logins per second on {} threads", loginsPerSecond, THREADS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void login(SessionService tested, int count) {
+        User user = new User();
+        user.setId(1);
+        user.setUsername("username");
+        for (int i = 0; i < count; i++) {
+            Assert.assertNotNull(tested.createNewSession(user));
+        }
+    }
+}
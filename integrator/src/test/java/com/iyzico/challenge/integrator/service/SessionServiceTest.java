@@ -1,82 +1,61 @@
 package com.iyzico.challenge.integrator.service;
 
 import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.event.UserChangedEvent;
 import com.iyzico.challenge.integrator.data.service.UserService;
 import com.iyzico.challenge.integrator.exception.CannotCreateSessionException;
+import com.iyzico.challenge.integrator.service.token.SessionToken;
+import com.iyzico.challenge.integrator.service.token.SessionTokenService;
 import com.iyzico.challenge.integrator.session.model.UserSession;
 import com.iyzico.challenge.integrator.util.IntegrationStringUtils;
-import mockit.Deencapsulation;
-import mockit.Delegate;
 import mockit.Expectations;
 import mockit.Injectable;
-import mockit.Mock;
-import mockit.MockUp;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
 import mockit.StrictExpectations;
 import mockit.Tested;
 import mockit.integration.junit4.JMockit;
 import org.junit.Assert;
-import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.springframework.data.redis.connection.RedisConnection;
-import org.springframework.data.redis.core.HashOperations;
-import org.springframework.data.redis.core.RedisCallback;
-import org.springframework.data.redis.core.RedisTemplate;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 @RunWith(JMockit.class)
 public class SessionServiceTest {
     @Tested
     private SessionService tested;
 
-    private RedisTemplate<String, String> redis;
+    @Injectable
+    private SessionStore store;
 
     @Injectable
     private UserService userService;
 
-    private RedisConnection connection;
+    @Injectable
+    private SessionCache sessionCache;
 
-    @Before
-    public void setup() {
-        connection = createRedisConnectionMock();
-        redis = createRedisMock(connection, null);
-        tested = new SessionService(redis, userService);
-    }
+    @Injectable
+    private SessionTouchService touchService;
+
+    @Injectable
+    private SessionTokenService tokenService;
 
     @Test
     public void getSession_NoSessionFoundInRedis() {
-        RedisCallback<Object> callback = x -> null;
-
         String sessionKey = "sessionKey";
-        byte[] qualifiedSessionKey = "S:sessionKey".getBytes(StandardCharsets.UTF_8);
-        LocalDateTime now = LocalDateTime.now();
-        byte[] nowAsBytes = now.toString().getBytes(StandardCharsets.UTF_8);
-        int ttl = 24 * 60 * 60;
-
-        List<Object> redisResult = Arrays.asList(null, null, null);
-        Deencapsulation.setField(tested, createRedisMock(connection, redisResult));
-
-        new NonStrictExpectations(LocalDateTime.class) {{
-            LocalDateTime.now();
-            result = now;
-        }};
+        new StrictExpectations() {{
+            sessionCache.get(sessionKey);
+            result = null;
 
-        new StrictExpectations(callback) {{
-            redis.executePipelined(withInstanceLike(callback));
+            sessionCache.getStamp();
+            result = 3L;
 
-            connection.hGet(qualifiedSessionKey, SessionService.USER_ID_KEY);
-            connection.hGet(qualifiedSessionKey, SessionService.CREATED_KEY);
-            connection.hGet(qualifiedSessionKey, SessionService.LAST_LOGIN_KEY);
-            connection.hSet(qualifiedSessionKey, SessionService.LAST_LOGIN_KEY, nowAsBytes);
-            connection.expire(qualifiedSessionKey, ttl);
+            store.read(sessionKey);
+            result = fields(null, null, null, null);
         }};
 
         UserSession result = tested.getSession(sessionKey);
@@ -85,30 +64,16 @@ public class SessionServiceTest {
 
     @Test
     public void getSession_UserIdNotInstanceOfAInteger() {
-        RedisCallback<Object> callback = x -> null;
-
         String sessionKey = "sessionKey";
-        byte[] qualifiedSessionKey = "S:sessionKey".getBytes(StandardCharsets.UTF_8);
-        LocalDateTime now = LocalDateTime.now();
-        byte[] nowAsBytes = now.toString().getBytes(StandardCharsets.UTF_8);
-        int ttl = 24 * 60 * 60;
-
-        List<Object> redisResult = Arrays.asList("test", null, null);
-        Deencapsulation.setField(tested, createRedisMock(connection, redisResult));
-
-        new NonStrictExpectations(LocalDateTime.class) {{
-            LocalDateTime.now();
-            result = now;
-        }};
+        new StrictExpectations() {{
+            sessionCache.get(sessionKey);
+            result = null;
 
-        new StrictExpectations(callback) {{
-            redis.executePipelined(withInstanceLike(callback));
+            sessionCache.getStamp();
+            result = 3L;
 
-            connection.hGet(qualifiedSessionKey, SessionService.USER_ID_KEY);
-            connection.hGet(qualifiedSessionKey, SessionService.CREATED_KEY);
-            connection.hGet(qualifiedSessionKey, SessionService.LAST_LOGIN_KEY);
-            connection.hSet(qualifiedSessionKey, SessionService.LAST_LOGIN_KEY, nowAsBytes);
-            connection.expire(qualifiedSessionKey, ttl);
+            store.read(sessionKey);
+            result = fields("test", null, null, null);
         }};
 
         UserSession result = tested.getSession(sessionKey);
@@ -117,30 +82,35 @@ public class SessionServiceTest {
 
     @Test
     public void getSession_CreatedAtFieldNotParsed() {
-        RedisCallback<Object> callback = x -> null;
-
         String sessionKey = "sessionKey";
-        byte[] qualifiedSessionKey = "S:sessionKey".getBytes(StandardCharsets.UTF_8);
-        LocalDateTime now = LocalDateTime.now();
-        byte[] nowAsBytes = now.toString().getBytes(StandardCharsets.UTF_8);
-        int ttl = 24 * 60 * 60;
+        new StrictExpectations() {{
+            sessionCache.get(sessionKey);
+            result = null;
 
-        List<Object> redisResult = Arrays.asList("1", "test", null);
-        Deencapsulation.setField(tested, createRedisMock(connection, redisResult));
+            sessionCache.getStamp();
+            result = 3L;
 
-        new NonStrictExpectations(LocalDateTime.class) {{
-            LocalDateTime.now();
-            result = now;
+            store.read(sessionKey);
+            result = fields("1", "test", null, null);
         }};
 
-        new StrictExpectations(callback) {{
-            redis.executePipelined(withInstanceLike(callback));
+        UserSession result = tested.getSession(sessionKey);
+        Assert.assertNull(result);
+    }
+
+    @Test
+    public void getSession_LastLoginFieldNotParsed() {
+        String sessionKey = "sessionKey";
+        String nowAsString = LocalDateTime.now().toString();
+        new StrictExpectations() {{
+            sessionCache.get(sessionKey);
+            result = null;
+
+            sessionCache.getStamp();
+            result = 3L;
 
-            connection.hGet(qualifiedSessionKey, SessionService.USER_ID_KEY);
-            connection.hGet(qualifiedSessionKey, SessionService.CREATED_KEY);
-            connection.hGet(qualifiedSessionKey, SessionService.LAST_LOGIN_KEY);
-            connection.hSet(qualifiedSessionKey, SessionService.LAST_LOGIN_KEY, nowAsBytes);
-            connection.expire(qualifiedSessionKey, ttl);
+            store.read(sessionKey);
+            result = fields("1", nowAsString, "test", null);
         }};
 
         UserSession result = tested.getSession(sessionKey);
@@ -148,83 +118,177 @@ public class SessionServiceTest {
     }
 
     @Test
-    public void getSession_LastLoginFieldNotParsed() {
-        RedisCallback<Object> callback = x -> null;
-
+    public void getSession() {
         String sessionKey = "sessionKey";
-        byte[] qualifiedSessionKey = "S:sessionKey".getBytes(StandardCharsets.UTF_8);
         LocalDateTime now = LocalDateTime.now();
         String nowAsString = now.toString();
-        byte[] nowAsBytes = nowAsString.getBytes(StandardCharsets.UTF_8);
-        int ttl = 24 * 60 * 60;
 
-        List<Object> redisResult = Arrays.asList("1", nowAsString, "test");
-        Deencapsulation.setField(tested, createRedisMock(connection, redisResult));
+        User user = new User();
+        user.setId(1);
+        user.setUserProfileId(2);
+        user.setUsername("username");
+        user.setAdmin(true);
+        user.setLastLoginDate(now);
 
-        new NonStrictExpectations(LocalDateTime.class) {{
-            LocalDateTime.now();
-            result = now;
-        }};
+        new StrictExpectations() {{
+            sessionCache.get(sessionKey);
+            result = null;
+
+            sessionCache.getStamp();
+            result = 3L;
 
-        new StrictExpectations(callback) {{
-            redis.executePipelined(withInstanceLike(callback));
+            store.read(sessionKey);
+            result = fields("1", nowAsString, nowAsString, UserSnapshot.encode(user));
 
-            connection.hGet(qualifiedSessionKey, SessionService.USER_ID_KEY);
-            connection.hGet(qualifiedSessionKey, SessionService.CREATED_KEY);
-            connection.hGet(qualifiedSessionKey, SessionService.LAST_LOGIN_KEY);
-            connection.hSet(qualifiedSessionKey, SessionService.LAST_LOGIN_KEY, nowAsBytes);
-            connection.expire(qualifiedSessionKey, ttl);
+            touchService.touch(sessionKey);
+
+            sessionCache.put(withInstanceOf(UserSession.class), 3L);
         }};
 
         UserSession result = tested.getSession(sessionKey);
-        Assert.assertNull(result);
+        Assert.assertNotNull(result);
+        Assert.assertEquals(sessionKey, result.getSessionKey());
+        Assert.assertEquals(now, result.getCreatedDate());
+        Assert.assertEquals(now, result.getLastLoginDate());
+        Assert.assertEquals(1, result.getUser().getId());
+        Assert.assertEquals(2, result.getUser().getUserProfileId());
+        Assert.assertEquals("username", result.getUser().getUsername());
+        Assert.assertEquals(sessionKey, result.getUser().getLastSessionKey());
+        Assert.assertTrue(result.getUser().isAdmin());
     }
 
     @Test
-    public void getSession() {
-        RedisCallback<Object> callback = x -> null;
-
+    public void getSession_WithoutUserSnapshot() {
         String sessionKey = "sessionKey";
-        byte[] qualifiedSessionKey = "S:sessionKey".getBytes(StandardCharsets.UTF_8);
         LocalDateTime now = LocalDateTime.now();
         String nowAsString = now.toString();
-        byte[] nowAsBytes = nowAsString.getBytes(StandardCharsets.UTF_8);
-        int ttl = 24 * 60 * 60;
 
-        List<Object> redisResult = Arrays.asList("1", nowAsString, nowAsString);
-        Deencapsulation.setField(tested, createRedisMock(connection, redisResult));
+        User user = new User();
+        user.setId(1);
+        user.setUsername("username");
+        user.setLastLoginDate(now);
+        String snapshot = UserSnapshot.encode(user);
 
-        new NonStrictExpectations(LocalDateTime.class) {{
-            LocalDateTime.now();
-            result = now;
+        new StrictExpectations() {{
+            sessionCache.get(sessionKey);
+            result = null;
+
+            sessionCache.getStamp();
+            result = 3L;
+
+            store.read(sessionKey);
+            result = fields("1", nowAsString, nowAsString, null);
+
+            userService.getById(1);
+            result = user;
+
+            store.setUserIfAbsent(sessionKey, snapshot);
+
+            touchService.touch(sessionKey);
+
+            sessionCache.put(withInstanceOf(UserSession.class), 3L);
         }};
 
-        new StrictExpectations(callback) {{
-            redis.executePipelined(withInstanceLike(callback));
+        UserSession result = tested.getSession(sessionKey);
+        Assert.assertNotNull(result);
+        Assert.assertSame(user, result.getUser());
+    }
 
-            connection.hGet(qualifiedSessionKey, SessionService.USER_ID_KEY);
-            connection.hGet(qualifiedSessionKey, SessionService.CREATED_KEY);
-            connection.hGet(qualifiedSessionKey, SessionService.LAST_LOGIN_KEY);
-            connection.hSet(qualifiedSessionKey, SessionService.LAST_LOGIN_KEY, nowAsBytes);
-            connection.expire(qualifiedSessionKey, ttl);
+    @Test
+    public void getSession_Cached(@Mocked UserSession session) {
+        String sessionKey = "sessionKey";
+        new StrictExpectations() {{
+            sessionCache.get(sessionKey);
+            result = session;
+
+            touchService.touch(sessionKey);
+        }};
+
+        Assert.assertSame(session, tested.getSession(sessionKey));
+    }
+
+    @Test
+    public void getSession_Token() {
+        String sessionKey = "payload.signature";
+        LocalDateTime issuedAt = LocalDateTime.now();
+        new StrictExpectations() {{
+            tokenService.verify(sessionKey);
+            result = new SessionToken("signature", 1, 2, true, issuedAt, issuedAt.plusDays(1));
         }};
 
         UserSession result = tested.getSession(sessionKey);
         Assert.assertNotNull(result);
         Assert.assertEquals(sessionKey, result.getSessionKey());
-        Assert.assertEquals(now, result.getCreatedDate());
-        Assert.assertEquals(now, result.getLastLoginDate());
+        Assert.assertEquals(issuedAt, result.getCreatedDate());
+        Assert.assertEquals(1, result.getUser().getId());
+        Assert.assertEquals(2, result.getUser().getUserProfileId());
+        Assert.assertEquals(sessionKey, result.getUser().getLastSessionKey());
+        Assert.assertTrue(result.getUser().isAdmin());
+    }
+
+    @Test
+    public void getSession_TokenNotValid() {
+        String sessionKey = "payload.signature";
+        new StrictExpectations() {{
+            tokenService.verify(sessionKey);
+            result = null;
+        }};
+
+        Assert.assertNull(tested.getSession(sessionKey));
+    }
+
+    @Test
+    public void createNewSession_Token(@Mocked User user) {
+        String lastSessionKey = "lastPayload.lastSignature";
+        new NonStrictExpectations() {{
+            user.getId();
+            result = 1L;
+
+            user.getLastSessionKey();
+            result = null;
+        }};
+
+        new StrictExpectations() {{
+            tokenService.isEnabled();
+            result = true;
+
+            tokenService.issue(user, withInstanceOf(LocalDateTime.class));
+            result = "payload.signature";
+
+            userService.markAsLoggedIn(user, "payload.signature", withInstanceOf(LocalDateTime.class));
+
+            tokenService.getTtlSeconds();
+            result = 3600L;
+
+            store.setCurrent(1L, "payload.signature", 3600L);
+            result = lastSessionKey;
+
+            tokenService.revoke(lastSessionKey);
+        }};
+
+        UserSession result = tested.createNewSession(user);
+        Assert.assertNotNull(result);
+        Assert.assertEquals("payload.signature", result.getSessionKey());
+        Assert.assertEquals(user, result.getUser());
     }
 
     @Test(expected = CannotCreateSessionException.class)
     public void createNewSession_GeneratedSessionKeysNotUnique(@Mocked User user) {
-        Deencapsulation.setField(tested, createRedisMock(connection, null, () -> true));
+        new NonStrictExpectations() {{
+            store.create(anyString, anyString, anyLong, withInstanceOf(LocalDateTime.class), anyString, anyLong);
+            result = null;
+        }};
+
+        new Expectations() {{
+            userService.markAsLoggedIn((User) any, anyString, (LocalDateTime) any);
+            times = 0;
+        }};
+
         tested.createNewSession(user);
     }
 
     @Test
     public void createNewSession_UserHasNoPreviousSession(@Mocked User user) {
-        Deencapsulation.setField(tested, createRedisMock(connection, null, () -> false));
         long userId = 1;
         LocalDateTime now = LocalDateTime.now();
         new NonStrictExpectations(LocalDateTime.class) {{
@@ -238,33 +302,21 @@ public class SessionServiceTest {
             result = null;
         }};
 
-        int ttl = 24 * 60 * 60;
         String sessionKey = "sessionKey";
-        byte[] qualifiedSessionKey = String.format("S:%s", sessionKey).getBytes(StandardCharsets.UTF_8);
-        RedisCallback<Object> callback = x -> null;
-        byte[] nowAsBytes = now.toString().getBytes(StandardCharsets.UTF_8);
-        byte[] createdAtBytes = now.toString().getBytes(StandardCharsets.UTF_8);
-        byte[] userIdBytes = Long.toString(userId).getBytes(StandardCharsets.UTF_8);
+        String snapshot = UserSnapshot.encode(user);
         new StrictExpectations(IntegrationStringUtils.class) {{
+            tokenService.isEnabled();
+            result = false;
+
             IntegrationStringUtils.generate(32);
             result = sessionKey;
 
-            userService.markAsLoggedIn(user, sessionKey);
-
-            redis.executePipelined(withInstanceLike(callback));
+            store.create(sessionKey, null, userId, now, snapshot, 86400);
+            result = "";
 
-            connection.hSet(qualifiedSessionKey, SessionService.USER_ID_KEY, userIdBytes);
-            connection.hSet(qualifiedSessionKey, SessionService.CREATED_KEY, createdAtBytes);
-            connection.hSet(qualifiedSessionKey, SessionService.LAST_LOGIN_KEY, nowAsBytes);
-            connection.expire(qualifiedSessionKey, ttl);
-        }};
+            userService.markAsLoggedIn(user, sessionKey, now);
 
-        new Expectations() {{
-            connection.del(with(new Delegate<byte[]>() {
-                public boolean matches() {
-                    throw new RuntimeException("Unexpected invocation to del");
-                }
-            }));
+            touchService.touched(sessionKey);
         }};
 
         UserSession result = tested.createNewSession(user);
@@ -277,9 +329,7 @@ public class SessionServiceTest {
 
     @Test
     public void createNewSession(@Mocked User user) {
-        Deencapsulation.setField(tested, createRedisMock(connection, null, () -> false));
         String lastSessionKey = "lastSessionKey";
-        byte[] lastSessionKeyAsBytes = lastSessionKey.getBytes(StandardCharsets.UTF_8);
         long userId = 1;
         LocalDateTime now = LocalDateTime.now();
         new NonStrictExpectations(LocalDateTime.class) {{
@@ -293,176 +343,290 @@ public class SessionServiceTest {
             result = lastSessionKey;
         }};
 
-        int ttl = 24 * 60 * 60;
         String sessionKey = "sessionKey";
-        byte[] qualifiedSessionKey = String.format("S:%s", sessionKey).getBytes(StandardCharsets.UTF_8);
-        RedisCallback<Object> callback = x -> null;
-        byte[] nowAsBytes = now.toString().getBytes(StandardCharsets.UTF_8);
-        byte[] createdAtBytes = now.toString().getBytes(StandardCharsets.UTF_8);
-        byte[] userIdBytes = Long.toString(userId).getBytes(StandardCharsets.UTF_8);
+        String snapshot = UserSnapshot.encode(user);
         new StrictExpectations(IntegrationStringUtils.class) {{
+            tokenService.isEnabled();
+            result = false;
+
             IntegrationStringUtils.generate(32);
             result = sessionKey;
 
-            userService.markAsLoggedIn(user, sessionKey);
+            store.create(sessionKey, lastSessionKey, userId, now, snapshot, 86400);
+            result = lastSessionKey;
 
-            redis.executePipelined(withInstanceLike(callback));
+            userService.markAsLoggedIn(user, sessionKey, now);
 
-            connection.hSet(qualifiedSessionKey, SessionService.USER_ID_KEY, userIdBytes);
-            connection.hSet(qualifiedSessionKey, SessionService.CREATED_KEY, createdAtBytes);
-            connection.hSet(qualifiedSessionKey, SessionService.LAST_LOGIN_KEY, nowAsBytes);
-            connection.expire(qualifiedSessionKey, ttl);
-            connection.del(lastSessionKeyAsBytes);
+            touchService.touched(sessionKey);
+            touchService.forget(lastSessionKey);
+            sessionCache.invalidateSession(lastSessionKey);
         }};
 
         UserSession result = tested.createNewSession(user);
         Assert.assertNotNull(result);
-        Assert.assertEquals(now, result.getCreatedDate());
-        Assert.assertEquals(now, result.getLastLoginDate());
         Assert.assertEquals(sessionKey, result.getSessionKey());
         Assert.assertEquals(user, result.getUser());
     }
 
     @Test
-    public void setSessionValue(@Mocked HashOperations<String, Object, Object> hashOperations) {
-        String sessionKey = "sessionKey";
-        String key = "key";
-        String value = "value";
+    public void createNewSession_PreviousSessionOfAnotherNode(@Mocked User user) {
+        new NonStrictExpectations() {{
+            user.getId();
+            result = 1L;
+
+            // the login on the other node is not written to the row yet
+            user.getLastSessionKey();
+            result = "staleSessionKey";
+        }};
+
+        new StrictExpectations(IntegrationStringUtils.class) {{
+            tokenService.isEnabled();
+            result = false;
+
+            IntegrationStringUtils.generate(32);
+            result = "sessionKey";
+
+            store.create("sessionKey", "staleSessionKey", 1L, withInstanceOf(LocalDateTime.class), anyString, anyLong);
+            result = "otherNodeSessionKey";
+
+            userService.markAsLoggedIn(user, "sessionKey", withInstanceOf(LocalDateTime.class));
+
+            touchService.touched("sessionKey");
+            touchService.forget("otherNodeSessionKey");
+            sessionCache.invalidateSession("otherNodeSessionKey");
+        }};
+
+        UserSession result = tested.createNewSession(user);
+        Assert.assertEquals("sessionKey", result.getSessionKey());
+    }
+
+    @Test
+    public void createNewSession_PreviousSessionWasToken(@Mocked User user) {
+        new NonStrictExpectations() {{
+            user.getLastSessionKey();
+            result = null;
+        }};
+
+        new StrictExpectations(IntegrationStringUtils.class) {{
+            tokenService.isEnabled();
+            result = false;
+
+            IntegrationStringUtils.generate(32);
+            result = "sessionKey";
+
+            store.create("sessionKey", null, anyLong, withInstanceOf(LocalDateTime.class), anyString, anyLong);
+            result = "payload.signature";
 
-        RedisTemplate<String, String> redis = new MockUp<RedisTemplate<String, String>>() {
-            @Mock
-            public <HK, HV, K> HashOperations<K, HK, HV> opsForHash() {
-                return (HashOperations<K, HK, HV>) hashOperations;
-            }
-        }.getMockInstance();
+            userService.markAsLoggedIn(user, "sessionKey", withInstanceOf(LocalDateTime.class));
 
-        Deencapsulation.setField(tested, redis);
+            touchService.touched("sessionKey");
+            tokenService.revoke("payload.signature");
+        }};
+
+        tested.createNewSession(user);
+    }
+
+    @Test
+    public void createNewSession_KeyTaken(@Mocked User user) {
+        new NonStrictExpectations() {{
+            user.getLastSessionKey();
+            result = null;
+        }};
+
+        new StrictExpectations(IntegrationStringUtils.class) {{
+            tokenService.isEnabled();
+            result = false;
+
+            IntegrationStringUtils.generate(32);
+            result = "taken";
+
+            store.create("taken", null, anyLong, withInstanceOf(LocalDateTime.class), anyString, anyLong);
+            result = null;
+
+            IntegrationStringUtils.generate(32);
+            result = "sessionKey";
+
+            store.create("sessionKey", null, anyLong, withInstanceOf(LocalDateTime.class), anyString, anyLong);
+            result = "";
+
+            userService.markAsLoggedIn(user, "sessionKey", withInstanceOf(LocalDateTime.class));
+
+            touchService.touched("sessionKey");
+        }};
+
+        UserSession result = tested.createNewSession(user);
+        Assert.assertEquals("sessionKey", result.getSessionKey());
+    }
+
+    @Test
+    public void onUserChanged() {
+        User user = new User();
+        user.setId(1);
+        user.setUsername("username");
+        user.setLastSessionKey("staleSessionKey");
+        String snapshot = UserSnapshot.encode(user);
 
         new StrictExpectations() {{
-            hashOperations.put("S:" + sessionKey, key, value);
+            store.getCurrent(1);
+            result = "sessionKey";
+
+            store.setUser("sessionKey", snapshot);
+
+            sessionCache.invalidateUser(1);
         }};
 
-        tested.setSessionValue(sessionKey, key, value);
+        tested.onUserChanged(new UserChangedEvent(user));
     }
 
     @Test
-    public void getSessionValue(@Mocked HashOperations<String, Object, Object> hashOperations) {
-        String sessionKey = "sessionKey";
-        String key = "key";
+    public void onUserChanged_SessionBeforeCurrentKey() {
+        User user = new User();
+        user.setId(1);
+        user.setUsername("username");
+        user.setLastSessionKey("sessionKey");
+        String snapshot = UserSnapshot.encode(user);
+
+        new StrictExpectations() {{
+            store.getCurrent(1);
+            result = null;
+
+            store.setUser("sessionKey", snapshot);
+
+            sessionCache.invalidateUser(1);
+        }};
 
-        RedisTemplate<String, String> redis = new MockUp<RedisTemplate<String, String>>() {
-            @Mock
-            public <HK, HV, K> HashOperations<K, HK, HV> opsForHash() {
-                return (HashOperations<K, HK, HV>) hashOperations;
-            }
-        }.getMockInstance();
+        tested.onUserChanged(new UserChangedEvent(user));
+    }
 
-        Deencapsulation.setField(tested, redis);
+    @Test
+    public void onUserChanged_Token() {
+        User user = new User();
+        user.setId(1);
 
         new StrictExpectations() {{
-            hashOperations.get("S:" + sessionKey, key);
+            store.getCurrent(1);
+            result = "payload.signature";
+
+            tokenService.revoke("payload.signature");
+
+            sessionCache.invalidateUser(1);
         }};
 
-        tested.getSessionValue(sessionKey, key);
+        tested.onUserChanged(new UserChangedEvent(user));
     }
 
     @Test
-    public void deleteSession_Null() {
-        String sessionKey = null;
-        RedisTemplate<String, String> redis = new MockUp<RedisTemplate<String, String>>() {
-            @Mock
-            public <K> Boolean delete(K key) {
-                throw new RuntimeException();
-            }
-        }.getMockInstance();
-
-        Deencapsulation.setField(tested, redis);
-        tested.deleteSession(sessionKey);
+    public void onUserChanged_NoSession() {
+        User user = new User();
+        user.setId(1);
+
+        new StrictExpectations() {{
+            store.getCurrent(1);
+            result = null;
+
+            sessionCache.invalidateUser(1);
+        }};
+
+        tested.onUserChanged(new UserChangedEvent(user));
     }
 
     @Test
-    public void deleteSession() {
-        String sessionKey = "sessionKey";
-        AtomicBoolean called = new AtomicBoolean(false);
-        RedisTemplate<String, String> redis = new MockUp<RedisTemplate<String, String>>() {
-            @Mock
-            public <K> Boolean delete(K key) {
-                called.set(true);
-                return true;
-            }
-        }.getMockInstance();
-
-        Deencapsulation.setField(tested, redis);
-        tested.deleteSession(sessionKey);
-        Assert.assertTrue(called.get());
+    public void setSessionValue() {
+        new StrictExpectations() {{
+            store.setValue("sessionKey", "key", "value");
+        }};
+
+        tested.setSessionValue("sessionKey", "key", "value");
+    }
+
+    @Test
+    public void setSessionValue_Token() {
+        new Expectations() {{
+            store.setValue(anyString, anyString, anyString);
+            times = 0;
+        }};
+
+        tested.setSessionValue("payload.signature", "key", "value");
+    }
+
+    @Test
+    public void getSessionValue() {
+        new StrictExpectations() {{
+            store.getValue("sessionKey", "key");
+            result = "value";
+        }};
+
+        Assert.assertEquals("value", tested.getSessionValue("sessionKey", "key"));
+    }
+
+    @Test
+    public void getSessionValue_Token() {
+        new Expectations() {{
+            store.getValue(anyString, anyString);
+            times = 0;
+        }};
+
+        Assert.assertNull(tested.getSessionValue("payload.signature", "key"));
+    }
+
+    @Test
+    public void deleteSession_Null() {
+        new Expectations() {{
+            store.delete(anyString);
+            times = 0;
+        }};
+
+        tested.deleteSession(null);
     }
 
     @Test
-    public void deleteSessionValue(@Mocked HashOperations<String, Object, Object> hashOperations) {
+    public void deleteSession() {
         String sessionKey = "sessionKey";
-        String value = "value";
+        new StrictExpectations() {{
+            store.delete(sessionKey);
 
-        RedisTemplate<String, String> redis = new MockUp<RedisTemplate<String, String>>() {
-            @Mock
-            public <HK, HV, K> HashOperations<K, HK, HV> opsForHash() {
-                return (HashOperations<K, HK, HV>) hashOperations;
-            }
-        }.getMockInstance();
+            touchService.forget(sessionKey);
+
+            sessionCache.invalidateSession(sessionKey);
+        }};
 
-        Deencapsulation.setField(tested, redis);
+        tested.deleteSession(sessionKey);
+    }
 
+    @Test
+    public void deleteSession_Token() {
+        String sessionKey = "payload.signature";
         new StrictExpectations() {{
-            hashOperations.delete("S:" + sessionKey, value);
+            tokenService.revoke(sessionKey);
         }};
 
-        tested.deleteSessionValue(sessionKey, value);
+        tested.deleteSession(sessionKey);
     }
 
-    public RedisConnection createRedisConnectionMock() {
-        return new MockUp<RedisConnection>() {
-            @Mock
-            public byte[] hGet(byte[] key, byte[] field) {
-                return null;
-            }
+    @Test
+    public void deleteSessionValue() {
+        new StrictExpectations() {{
+            store.deleteValue("sessionKey", "key");
+        }};
 
-            @Mock
-            public Boolean hSet(byte[] var1, byte[] var2, byte[] var3) {
-                return true;
-            }
+        tested.deleteSessionValue("sessionKey", "key");
+    }
 
-            @Mock
-            public Boolean expire(byte[] var1, long var2) {
-                return true;
-            }
-        }.getMockInstance();
+    @Test
+    public void deleteSessionValue_Token() {
+        new Expectations() {{
+            store.deleteValue(anyString, anyString);
+            times = 0;
+        }};
 
+        tested.deleteSessionValue("payload.signature", "key");
     }
 
-    private RedisTemplate<String, String> createRedisMock(RedisConnection connection, List<Object> returnValue) {
-        return createRedisMock(connection, returnValue, null);
+    private static List<byte[]> fields(String userId, String createdAt, String lastLogin, String user) {
+        return Arrays.asList(bytes(userId), bytes(createdAt), bytes(lastLogin), bytes(user));
     }
 
-    private RedisTemplate<String, String> createRedisMock(RedisConnection connection, List<Object> returnValue, Callable<Boolean> callable) {
-        return new MockUp<RedisTemplate<String, String>>() {
-            @Mock
-            public <K> Boolean hasKey(K key) {
-                if (callable == null) {
-                    return false;
-                }
-
-                try {
-                    return callable.call();
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            }
-
-            @Mock
-            public List<Object> executePipelined(RedisCallback<?> action) {
-                action.doInRedis(connection);
-                return returnValue;
-            }
-
-        }.getMockInstance();
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,242 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.service.UserService;
+import com.iyzico.challenge.integrator.properties.SessionCacheProperties;
+import com.iyzico.challenge.integrator.properties.SessionTokenProperties;
+import com.iyzico.challenge.integrator.properties.SessionTouchProperties;
+import com.iyzico.challenge.integrator.service.token.SessionTokenService;
+import com.iyzico.challenge.integrator.session.model.UserSession;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// round trips and request bytes a session costs, against an in memory stand-in of redis that answers the
+// commands the store sends. the bytes are counted as the redis protocol encodes the requests
+@RunWith(JMockit.class)
+public class SessionStoreBenchmarkIT {
+    private static final Logger log = LoggerFactory.getLogger(SessionStoreBenchmarkIT.class);
+    private static final int USERS = 1_000;
+    private static final int READS_PER_USER = 10;
+
+    private final Map<String, Map<String, byte[]>> hashes = new HashMap<>();
+    private final Map<String, byte[]> values = new HashMap<>();
+    private long roundTrips;
+    private long requestBytes;
+    private long fullScriptBytes;
+    private SessionService tested;
+    private SessionTouchService touchService;
+
+    @Before
+    public void setup() {
+        RedisConnection connection = new MockUp<RedisConnection>() {
+            @Mock
+            public List<byte[]> hMGet(byte[] key, byte[]... fields) {
+                sent("HMGET", key, fields);
+                Map<String, byte[]> hash = hashes.getOrDefault(string(key), Collections.emptyMap());
+                List<byte[]> result = new ArrayList<>();
+                for (byte[] field : fields) {
+                    result.add(hash.get(string(field)));
+                }
+
+                return result;
+            }
+
+            @Mock
+            public Boolean hSetNX(byte[] key, byte[] field, byte[] value) {
+                sent("HSETNX", key, field, value);
+                return hashes.computeIfAbsent(string(key), x -> new HashMap<>()).putIfAbsent(string(field), value) == null;
+            }
+
+            @Mock
+            public String scriptLoad(byte[] script) {
+                sent("SCRIPT", bytes("LOAD"), script);
+                return null;
+            }
+
+            @Mock
+            public <T> T evalSha(String sha, ReturnType returnType, int numKeys, byte[]... keysAndArgs) {
+                long sentBefore = requestBytes;
+                sent("EVALSHA", bytes(sha), bytes(Integer.toString(numKeys)), keysAndArgs);
+                fullScriptBytes += requestBytes - sentBefore - respLength(bytes(sha)) + respLength(body(sha));
+                return (T) run(sha, numKeys, keysAndArgs);
+            }
+        }.getMockInstance();
+
+        RedisTemplate<String, String> redis = new MockUp<RedisTemplate<String, String>>() {
+            @Mock
+            public <T> T execute(RedisCallback<T> action) {
+                roundTrips++;
+                return action.doInRedis(connection);
+            }
+
+            @Mock
+            public List<Object> executePipelined(RedisCallback<?> action) {
+                roundTrips++;
+                action.doInRedis(connection);
+                return Collections.emptyList();
+            }
+        }.getMockInstance();
+
+        new MockUp<UserService>() {
+            @Mock
+            public void markAsLoggedIn(User user, String sessionKey, LocalDateTime loginDate) {
+                user.setLastLoginDate(loginDate);
+                user.setLastSessionKey(sessionKey);
+            }
+        };
+
+        // every read goes to redis
+        SessionCacheProperties cacheProperties = new SessionCacheProperties();
+        cacheProperties.setTtlSeconds(0);
+
+        SessionStore store = new SessionStore(redis);
+        touchService = new SessionTouchService(store, new SessionTouchProperties());
+        tested = new SessionService(store,
+                new UserService(null, null, null, null, null),
+                new SessionCache(redis, cacheProperties),
+                touchService,
+                new SessionTokenService(null, new SessionTokenProperties()));
+    }
+
+    @Test
+    public void session() {
+        List<String> sessionKeys = new ArrayList<>();
+        reset();
+        for (int i = 1; i <= USERS; i++) {
+            User user = new User();
+            user.setId(i);
+            user.setUsername("username" + i);
+            sessionKeys.add(tested.createNewSession(user).getSessionKey());
+        }
+
+        report("login", USERS);
+        Assert.assertEquals(USERS, roundTrips);
+
+        reset();
+        for (int i = 0; i < READS_PER_USER; i++) {
+            for (String sessionKey : sessionKeys) {
+                UserSession session = tested.getSession(sessionKey);
+                Assert.assertNotNull(session);
+            }
+        }
+
+        report("read", USERS * READS_PER_USER);
+        Assert.assertEquals(USERS * READS_PER_USER, roundTrips);
+
+        reset();
+        touchService.flush();
+        report("touch flush", 1);
+        Assert.assertEquals(1, roundTrips);
+    }
+
+    private void reset() {
+        roundTrips = 0;
+        requestBytes = 0;
+        fullScriptBytes = 0;
+    }
+
+    private void report(String name, long requests) {
+        log.info("SessionStore {}: {} round trips and {} request bytes per request, {} bytes with the scripts sent in full",
+                name, (double) roundTrips / requests, requestBytes / requests, (requestBytes + fullScriptBytes) / requests);
+    }
+
+    private Object run(String sha, int numKeys, byte[][] keysAndArgs) {
+        Map<String, byte[]> hash = hashes.get(string(keysAndArgs[0]));
+        if (sha.equals(SessionStore.CREATE_SCRIPT.sha)) {
+            if (hash != null) {
+                return null;
+            }
+
+            hash = new HashMap<>();
+            for (int i = numKeys; i < numKeys + 8; i += 2) {
+                hash.put(string(keysAndArgs[i]), keysAndArgs[i + 1]);
+            }
+
+            hashes.put(string(keysAndArgs[0]), hash);
+            byte[] last = values.put(string(keysAndArgs[1]), keysAndArgs[keysAndArgs.length - 1]);
+            if (last != null) {
+                hashes.remove("S:" + string(last));
+                return last;
+            }
+
+            if (numKeys == 3) {
+                hashes.remove(string(keysAndArgs[2]));
+            }
+
+            return new byte[0];
+        }
+
+        if (hash == null) {
+            return 0L;
+        }
+
+        hash.put(string(keysAndArgs[1]), keysAndArgs[2]);
+        return 1L;
+    }
+
+    private byte[] body(String sha) {
+        for (SessionStore.Script script : new SessionStore.Script[]{SessionStore.CREATE_SCRIPT, SessionStore.SET_CURRENT_SCRIPT, SessionStore.SET_USER_SCRIPT, SessionStore.TOUCH_SCRIPT}) {
+            if (script.sha.equals(sha)) {
+                return script.body;
+            }
+        }
+
+        throw new IllegalArgumentException(sha);
+    }
+
+    private void sent(String command, byte[] first, byte[]... rest) {
+        List<byte[]> args = new ArrayList<>();
+        args.add(bytes(command));
+        args.add(first);
+        Collections.addAll(args, rest);
+        sent(args);
+    }
+
+    private void sent(String command, byte[] first, byte[] second, byte[][] rest) {
+        List<byte[]> args = new ArrayList<>();
+        args.add(bytes(command));
+        args.add(first);
+        args.add(second);
+        Collections.addAll(args, rest);
+        sent(args);
+    }
+
+    // *<count>\r\n followed by $<length>\r\n<bytes>\r\n per argument
+    private void sent(List<byte[]> args) {
+        requestBytes += 3 + Integer.toString(args.size()).length();
+        for (byte[] arg : args) {
+            requestBytes += respLength(arg);
+        }
+    }
+
+    private static long respLength(byte[] arg) {
+        return 5 + Integer.toString(arg.length).length() + arg.length;
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,298 @@
+package com.iyzico.challenge.integrator.service;
+
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(JMockit.class)
+public class SessionStoreTest {
+    private SessionStore tested;
+
+    private List<String> commands = new ArrayList<>();
+
+    private List<byte[][]> arguments = new ArrayList<>();
+
+    private RuntimeException evalShaError;
+
+    private Object evalResult = 1L;
+
+    private int pipelines;
+
+    @Before
+    public void setup() {
+        RedisConnection connection = new MockUp<RedisConnection>() {
+            @Mock
+            public List<byte[]> hMGet(byte[] key, byte[]... fields) {
+                record("hmget", key, fields);
+                return Arrays.asList(bytes("1"), null, null, null);
+            }
+
+            @Mock
+            public Boolean hSetNX(byte[] key, byte[] field, byte[] value) {
+                record("hsetnx", key, field, value);
+                return true;
+            }
+
+            @Mock
+            public Boolean hSet(byte[] key, byte[] field, byte[] value) {
+                record("hset", key, field, value);
+                return true;
+            }
+
+            @Mock
+            public byte[] hGet(byte[] key, byte[] field) {
+                record("hget", key, field);
+                return bytes("value");
+            }
+
+            @Mock
+            public Long hDel(byte[] key, byte[]... fields) {
+                record("hdel", key, fields);
+                return 1L;
+            }
+
+            @Mock
+            public byte[] get(byte[] key) {
+                record("get", key);
+                return bytes("sessionKey");
+            }
+
+            @Mock
+            public Long del(byte[]... keys) {
+                record("del", keys);
+                return 1L;
+            }
+
+            @Mock
+            public String scriptLoad(byte[] script) {
+                record("script load", script);
+                return null;
+            }
+
+            @Mock
+            public <T> T evalSha(String sha, ReturnType returnType, int numKeys, byte[]... keysAndArgs) {
+                record("evalsha " + sha + " " + numKeys, keysAndArgs);
+                if (evalShaError != null) {
+                    throw evalShaError;
+                }
+
+                return (T) evalResult;
+            }
+
+            @Mock
+            public <T> T eval(byte[] script, ReturnType returnType, int numKeys, byte[]... keysAndArgs) {
+                record("eval " + new String(script, StandardCharsets.UTF_8) + " " + numKeys, keysAndArgs);
+                return (T) evalResult;
+            }
+        }.getMockInstance();
+
+        RedisTemplate<String, String> redis = new MockUp<RedisTemplate<String, String>>() {
+            @Mock
+            public <T> T execute(RedisCallback<T> action) {
+                return action.doInRedis(connection);
+            }
+
+            @Mock
+            public List<Object> executePipelined(RedisCallback<?> action) {
+                pipelines++;
+                action.doInRedis(connection);
+                return Collections.emptyList();
+            }
+        }.getMockInstance();
+
+        tested = new SessionStore(redis);
+    }
+
+    @Test
+    public void key() {
+        Assert.assertArrayEquals(bytes("S:sessionKey"), SessionStore.key("sessionKey"));
+        Assert.assertArrayEquals(bytes("S:"), SessionStore.key(""));
+        Assert.assertArrayEquals(bytes("U:12"), SessionStore.userKey(12));
+    }
+
+    @Test
+    public void script() {
+        Assert.assertEquals(DigestUtils.sha1DigestAsHex(new String(SessionStore.CREATE_SCRIPT.body, StandardCharsets.UTF_8)),
+                SessionStore.CREATE_SCRIPT.sha);
+        Assert.assertEquals(40, SessionStore.CREATE_SCRIPT.sha.length());
+    }
+
+    @Test
+    public void read() {
+        List<byte[]> result = tested.read("sessionKey");
+        Assert.assertEquals(4, result.size());
+        Assert.assertEquals("1", SessionStore.decode(result.get(0)));
+        Assert.assertNull(SessionStore.decode(result.get(1)));
+
+        Assert.assertEquals(Collections.singletonList("hmget"), commands);
+        Assert.assertArrayEquals(new byte[][]{
+                bytes("S:sessionKey"),
+                SessionStore.USER_ID_KEY, SessionStore.CREATED_KEY, SessionStore.LAST_LOGIN_KEY, SessionStore.USER_KEY
+        }, arguments.get(0));
+    }
+
+    @Test
+    public void create() {
+        evalResult = bytes("previousSessionKey");
+        LocalDateTime now = LocalDateTime.now();
+        Assert.assertEquals("previousSessionKey", tested.create("sessionKey", "lastSessionKey", 1, now, "snapshot", 86400));
+
+        Assert.assertEquals(Collections.singletonList("evalsha " + SessionStore.CREATE_SCRIPT.sha + " 3"), commands);
+        Assert.assertArrayEquals(new byte[][]{
+                bytes("S:sessionKey"), bytes("U:1"), bytes("S:lastSessionKey"),
+                SessionStore.USER_ID_KEY, bytes("1"),
+                SessionStore.CREATED_KEY, bytes(now.toString()),
+                SessionStore.LAST_LOGIN_KEY, bytes(now.toString()),
+                SessionStore.USER_KEY, bytes("snapshot"),
+                bytes("86400"),
+                bytes("sessionKey")
+        }, arguments.get(0));
+    }
+
+    @Test
+    public void create_NoPreviousSession() {
+        evalResult = bytes("");
+        Assert.assertEquals("", tested.create("sessionKey", null, 1, LocalDateTime.now(), "snapshot", 86400));
+
+        Assert.assertEquals(Collections.singletonList("evalsha " + SessionStore.CREATE_SCRIPT.sha + " 2"), commands);
+        Assert.assertEquals(12, arguments.get(0).length);
+        Assert.assertArrayEquals(bytes("U:1"), arguments.get(0)[1]);
+    }
+
+    @Test
+    public void create_KeyTaken() {
+        evalResult = null;
+        Assert.assertNull(tested.create("sessionKey", null, 1, LocalDateTime.now(), "snapshot", 86400));
+    }
+
+    @Test
+    public void create_ScriptNotLoaded() {
+        evalResult = bytes("");
+        evalShaError = new RedisSystemException("Error in execution", new RuntimeException("NOSCRIPT No matching script. Please use EVAL."));
+        Assert.assertEquals("", tested.create("sessionKey", null, 1, LocalDateTime.now(), "snapshot", 86400));
+
+        Assert.assertEquals(Arrays.asList(
+                "evalsha " + SessionStore.CREATE_SCRIPT.sha + " 2",
+                "eval " + new String(SessionStore.CREATE_SCRIPT.body, StandardCharsets.UTF_8) + " 2"), commands);
+        Assert.assertArrayEquals(arguments.get(0), arguments.get(1));
+    }
+
+    @Test(expected = RedisSystemException.class)
+    public void create_Failed() {
+        evalShaError = new RedisSystemException("Error in execution", new RuntimeException("OOM command not allowed"));
+        tested.create("sessionKey", null, 1, LocalDateTime.now(), "snapshot", 86400);
+    }
+
+    @Test
+    public void getCurrent() {
+        Assert.assertEquals("sessionKey", tested.getCurrent(1));
+
+        Assert.assertEquals(Collections.singletonList("get"), commands);
+        Assert.assertArrayEquals(new byte[][]{bytes("U:1")}, arguments.get(0));
+    }
+
+    @Test
+    public void setCurrent() {
+        evalResult = bytes("lastPayload.lastSignature");
+        Assert.assertEquals("lastPayload.lastSignature", tested.setCurrent(1, "payload.signature", 3600));
+
+        Assert.assertEquals(Collections.singletonList("evalsha " + SessionStore.SET_CURRENT_SCRIPT.sha + " 1"), commands);
+        Assert.assertArrayEquals(new byte[][]{bytes("U:1"), bytes("payload.signature"), bytes("3600")}, arguments.get(0));
+    }
+
+    @Test
+    public void setCurrent_NoPreviousSession() {
+        evalResult = null;
+        Assert.assertNull(tested.setCurrent(1, "payload.signature", 3600));
+    }
+
+    @Test
+    public void setUser() {
+        tested.setUser("sessionKey", "snapshot");
+
+        Assert.assertEquals(Collections.singletonList("evalsha " + SessionStore.SET_USER_SCRIPT.sha + " 1"), commands);
+        Assert.assertArrayEquals(new byte[][]{bytes("S:sessionKey"), SessionStore.USER_KEY, bytes("snapshot")}, arguments.get(0));
+    }
+
+    @Test
+    public void setUserIfAbsent() {
+        tested.setUserIfAbsent("sessionKey", "snapshot");
+
+        Assert.assertEquals(Collections.singletonList("hsetnx"), commands);
+        Assert.assertArrayEquals(new byte[][]{bytes("S:sessionKey"), SessionStore.USER_KEY, bytes("snapshot")}, arguments.get(0));
+    }
+
+    @Test
+    public void touch() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, LocalDateTime> touches = new LinkedHashMap<>();
+        touches.put("first", now);
+        touches.put("second", now);
+        tested.touch(touches, 86400);
+
+        Assert.assertEquals(1, pipelines);
+        String evalSha = "evalsha " + SessionStore.TOUCH_SCRIPT.sha + " 1";
+        Assert.assertEquals(Arrays.asList("script load", evalSha, evalSha), commands);
+        Assert.assertArrayEquals(new byte[][]{SessionStore.TOUCH_SCRIPT.body}, arguments.get(0));
+        Assert.assertArrayEquals(new byte[][]{
+                bytes("S:first"), SessionStore.LAST_LOGIN_KEY, bytes(now.toString()), bytes("86400"),
+                SessionStore.USER_ID_KEY, bytes("first")
+        }, arguments.get(1));
+        Assert.assertArrayEquals(bytes("S:second"), arguments.get(2)[0]);
+    }
+
+    @Test
+    public void delete() {
+        tested.delete("sessionKey");
+
+        Assert.assertEquals(Collections.singletonList("del"), commands);
+        Assert.assertArrayEquals(new byte[][]{bytes("S:sessionKey")}, arguments.get(0));
+    }
+
+    @Test
+    public void values() {
+        tested.setValue("sessionKey", "key", "value");
+        Assert.assertEquals("value", tested.getValue("sessionKey", "key"));
+        tested.deleteValue("sessionKey", "key");
+
+        Assert.assertEquals(Arrays.asList("hset", "hget", "hdel"), commands);
+        Assert.assertArrayEquals(new byte[][]{bytes("S:sessionKey"), bytes("key"), bytes("value")}, arguments.get(0));
+        Assert.assertArrayEquals(new byte[][]{bytes("S:sessionKey"), bytes("key")}, arguments.get(1));
+        Assert.assertArrayEquals(new byte[][]{bytes("S:sessionKey"), bytes("key")}, arguments.get(2));
+    }
+
+    private void record(String command, byte[] key, byte[]... rest) {
+        byte[][] args = new byte[rest.length + 1][];
+        args[0] = key;
+        System.arraycopy(rest, 0, args, 1, rest.length);
+        record(command, args);
+    }
+
+    private void record(String command, byte[][] args) {
+        commands.add(command);
+        arguments.add(args);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.iyzico.challenge.integrator.properties.SessionTouchProperties;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(JMockit.class)
+public class SessionTouchServiceTest {
+    private SessionTouchService tested;
+
+    private AtomicLong clock = new AtomicLong();
+
+    private AtomicInteger pipelines = new AtomicInteger();
+
+    private List<String> touchedKeys = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        SessionStore store = new MockUp<SessionStore>() {
+            @Mock
+            public void touch(Map<String, LocalDateTime> touches, long ttlSeconds) {
+                pipelines.incrementAndGet();
+                Assert.assertEquals(86400, ttlSeconds);
+                touchedKeys.addAll(touches.keySet());
+            }
+        }.getMockInstance();
+
+        SessionTouchProperties properties = new SessionTouchProperties();
+        properties.setGranularitySeconds(60);
+        tested = new SessionTouchService(store, properties, clock::get);
+    }
+
+    @Test
+    public void touch() {
+        tested.touch("first");
+        tested.touch("first");
+        tested.touch("second");
+        Assert.assertEquals(2, tested.getPendingCount());
+
+        tested.flush();
+        Assert.assertEquals(1, pipelines.get());
+        Collections.sort(touchedKeys);
+        Assert.assertEquals(Arrays.asList("first", "second"), touchedKeys);
+        Assert.assertEquals(0, tested.getPendingCount());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        tested.touch("first");
+        Assert.assertEquals(0, tested.getPendingCount());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        tested.touch("first");
+        Assert.assertEquals(1, tested.getPendingCount());
+    }
+
+    @Test
+    public void touched() {
+        tested.touched("first");
+        tested.touch("first");
+        Assert.assertEquals(0, tested.getPendingCount());
+    }
+
+    @Test
+    public void forget() {
+        tested.touch("first");
+        tested.forget("first");
+        Assert.assertEquals(0, tested.getPendingCount());
+
+        tested.touch("first");
+        Assert.assertEquals(1, tested.getPendingCount());
+    }
+
+    @Test
+    public void flush_NothingPending() {
+        tested.flush();
+        Assert.assertEquals(0, pipelines.get());
+    }
+}
@@ -0,0 +1,62 @@
+package com.iyzico.challenge.integrator.service;
+
+import com.iyzico.challenge.integrator.data.entity.User;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+public class UserSnapshotTest {
+    @Test
+    public void encodeDecode() {
+        LocalDateTime now = LocalDateTime.now();
+        User user = new User();
+        user.setId(1);
+        user.setUserProfileId(2);
+        user.setUsername("username");
+        user.setPassword("password");
+        user.setAdmin(true);
+        user.setActive(false);
+        user.setLastLoginDate(now);
+
+        User result = UserSnapshot.decode(UserSnapshot.encode(user));
+        Assert.assertNotNull(result);
+        Assert.assertEquals(1, result.getId());
+        Assert.assertEquals(2, result.getUserProfileId());
+        Assert.assertEquals("username", result.getUsername());
+        Assert.assertEquals(now, result.getLastLoginDate());
+        Assert.assertTrue(result.isAdmin());
+        Assert.assertFalse(result.isActive());
+        Assert.assertNull(result.getPassword());
+    }
+
+    @Test
+    public void encodeDecode_NeverLoggedIn() {
+        User user = new User();
+        user.setId(1);
+
+        User result = UserSnapshot.decode(UserSnapshot.encode(user));
+        Assert.assertNotNull(result);
+        Assert.assertNull(result.getLastLoginDate());
+        Assert.assertEquals("", result.getUsername());
+        Assert.assertTrue(result.isActive());
+    }
+
+    @Test
+    public void decode_UnknownVersion() {
+        User user = new User();
+        user.setId(1);
+        byte[] bytes = Base64.getUrlDecoder().decode(UserSnapshot.encode(user));
+        bytes[0] = UserSnapshot.VERSION + 1;
+
+        Assert.assertNull(UserSnapshot.decode(Base64.getUrlEncoder().encodeToString(bytes)));
+    }
+
+    @Test
+    public void decode_Invalid() {
+        Assert.assertNull(UserSnapshot.decode(null));
+        Assert.assertNull(UserSnapshot.decode("not base64!"));
+        Assert.assertNull(UserSnapshot.decode("AQ"));
+    }
+}
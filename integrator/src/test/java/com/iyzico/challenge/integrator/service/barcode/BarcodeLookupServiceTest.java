@@ -0,0 +1,167 @@
+package com.iyzico.challenge.integrator.service.barcode;
+
+import com.iyzico.challenge.integrator.data.entity.Product;
+import com.iyzico.challenge.integrator.data.repository.ProductBarcode;
+import com.iyzico.challenge.integrator.data.service.ProductService;
+import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.exception.ProductNotFoundException;
+import com.iyzico.challenge.integrator.properties.BarcodeIndexProperties;
+import com.iyzico.challenge.integrator.service.ProductCatalogService;
+import mockit.Deencapsulation;
+import mockit.Injectable;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RunWith(JMockit.class)
+public class BarcodeLookupServiceTest {
+    private BarcodeLookupService tested;
+
+    @Injectable
+    private ProductService productService;
+
+    @Injectable
+    private ProductCatalogService catalogService;
+
+    @Injectable
+    private PlatformTransactionManager manager;
+
+    private OffHeapBarcodeMap barcodes;
+
+    @Before
+    public void setup() {
+        tested = new BarcodeLookupService(productService, catalogService, manager, new BarcodeIndexProperties());
+        barcodes = Deencapsulation.getField(tested, OffHeapBarcodeMap.class);
+
+        TransactionTemplate readOnlyTransactionTemplate = new MockUp<TransactionTemplate>() {
+            @Mock
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        }.getMockInstance();
+        Deencapsulation.setField(tested, readOnlyTransactionTemplate);
+    }
+
+    @Test
+    public void getPublishedItem_Cached() {
+        barcodes.put("barcode", 1);
+        ProductDto dto = dto("barcode");
+        new StrictExpectations() {{
+            catalogService.getPublishedItem(1L);
+            result = dto;
+        }};
+
+        Assert.assertEquals(dto, tested.getPublishedItem("barcode"));
+    }
+
+    @Test
+    public void getPublishedItem_NotCached() {
+        Product product = product(1, "barcode");
+        ProductDto dto = dto("barcode");
+        new StrictExpectations() {{
+            productService.getByBarcode("barcode");
+            result = product;
+
+            catalogService.getPublishedItem(1L);
+            result = dto;
+        }};
+
+        Assert.assertEquals(dto, tested.getPublishedItem("barcode"));
+        Assert.assertEquals(1, barcodes.get("barcode"));
+    }
+
+    @Test
+    public void getPublishedItem_StaleEntry() {
+        barcodes.put("barcode", 1);
+        Product product = product(2, "barcode");
+        ProductDto dto = dto("barcode");
+        new StrictExpectations() {{
+            catalogService.getPublishedItem(1L);
+            result = dto("another");
+
+            productService.getByBarcode("barcode");
+            result = product;
+
+            catalogService.getPublishedItem(2L);
+            result = dto;
+        }};
+
+        Assert.assertEquals(dto, tested.getPublishedItem("barcode"));
+        Assert.assertEquals(2, barcodes.get("barcode"));
+    }
+
+    @Test(expected = ProductNotFoundException.class)
+    public void getPublishedItem_NotFound() {
+        new StrictExpectations() {{
+            productService.getByBarcode("barcode");
+            result = new ProductNotFoundException("test");
+        }};
+
+        tested.getPublishedItem("barcode");
+    }
+
+    @Test
+    public void load() {
+        new StrictExpectations() {{
+            productService.streamAllBarcodes();
+            result = Stream.of(barcode(1, "first"), barcode(2, "second"));
+        }};
+
+        tested.load();
+        Assert.assertEquals(1, barcodes.get("first"));
+        Assert.assertEquals(2, barcodes.get("second"));
+    }
+
+    @Test
+    public void onProductsChanged() {
+        barcodes.put("old", 1);
+        List<Long> productIds = Arrays.asList(1L, 2L);
+        new StrictExpectations() {{
+            productService.getByIds(productIds);
+            result = Collections.singletonList(product(2, "old"));
+        }};
+
+        tested.onProductsChanged(productIds);
+        Assert.assertEquals(2, barcodes.get("old"));
+    }
+
+    private static Product product(long id, String barcode) {
+        Product product = new Product();
+        product.setId(id);
+        product.setBarcode(barcode);
+        return product;
+    }
+
+    private static ProductDto dto(String barcode) {
+        ProductDto dto = new ProductDto();
+        dto.setBarcode(barcode);
+        return dto;
+    }
+
+    private static ProductBarcode barcode(long id, String barcode) {
+        return new ProductBarcode() {
+            @Override
+            public long getId() {
+                return id;
+            }
+
+            @Override
+            public String getBarcode() {
+                return barcode;
+            }
+        };
+    }
+}
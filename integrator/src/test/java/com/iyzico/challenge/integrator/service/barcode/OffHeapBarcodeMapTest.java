@@ -0,0 +1,110 @@
+package com.iyzico.challenge.integrator.service.barcode;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OffHeapBarcodeMapTest {
+    @Test
+    public void constructor_CapacityIsPowerOfTwo() {
+        Assert.assertEquals(16, new OffHeapBarcodeMap(1).capacity());
+        Assert.assertEquals(16, new OffHeapBarcodeMap(16).capacity());
+        Assert.assertEquals(32, new OffHeapBarcodeMap(17).capacity());
+    }
+
+    @Test
+    public void putAndGet() {
+        OffHeapBarcodeMap tested = new OffHeapBarcodeMap(16);
+        Assert.assertTrue(tested.put("8690000000001", 1));
+        Assert.assertTrue(tested.put("8690000000002", 2));
+
+        Assert.assertEquals(1, tested.get("8690000000001"));
+        Assert.assertEquals(2, tested.get("8690000000002"));
+        Assert.assertEquals(OffHeapBarcodeMap.NOT_FOUND, tested.get("8690000000003"));
+        Assert.assertEquals(2, tested.size());
+    }
+
+    @Test
+    public void put_Overwrite() {
+        OffHeapBarcodeMap tested = new OffHeapBarcodeMap(16);
+        tested.put("barcode", 1);
+        tested.put("barcode", 2);
+
+        Assert.assertEquals(2, tested.get("barcode"));
+        Assert.assertEquals(1, tested.size());
+    }
+
+    @Test
+    public void put_KeyDoesNotFit() {
+        OffHeapBarcodeMap tested = new OffHeapBarcodeMap(16);
+        String barcode = StringUtils.repeat('1', OffHeapBarcodeMap.MAX_KEY_BYTES + 1);
+
+        Assert.assertFalse(tested.put(barcode, 1));
+        Assert.assertFalse(tested.put("", 1));
+        Assert.assertFalse(tested.put(null, 1));
+        Assert.assertEquals(OffHeapBarcodeMap.NOT_FOUND, tested.get(barcode));
+        Assert.assertEquals(OffHeapBarcodeMap.NOT_FOUND, tested.get(null));
+        Assert.assertEquals(0, tested.size());
+    }
+
+    @Test
+    public void put_MultiByteKey() {
+        OffHeapBarcodeMap tested = new OffHeapBarcodeMap(16);
+        tested.put("ÇĞİÖŞÜ-1", 1);
+
+        Assert.assertEquals(1, tested.get("ÇĞİÖŞÜ-1"));
+    }
+
+    @Test
+    public void put_Resize() {
+        OffHeapBarcodeMap tested = new OffHeapBarcodeMap(16);
+        for (int i = 0; i < 1000; i++) {
+            tested.put("barcode-" + i, i);
+        }
+
+        Assert.assertEquals(1000, tested.size());
+        Assert.assertTrue(tested.capacity() >= 1000 * 4 / 3);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i, tested.get("barcode-" + i));
+        }
+    }
+
+    @Test
+    public void remove() {
+        OffHeapBarcodeMap tested = new OffHeapBarcodeMap(16);
+        tested.put("first", 1);
+        tested.put("second", 2);
+        tested.remove("first");
+        tested.remove("unknown");
+
+        Assert.assertEquals(OffHeapBarcodeMap.NOT_FOUND, tested.get("first"));
+        Assert.assertEquals(2, tested.get("second"));
+        Assert.assertEquals(1, tested.size());
+
+        tested.put("first", 3);
+        Assert.assertEquals(3, tested.get("first"));
+        Assert.assertEquals(2, tested.size());
+    }
+
+    @Test
+    public void remove_TombstonesAreReclaimed() {
+        OffHeapBarcodeMap tested = new OffHeapBarcodeMap(16);
+        for (int i = 0; i < 1000; i++) {
+            tested.put("barcode-" + i, i);
+            tested.remove("barcode-" + i);
+        }
+
+        Assert.assertEquals(0, tested.size());
+        Assert.assertEquals(16, tested.capacity());
+    }
+
+    @Test
+    public void clear() {
+        OffHeapBarcodeMap tested = new OffHeapBarcodeMap(16);
+        tested.put("first", 1);
+        tested.clear();
+
+        Assert.assertEquals(OffHeapBarcodeMap.NOT_FOUND, tested.get("first"));
+        Assert.assertEquals(0, tested.size());
+    }
+}
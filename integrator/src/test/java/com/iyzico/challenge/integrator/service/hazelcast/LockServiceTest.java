@@ -1,11 +1,14 @@
 package com.iyzico.challenge.integrator.service.hazelcast;
 
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IAtomicLong;
 import com.hazelcast.core.IMap;
 import com.iyzico.challenge.integrator.data.entity.User;
 import com.iyzico.challenge.integrator.dto.ErrorCode;
 import com.iyzico.challenge.integrator.exception.BaseIntegratorException;
+import com.iyzico.challenge.integrator.properties.LockProperties;
 import com.iyzico.challenge.integrator.service.hazelcast.exception.CannotHoldTheLockException;
+import com.iyzico.challenge.integrator.service.hazelcast.metrics.LockMetrics;
 import mockit.Deencapsulation;
 import mockit.Expectations;
 import mockit.Injectable;
@@ -18,6 +21,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
@@ -29,13 +34,25 @@ public class LockServiceTest {
     @Injectable
     private HazelcastInstance hazelcast;
 
+    @Injectable
+    private LockMetrics metrics;
+
+    @Injectable
+    private LockProperties lockProperties;
+
+    @Injectable
+    private IAtomicLong fence;
+
     @Mocked
     private IMap<String, Object> lockMap;
 
+    private final LockProperties properties = new LockProperties();
+
     @Before
     public void setup() {
-        tested = new LockService(hazelcast);
+        tested = new LockService(hazelcast, new LockMetrics(), properties);
         Deencapsulation.setField(tested, lockMap);
+        Deencapsulation.setField(tested, "fence", fence);
     }
 
     @Test
@@ -43,10 +60,14 @@ public class LockServiceTest {
         new StrictExpectations() {{
             hazelcast.getMap("integrator.lock.map");
             result = lockMap;
+
+            hazelcast.getAtomicLong("integrator.lock.fence");
+            result = fence;
         }};
 
-        LockService lockService = new LockService(hazelcast);
+        LockService lockService = new LockService(hazelcast, metrics, properties);
         Assert.assertEquals(lockMap, Deencapsulation.getField(lockService, IMap.class));
+        Assert.assertEquals(fence, Deencapsulation.getField(lockService, "fence"));
     }
 
     @Test
@@ -75,10 +96,10 @@ public class LockServiceTest {
         BLock lock = tested.getProductLock(productId);
 
         new StrictExpectations() {{
-            lockMap.tryLock(key, 1, TimeUnit.SECONDS);
+            lockMap.tryLock(key, 1, TimeUnit.SECONDS, 60, TimeUnit.SECONDS);
             lockMap.forceUnlock(key);
             lockMap.isLocked(key);
-            lockMap.lock(key);
+            lockMap.lock(key, 60, TimeUnit.SECONDS);
         }};
 
         Assert.assertNotNull(lock);
@@ -121,7 +142,7 @@ public class LockServiceTest {
         }};
 
         new StrictExpectations() {{
-            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS);
+            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS, 60, TimeUnit.SECONDS);
             result = new InterruptedException();
         }};
 
@@ -143,7 +164,7 @@ public class LockServiceTest {
         };
 
         new StrictExpectations() {{
-            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS);
+            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS, 60, TimeUnit.SECONDS);
             result = true;
 
             lockMap.unlock(lockKey);
@@ -167,7 +188,7 @@ public class LockServiceTest {
         };
 
         new StrictExpectations() {{
-            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS);
+            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS, 60, TimeUnit.SECONDS);
             result = true;
 
             lockMap.unlock(lockKey);
@@ -185,7 +206,7 @@ public class LockServiceTest {
         };
 
         new StrictExpectations() {{
-            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS);
+            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS, 60, TimeUnit.SECONDS);
             result = true;
 
             lockMap.unlock(lockKey);
@@ -208,7 +229,7 @@ public class LockServiceTest {
         }};
 
         new StrictExpectations() {{
-            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS);
+            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS, 60, TimeUnit.SECONDS);
             result = false;
         }};
 
@@ -223,7 +244,7 @@ public class LockServiceTest {
         Callable<Object> callable = () -> object;
 
         new StrictExpectations() {{
-            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS);
+            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS, 60, TimeUnit.SECONDS);
             result = true;
 
             lockMap.unlock(anyString);
@@ -233,4 +254,120 @@ public class LockServiceTest {
         Assert.assertNotNull(result);
         Assert.assertEquals(object, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void lockAll() throws InterruptedException {
+        new StrictExpectations() {{
+            lockMap.tryLock("a", anyLong, TimeUnit.NANOSECONDS, 60, TimeUnit.SECONDS);
+            result = true;
+
+            lockMap.tryLock("b", anyLong, TimeUnit.NANOSECONDS, 60, TimeUnit.SECONDS);
+            result = true;
+
+            fence.incrementAndGet();
+            result = 7L;
+
+            lockMap.unlock("b");
+
+            lockMap.unlock("a");
+        }};
+
+        MultiLock locks = tested.lockAll(Arrays.asList("b", "a", "b"), 30, TimeUnit.SECONDS);
+        Assert.assertEquals(Arrays.asList("a", "b"), locks.getNames());
+        Assert.assertEquals(7L, locks.getFencingToken());
+        Assert.assertFalse(locks.isReleased());
+
+        locks.unlock();
+        Assert.assertTrue(locks.isReleased());
+
+        // second release must be a no-op
+        locks.unlock();
+    }
+
+    @Test
+    public void lockAll_CannotHoldLock() throws InterruptedException {
+        new StrictExpectations() {{
+            lockMap.tryLock("a", anyLong, TimeUnit.NANOSECONDS, 60, TimeUnit.SECONDS);
+            result = true;
+
+            lockMap.tryLock("b", anyLong, TimeUnit.NANOSECONDS, 60, TimeUnit.SECONDS);
+            result = false;
+
+            lockMap.unlock("a");
+        }};
+
+        try {
+            tested.lockAll(Arrays.asList("a", "b", "c"), 30, TimeUnit.SECONDS);
+            Assert.fail("Expected CannotHoldTheLockException");
+        } catch (CannotHoldTheLockException e) {
+            Assert.assertEquals("b", e.getKey());
+        }
+    }
+
+    @Test
+    public void lockAll_UnlockRetries() throws InterruptedException {
+        new StrictExpectations() {{
+            lockMap.tryLock("a", anyLong, TimeUnit.NANOSECONDS, 60, TimeUnit.SECONDS);
+            result = true;
+
+            lockMap.unlock("a");
+            result = new RuntimeException("test");
+
+            lockMap.unlock("a");
+        }};
+
+        tested.lockAll(Collections.singletonList("a"), 30, TimeUnit.SECONDS).unlock();
+    }
+
+    @Test
+    public void lockProducts() {
+        MultiLock locks = new MultiLock(tested, Collections.emptyList(), 1L);
+        new StrictExpectations(tested) {{
+            tested.lockAll(Arrays.asList("product-1", "product-2"), 30, TimeUnit.SECONDS);
+            result = locks;
+        }};
+
+        Assert.assertEquals(locks, tested.lockProducts(Arrays.asList(1L, 2L)));
+    }
+
+    @Test
+    public void executeInLock_Fenced() throws InterruptedException {
+        String lockKey = "lockKey";
+
+        new StrictExpectations() {{
+            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS, 60, TimeUnit.SECONDS);
+            result = true;
+
+            fence.incrementAndGet();
+            result = 42L;
+
+            lockMap.unlock(lockKey);
+        }};
+
+        Long result = tested.executeInLock(lockKey, (FencedCallable<Long>) token -> token);
+        Assert.assertEquals(Long.valueOf(42L), result);
+    }
+
+    @Test
+    public void executeInLock_LeaseExpired() throws InterruptedException {
+        String lockKey = "lockKey";
+
+        Object object = new Object();
+        Callable<Object> callable = () -> object;
+
+        new StrictExpectations() {{
+            lockMap.tryLock(lockKey, 30, TimeUnit.SECONDS, 60, TimeUnit.SECONDS);
+            result = true;
+
+            lockMap.unlock(lockKey);
+            result = new IllegalMonitorStateException("Current thread is not owner of the lock!");
+        }};
+
+        Assert.assertEquals(object, tested.executeInLock(lockKey, callable));
+
+        LockMetrics lockMetrics = Deencapsulation.getField(tested, "metrics");
+        LockMetrics.PrefixSnapshot prefix = lockMetrics.getPrefixes().get(0);
+        Assert.assertEquals(1, prefix.getAcquired());
+        Assert.assertEquals(1, prefix.getHoldTime().getCount());
+    }
+}
@@ -0,0 +1,107 @@
+package com.iyzico.challenge.integrator.service.hazelcast.metrics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LockMetricsTest {
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private LockMetrics tested;
+
+    @Before
+    public void setup() {
+        tested = new LockMetrics(clock::get);
+    }
+
+    @Test
+    public void acquiredAndReleased() {
+        long startedAt = tested.startWaiting("basket-1");
+        Assert.assertEquals(1, tested.getPrefixes().get(0).getWaiting());
+
+        clock.addAndGet(TimeUnit.MICROSECONDS.toNanos(100));
+        long acquiredAt = tested.acquired("basket-1", startedAt);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5));
+        tested.released("basket-1", acquiredAt);
+
+        List<LockMetrics.PrefixSnapshot> prefixes = tested.getPrefixes();
+        Assert.assertEquals(1, prefixes.size());
+
+        LockMetrics.PrefixSnapshot basket = prefixes.get(0);
+        Assert.assertEquals("basket", basket.getPrefix());
+        Assert.assertEquals(1, basket.getAcquired());
+        Assert.assertEquals(0, basket.getTimeouts());
+        Assert.assertEquals(0, basket.getWaiting());
+        Assert.assertEquals(1, basket.getMaxWaiting());
+        Assert.assertEquals(100, basket.getWaitTime().getMaxMicros());
+        Assert.assertEquals(5000, basket.getHoldTime().getMaxMicros());
+        Assert.assertEquals(1, basket.getHoldTime().getCount());
+
+        // fast acquisitions are not reported as contention
+        Assert.assertTrue(tested.getMostContendedKeys(10).isEmpty());
+    }
+
+    @Test
+    public void mostContendedKeys() {
+        contend("product-1", 50);
+        contend("product-2", 10);
+        contend("product-2", 10);
+        contend("basket-1", 30);
+
+        long startedAt = tested.startWaiting("product-3");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(15));
+        tested.timedOut("product-3", startedAt);
+
+        List<LockMetrics.ContendedKey> top = tested.getMostContendedKeys(2);
+        Assert.assertEquals(2, top.size());
+        Assert.assertEquals("product-1", top.get(0).getKey());
+        Assert.assertEquals("basket-1", top.get(1).getKey());
+
+        List<LockMetrics.ContendedKey> all = tested.getMostContendedKeys(10);
+        Assert.assertEquals(4, all.size());
+        Assert.assertEquals("product-2", all.get(3).getKey());
+        Assert.assertEquals(2, all.get(3).getContentions());
+
+        LockMetrics.PrefixSnapshot product = tested.getPrefixes().get(1);
+        Assert.assertEquals("product", product.getPrefix());
+        Assert.assertEquals(3, product.getAcquired());
+        Assert.assertEquals(1, product.getTimeouts());
+    }
+
+    @Test
+    public void mostContendedKeys_SlidingWindow() {
+        contend("product-1", 50);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(tested.getWindowSeconds()) + LockMetrics.WINDOW_SLOT_NANOS);
+        contend("product-2", 10);
+
+        List<LockMetrics.ContendedKey> top = tested.getMostContendedKeys(10);
+        Assert.assertEquals(1, top.size());
+        Assert.assertEquals("product-2", top.get(0).getKey());
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(10));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(100));
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(100, snapshot.getCount());
+        Assert.assertEquals(16, snapshot.getP50Micros());
+        Assert.assertEquals(16, snapshot.getP99Micros());
+        Assert.assertEquals(100_000, snapshot.getMaxMicros());
+    }
+
+    private void contend(String key, long waitMillis) {
+        long startedAt = tested.startWaiting(key);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(waitMillis));
+        tested.acquired(key, startedAt);
+    }
+}
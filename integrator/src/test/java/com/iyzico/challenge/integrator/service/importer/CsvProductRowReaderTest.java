@@ -0,0 +1,69 @@
+package com.iyzico.challenge.integrator.service.importer;
+
+import com.iyzico.challenge.integrator.exception.InvalidImportRequestException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+public class CsvProductRowReaderTest {
+    @Test
+    public void next() throws IOException {
+        CsvProductRowReader tested = new CsvProductRowReader(new StringReader(
+                "barcode,name,stock_count,price,description\r\n" +
+                        "123,\"Name, with \"\"quotes\"\"\",5,10.50,\"first line\nsecond line\"\n" +
+                        "\n" +
+                        "456,Second,0,1,\n"));
+
+        ProductRow first = tested.next();
+        Assert.assertNull(first.getError());
+        Assert.assertEquals(2, first.getLine());
+        Assert.assertEquals("123", first.getRequest().getBarcode());
+        Assert.assertEquals("Name, with \"quotes\"", first.getRequest().getName());
+        Assert.assertEquals(5, first.getRequest().getStockCount());
+        Assert.assertEquals(new BigDecimal("10.50"), first.getRequest().getPrice());
+        Assert.assertEquals("first line\nsecond line", first.getRequest().getDescription());
+
+        ProductRow second = tested.next();
+        Assert.assertEquals(5, second.getLine());
+        Assert.assertEquals("456", second.getRequest().getBarcode());
+        Assert.assertEquals("", second.getRequest().getDescription());
+
+        Assert.assertNull(tested.next());
+    }
+
+    @Test
+    public void next_InvalidRows() throws IOException {
+        CsvProductRowReader tested = new CsvProductRowReader(new StringReader(
+                "name,barcode,stockCount,price\n" +
+                        "name,123,many,1\n" +
+                        "name,123\n" +
+                        "name,123,1,\"1"));
+
+        ProductRow row = tested.next();
+        Assert.assertEquals(2, row.getLine());
+        Assert.assertEquals("stockCount: must be a number", row.getError());
+
+        row = tested.next();
+        Assert.assertEquals(3, row.getLine());
+        Assert.assertEquals("expected 4 columns but found 2", row.getError());
+
+        row = tested.next();
+        Assert.assertEquals(4, row.getLine());
+        Assert.assertEquals("unterminated quoted field", row.getError());
+
+        Assert.assertNull(tested.next());
+    }
+
+    @Test(expected = InvalidImportRequestException.class)
+    public void next_MissingColumn() throws IOException {
+        new CsvProductRowReader(new StringReader("name,barcode,price\n")).next();
+    }
+
+    @Test(expected = InvalidImportRequestException.class)
+    public void next_EmptyBody() throws IOException {
+        new CsvProductRowReader(new StringReader("")).next();
+    }
+}
@@ -0,0 +1,40 @@
+package com.iyzico.challenge.integrator.service.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+public class NdjsonProductRowReaderTest {
+    @Test
+    public void next() throws IOException {
+        NdjsonProductRowReader tested = new NdjsonProductRowReader(new StringReader(
+                "{\"barcode\":\"123\",\"name\":\"name\",\"stockCount\":5,\"price\":10.5,\"description\":\"description\"}\n" +
+                        "\n" +
+                        "{\"barcode\":\n" +
+                        "{\"barcode\":\"456\"}"), new ObjectMapper());
+
+        ProductRow row = tested.next();
+        Assert.assertNull(row.getError());
+        Assert.assertEquals(1, row.getLine());
+        Assert.assertEquals("123", row.getRequest().getBarcode());
+        Assert.assertEquals("name", row.getRequest().getName());
+        Assert.assertEquals(5, row.getRequest().getStockCount());
+        Assert.assertEquals(new BigDecimal("10.5"), row.getRequest().getPrice());
+        Assert.assertEquals("description", row.getRequest().getDescription());
+
+        row = tested.next();
+        Assert.assertEquals(3, row.getLine());
+        Assert.assertNull(row.getRequest());
+        Assert.assertNotNull(row.getError());
+
+        row = tested.next();
+        Assert.assertEquals(4, row.getLine());
+        Assert.assertEquals("456", row.getRequest().getBarcode());
+
+        Assert.assertNull(tested.next());
+    }
+}
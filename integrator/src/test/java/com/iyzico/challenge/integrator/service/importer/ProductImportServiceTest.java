@@ -0,0 +1,137 @@
+package com.iyzico.challenge.integrator.service.importer;
+
+import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.data.service.ProductImportWriter;
+import com.iyzico.challenge.integrator.dto.product.ProductImportResult;
+import com.iyzico.challenge.integrator.dto.product.request.CreateProductRequest;
+import mockit.Deencapsulation;
+import mockit.Injectable;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validation;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+@RunWith(JMockit.class)
+public class ProductImportServiceTest {
+    private ProductImportService tested;
+
+    @Injectable
+    private ProductImportWriter writer;
+
+    @Injectable
+    private PlatformTransactionManager manager;
+
+    private User user = new User();
+
+    @Before
+    public void setup() {
+        tested = new ProductImportService(writer, Validation.buildDefaultValidatorFactory().getValidator(), manager);
+
+        TransactionTemplate requireNewTransactionTemplate = new MockUp<TransactionTemplate>() {
+            @Mock
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        }.getMockInstance();
+        Deencapsulation.setField(tested, requireNewTransactionTemplate);
+    }
+
+    @Test
+    public void importProducts() throws IOException {
+        CreateProductRequest first = request("100");
+        CreateProductRequest invalid = request("200");
+        invalid.setName("name");
+        CreateProductRequest again = request("100");
+        new StrictExpectations() {{
+            writer.write(user, Collections.singletonList(first));
+            result = new ProductImportWriter.Result(1, 0);
+
+            writer.write(user, Collections.singletonList(again));
+            result = new ProductImportWriter.Result(0, 1);
+        }};
+
+        ProductImportResult result = tested.importProducts(user, reader(
+                ProductRow.of(1, first),
+                ProductRow.of(2, invalid),
+                ProductRow.failed(3, "stockCount: must be a number"),
+                ProductRow.of(4, again)));
+
+        Assert.assertEquals(4, result.getTotal());
+        Assert.assertEquals(1, result.getCreated());
+        Assert.assertEquals(1, result.getUpdated());
+        Assert.assertEquals(2, result.getFailed());
+        Assert.assertEquals(2, result.getErrors().size());
+        Assert.assertEquals(2, result.getErrors().get(0).getLine());
+        Assert.assertEquals("200", result.getErrors().get(0).getBarcode());
+        Assert.assertEquals("name: length must be between 5 and 512", result.getErrors().get(0).getMessage());
+        Assert.assertEquals(3, result.getErrors().get(1).getLine());
+        Assert.assertNull(result.getErrors().get(1).getBarcode());
+        Assert.assertEquals("stockCount: must be a number", result.getErrors().get(1).getMessage());
+    }
+
+    @Test
+    public void importProducts_FailingChunk() throws IOException {
+        CreateProductRequest first = request("100");
+        CreateProductRequest second = request("200");
+        new StrictExpectations() {{
+            writer.write(user, Arrays.asList(first, second));
+            result = new DataIntegrityViolationException("chunk");
+
+            writer.write(user, Collections.singletonList(first));
+            result = new ProductImportWriter.Result(1, 0);
+
+            writer.write(user, Collections.singletonList(second));
+            result = new DataIntegrityViolationException("row");
+        }};
+
+        ProductImportResult result = tested.importProducts(user, reader(
+                ProductRow.of(1, first),
+                ProductRow.of(2, second)));
+
+        Assert.assertEquals(2, result.getTotal());
+        Assert.assertEquals(1, result.getCreated());
+        Assert.assertEquals(0, result.getUpdated());
+        Assert.assertEquals(1, result.getFailed());
+        Assert.assertEquals(2, result.getErrors().get(0).getLine());
+        Assert.assertEquals("row", result.getErrors().get(0).getMessage());
+    }
+
+    private static CreateProductRequest request(String barcode) {
+        CreateProductRequest request = new CreateProductRequest();
+        request.setBarcode(barcode);
+        request.setName("product " + barcode);
+        request.setStockCount(1);
+        request.setPrice(BigDecimal.ONE);
+        request.setDescription("description of the product " + barcode);
+        return request;
+    }
+
+    private static ProductRowReader reader(ProductRow... rows) {
+        Iterator<ProductRow> iterator = Arrays.asList(rows).iterator();
+        return new ProductRowReader() {
+            @Override
+            public ProductRow next() {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
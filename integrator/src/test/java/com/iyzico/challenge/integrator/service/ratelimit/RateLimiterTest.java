@@ -0,0 +1,212 @@
+package com.iyzico.challenge.integrator.service.ratelimit;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.EntryProcessor;
+import com.iyzico.challenge.integrator.properties.RateLimitProperties;
+import mockit.Expectations;
+import mockit.Injectable;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(JMockit.class)
+public class RateLimiterTest {
+    private RateLimiter tested;
+
+    @Injectable
+    private HazelcastInstance hazelcast;
+
+    @Mocked
+    private IMap<String, Long> usage;
+
+    private RateLimitProperties properties = new RateLimitProperties();
+
+    private AtomicLong clock = new AtomicLong();
+
+    @Before
+    public void setup() {
+        properties.setIpPerSecond(1);
+        properties.setIpBurst(2);
+        properties.setUserPerSecond(1);
+        properties.setUserBurst(2);
+        properties.setSyncMillis(60_000);
+
+        new NonStrictExpectations() {{
+            hazelcast.getMap(RateLimiter.USAGE_MAP);
+            result = usage;
+        }};
+    }
+
+    @After
+    public void teardown() {
+        if (tested != null) {
+            tested.stop();
+        }
+    }
+
+    @Test
+    public void tryAcquire() {
+        start();
+
+        Assert.assertTrue(tested.tryAcquireIp("10.0.0.1"));
+        Assert.assertTrue(tested.tryAcquireIp("10.0.0.1"));
+        Assert.assertFalse(tested.tryAcquireIp("10.0.0.1"));
+
+        // other ips and the users have their own buckets
+        Assert.assertTrue(tested.tryAcquireIp("10.0.0.2"));
+        Assert.assertTrue(tested.tryAcquireUser(1));
+        Assert.assertTrue(tested.tryAcquireUser(1));
+        Assert.assertFalse(tested.tryAcquireUser(1));
+        Assert.assertTrue(tested.tryAcquireUser(2));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assert.assertTrue(tested.tryAcquireIp("10.0.0.1"));
+        Assert.assertFalse(tested.tryAcquireIp("10.0.0.1"));
+        Assert.assertEquals(4, tested.size());
+    }
+
+    @Test
+    public void tryAcquire_Disabled() {
+        properties.setEnabled(false);
+        start();
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(tested.tryAcquireIp("10.0.0.1"));
+            Assert.assertTrue(tested.tryAcquireUser(1));
+        }
+        Assert.assertEquals(0, tested.size());
+    }
+
+    @Test
+    public void tryAcquire_Evict() {
+        properties.setMaxKeys(10);
+        start();
+
+        for (int i = 0; i < 10; i++) {
+            tested.tryAcquireUser(i);
+        }
+        Assert.assertEquals(10, tested.size());
+
+        Assert.assertTrue(tested.tryAcquireUser(10));
+        Assert.assertEquals(10, tested.size());
+
+        // the idle ones are dropped before the others
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        tested.sync();
+        tested.tryAcquireUser(11);
+        Assert.assertEquals(1, tested.size());
+    }
+
+    @Test
+    public void sync_EvictsIdle() {
+        start();
+
+        new Expectations() {{
+            usage.executeOnKeys((Set<String>) any, (EntryProcessor) any);
+            times = 0;
+        }};
+
+        tested.tryAcquireIp("10.0.0.1");
+        tested.sync();
+        Assert.assertEquals(1, tested.size());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        tested.sync();
+        Assert.assertEquals(0, tested.size());
+    }
+
+    @Test
+    public void sync_ClusterWide() {
+        properties.setClusterWide(true);
+        start();
+
+        new StrictExpectations() {{
+            usage.executeOnKeys(Collections.singleton("user:1"), withInstanceOf(RateLimiter.UsageProcessor.class));
+            result = Collections.singletonMap("user:1", 50L);
+
+            usage.executeOnKeys(Collections.singleton("user:1"), withInstanceOf(RateLimiter.UsageProcessor.class));
+            result = Collections.singletonMap("user:1", 52L);
+        }};
+
+        Assert.assertTrue(tested.tryAcquireUser(1));
+        // what the others used before the first sync is not taken
+        tested.sync();
+        Assert.assertTrue(tested.tryAcquireUser(1));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        // 52 - 50 - 1 request was let through by the others
+        tested.sync();
+        Assert.assertFalse(tested.tryAcquireUser(1));
+    }
+
+    @Test
+    public void sync_ClusterWide_Drained() {
+        properties.setClusterWide(true);
+        start();
+
+        new StrictExpectations() {{
+            usage.executeOnKeys((Set<String>) any, (EntryProcessor) any);
+            result = Collections.singletonMap("user:1", 5L);
+
+            usage.executeOnKeys((Set<String>) any, (EntryProcessor) any);
+            result = Collections.singletonMap("user:1", 10L);
+        }};
+
+        Assert.assertTrue(tested.tryAcquireUser(1));
+        tested.sync();
+        // 10 - 5 requests were let through by the others, the one token left is gone
+        tested.sync();
+        Assert.assertFalse(tested.tryAcquireUser(1));
+    }
+
+    @Test
+    public void sync_ClusterWide_Failed() {
+        properties.setClusterWide(true);
+        start();
+
+        new StrictExpectations() {{
+            usage.executeOnKeys((Set<String>) any, (EntryProcessor) any);
+            result = new IllegalStateException("partition lost");
+        }};
+
+        Assert.assertTrue(tested.tryAcquireIp("10.0.0.1"));
+        tested.sync();
+        Assert.assertTrue(tested.tryAcquireIp("10.0.0.1"));
+        Assert.assertFalse(tested.tryAcquireIp("10.0.0.1"));
+    }
+
+    @Test
+    public void usageProcessor() {
+        HashMap<String, Long> deltas = new HashMap<>();
+        deltas.put("user:1", 3L);
+        RateLimiter.UsageProcessor processor = new RateLimiter.UsageProcessor(deltas);
+
+        Map.Entry<String, Long> entry = new AbstractMap.SimpleEntry<>("user:1", null);
+        Assert.assertEquals(3L, processor.process(entry));
+        Assert.assertEquals(6L, processor.process(entry));
+        Assert.assertEquals(Long.valueOf(6), entry.getValue());
+
+        Map.Entry<String, Long> other = new AbstractMap.SimpleEntry<>("ip:10.0.0.1", 7L);
+        Assert.assertEquals(7L, processor.process(other));
+    }
+
+    private void start() {
+        tested = new RateLimiter(hazelcast, properties, clock::get);
+        tested.start();
+    }
+}
@@ -0,0 +1,65 @@
+package com.iyzico.challenge.integrator.service.ratelimit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void tryAcquire_Burst() {
+        TokenBucket bucket = new TokenBucket(1, 3, 0);
+
+        Assert.assertTrue(bucket.tryAcquire(0));
+        Assert.assertTrue(bucket.tryAcquire(0));
+        Assert.assertTrue(bucket.tryAcquire(0));
+        Assert.assertFalse(bucket.tryAcquire(0));
+        Assert.assertEquals(3, bucket.takeConsumed());
+        Assert.assertEquals(0, bucket.takeConsumed());
+    }
+
+    @Test
+    public void tryAcquire_Refill() {
+        TokenBucket bucket = new TokenBucket(2, 2, 0);
+        Assert.assertTrue(bucket.tryAcquire(0));
+        Assert.assertTrue(bucket.tryAcquire(0));
+        Assert.assertFalse(bucket.tryAcquire(SECOND / 4));
+
+        Assert.assertTrue(bucket.tryAcquire(SECOND / 2));
+        Assert.assertFalse(bucket.tryAcquire(SECOND / 2));
+
+        // never more than the burst
+        Assert.assertTrue(bucket.tryAcquire(10 * SECOND));
+        Assert.assertTrue(bucket.tryAcquire(10 * SECOND));
+        Assert.assertFalse(bucket.tryAcquire(10 * SECOND));
+    }
+
+    @Test
+    public void drain() {
+        TokenBucket bucket = new TokenBucket(1, 5, 0);
+        bucket.drain(4, 0);
+        Assert.assertTrue(bucket.tryAcquire(0));
+        Assert.assertFalse(bucket.tryAcquire(0));
+
+        bucket.drain(100, 0);
+        Assert.assertFalse(bucket.tryAcquire(SECOND / 2));
+        Assert.assertTrue(bucket.tryAcquire(SECOND));
+        Assert.assertEquals(2, bucket.takeConsumed());
+    }
+
+    @Test
+    public void isIdle() {
+        TokenBucket bucket = new TokenBucket(1, 2, 0);
+        Assert.assertTrue(bucket.isIdle(0));
+
+        bucket.tryAcquire(0);
+        Assert.assertFalse(bucket.isIdle(0));
+
+        // taken by a sync, the bucket is not full yet
+        bucket.takeConsumed();
+        Assert.assertFalse(bucket.isIdle(SECOND / 2));
+        Assert.assertTrue(bucket.isIdle(2 * SECOND));
+    }
+}
@@ -0,0 +1,98 @@
+package com.iyzico.challenge.integrator.service.search;
+
+import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ProductSearchIndexTest {
+    private ProductSearchIndex tested;
+
+    @Before
+    public void setup() {
+        tested = new ProductSearchIndex();
+        tested.index(product(1, "Kırmızı Kazak", "KZK-001"), "Yün kazak");
+        tested.index(product(2, "Mavi Gömlek", "GML-002"), "Kırmızı düğmeli pamuklu gömlek");
+        tested.index(product(3, "Kırmızı Gömlek", "GML-003"), null);
+    }
+
+    @Test
+    public void search_RanksNameBeforeDescription() {
+        Assert.assertEquals(Arrays.asList(3L, 1L, 2L), ids(tested.search("kırmızı", 10)));
+    }
+
+    @Test
+    public void search_AllTermsMustMatch() {
+        Assert.assertEquals(Arrays.asList(3L, 2L), ids(tested.search("kirmizi gomlek", 10)));
+    }
+
+    @Test
+    public void search_Prefix() {
+        Assert.assertEquals(Arrays.asList(3L, 2L), ids(tested.search("göm", 10)));
+        Assert.assertEquals(Collections.singletonList(1L), ids(tested.search("kzk", 10)));
+    }
+
+    @Test
+    public void search_ExactMatchBeforePrefix() {
+        tested.index(product(4, "Kazakistan Haritası", "HRT-004"), null);
+
+        Assert.assertEquals(Arrays.asList(1L, 4L), ids(tested.search("kazak", 10)));
+    }
+
+    @Test
+    public void search_Limit() {
+        Assert.assertEquals(Collections.singletonList(3L), ids(tested.search("kırmızı", 1)));
+    }
+
+    @Test
+    public void search_NoMatch() {
+        Assert.assertTrue(tested.search("ayakkabı", 10).isEmpty());
+        Assert.assertTrue(tested.search("kırmızı ayakkabı", 10).isEmpty());
+        Assert.assertTrue(tested.search(" ", 10).isEmpty());
+    }
+
+    @Test
+    public void index_Update() {
+        tested.index(product(1, "Siyah Kazak", "KZK-001"), null);
+
+        Assert.assertEquals(Collections.singletonList(1L), ids(tested.search("siyah", 10)));
+        Assert.assertEquals(Arrays.asList(3L, 2L), ids(tested.search("kırmızı", 10)));
+        Assert.assertTrue(tested.search("yün", 10).isEmpty());
+        Assert.assertEquals(3, tested.size());
+    }
+
+    @Test
+    public void remove() {
+        tested.remove(3);
+
+        Assert.assertEquals(Arrays.asList(1L, 2L), ids(tested.search("kırmızı", 10)));
+        Assert.assertEquals(2, tested.size());
+    }
+
+    @Test
+    public void clear() {
+        tested.clear();
+
+        Assert.assertTrue(tested.search("kırmızı", 10).isEmpty());
+        Assert.assertEquals(0, tested.size());
+    }
+
+    private static ProductDto product(long id, String name, String barcode) {
+        ProductDto dto = new ProductDto();
+        dto.setId(id);
+        dto.setName(name);
+        dto.setBarcode(barcode);
+        return dto;
+    }
+
+    private static List<Long> ids(List<ProductDto> products) {
+        return products.stream()
+                .map(ProductDto::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,180 @@
+package com.iyzico.challenge.integrator.service.search;
+
+import com.iyzico.challenge.integrator.data.entity.Product;
+import com.iyzico.challenge.integrator.data.service.ProductService;
+import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.mapper.ProductMapper;
+import mockit.Deencapsulation;
+import mockit.Injectable;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@RunWith(JMockit.class)
+public class ProductSearchServiceTest {
+    private ProductSearchService tested;
+
+    @Injectable
+    private ProductService productService;
+
+    @Injectable
+    private ProductMapper mapper;
+
+    @Injectable
+    private ProductSearchIndex index;
+
+    @Injectable
+    private PlatformTransactionManager manager;
+
+    @Before
+    public void setup() {
+        tested = new ProductSearchService(productService, mapper, index, manager);
+
+        TransactionTemplate readOnlyTransactionTemplate = new MockUp<TransactionTemplate>() {
+            @Mock
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        }.getMockInstance();
+        Deencapsulation.setField(tested, readOnlyTransactionTemplate);
+    }
+
+    @Test
+    public void search() {
+        List<ProductDto> dtos = Collections.singletonList(new ProductDto());
+        new StrictExpectations() {{
+            index.search("query", 20);
+            result = dtos;
+        }};
+
+        Assert.assertEquals(dtos, tested.search("query", 20));
+    }
+
+    @Test
+    public void search_LimitIsClamped() {
+        new StrictExpectations() {{
+            index.search("query", ProductSearchService.MAX_RESULTS);
+            result = Collections.emptyList();
+
+            index.search("query", 1);
+            result = Collections.emptyList();
+        }};
+
+        tested.search("query", 1000);
+        tested.search("query", -1);
+    }
+
+    @Test
+    public void rebuild() {
+        Product published = product(1, Product.Status.IN_STOCK);
+        Product unpublished = product(2, Product.Status.UNPUBLISHED);
+        Product outOfStock = product(3, Product.Status.OUT_OF_STOCK);
+        Map<Long, String> descriptions = Collections.singletonMap(1L, "description");
+        ProductDto first = new ProductDto();
+        ProductDto third = new ProductDto();
+        new StrictExpectations() {{
+            productService.streamAllItems();
+            result = Arrays.asList(published, unpublished, outOfStock).stream();
+
+            productService.getDescriptions(Arrays.asList(1L, 3L));
+            result = descriptions;
+
+            mapper.map(published);
+            result = first;
+
+            index.index(first, "description");
+
+            mapper.map(outOfStock);
+            result = third;
+
+            index.index(third, null);
+
+            index.size();
+            result = 2;
+        }};
+
+        tested.rebuild();
+    }
+
+    // the change arrives after the batch was read and before it is indexed, the product is read again at the end
+    @Test
+    public void rebuild_ChangedWhileRunning() {
+        Product published = product(1, Product.Status.IN_STOCK);
+        Product changed = product(1, Product.Status.UNPUBLISHED);
+        ProductDto dto = new ProductDto();
+        new StrictExpectations() {{
+            productService.streamAllItems();
+            result = Stream.of(published).peek(x -> tested.onProductsChanged(Collections.singletonList(1L)));
+
+            productService.getByIds(Collections.singletonList(1L));
+            result = Collections.singletonList(changed);
+
+            index.remove(1L);
+
+            productService.getDescriptions(Collections.singletonList(1L));
+            result = Collections.emptyMap();
+
+            mapper.map(published);
+            result = dto;
+
+            index.index(dto, null);
+
+            productService.getByIds(Collections.singleton(1L));
+            result = Collections.singletonList(changed);
+
+            index.remove(1L);
+
+            index.size();
+            result = 0;
+        }};
+
+        tested.rebuild();
+        Assert.assertNull(Deencapsulation.getField(tested, "changedDuringRebuild"));
+    }
+
+    @Test
+    public void onProductsChanged() {
+        Product published = product(1, Product.Status.IN_STOCK);
+        Product unpublished = product(2, Product.Status.UNPUBLISHED);
+        ProductDto dto = new ProductDto();
+        List<Long> productIds = Arrays.asList(1L, 2L, 3L);
+        new StrictExpectations() {{
+            productService.getByIds(productIds);
+            result = Arrays.asList(published, unpublished);
+
+            productService.getDescriptions(Collections.singletonList(1L));
+            result = Collections.emptyMap();
+
+            mapper.map(published);
+            result = dto;
+
+            index.index(dto, null);
+
+            index.remove(2L);
+            index.remove(3L);
+        }};
+
+        tested.onProductsChanged(productIds);
+    }
+
+    private static Product product(long id, Product.Status status) {
+        Product product = new Product();
+        product.setId(id);
+        product.setStatus(status);
+        return product;
+    }
+}
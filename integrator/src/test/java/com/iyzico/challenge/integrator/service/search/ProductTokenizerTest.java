@@ -0,0 +1,26 @@
+package com.iyzico.challenge.integrator.service.search;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ProductTokenizerTest {
+    @Test
+    public void tokenize() {
+        Assert.assertEquals(Arrays.asList("apple", "iphone", "x", "64gb"), ProductTokenizer.tokenize("Apple iPhone-X (64GB)"));
+    }
+
+    @Test
+    public void tokenize_Turkish() {
+        Assert.assertEquals(Arrays.asList("isik", "isik", "isik"), ProductTokenizer.tokenize("IŞIK ışık isik"));
+        Assert.assertEquals(Arrays.asList("istanbul", "cogus", "gozluk"), ProductTokenizer.tokenize("İSTANBUL çöğüş gözlük"));
+    }
+
+    @Test
+    public void tokenize_Empty() {
+        Assert.assertEquals(Collections.emptyList(), ProductTokenizer.tokenize(null));
+        Assert.assertEquals(Collections.emptyList(), ProductTokenizer.tokenize(" - "));
+    }
+}
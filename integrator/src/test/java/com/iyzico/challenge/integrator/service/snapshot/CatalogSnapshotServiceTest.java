@@ -0,0 +1,168 @@
+package com.iyzico.challenge.integrator.service.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iyzico.challenge.integrator.data.entity.Product;
+import com.iyzico.challenge.integrator.data.service.ProductService;
+import com.iyzico.challenge.integrator.dto.ListResponse;
+import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.mapper.ProductMapper;
+import mockit.Deencapsulation;
+import mockit.Expectations;
+import mockit.Injectable;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+@RunWith(JMockit.class)
+public class CatalogSnapshotServiceTest {
+    private CatalogSnapshotService tested;
+
+    @Injectable
+    private ProductService productService;
+
+    @Injectable
+    private ProductMapper mapper;
+
+    @Injectable
+    private PlatformTransactionManager manager;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        tested = new CatalogSnapshotService(productService, mapper, objectMapper, manager);
+
+        TransactionTemplate readOnlyTransactionTemplate = new MockUp<TransactionTemplate>() {
+            @Mock
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        }.getMockInstance();
+        Deencapsulation.setField(tested, readOnlyTransactionTemplate);
+        Deencapsulation.setField(tested, "executor", new MockUp<ExecutorService>() {
+            @Mock
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }.getMockInstance());
+    }
+
+    @Test
+    public void stop() {
+        tested.start();
+        ExecutorService executor = Deencapsulation.getField(tested, "executor");
+
+        tested.stop();
+        Assert.assertTrue(executor.isShutdown());
+    }
+
+    @Test
+    public void getSnapshot() throws IOException {
+        List<ProductDto> dtos = products("first");
+        expectRebuild(dtos);
+
+        CatalogSnapshot snapshot = tested.getSnapshot();
+        Assert.assertSame(snapshot, tested.getSnapshot());
+        Assert.assertEquals(1, snapshot.getSize());
+
+        byte[] expected = objectMapper.writeValueAsBytes(new ListResponse<>(dtos));
+        Assert.assertArrayEquals(expected, write(snapshot, false));
+        Assert.assertEquals(expected.length, snapshot.getLength(false));
+
+        byte[] gzip = write(snapshot, true);
+        Assert.assertEquals(gzip.length, snapshot.getLength(true));
+        Assert.assertArrayEquals(expected, StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(gzip))));
+    }
+
+    @Test
+    public void getSnapshot_Etag() {
+        expectRebuild(products("first"), products("first"), products("second"));
+        CatalogSnapshot first = tested.getSnapshot();
+
+        tested.rebuild();
+        CatalogSnapshot same = tested.getSnapshot();
+
+        tested.rebuild();
+        CatalogSnapshot changed = tested.getSnapshot();
+
+        Assert.assertTrue(first.getEtag(false).startsWith("\""));
+        Assert.assertTrue(first.getEtag(false).endsWith("\""));
+        Assert.assertNotEquals(first.getEtag(false), first.getEtag(true));
+        Assert.assertEquals(first.getEtag(false), same.getEtag(false));
+        Assert.assertNotEquals(first.getEtag(false), changed.getEtag(false));
+    }
+
+    @Test
+    public void onProductsChanged() {
+        expectRebuild(products("first"), products("second"));
+        CatalogSnapshot first = tested.getSnapshot();
+
+        tested.onProductsChanged(Collections.singletonList(1L));
+
+        Assert.assertNotSame(first, tested.getSnapshot());
+        Assert.assertFalse(Deencapsulation.<AtomicBoolean>getField(tested, "rebuildScheduled").get());
+    }
+
+    @Test
+    public void onProductsChanged_RebuildIsCoalesced() {
+        Deencapsulation.setField(tested, "executor", new MockUp<ExecutorService>() {
+            @Mock
+            public void execute(Runnable command) {
+            }
+        }.getMockInstance());
+
+        new Expectations() {{
+            productService.getAllPublishedItems();
+            times = 0;
+        }};
+
+        tested.onProductsChanged(Collections.singletonList(1L));
+        tested.onProductsChanged(Collections.singletonList(2L));
+        Assert.assertTrue(Deencapsulation.<AtomicBoolean>getField(tested, "rebuildScheduled").get());
+    }
+
+    @SafeVarargs
+    private final void expectRebuild(List<ProductDto>... builds) {
+        Iterable<Product> products = Collections.emptyList();
+        new StrictExpectations() {{
+            for (List<ProductDto> dtos : builds) {
+                productService.getAllPublishedItems();
+                result = products;
+
+                mapper.map(products);
+                result = dtos;
+            }
+        }};
+    }
+
+    private static List<ProductDto> products(String name) {
+        ProductDto dto = new ProductDto();
+        dto.setId(1);
+        dto.setName(name);
+        return Collections.singletonList(dto);
+    }
+
+    private static byte[] write(CatalogSnapshot snapshot, boolean gzipped) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.writeTo(out, gzipped);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,181 @@
+package com.iyzico.challenge.integrator.service.stock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iyzico.challenge.integrator.data.entity.Product;
+import com.iyzico.challenge.integrator.data.service.ProductService;
+import com.iyzico.challenge.integrator.dto.product.ProductDto;
+import com.iyzico.challenge.integrator.dto.product.StockLevelDto;
+import com.iyzico.challenge.integrator.exception.InvalidStockSubscriptionException;
+import com.iyzico.challenge.integrator.mapper.ProductMapper;
+import com.iyzico.challenge.integrator.properties.StockStreamProperties;
+import mockit.Injectable;
+import mockit.Invocation;
+import mockit.Mock;
+import mockit.MockUp;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(JMockit.class)
+public class StockStreamServiceTest {
+    private StockStreamService tested;
+
+    @Injectable
+    private ProductService productService;
+
+    @Injectable
+    private ProductMapper mapper;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<String> sent = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        StockStreamProperties properties = new StockStreamProperties();
+        properties.setMaxProductsPerSubscription(2);
+        tested = new StockStreamService(productService, mapper, objectMapper, properties);
+
+        new MockUp<SseEmitter>() {
+            @Mock
+            public void send(Invocation invocation, SseEmitter.SseEventBuilder builder) throws IOException {
+                StringBuilder event = new StringBuilder();
+                for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                    event.append(data.getData());
+                }
+
+                if (event.indexOf("\"id\":3") >= 0) {
+                    throw new IOException("closed");
+                }
+
+                sent.add(event.toString());
+            }
+        };
+    }
+
+    @Test
+    public void subscribe() throws IOException {
+        Product product = product(1);
+        StockLevelDto dto = stockLevel(1, 5);
+        new StrictExpectations() {{
+            productService.getByIds((Collection<Long>) any);
+            result = Collections.singletonList(product);
+
+            mapper.mapStockLevel(product);
+            result = dto;
+        }};
+
+        tested.subscribe(Arrays.asList(1L, 2L));
+        Assert.assertEquals(1, tested.getWatcherCount(1));
+        Assert.assertEquals(1, tested.getWatcherCount(2));
+
+        tested.flush();
+        tested.flush();
+        Assert.assertEquals(Collections.singletonList("event:stock\nid:1\ndata:" + objectMapper.writeValueAsString(dto) + "\n\n"), sent);
+    }
+
+    @Test
+    public void onProductsChanged() {
+        Product product = product(1);
+        StockLevelDto dto = stockLevel(1, 5);
+        new StrictExpectations() {{
+            productService.getByIds((Collection<Long>) any);
+            result = Collections.singletonList(product);
+
+            mapper.mapStockLevel(product);
+            result = dto;
+
+            productService.getByIds(Collections.singletonList(1L));
+            result = Collections.singletonList(product);
+
+            mapper.mapStockLevel(product);
+            result = dto;
+        }};
+
+        tested.subscribe(Collections.singletonList(1L));
+        tested.subscribe(Collections.singletonList(1L));
+        tested.flush();
+        Assert.assertEquals(2, sent.size());
+
+        tested.onProductsChanged(Arrays.asList(1L, 4L));
+        tested.onProductsChanged(Collections.singletonList(1L));
+        tested.flush();
+        Assert.assertEquals(4, sent.size());
+    }
+
+    @Test
+    public void onProductsChanged_NotWatched() {
+        tested.onProductsChanged(Collections.singletonList(1L));
+        tested.flush();
+        Assert.assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    public void flush_ClosedStream() {
+        Product product = product(3);
+        StockLevelDto dto = stockLevel(3, 5);
+        new StrictExpectations() {{
+            productService.getByIds(Collections.singletonList(3L));
+            result = Collections.singletonList(product);
+
+            mapper.mapStockLevel(product);
+            result = dto;
+        }};
+
+        tested.subscribe(Collections.singletonList(3L));
+        tested.flush();
+        Assert.assertEquals(0, tested.getWatcherCount(3));
+        Assert.assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    public void flush_Unpublished() {
+        Product product = product(1);
+        product.setStatus(Product.Status.UNPUBLISHED);
+        new StrictExpectations() {{
+            productService.getByIds(Collections.singletonList(1L));
+            result = Collections.singletonList(product);
+        }};
+
+        tested.subscribe(Collections.singletonList(1L));
+        tested.flush();
+        Assert.assertEquals(1, tested.getWatcherCount(1));
+        Assert.assertTrue(sent.isEmpty());
+    }
+
+    @Test(expected = InvalidStockSubscriptionException.class)
+    public void subscribe_TooManyProducts() {
+        tested.subscribe(Arrays.asList(1L, 2L, 3L));
+    }
+
+    @Test(expected = InvalidStockSubscriptionException.class)
+    public void subscribe_NoProducts() {
+        tested.subscribe(Collections.emptyList());
+    }
+
+    private static Product product(long id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+
+    private static StockLevelDto stockLevel(long id, long stockCount) {
+        StockLevelDto dto = new StockLevelDto();
+        dto.setId(id);
+        dto.setStockCount(stockCount);
+        dto.setStatus(ProductDto.Status.IN_STOCK);
+        return dto;
+    }
+}
@@ -0,0 +1,32 @@
+package com.iyzico.challenge.integrator.service.token;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloomFilterTest {
+    @Test
+    public void mightContain() {
+        BloomFilter tested = new BloomFilter(1 << 16, 4);
+        for (int i = 0; i < 1000; i++) {
+            tested.put("token-" + i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(tested.mightContain("token-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 1000; i < 11000; i++) {
+            if (tested.mightContain("token-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        Assert.assertTrue("false positives: " + falsePositives, falsePositives < 100);
+    }
+
+    @Test
+    public void mightContain_Empty() {
+        Assert.assertFalse(new BloomFilter(1024, 4).mightContain("token"));
+    }
+}
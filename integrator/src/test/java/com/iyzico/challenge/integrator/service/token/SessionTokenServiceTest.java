@@ -0,0 +1,175 @@
+package com.iyzico.challenge.integrator.service.token;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.properties.SessionTokenProperties;
+import mockit.Expectations;
+import mockit.Injectable;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(JMockit.class)
+public class SessionTokenServiceTest {
+    private SessionTokenService tested;
+
+    @Injectable
+    private HazelcastInstance hazelcast;
+
+    @Mocked
+    private IMap<String, Long> revocations;
+
+    private SessionTokenProperties properties = new SessionTokenProperties();
+
+    private AtomicLong clock = new AtomicLong();
+
+    private LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    @Before
+    public void setup() {
+        properties.setEnabled(true);
+        properties.setSecret("0123456789abcdef0123456789abcdef");
+        properties.setTtlSeconds(60);
+        clock.set(now.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+
+        new NonStrictExpectations() {{
+            hazelcast.getMap("integrator.session.revoked");
+            result = revocations;
+
+            revocations.keySet();
+            result = Collections.emptySet();
+        }};
+
+        tested = new SessionTokenService(hazelcast, properties, clock::get);
+        tested.start();
+    }
+
+    @Test
+    public void verify() {
+        SessionToken result = tested.verify(tested.issue(user(), now));
+        Assert.assertNotNull(result);
+        Assert.assertEquals(1, result.getUserId());
+        Assert.assertEquals(2, result.getUserProfileId());
+        Assert.assertTrue(result.isAdmin());
+        Assert.assertEquals(now, result.getIssuedAt());
+        Assert.assertEquals(now.plusSeconds(60), result.getExpiresAt());
+    }
+
+    @Test
+    public void verify_Tampered() {
+        String token = tested.issue(user(), now);
+        char replaced = token.charAt(3) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, 3) + replaced + token.substring(4);
+
+        Assert.assertNull(tested.verify(tampered));
+        Assert.assertNull(tested.verify("not.a-token"));
+        Assert.assertNull(tested.verify("sessionKey"));
+    }
+
+    @Test
+    public void verify_SignedWithAnotherSecret() {
+        SessionTokenProperties other = new SessionTokenProperties();
+        other.setEnabled(true);
+        other.setSecret("fedcba9876543210fedcba9876543210");
+        String token = new SessionTokenService(hazelcast, other, clock::get).issue(user(), now);
+
+        Assert.assertNull(tested.verify(token));
+    }
+
+    @Test
+    public void verify_Expired() {
+        String token = tested.issue(user(), now);
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(60));
+
+        Assert.assertNull(tested.verify(token));
+    }
+
+    @Test
+    public void revoke() {
+        String token = tested.issue(user(), now);
+        String id = token.substring(token.indexOf('.') + 1);
+        long expiresAt = now.plusSeconds(60).atZone(ZoneId.systemDefault()).toEpochSecond();
+
+        new StrictExpectations() {{
+            revocations.put(id, expiresAt, 60, TimeUnit.SECONDS);
+
+            revocations.containsKey(id);
+            result = true;
+        }};
+
+        tested.revoke(token);
+        Assert.assertNull(tested.verify(token));
+    }
+
+    @Test
+    public void verify_NotRevokedTokenSkipsTheMap() {
+        String token = tested.issue(user(), now);
+
+        new Expectations() {{
+            revocations.containsKey(anyString);
+            times = 0;
+        }};
+
+        Assert.assertNotNull(tested.verify(token));
+    }
+
+    @Test
+    public void rebuild() {
+        String token = tested.issue(user(), now);
+        String id = token.substring(token.indexOf('.') + 1);
+
+        new StrictExpectations() {{
+            revocations.keySet();
+            result = Collections.singleton(id);
+
+            revocations.containsKey(id);
+            result = true;
+        }};
+
+        tested.rebuild();
+        Assert.assertNull(tested.verify(token));
+    }
+
+    @Test
+    public void disabled() {
+        properties.setEnabled(false);
+        SessionTokenService disabled = new SessionTokenService(hazelcast, properties, clock::get);
+        disabled.start();
+
+        Assert.assertFalse(disabled.isEnabled());
+        Assert.assertNull(disabled.verify(tested.issue(user(), now)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void constructor_ShortSecret() {
+        properties.setSecret("secret");
+        new SessionTokenService(hazelcast, properties, clock::get);
+    }
+
+    @Test
+    public void isToken() {
+        Assert.assertTrue(SessionTokenService.isToken("payload.signature"));
+        Assert.assertFalse(SessionTokenService.isToken("0123456789abcdef"));
+        Assert.assertFalse(SessionTokenService.isToken(null));
+    }
+
+    private User user() {
+        User user = new User();
+        user.setId(1);
+        user.setUserProfileId(2);
+        user.setAdmin(true);
+        return user;
+    }
+}
@@ -0,0 +1,95 @@
+package com.iyzico.challenge.integrator.session;
+
+import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.properties.RateLimitProperties;
+import com.iyzico.challenge.integrator.service.ratelimit.RateLimiter;
+import com.iyzico.challenge.integrator.session.model.ApiSession;
+import com.iyzico.challenge.integrator.session.model.UserSession;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.LocalDateTime;
+
+// rough cost of the interceptor per request, the loops are long enough for the jit to settle. the numbers are only
+// logged, the build machines are too different for a threshold
+public class SecurityInterceptorBenchmarkIT {
+    private static final Logger log = LoggerFactory.getLogger(SecurityInterceptorBenchmarkIT.class);
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    private final SecurityInterceptor tested = new SecurityInterceptor(new RateLimiter(null, disabledLimits()));
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    public void notSecured() throws Exception {
+        HandlerMethod handler = new HandlerMethod(new PublicController(), "get");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        measure("not secured", request, handler);
+    }
+
+    @Test
+    public void allowAnonymous() throws Exception {
+        HandlerMethod handler = new HandlerMethod(new SecuredController(), "anonymous");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        measure("anonymous", request, handler);
+    }
+
+    @Test
+    public void requireAdminPermission() throws Exception {
+        HandlerMethod handler = new HandlerMethod(new SecuredController(), "admin");
+        User user = new User();
+        user.setId(1);
+        user.setAdmin(true);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(new ApiSession(new UserSession(null, "sessionKey", user, LocalDateTime.now(), LocalDateTime.now()),
+                response, request.getServletContext(), false));
+
+        measure("admin", request, handler);
+    }
+
+    private void measure(String name, MockHttpServletRequest request, HandlerMethod handler) {
+        run(request, handler, WARMUP);
+
+        long start = System.nanoTime();
+        run(request, handler, ITERATIONS);
+        long nanosPerRequest = (System.nanoTime() - start) / ITERATIONS;
+
+        log.info("SecurityInterceptor {}: {} ns per request", name, nanosPerRequest);
+    }
+
+    // the loops would run out of tokens, only the interceptor itself is measured
+    private static RateLimitProperties disabledLimits() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setEnabled(false);
+        return properties;
+    }
+
+    private void run(MockHttpServletRequest request, HandlerMethod handler, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            Assert.assertTrue(tested.preHandle(request, response, handler));
+        }
+    }
+
+    public static class PublicController {
+        public void get() {
+        }
+    }
+
+    @SecuredEndpoint
+    public static class SecuredController {
+        @SecuredEndpoint(isAllowAnonymous = true)
+        public void anonymous() {
+        }
+
+        @SecuredEndpoint(requireAdminPermission = true)
+        public void admin() {
+        }
+    }
+}
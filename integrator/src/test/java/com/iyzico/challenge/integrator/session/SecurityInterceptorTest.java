@@ -3,8 +3,12 @@ package com.iyzico.challenge.integrator.session;
 import com.iyzico.challenge.integrator.controller.ProductController;
 import com.iyzico.challenge.integrator.controller.management.ManageProductController;
 import com.iyzico.challenge.integrator.data.entity.User;
+import com.iyzico.challenge.integrator.exception.TooManyRequestsException;
 import com.iyzico.challenge.integrator.exception.auth.AuthorizationException;
+import com.iyzico.challenge.integrator.service.ratelimit.RateLimiter;
 import com.iyzico.challenge.integrator.session.model.ApiSession;
+import mockit.Expectations;
+import mockit.Injectable;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
 import mockit.StrictExpectations;
@@ -24,6 +28,9 @@ public class SecurityInterceptorTest {
     @Tested
     private SecurityInterceptor tested;
 
+    @Injectable
+    private RateLimiter rateLimiter;
+
     @Test
     public void preHandle_NotSecured(@Mocked HttpServletRequest request,
                                      @Mocked HttpServletResponse response,
@@ -151,9 +158,15 @@ public class SecurityInterceptorTest {
 
             user.isAdmin();
             result = false;
+
+            user.getId();
+            result = 1L;
         }};
 
         new StrictExpectations() {{
+            rateLimiter.tryAcquireUser(1L);
+            result = true;
+
             request.setAttribute(SecurityInterceptor.SESSION, session);
         }};
 
@@ -184,13 +197,73 @@ public class SecurityInterceptorTest {
 
             user.isAdmin();
             result = true;
+
+            user.getId();
+            result = 1L;
         }};
 
         new StrictExpectations() {{
+            rateLimiter.tryAcquireUser(1L);
+            result = true;
+
             request.setAttribute(SecurityInterceptor.SESSION, session);
         }};
 
         boolean result = tested.preHandle(request, response, handlerMethod);
         Assert.assertTrue(result);
     }
-}
\ No newline at end of file
+
+    @Test(expected = TooManyRequestsException.class)
+    public void preHandle_UserLimited(@Mocked HttpServletRequest request,
+                                      @Mocked HttpServletResponse response,
+                                      @Mocked HandlerMethod handlerMethod,
+                                      @Mocked ApiSession session,
+                                      @Mocked User user) {
+
+
+        new NonStrictExpectations() {{
+            handlerMethod.getMethodAnnotation(SecuredEndpoint.class);
+            result = null;
+
+            handlerMethod.getBeanType();
+            result = ProductController.class;
+
+            request.getSession(false);
+            result = session;
+
+            session.getUser();
+            result = user;
+
+            user.getId();
+            result = 1L;
+        }};
+
+        new Expectations() {{
+            rateLimiter.tryAcquireUser(1L);
+            result = false;
+
+            request.setAttribute(SecurityInterceptor.SESSION, any);
+            times = 0;
+        }};
+
+        tested.preHandle(request, response, handlerMethod);
+    }
+
+    @Test
+    public void preHandle_SecurityConfigResolvedOnce(@Mocked HttpServletRequest request,
+                                                     @Mocked HttpServletResponse response,
+                                                     @Mocked HandlerMethod handlerMethod) {
+        new Expectations() {{
+            handlerMethod.getMethodAnnotation(SecuredEndpoint.class);
+            result = null;
+            times = 1;
+
+            handlerMethod.getBeanType();
+            result = Object.class;
+            times = 1;
+        }};
+
+        Assert.assertTrue(tested.preHandle(request, response, handlerMethod));
+        Assert.assertTrue(tested.preHandle(request, response, handlerMethod));
+    }
+}
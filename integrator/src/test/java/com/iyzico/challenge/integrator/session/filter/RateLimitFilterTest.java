@@ -0,0 +1,105 @@
+package com.iyzico.challenge.integrator.session.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iyzico.challenge.integrator.properties.RateLimitProperties;
+import com.iyzico.challenge.integrator.service.ratelimit.RateLimiter;
+import mockit.Injectable;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+@RunWith(JMockit.class)
+public class RateLimitFilterTest {
+    private RateLimitFilter tested;
+
+    @Injectable
+    private RateLimiter rateLimiter;
+
+    private RateLimitProperties properties = new RateLimitProperties();
+
+    private MockHttpServletRequest request = new MockHttpServletRequest();
+
+    private MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private MockFilterChain chain = new MockFilterChain();
+
+    @Before
+    public void setup() {
+        tested = new RateLimitFilter(rateLimiter, properties, new ObjectMapper());
+        request.setRemoteAddr("10.0.0.1");
+    }
+
+    @Test
+    public void doFilter() throws Exception {
+        new StrictExpectations() {{
+            rateLimiter.tryAcquireIp("10.0.0.1");
+            result = true;
+        }};
+
+        tested.doFilter(request, response, chain);
+        Assert.assertSame(request, chain.getRequest());
+        Assert.assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void doFilter_IpLimited() throws Exception {
+        new StrictExpectations() {{
+            rateLimiter.tryAcquireIp("10.0.0.1");
+            result = false;
+        }};
+
+        tested.doFilter(request, response, chain);
+        Assert.assertNull(chain.getRequest());
+        Assert.assertEquals(429, response.getStatus());
+        Assert.assertEquals(RateLimiter.RETRY_AFTER_SECONDS, response.getHeader(HttpHeaders.RETRY_AFTER));
+        Assert.assertTrue(response.getContentAsString().contains("\"code\":\"TOO_MANY_REQUESTS\""));
+    }
+
+    @Test
+    public void doFilter_ForwardedForFromUntrustedAddress() throws Exception {
+        request.addHeader("X-Forwarded-For", "1.2.3.4");
+
+        new StrictExpectations() {{
+            rateLimiter.tryAcquireIp("10.0.0.1");
+            result = true;
+        }};
+
+        tested.doFilter(request, response, chain);
+        Assert.assertSame(request, chain.getRequest());
+    }
+
+    @Test
+    public void getClientIp_TrustedProxy() {
+        properties.setTrustedProxies(new HashSet<>(Arrays.asList("10.0.0.1", "10.0.0.2")));
+        request.addHeader("X-Forwarded-For", "1.2.3.4, 5.6.7.8");
+        request.addHeader("X-Forwarded-For", "10.0.0.2");
+
+        // the left most hops are written by the client
+        Assert.assertEquals("5.6.7.8", tested.getClientIp(request));
+    }
+
+    @Test
+    public void getClientIp_TrustedProxyWithoutHeader() {
+        properties.setTrustedProxies(new HashSet<>(Arrays.asList("10.0.0.1")));
+
+        Assert.assertEquals("10.0.0.1", tested.getClientIp(request));
+    }
+
+    @Test
+    public void getClientIp_OnlyTrustedHops() {
+        properties.setTrustedProxies(new HashSet<>(Arrays.asList("10.0.0.1", "10.0.0.2")));
+        request.addHeader("X-Forwarded-For", "10.0.0.2");
+
+        Assert.assertEquals("10.0.0.2", tested.getClientIp(request));
+    }
+}
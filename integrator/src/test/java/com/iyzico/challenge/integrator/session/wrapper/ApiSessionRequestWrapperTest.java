@@ -0,0 +1,100 @@
+package com.iyzico.challenge.integrator.session.wrapper;
+
+import com.iyzico.challenge.integrator.service.SessionService;
+import com.iyzico.challenge.integrator.session.model.ApiSession;
+import com.iyzico.challenge.integrator.session.model.UserSession;
+import mockit.Expectations;
+import mockit.Injectable;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.StrictExpectations;
+import mockit.integration.junit4.JMockit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+
+@RunWith(JMockit.class)
+public class ApiSessionRequestWrapperTest {
+    @Injectable
+    private SessionService sessionService;
+
+    @Test
+    public void constructor_SessionNotResolved(@Mocked HttpServletRequest request,
+                                               @Mocked HttpServletResponse response) {
+        new NonStrictExpectations() {{
+            request.getHeaders(ApiSession.HEADER_SESSION_KEY);
+            result = Collections.enumeration(Collections.singletonList("sessionKey"));
+        }};
+
+        new Expectations() {{
+            sessionService.getSession(anyString);
+            times = 0;
+        }};
+
+        ApiSessionRequestWrapper tested = new ApiSessionRequestWrapper(sessionService, request, response);
+        Assert.assertEquals("sessionKey", tested.getRequestedSessionId());
+    }
+
+    @Test
+    public void getSession(@Mocked HttpServletRequest request,
+                           @Mocked HttpServletResponse response,
+                           @Mocked UserSession userSession) {
+        new NonStrictExpectations() {{
+            request.getHeaders(ApiSession.HEADER_SESSION_KEY);
+            result = Collections.enumeration(Collections.singletonList("sessionKey"));
+        }};
+
+        new StrictExpectations() {{
+            sessionService.getSession("sessionKey");
+            result = userSession;
+        }};
+
+        ApiSessionRequestWrapper tested = new ApiSessionRequestWrapper(sessionService, request, response);
+        ApiSession session = (ApiSession) tested.getSession();
+        Assert.assertNotNull(session);
+        Assert.assertSame(session, tested.getSession(false));
+    }
+
+    @Test
+    public void getSession_NotFound(@Mocked HttpServletRequest request,
+                                    @Mocked HttpServletResponse response) {
+        new NonStrictExpectations() {{
+            request.getHeaders(ApiSession.HEADER_SESSION_KEY);
+            result = Collections.enumeration(Collections.singletonList("sessionKey"));
+        }};
+
+        new StrictExpectations() {{
+            sessionService.getSession("sessionKey");
+            result = null;
+        }};
+
+        ApiSessionRequestWrapper tested = new ApiSessionRequestWrapper(sessionService, request, response);
+        Assert.assertNull(tested.getSession());
+        Assert.assertNull(tested.getSession());
+        Assert.assertFalse(tested.isRequestedSessionIdValid());
+    }
+
+    @Test
+    public void getSession_NoSessionKey(@Mocked HttpServletRequest request,
+                                        @Mocked HttpServletResponse response) {
+        new NonStrictExpectations() {{
+            request.getHeaders(ApiSession.HEADER_SESSION_KEY);
+            result = Collections.emptyEnumeration();
+
+            request.getCookies();
+            result = null;
+        }};
+
+        new Expectations() {{
+            sessionService.getSession(anyString);
+            times = 0;
+        }};
+
+        ApiSessionRequestWrapper tested = new ApiSessionRequestWrapper(sessionService, request, response);
+        Assert.assertNull(tested.getSession());
+    }
+}
@@ -0,0 +1,28 @@
+package com.iyzico.challenge.integrator.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HttpUtilsTest {
+    @Test
+    public void acceptsGzip() {
+        Assert.assertTrue(HttpUtils.acceptsGzip("gzip"));
+        Assert.assertTrue(HttpUtils.acceptsGzip("deflate, GZIP"));
+        Assert.assertTrue(HttpUtils.acceptsGzip("br;q=1.0, gzip;q=0.8"));
+        Assert.assertTrue(HttpUtils.acceptsGzip("x-gzip"));
+        Assert.assertTrue(HttpUtils.acceptsGzip("*"));
+    }
+
+    @Test
+    public void acceptsGzip_NotAccepted() {
+        Assert.assertFalse(HttpUtils.acceptsGzip(null));
+        Assert.assertFalse(HttpUtils.acceptsGzip(""));
+        Assert.assertFalse(HttpUtils.acceptsGzip("identity"));
+        Assert.assertFalse(HttpUtils.acceptsGzip("gzip;q=0"));
+        Assert.assertFalse(HttpUtils.acceptsGzip("gzip; q=0.000, deflate"));
+        Assert.assertFalse(HttpUtils.acceptsGzip("gzip;q=invalid"));
+        Assert.assertFalse(HttpUtils.acceptsGzip("*;q=0"));
+        Assert.assertFalse(HttpUtils.acceptsGzip("gzip;q=0, *"));
+        Assert.assertFalse(HttpUtils.acceptsGzip("gzipped"));
+    }
+}
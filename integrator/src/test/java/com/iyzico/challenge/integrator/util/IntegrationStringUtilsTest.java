@@ -0,0 +1,35 @@
+package com.iyzico.challenge.integrator.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+
+public class IntegrationStringUtilsTest {
+    @Test
+    public void generate() {
+        String result = IntegrationStringUtils.generate(32);
+        Assert.assertEquals(43, result.length());
+        Assert.assertTrue(result, result.matches("[A-Za-z0-9_-]+"));
+        Assert.assertEquals(32, Base64.getUrlDecoder().decode(result).length);
+    }
+
+    @Test
+    public void generate_Lengths() {
+        for (int length = 0; length < 10; length++) {
+            String result = IntegrationStringUtils.generate(length);
+            Assert.assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(Base64.getUrlDecoder().decode(result)), result);
+            Assert.assertEquals(length, Base64.getUrlDecoder().decode(result).length);
+        }
+    }
+
+    @Test
+    public void generate_Unique() {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            Assert.assertTrue(keys.add(IntegrationStringUtils.generate(32)));
+        }
+    }
+}